@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.querycache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.common.utils.HashUtil;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code QueryResultCache} caches the server responses (serialized data tables) of the queries on the OFFLINE
+ * tables, so that repeated queries (e.g. from dashboards) can be reduced on the broker without querying the servers.
+ * <p>The cache key contains the routing version of the table (see {@link
+ * org.apache.pinot.broker.routing.RoutingManager#getRoutingVersion(String)}), which changes whenever the external view
+ * of the table changes or a segment is refreshed, so that the entries for the old version are never hit and will be
+ * evicted by the size-bounded (LRU) eviction policy.
+ * <p>REALTIME tables are not cached because the consuming segments keep changing without routing change. For hybrid
+ * tables, only the OFFLINE part (below the time boundary) is cached.
+ */
+@ThreadSafe
+public class QueryResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+  private final Cache<CacheKey, CacheValue> _cache;
+
+  public QueryResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CacheValue value) -> key.getSizeInBytes() + value._sizeInBytes).build();
+  }
+
+  /**
+   * Returns {@code true} if the server responses of the given broker request can be cached.
+   */
+  public static boolean isCacheable(BrokerRequest brokerRequest) {
+    if (brokerRequest.isEnableTrace()) {
+      return false;
+    }
+    Map<String, String> queryOptions = brokerRequest.getQueryOptions();
+    return queryOptions == null || !Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_RESULT_CACHE));
+  }
+
+  /**
+   * Returns the cache key for the given OFFLINE table, routing version and broker request.
+   * <p>NOTE: Should be called before setting the timeout into the query options, which changes per query.
+   */
+  public static CacheKey getCacheKey(String offlineTableName, long routingVersion, BrokerRequest brokerRequest) {
+    return new CacheKey(offlineTableName, routingVersion, brokerRequest.toString());
+  }
+
+  /**
+   * Returns the cached server responses for the given cache key, or {@code null} if it is not cached.
+   */
+  @Nullable
+  public Map<ServerRoutingInstance, DataTable> get(CacheKey cacheKey) {
+    CacheValue cacheValue = _cache.getIfPresent(cacheKey);
+    if (cacheValue == null) {
+      return null;
+    }
+    Map<ServerRoutingInstance, byte[]> serializedDataTables = cacheValue._serializedDataTables;
+    Map<ServerRoutingInstance, DataTable> dataTableMap =
+        new HashMap<>(HashUtil.getHashMapCapacity(serializedDataTables.size()));
+    try {
+      for (Map.Entry<ServerRoutingInstance, byte[]> entry : serializedDataTables.entrySet()) {
+        dataTableMap.put(entry.getKey(), DataTableFactory.getDataTable(ByteBuffer.wrap(entry.getValue())));
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while deserializing cached data tables for table: {}, invalidating the entry",
+          cacheKey._tableName, e);
+      _cache.invalidate(cacheKey);
+      return null;
+    }
+    return dataTableMap;
+  }
+
+  /**
+   * Caches the server responses for the given cache key. The caller should ensure that all the servers responded
+   * without exception.
+   */
+  public void put(CacheKey cacheKey, Map<ServerRoutingInstance, DataTable> dataTableMap) {
+    Map<ServerRoutingInstance, byte[]> serializedDataTables =
+        new HashMap<>(HashUtil.getHashMapCapacity(dataTableMap.size()));
+    long sizeInBytes = 0;
+    try {
+      for (Map.Entry<ServerRoutingInstance, DataTable> entry : dataTableMap.entrySet()) {
+        byte[] bytes = entry.getValue().toBytes();
+        serializedDataTables.put(entry.getKey(), bytes);
+        sizeInBytes += bytes.length;
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing data tables for table: {}, skipping caching",
+          cacheKey._tableName, e);
+      return;
+    }
+    _cache.put(cacheKey, new CacheValue(serializedDataTables, (int) Math.min(sizeInBytes, Integer.MAX_VALUE)));
+  }
+
+  /**
+   * Returns the number of cached entries.
+   */
+  public long size() {
+    return _cache.size();
+  }
+
+  public static class CacheKey {
+    private final String _tableName;
+    private final long _routingVersion;
+    private final String _serializedBrokerRequest;
+
+    private CacheKey(String tableName, long routingVersion, String serializedBrokerRequest) {
+      _tableName = tableName;
+      _routingVersion = routingVersion;
+      _serializedBrokerRequest = serializedBrokerRequest;
+    }
+
+    int getSizeInBytes() {
+      // Strings are stored as UTF-16 chars
+      return 2 * (_tableName.length() + _serializedBrokerRequest.length()) + Long.BYTES;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return _routingVersion == cacheKey._routingVersion && _tableName.equals(cacheKey._tableName)
+          && _serializedBrokerRequest.equals(cacheKey._serializedBrokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_tableName, _routingVersion, _serializedBrokerRequest);
+    }
+  }
+
+  private static class CacheValue {
+    final Map<ServerRoutingInstance, byte[]> _serializedDataTables;
+    final int _sizeInBytes;
+
+    CacheValue(Map<ServerRoutingInstance, byte[]> serializedDataTables, int sizeInBytes) {
+      _serializedDataTables = serializedDataTables;
+      _sizeInBytes = sizeInBytes;
+    }
+  }
+}
@@ -44,6 +44,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.pinot.broker.api.RequestStatistics;
 import org.apache.pinot.broker.api.RequesterIdentity;
 import org.apache.pinot.broker.broker.AccessControlFactory;
+import org.apache.pinot.broker.querycache.QueryResultCache;
 import org.apache.pinot.broker.queryquota.QueryQuotaManager;
 import org.apache.pinot.broker.routing.RoutingManager;
 import org.apache.pinot.broker.routing.RoutingTable;
@@ -74,6 +75,7 @@ import org.apache.pinot.common.response.broker.ResultTable;
 import org.apache.pinot.common.utils.CommonConstants;
 import org.apache.pinot.common.utils.CommonConstants.Broker;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.common.utils.helix.TableCache;
 import org.apache.pinot.common.utils.request.RequestUtils;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
@@ -83,6 +85,7 @@ import org.apache.pinot.core.requesthandler.BrokerRequestOptimizer;
 import org.apache.pinot.core.requesthandler.PinotQueryParserFactory;
 import org.apache.pinot.core.requesthandler.PinotQueryRequest;
 import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
 import org.apache.pinot.core.util.QueryOptions;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -109,6 +112,8 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
   protected final AtomicLong _requestIdGenerator = new AtomicLong();
   protected final BrokerRequestOptimizer _brokerRequestOptimizer = new BrokerRequestOptimizer();
   protected final BrokerReduceService _brokerReduceService;
+  // Cache for the OFFLINE server responses, null if the query result cache is not enabled
+  protected final QueryResultCache _queryResultCache;
 
   protected final String _brokerId;
   protected final long _brokerTimeoutMs;
@@ -152,6 +157,14 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     _numDroppedLogRateLimiter = RateLimiter.create(1.0);
 
     _brokerReduceService = new BrokerReduceService(_config);
+    if (_config.getProperty(Broker.CONFIG_OF_ENABLE_QUERY_RESULT_CACHE, Broker.DEFAULT_ENABLE_QUERY_RESULT_CACHE)) {
+      long maxSizeInBytes = _config.getProperty(Broker.CONFIG_OF_QUERY_RESULT_CACHE_MAX_SIZE_BYTES,
+          Broker.DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE_BYTES);
+      _queryResultCache = new QueryResultCache(maxSizeInBytes);
+      LOGGER.info("Enabled query result cache with max size: {} bytes", maxSizeInBytes);
+    } else {
+      _queryResultCache = null;
+    }
     LOGGER
         .info("Broker Id: {}, timeout: {}ms, query response limit: {}, query log length: {}, query log max rate: {}qps",
             _brokerId, _brokerTimeoutMs, _queryResponseLimit, _queryLogLength, _queryLogRateLimiter.getRate());
@@ -330,24 +343,48 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
       requestStatistics.setFanoutType(RequestStatistics.FanoutType.REALTIME);
     }
 
+    // Look up the query result cache for the OFFLINE table
+    // NOTE: The cache key should be calculated before setting the query timeout, and the routing version should be read
+    //       before calculating the routing table so that the cached result is not newer than the routing version.
+    QueryResultCache.CacheKey offlineCacheKey = null;
+    Map<ServerRoutingInstance, DataTable> cachedOfflineDataTables = null;
+    if (_queryResultCache != null && offlineBrokerRequest != null && QueryResultCache
+        .isCacheable(offlineBrokerRequest)) {
+      offlineCacheKey = QueryResultCache
+          .getCacheKey(offlineTableName, _routingManager.getRoutingVersion(offlineTableName), offlineBrokerRequest);
+      cachedOfflineDataTables = _queryResultCache.get(offlineCacheKey);
+      if (cachedOfflineDataTables != null) {
+        _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.QUERY_RESULT_CACHE_HITS, 1);
+      } else {
+        _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.QUERY_RESULT_CACHE_MISSES, 1);
+      }
+    }
+
     // Calculate routing table for the query
     long routingStartTimeNs = System.nanoTime();
     Map<ServerInstance, List<String>> offlineRoutingTable = null;
     Map<ServerInstance, List<String>> realtimeRoutingTable = null;
     int numUnavailableSegments = 0;
-    if (offlineBrokerRequest != null) {
+    if (offlineBrokerRequest != null && cachedOfflineDataTables == null) {
       // NOTE: Routing table might be null if table is just removed
       RoutingTable routingTable = _routingManager.getRoutingTable(offlineBrokerRequest);
       if (routingTable != null) {
-        numUnavailableSegments += routingTable.getUnavailableSegments().size();
+        int numOfflineUnavailableSegments = routingTable.getUnavailableSegments().size();
+        numUnavailableSegments += numOfflineUnavailableSegments;
+        if (numOfflineUnavailableSegments > 0) {
+          // Do not cache the partial result
+          offlineCacheKey = null;
+        }
         Map<ServerInstance, List<String>> serverInstanceToSegmentsMap = routingTable.getServerInstanceToSegmentsMap();
         if (!serverInstanceToSegmentsMap.isEmpty()) {
           offlineRoutingTable = serverInstanceToSegmentsMap;
         } else {
           offlineBrokerRequest = null;
+          offlineCacheKey = null;
         }
       } else {
         offlineBrokerRequest = null;
+        offlineCacheKey = null;
       }
     }
     if (realtimeBrokerRequest != null) {
@@ -402,8 +439,9 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     // Execute the query
     ServerStats serverStats = new ServerStats();
     BrokerResponse brokerResponse =
-        processBrokerRequest(requestId, brokerRequest, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
-            realtimeRoutingTable, remainingTimeMs, serverStats, requestStatistics);
+        processBrokerRequest(requestId, brokerRequest, offlineBrokerRequest, offlineRoutingTable, offlineCacheKey,
+            cachedOfflineDataTables, realtimeBrokerRequest, realtimeRoutingTable, remainingTimeMs, serverStats,
+            requestStatistics);
     long executionEndTimeNs = System.nanoTime();
     _brokerMetrics
         .addPhaseTiming(rawTableName, BrokerQueryPhase.QUERY_EXECUTION, executionEndTimeNs - routingEndTimeNs);
@@ -1329,9 +1367,14 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
 
   /**
    * Processes the optimized broker requests for both OFFLINE and REALTIME table.
+   * <p>When the cached OFFLINE server responses are provided, the OFFLINE servers should not be queried (the OFFLINE
+   * routing table is {@code null}). Otherwise, when the OFFLINE cache key is provided, the OFFLINE server responses
+   * should be put into the query result cache if all the OFFLINE servers responded without exception.
    */
   protected abstract BrokerResponse processBrokerRequest(long requestId, BrokerRequest originalBrokerRequest,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable QueryResultCache.CacheKey offlineCacheKey,
+      @Nullable Map<ServerRoutingInstance, DataTable> cachedOfflineDataTables,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
       long timeoutMs, ServerStats serverStats, RequestStatistics requestStatistics)
       throws Exception;
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.broker.requesthandler;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,8 +27,10 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.broker.api.RequestStatistics;
 import org.apache.pinot.broker.broker.AccessControlFactory;
+import org.apache.pinot.broker.querycache.QueryResultCache;
 import org.apache.pinot.broker.queryquota.QueryQuotaManager;
 import org.apache.pinot.broker.routing.RoutingManager;
+import org.apache.pinot.broker.routing.instanceselector.ServerLoadTracker;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
@@ -36,31 +39,49 @@ import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.response.BrokerResponse;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
 import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.utils.CommonConstants.Broker;
 import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.common.utils.HashUtil;
 import org.apache.pinot.common.utils.helix.TableCache;
+import org.apache.pinot.core.query.reduce.StreamingBrokerReducer;
 import org.apache.pinot.core.transport.AsyncQueryResponse;
+import org.apache.pinot.core.transport.HedgedRequestTargetSelector;
 import org.apache.pinot.core.transport.QueryRouter;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.core.transport.ServerResponse;
 import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
 
 /**
  * The <code>SingleConnectionBrokerRequestHandler</code> class is a thread-safe broker request handler using a single
- * connection per server to route the queries.
+ * connection (or a configurable small pool of connections) per server to route the queries.
  */
 @ThreadSafe
 public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandler {
   private final QueryRouter _queryRouter;
+  private final boolean _hedgedRequestEnabled;
+  private final boolean _streamingReduceEnabled;
 
   public SingleConnectionBrokerRequestHandler(PinotConfiguration config, RoutingManager routingManager,
       AccessControlFactory accessControlFactory, QueryQuotaManager queryQuotaManager, TableCache tableCache,
       BrokerMetrics brokerMetrics) {
     super(config, routingManager, accessControlFactory, queryQuotaManager, tableCache, brokerMetrics);
-    _queryRouter = new QueryRouter(_brokerId, brokerMetrics);
+    _hedgedRequestEnabled =
+        config.getProperty(Broker.CONFIG_OF_HEDGED_REQUEST_ENABLED, Broker.DEFAULT_HEDGED_REQUEST_ENABLED);
+    // NOTE: Hedged requests are disabled in the query router with non-positive latency percentile
+    double hedgedRequestLatencyPercentile = _hedgedRequestEnabled ? config
+        .getProperty(Broker.CONFIG_OF_HEDGED_REQUEST_LATENCY_PERCENTILE,
+            Broker.DEFAULT_HEDGED_REQUEST_LATENCY_PERCENTILE) : 0;
+    _queryRouter = new QueryRouter(_brokerId, brokerMetrics,
+        config.getProperty(Broker.CONFIG_OF_NETTY_CONNECTIONS_PER_SERVER, Broker.DEFAULT_NETTY_CONNECTIONS_PER_SERVER),
+        config.getProperty(Broker.CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED,
+            Broker.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED), hedgedRequestLatencyPercentile,
+        config.getProperty(Broker.CONFIG_OF_HEDGED_REQUEST_MIN_DELAY_MS, Broker.DEFAULT_HEDGED_REQUEST_MIN_DELAY_MS));
+    _streamingReduceEnabled =
+        config.getProperty(Broker.CONFIG_OF_STREAMING_REDUCE_ENABLED, Broker.DEFAULT_STREAMING_REDUCE_ENABLED);
   }
 
   @Override
@@ -76,6 +97,8 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
   @Override
   protected BrokerResponse processBrokerRequest(long requestId, BrokerRequest originalBrokerRequest,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable QueryResultCache.CacheKey offlineCacheKey,
+      @Nullable Map<ServerRoutingInstance, DataTable> cachedOfflineDataTables,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
       long timeoutMs, ServerStats serverStats, RequestStatistics requestStatistics)
       throws Exception {
@@ -83,32 +106,92 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
 
     String rawTableName = TableNameBuilder.extractRawTableName(originalBrokerRequest.getQuerySource().getTableName());
     long scatterGatherStartTimeNs = System.nanoTime();
-    AsyncQueryResponse asyncQueryResponse = _queryRouter
-        .submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
-            realtimeRoutingTable, timeoutMs);
-    Map<ServerRoutingInstance, ServerResponse> response = asyncQueryResponse.getResponse();
-    _brokerMetrics
-        .addPhaseTiming(rawTableName, BrokerQueryPhase.SCATTER_GATHER, System.nanoTime() - scatterGatherStartTimeNs);
-    // TODO Use scatterGatherStats as serverStats
-    serverStats.setServerStats(asyncQueryResponse.getStats());
+    // Do not query the OFFLINE servers if the OFFLINE server responses are cached
+    boolean offlineResponsesCached = cachedOfflineDataTables != null;
+    // Reduce the server responses as they arrive if streaming reduce is enabled and supported by the query
+    // NOTE: Streaming reduce releases the data tables after reducing them, so it cannot be used together with the query
+    //       result cache
+    StreamingBrokerReducer streamingReducer = null;
+    if (_streamingReduceEnabled && offlineCacheKey == null && !offlineResponsesCached) {
+      streamingReducer = _brokerReduceService.getStreamingReducer(originalBrokerRequest, timeoutMs, _brokerMetrics);
+    }
+    AsyncQueryResponse asyncQueryResponse = null;
+    Map<ServerRoutingInstance, ServerResponse> response;
+    if (!offlineResponsesCached || realtimeBrokerRequest != null) {
+      Map<ServerInstance, List<String>> queriedOfflineRoutingTable =
+          offlineResponsesCached ? null : offlineRoutingTable;
+      ServerLoadTracker serverLoadTracker = _routingManager.getServerLoadTracker();
+      recordRequestsSubmitted(serverLoadTracker, queriedOfflineRoutingTable, realtimeRoutingTable);
+      response = null;
+      try {
+        HedgedRequestTargetSelector hedgedRequestTargetSelector = null;
+        if (_hedgedRequestEnabled) {
+          hedgedRequestTargetSelector = getHedgedRequestTargetSelector(rawTableName, serverLoadTracker);
+        }
+        asyncQueryResponse = _queryRouter
+            .submitQuery(requestId, rawTableName, offlineResponsesCached ? null : offlineBrokerRequest,
+                offlineRoutingTable, realtimeBrokerRequest, realtimeRoutingTable, timeoutMs,
+                hedgedRequestTargetSelector);
+        if (streamingReducer != null) {
+          response = asyncQueryResponse.getResponse(streamingReducer::reduce);
+        } else {
+          response = asyncQueryResponse.getResponse();
+        }
+      } finally {
+        recordRequestsCompleted(serverLoadTracker, queriedOfflineRoutingTable, realtimeRoutingTable, response,
+            timeoutMs);
+      }
+      _brokerMetrics
+          .addPhaseTiming(rawTableName, BrokerQueryPhase.SCATTER_GATHER, System.nanoTime() - scatterGatherStartTimeNs);
+      // TODO Use scatterGatherStats as serverStats
+      serverStats.setServerStats(asyncQueryResponse.getStats());
+    } else {
+      response = Collections.emptyMap();
+    }
 
     int numServersQueried = response.size();
+    int numServersResponded;
     long totalResponseSize = 0;
-    Map<ServerRoutingInstance, DataTable> dataTableMap = new HashMap<>(HashUtil.getHashMapCapacity(numServersQueried));
-    for (Map.Entry<ServerRoutingInstance, ServerResponse> entry : response.entrySet()) {
-      ServerResponse serverResponse = entry.getValue();
-      DataTable dataTable = serverResponse.getDataTable();
-      if (dataTable != null) {
-        dataTableMap.put(entry.getKey(), dataTable);
+    Exception brokerRequestSendException =
+        asyncQueryResponse != null ? asyncQueryResponse.getBrokerRequestSendException() : null;
+    long reduceStartTimeNs;
+    BrokerResponseNative brokerResponse;
+    if (streamingReducer != null) {
+      for (ServerResponse serverResponse : response.values()) {
         totalResponseSize += serverResponse.getResponseSize();
       }
-    }
-    int numServersResponded = dataTableMap.size();
+      numServersResponded = streamingReducer.getNumDataTablesReduced();
 
-    long reduceStartTimeNs = System.nanoTime();
-    long reduceTimeOutMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scatterGatherStartTimeNs);
-    BrokerResponseNative brokerResponse =
-        _brokerReduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, reduceTimeOutMs, _brokerMetrics);
+      // NOTE: The data tables are already reduced while waiting for the server responses, only count the time to set
+      //       the final results as the reduce time
+      reduceStartTimeNs = System.nanoTime();
+      brokerResponse = streamingReducer.getBrokerResponse();
+    } else {
+      Map<ServerRoutingInstance, DataTable> dataTableMap =
+          new HashMap<>(HashUtil.getHashMapCapacity(numServersQueried));
+      for (Map.Entry<ServerRoutingInstance, ServerResponse> entry : response.entrySet()) {
+        ServerResponse serverResponse = entry.getValue();
+        DataTable dataTable = serverResponse.getDataTable();
+        if (dataTable != null) {
+          dataTableMap.put(entry.getKey(), dataTable);
+          totalResponseSize += serverResponse.getResponseSize();
+        }
+      }
+      numServersResponded = dataTableMap.size();
+      if (offlineResponsesCached) {
+        dataTableMap.putAll(cachedOfflineDataTables);
+        numServersQueried += cachedOfflineDataTables.size();
+        numServersResponded += cachedOfflineDataTables.size();
+      } else if (offlineCacheKey != null && brokerRequestSendException == null) {
+        // NOTE: Cache the server responses before the reduce in case the data tables are modified during the reduce
+        cacheOfflineServerResponses(offlineCacheKey, response);
+      }
+
+      reduceStartTimeNs = System.nanoTime();
+      long reduceTimeOutMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scatterGatherStartTimeNs);
+      brokerResponse =
+          _brokerReduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, reduceTimeOutMs, _brokerMetrics);
+    }
     final long reduceTimeNanos = System.nanoTime() - reduceStartTimeNs;
     requestStatistics.setReduceTimeNanos(reduceTimeNanos);
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.REDUCE, reduceTimeNanos);
@@ -116,7 +199,6 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
     brokerResponse.setNumServersQueried(numServersQueried);
     brokerResponse.setNumServersResponded(numServersResponded);
 
-    Exception brokerRequestSendException = asyncQueryResponse.getBrokerRequestSendException();
     if (brokerRequestSendException != null) {
       String errorMsg = QueryException.getTruncatedStackTrace(brokerRequestSendException);
       brokerResponse
@@ -132,4 +214,103 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
 
     return brokerResponse;
   }
+
+  /**
+   * Returns a hedged request target selector which also records the hedged requests into the server load tracker, so
+   * that the target servers are tracked the same way as the servers queried by the regular requests.
+   */
+  private HedgedRequestTargetSelector getHedgedRequestTargetSelector(String rawTableName,
+      ServerLoadTracker serverLoadTracker) {
+    return new HedgedRequestTargetSelector() {
+      @Nullable
+      @Override
+      public ServerInstance select(TableType tableType, ServerInstance serverInstance, List<String> segments) {
+        return _routingManager
+            .getHedgedRequestTarget(TableNameBuilder.forType(tableType).tableNameWithType(rawTableName),
+                serverInstance, segments);
+      }
+
+      @Override
+      public void onRequestSubmitted(ServerInstance serverInstance) {
+        serverLoadTracker.recordRequestSubmitted(serverInstance.getInstanceId());
+      }
+
+      @Override
+      public void onRequestCompleted(ServerInstance serverInstance, long latencyMs) {
+        serverLoadTracker.recordRequestCompleted(serverInstance.getInstanceId(), latencyMs);
+      }
+    };
+  }
+
+  private static void recordRequestsSubmitted(ServerLoadTracker serverLoadTracker,
+      @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable) {
+    if (offlineRoutingTable != null) {
+      for (ServerInstance serverInstance : offlineRoutingTable.keySet()) {
+        serverLoadTracker.recordRequestSubmitted(serverInstance.getInstanceId());
+      }
+    }
+    if (realtimeRoutingTable != null) {
+      for (ServerInstance serverInstance : realtimeRoutingTable.keySet()) {
+        serverLoadTracker.recordRequestSubmitted(serverInstance.getInstanceId());
+      }
+    }
+  }
+
+  /**
+   * Records the response latency of the servers into the server load tracker. Servers without response (timed out,
+   * failed to send the request or failed to process the request) are penalized with the query timeout as the latency.
+   */
+  private static void recordRequestsCompleted(ServerLoadTracker serverLoadTracker,
+      @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
+      @Nullable Map<ServerRoutingInstance, ServerResponse> response, long timeoutMs) {
+    if (offlineRoutingTable != null) {
+      for (ServerInstance serverInstance : offlineRoutingTable.keySet()) {
+        recordRequestCompleted(serverLoadTracker, serverInstance, TableType.OFFLINE, response, timeoutMs);
+      }
+    }
+    if (realtimeRoutingTable != null) {
+      for (ServerInstance serverInstance : realtimeRoutingTable.keySet()) {
+        recordRequestCompleted(serverLoadTracker, serverInstance, TableType.REALTIME, response, timeoutMs);
+      }
+    }
+  }
+
+  private static void recordRequestCompleted(ServerLoadTracker serverLoadTracker, ServerInstance serverInstance,
+      TableType tableType, @Nullable Map<ServerRoutingInstance, ServerResponse> response, long timeoutMs) {
+    long latencyMs = timeoutMs;
+    if (response != null) {
+      ServerResponse serverResponse = response.get(serverInstance.toServerRoutingInstance(tableType));
+      if (serverResponse != null && serverResponse.isDataTableReceived()) {
+        latencyMs = serverResponse.getResponseDelayMs();
+      }
+    }
+    serverLoadTracker.recordRequestCompleted(serverInstance.getInstanceId(), latencyMs);
+  }
+
+  /**
+   * Puts the OFFLINE server responses into the query result cache if all the OFFLINE servers responded without
+   * exception.
+   */
+  private void cacheOfflineServerResponses(QueryResultCache.CacheKey offlineCacheKey,
+      Map<ServerRoutingInstance, ServerResponse> response) {
+    Map<ServerRoutingInstance, DataTable> offlineDataTables = new HashMap<>();
+    for (Map.Entry<ServerRoutingInstance, ServerResponse> entry : response.entrySet()) {
+      ServerRoutingInstance serverRoutingInstance = entry.getKey();
+      if (serverRoutingInstance.getTableType() == TableType.OFFLINE) {
+        DataTable dataTable = entry.getValue().getDataTable();
+        if (dataTable == null) {
+          return;
+        }
+        for (String key : dataTable.getMetadata().keySet()) {
+          if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+            return;
+          }
+        }
+        offlineDataTables.put(serverRoutingInstance, dataTable);
+      }
+    }
+    _queryResultCache.put(offlineCacheKey, offlineDataTables);
+  }
 }
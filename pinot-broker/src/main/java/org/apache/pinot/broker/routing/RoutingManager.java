@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.helix.AccessOption;
 import org.apache.helix.BaseDataAccessor;
@@ -41,6 +42,7 @@ import org.apache.helix.store.zk.ZkHelixPropertyStore;
 import org.apache.pinot.broker.broker.helix.ClusterChangeHandler;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelector;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelectorFactory;
+import org.apache.pinot.broker.routing.instanceselector.ServerLoadTracker;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelector;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelectorFactory;
 import org.apache.pinot.broker.routing.segmentpruner.SegmentPruner;
@@ -88,6 +90,9 @@ public class RoutingManager implements ClusterChangeHandler {
   private final BrokerMetrics _brokerMetrics;
   private final Map<String, RoutingEntry> _routingEntryMap = new ConcurrentHashMap<>();
   private final Map<String, ServerInstance> _enabledServerInstanceMap = new ConcurrentHashMap<>();
+  private final ServerLoadTracker _serverLoadTracker = new ServerLoadTracker();
+  // Generates the routing version, which changes whenever the segments or the segment metadata of a table change
+  private final AtomicLong _routingVersionGenerator = new AtomicLong();
 
   private BaseDataAccessor<ZNRecord> _zkDataAccessor;
   private String _externalViewPathPrefix;
@@ -162,6 +167,7 @@ public class RoutingManager implements ClusterChangeHandler {
               continue;
             }
             routingEntry.onExternalViewChange(externalView, idealState);
+            routingEntry.setRoutingVersion(_routingVersionGenerator.incrementAndGet());
           } catch (Exception e) {
             LOGGER
                 .error("Caught unexpected exception while updating routing entry on external view change for table: {}",
@@ -261,6 +267,9 @@ public class RoutingManager implements ClusterChangeHandler {
     // Remove new disabled instances from _enabledServerInstanceMap after updating all routing entries to ensure it
     // always contains the selected instances
     _enabledServerInstanceMap.keySet().removeAll(newDisabledInstances);
+    for (String instance : newDisabledInstances) {
+      _serverLoadTracker.removeServer(instance);
+    }
 
     LOGGER.info(
         "Processed instance config change in {}ms (fetch {} instance configs: {}ms, calculate changed instances: {}ms, update {} routing entries: {}ms), new enabled instances: {}, new disabled instances: {}",
@@ -319,7 +328,8 @@ public class RoutingManager implements ClusterChangeHandler {
     for (SegmentPruner segmentPruner : segmentPruners) {
       segmentPruner.init(externalView, idealState, preSelectedOnlineSegments);
     }
-    InstanceSelector instanceSelector = InstanceSelectorFactory.getInstanceSelector(tableConfig, _brokerMetrics);
+    InstanceSelector instanceSelector =
+        InstanceSelectorFactory.getInstanceSelector(tableConfig, _brokerMetrics, _serverLoadTracker);
     instanceSelector.init(_enabledServerInstanceMap.keySet(), externalView, idealState, preSelectedOnlineSegments);
 
     // Add time boundary manager if both offline and real-time part exist for a hybrid table
@@ -372,6 +382,7 @@ public class RoutingManager implements ClusterChangeHandler {
     RoutingEntry routingEntry =
         new RoutingEntry(tableNameWithType, segmentPreSelector, segmentSelector, segmentPruners, instanceSelector,
             externalViewVersion, timeBoundaryManager, queryTimeoutMs);
+    routingEntry.setRoutingVersion(_routingVersionGenerator.incrementAndGet());
     if (_routingEntryMap.put(tableNameWithType, routingEntry) == null) {
       LOGGER.info("Built routing for table: {}", tableNameWithType);
     } else {
@@ -427,6 +438,7 @@ public class RoutingManager implements ClusterChangeHandler {
     RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
     if (routingEntry != null) {
       routingEntry.refreshSegment(segment);
+      routingEntry.setRoutingVersion(_routingVersionGenerator.incrementAndGet());
       LOGGER.info("Refreshed segment: {} for table: {}", segment, tableNameWithType);
     } else {
       LOGGER.warn("Routing does not exist for table: {}, skipping refreshing segment", tableNameWithType);
@@ -440,6 +452,18 @@ public class RoutingManager implements ClusterChangeHandler {
     return _routingEntryMap.containsKey(tableNameWithType);
   }
 
+  /**
+   * Returns the routing version for the given table, or {@code -1} if the routing does not exist. The routing version
+   * changes whenever the external view of the table changes or a segment of the table is refreshed, and can be used to
+   * invalidate the cached query results for the table.
+   * <p>NOTE: The routing version should be read before calculating the routing table so that the result of the query
+   *          is not newer than the routing version.
+   */
+  public long getRoutingVersion(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    return routingEntry != null ? routingEntry.getRoutingVersion() : -1;
+  }
+
   /**
    * Returns the routing table (a map from server instance to list of segments hosted by the server, and a list of
    * unavailable segments) based on the broker request, or {@code null} if the routing does not exist.
@@ -467,6 +491,46 @@ public class RoutingManager implements ClusterChangeHandler {
     return new RoutingTable(serverInstanceToSegmentsMap, selectionResult.getUnavailableSegments());
   }
 
+  /**
+   * Returns the least loaded server instance other than the given server instance that serves all the given segments of
+   * the given table, or {@code null} if there is no such server instance. The returned server instance can be used as
+   * the target of the hedged request for the given server instance.
+   */
+  @Nullable
+  public ServerInstance getHedgedRequestTarget(String tableNameWithType, ServerInstance serverInstance,
+      List<String> segments) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    if (routingEntry == null) {
+      return null;
+    }
+    String instanceId = serverInstance.getInstanceId();
+    long currentTimeMs = System.currentTimeMillis();
+    ServerInstance targetServerInstance = null;
+    double minLoadScore = Double.MAX_VALUE;
+    for (String instance : routingEntry.getInstancesServingAllSegments(segments)) {
+      if (instance.equals(instanceId)) {
+        continue;
+      }
+      ServerInstance candidate = _enabledServerInstanceMap.get(instance);
+      if (candidate != null) {
+        double loadScore = _serverLoadTracker.getLoadScore(instance, currentTimeMs);
+        if (loadScore < minLoadScore) {
+          targetServerInstance = candidate;
+          minLoadScore = loadScore;
+        }
+      }
+    }
+    return targetServerInstance;
+  }
+
+  /**
+   * Returns the tracker of the server load shared by the adaptive instance selectors. The broker request handler should
+   * record the requests sent to the servers and the responses received into the tracker.
+   */
+  public ServerLoadTracker getServerLoadTracker() {
+    return _serverLoadTracker;
+  }
+
   /**
    * Returns the time boundary info for the given offline table, or {@code null} if the routing or time boundary does
    * not exist.
@@ -504,6 +568,8 @@ public class RoutingManager implements ClusterChangeHandler {
     transient int _lastUpdateExternalViewVersion;
     // Time boundary manager is only available for the offline part of the hybrid table
     transient TimeBoundaryManager _timeBoundaryManager;
+    // Updated after the change is applied to all the components
+    transient volatile long _routingVersion;
 
     RoutingEntry(String tableNameWithType, SegmentPreSelector segmentPreSelector, SegmentSelector segmentSelector,
         List<SegmentPruner> segmentPruners, InstanceSelector instanceSelector, int lastUpdateExternalViewVersion,
@@ -535,6 +601,14 @@ public class RoutingManager implements ClusterChangeHandler {
       return _timeBoundaryManager;
     }
 
+    long getRoutingVersion() {
+      return _routingVersion;
+    }
+
+    void setRoutingVersion(long routingVersion) {
+      _routingVersion = routingVersion;
+    }
+
     Long getQueryTimeoutMs() {
       return _queryTimeoutMs;
     }
@@ -569,6 +643,10 @@ public class RoutingManager implements ClusterChangeHandler {
       }
     }
 
+    List<String> getInstancesServingAllSegments(List<String> segments) {
+      return _instanceSelector.getInstancesServingAllSegments(segments);
+    }
+
     InstanceSelector.SelectionResult calculateRouting(BrokerRequest brokerRequest) {
       Set<String> selectedSegments = _segmentSelector.select(brokerRequest);
       if (!selectedSegments.isEmpty()) {
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.instanceselector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.utils.HashUtil;
+
+
+/**
+ * Instance selector to route each segment to the least loaded replica based on the load tracked by the
+ * {@link ServerLoadTracker}.
+ * <p>The load score of each server instance is read from the {@link ServerLoadTracker} once per request, and is scaled
+ * by the number of segments already selected on the instance for the request, so that the segments are distributed
+ * to the replicas inversely proportional to their load score instead of all going to the least loaded one. Ties are
+ * broken by the request id the same way as the {@link BalancedInstanceSelector}, so the traffic is evenly distributed
+ * when all replicas have the same load.
+ */
+public class AdaptiveInstanceSelector extends BaseInstanceSelector {
+  private final ServerLoadTracker _serverLoadTracker;
+
+  public AdaptiveInstanceSelector(String tableNameWithType, BrokerMetrics brokerMetrics,
+      ServerLoadTracker serverLoadTracker) {
+    super(tableNameWithType, brokerMetrics);
+    _serverLoadTracker = serverLoadTracker;
+  }
+
+  @Override
+  Map<String, String> select(List<String> segments, int requestId,
+      Map<String, List<String>> segmentToEnabledInstancesMap) {
+    Map<String, String> segmentToSelectedInstanceMap = new HashMap<>(HashUtil.getHashMapCapacity(segments.size()));
+    Map<String, InstanceLoad> instanceLoadMap = new HashMap<>();
+    long currentTimeMs = System.currentTimeMillis();
+    for (String segment : segments) {
+      List<String> enabledInstances = segmentToEnabledInstancesMap.get(segment);
+      // NOTE: enabledInstances can be null when there is no enabled instances for the segment, or the instance selector
+      // has not been updated (we update all components for routing in sequence)
+      if (enabledInstances != null) {
+        segmentToSelectedInstanceMap.put(segment,
+            selectLeastLoadedInstance(enabledInstances, requestId++, instanceLoadMap, _serverLoadTracker,
+                currentTimeMs));
+      }
+    }
+    return segmentToSelectedInstanceMap;
+  }
+
+  /**
+   * Selects the least loaded instance from the given enabled instances, and increments the number of selections for
+   * the selected instance. The instances are scanned starting from the index of {@code requestId % numInstances} to
+   * break ties.
+   */
+  static String selectLeastLoadedInstance(List<String> enabledInstances, int requestId,
+      Map<String, InstanceLoad> instanceLoadMap, ServerLoadTracker serverLoadTracker, long currentTimeMs) {
+    int numEnabledInstances = enabledInstances.size();
+    int startIndex = requestId % numEnabledInstances;
+    InstanceLoad selectedInstanceLoad = null;
+    double minScore = Double.MAX_VALUE;
+    for (int i = 0; i < numEnabledInstances; i++) {
+      String instance = enabledInstances.get((startIndex + i) % numEnabledInstances);
+      InstanceLoad instanceLoad = instanceLoadMap.get(instance);
+      if (instanceLoad == null) {
+        instanceLoad = new InstanceLoad(instance, serverLoadTracker.getLoadScore(instance, currentTimeMs));
+        instanceLoadMap.put(instance, instanceLoad);
+      }
+      double score = instanceLoad.getScore();
+      if (score < minScore) {
+        selectedInstanceLoad = instanceLoad;
+        minScore = score;
+      }
+    }
+    assert selectedInstanceLoad != null;
+    selectedInstanceLoad._numSelections++;
+    return selectedInstanceLoad._instance;
+  }
+
+  /**
+   * Load of an instance within a single request.
+   */
+  static class InstanceLoad {
+    final String _instance;
+    final double _loadScore;
+    int _numSelections;
+
+    InstanceLoad(String instance, double loadScore) {
+      _instance = instance;
+      _loadScore = loadScore;
+    }
+
+    double getScore() {
+      return _loadScore * (_numSelections + 1);
+    }
+  }
+}
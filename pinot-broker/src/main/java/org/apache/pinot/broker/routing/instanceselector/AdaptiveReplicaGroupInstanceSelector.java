@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.instanceselector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.utils.HashUtil;
+
+
+/**
+ * Instance selector for replica-group routing strategy which routes to the least loaded replica based on the load
+ * tracked by the {@link ServerLoadTracker}.
+ * <p>Same as the {@link ReplicaGroupInstanceSelector}, the algorithm relies on the mirror segment assignment from
+ * replica-group segment assignment strategy, and will always select the same instance for all segments with the same
+ * enabled instances, so that only one server out of each set of mirror servers is picked for the request. Instead of
+ * picking the instance by the request id, the least loaded instance is picked for each set of mirror servers (see
+ * {@link AdaptiveInstanceSelector} for the selection within a request).
+ */
+public class AdaptiveReplicaGroupInstanceSelector extends ReplicaGroupInstanceSelector {
+  private final ServerLoadTracker _serverLoadTracker;
+
+  public AdaptiveReplicaGroupInstanceSelector(String tableNameWithType, BrokerMetrics brokerMetrics,
+      ServerLoadTracker serverLoadTracker) {
+    super(tableNameWithType, brokerMetrics);
+    _serverLoadTracker = serverLoadTracker;
+  }
+
+  @Override
+  Map<String, String> select(List<String> segments, int requestId,
+      Map<String, List<String>> segmentToEnabledInstancesMap) {
+    Map<String, String> segmentToSelectedInstanceMap = new HashMap<>(HashUtil.getHashMapCapacity(segments.size()));
+    Map<List<String>, String> enabledInstancesToSelectedInstanceMap = new HashMap<>();
+    Map<String, AdaptiveInstanceSelector.InstanceLoad> instanceLoadMap = new HashMap<>();
+    long currentTimeMs = System.currentTimeMillis();
+    for (String segment : segments) {
+      List<String> enabledInstances = segmentToEnabledInstancesMap.get(segment);
+      // NOTE: enabledInstances can be null when there is no enabled instances for the segment, or the instance selector
+      // has not been updated (we update all components for routing in sequence)
+      if (enabledInstances != null) {
+        String selectedInstance = enabledInstancesToSelectedInstanceMap.get(enabledInstances);
+        if (selectedInstance == null) {
+          selectedInstance = AdaptiveInstanceSelector
+              .selectLeastLoadedInstance(enabledInstances, requestId, instanceLoadMap, _serverLoadTracker,
+                  currentTimeMs);
+          enabledInstancesToSelectedInstanceMap.put(enabledInstances, selectedInstance);
+        }
+        segmentToSelectedInstanceMap.put(segment, selectedInstance);
+      }
+    }
+    return segmentToSelectedInstanceMap;
+  }
+}
@@ -257,6 +257,27 @@ abstract class BaseInstanceSelector implements InstanceSelector {
     }
   }
 
+  @Override
+  public List<String> getInstancesServingAllSegments(List<String> segments) {
+    Map<String, List<String>> segmentToEnabledInstancesMap = _segmentToEnabledInstancesMap;
+    List<String> instances = null;
+    for (String segment : segments) {
+      List<String> enabledInstances = segmentToEnabledInstancesMap.get(segment);
+      if (enabledInstances == null) {
+        return Collections.emptyList();
+      }
+      if (instances == null) {
+        instances = new ArrayList<>(enabledInstances);
+      } else {
+        instances.retainAll(enabledInstances);
+      }
+      if (instances.isEmpty()) {
+        return instances;
+      }
+    }
+    return instances != null ? instances : Collections.emptyList();
+  }
+
   /**
    * Selects the server instances for the given segments based on the request id and segment to enabled ONLINE/CONSUMING
    * instances map, returns a map from segment to selected server instance hosting the segment.
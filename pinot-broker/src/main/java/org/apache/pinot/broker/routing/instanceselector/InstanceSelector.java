@@ -57,6 +57,12 @@ public interface InstanceSelector {
    */
   SelectionResult select(BrokerRequest brokerRequest, List<String> segments);
 
+  /**
+   * Returns the enabled ONLINE/CONSUMING instances that serve all the given segments, which can be used as the
+   * alternative instances for the given segments (e.g. for hedged requests).
+   */
+  List<String> getInstancesServingAllSegments(List<String> segments);
+
   class SelectionResult {
     private final Map<String, String> _segmentToInstanceMap;
     private final List<String> _unavailableSegments;
@@ -35,7 +35,8 @@ public class InstanceSelectorFactory {
   public static final String LEGACY_REPLICA_GROUP_OFFLINE_ROUTING = "PartitionAwareOffline";
   public static final String LEGACY_REPLICA_GROUP_REALTIME_ROUTING = "PartitionAwareRealtime";
 
-  public static InstanceSelector getInstanceSelector(TableConfig tableConfig, BrokerMetrics brokerMetrics) {
+  public static InstanceSelector getInstanceSelector(TableConfig tableConfig, BrokerMetrics brokerMetrics,
+      ServerLoadTracker serverLoadTracker) {
     String tableNameWithType = tableConfig.getTableName();
     RoutingConfig routingConfig = tableConfig.getRoutingConfig();
     if (routingConfig != null) {
@@ -52,6 +53,15 @@ public class InstanceSelectorFactory {
         LOGGER.info("Using StrictReplicaGroupInstanceSelector for table: {}", tableNameWithType);
         return new StrictReplicaGroupInstanceSelector(tableNameWithType, brokerMetrics);
       }
+      if (RoutingConfig.ADAPTIVE_REPLICA_GROUP_INSTANCE_SELECTOR_TYPE
+          .equalsIgnoreCase(routingConfig.getInstanceSelectorType())) {
+        LOGGER.info("Using AdaptiveReplicaGroupInstanceSelector for table: {}", tableNameWithType);
+        return new AdaptiveReplicaGroupInstanceSelector(tableNameWithType, brokerMetrics, serverLoadTracker);
+      }
+      if (RoutingConfig.ADAPTIVE_INSTANCE_SELECTOR_TYPE.equalsIgnoreCase(routingConfig.getInstanceSelectorType())) {
+        LOGGER.info("Using AdaptiveInstanceSelector for table: {}", tableNameWithType);
+        return new AdaptiveInstanceSelector(tableNameWithType, brokerMetrics, serverLoadTracker);
+      }
     }
     return new BalancedInstanceSelector(tableNameWithType, brokerMetrics);
   }
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.instanceselector;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The {@code ServerLoadTracker} class tracks the load of each server instance based on the server responses received
+ * by the broker. It is shared by all the adaptive instance selectors within the broker.
+ * <p>For each server instance, it tracks the number of in-flight requests and the exponentially weighted moving
+ * average (EWMA) of the response latency. The load score of a server instance is {@code (latencyEwmaMs + 1) *
+ * (numInFlightRequests + 1)}, where lower score means less loaded. The latency EWMA decays towards 0 when there is no
+ * new response from the server instance, so that a server instance which was slow in the past will eventually be
+ * queried again to refresh its latency.
+ */
+@ThreadSafe
+public class ServerLoadTracker {
+  public static final double DEFAULT_EWMA_ALPHA = 0.3;
+  public static final long DEFAULT_DECAY_HALF_LIFE_MS = 10_000L;
+
+  private final Map<String, ServerLoad> _serverLoadMap = new ConcurrentHashMap<>();
+  private final double _ewmaAlpha;
+  private final long _decayHalfLifeMs;
+
+  public ServerLoadTracker() {
+    this(DEFAULT_EWMA_ALPHA, DEFAULT_DECAY_HALF_LIFE_MS);
+  }
+
+  public ServerLoadTracker(double ewmaAlpha, long decayHalfLifeMs) {
+    Preconditions.checkArgument(ewmaAlpha > 0 && ewmaAlpha <= 1, "Illegal EWMA alpha: %s", ewmaAlpha);
+    Preconditions.checkArgument(decayHalfLifeMs > 0, "Illegal decay half life: %s", decayHalfLifeMs);
+    _ewmaAlpha = ewmaAlpha;
+    _decayHalfLifeMs = decayHalfLifeMs;
+  }
+
+  /**
+   * Records a request submitted to the given server instance.
+   */
+  public void recordRequestSubmitted(String instanceId) {
+    _serverLoadMap.computeIfAbsent(instanceId, k -> new ServerLoad())._numInFlightRequests.incrementAndGet();
+  }
+
+  /**
+   * Records a request completed on the given server instance with the given latency. For requests without response
+   * (e.g. timed out or failed to send), the query timeout should be used as the latency to penalize the server.
+   * <p>NOTE: Each call must be paired with a previous call to {@link #recordRequestSubmitted(String)}.
+   */
+  public void recordRequestCompleted(String instanceId, long latencyMs) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceId);
+    if (serverLoad != null) {
+      serverLoad._numInFlightRequests.decrementAndGet();
+      serverLoad.updateLatency(latencyMs, System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Removes the tracked load for the given server instance (e.g. when the instance is disabled or removed).
+   */
+  public void removeServer(String instanceId) {
+    _serverLoadMap.remove(instanceId);
+  }
+
+  /**
+   * Returns the load score of the given server instance at the given time, where lower score means less loaded. Server
+   * instances without any load tracked have the lowest score of 1.
+   */
+  public double getLoadScore(String instanceId, long currentTimeMs) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceId);
+    if (serverLoad == null) {
+      return 1;
+    }
+    return (serverLoad.getLatencyEwmaMs(currentTimeMs) + 1) * (Math.max(serverLoad._numInFlightRequests.get(), 0) + 1);
+  }
+
+  @VisibleForTesting
+  int getNumInFlightRequests(String instanceId) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceId);
+    return serverLoad != null ? serverLoad._numInFlightRequests.get() : 0;
+  }
+
+  @VisibleForTesting
+  double getLatencyEwmaMs(String instanceId, long currentTimeMs) {
+    ServerLoad serverLoad = _serverLoadMap.get(instanceId);
+    return serverLoad != null ? serverLoad.getLatencyEwmaMs(currentTimeMs) : 0;
+  }
+
+  private class ServerLoad {
+    final AtomicInteger _numInFlightRequests = new AtomicInteger();
+
+    // NOTE: Updated under the lock of this object, read without lock (might read slightly stale value, which is fine)
+    volatile double _latencyEwmaMs = Double.NaN;
+    volatile long _lastUpdateTimeMs;
+
+    synchronized void updateLatency(long latencyMs, long currentTimeMs) {
+      if (Double.isNaN(_latencyEwmaMs)) {
+        _latencyEwmaMs = latencyMs;
+      } else {
+        _latencyEwmaMs = _ewmaAlpha * latencyMs + (1 - _ewmaAlpha) * getLatencyEwmaMs(currentTimeMs);
+      }
+      _lastUpdateTimeMs = currentTimeMs;
+    }
+
+    double getLatencyEwmaMs(long currentTimeMs) {
+      double latencyEwmaMs = _latencyEwmaMs;
+      if (Double.isNaN(latencyEwmaMs)) {
+        return 0;
+      }
+      long elapsedTimeMs = currentTimeMs - _lastUpdateTimeMs;
+      if (elapsedTimeMs <= 0) {
+        return latencyEwmaMs;
+      }
+      return latencyEwmaMs * Math.pow(0.5, (double) elapsedTimeMs / _decayHalfLifeMs);
+    }
+  }
+}
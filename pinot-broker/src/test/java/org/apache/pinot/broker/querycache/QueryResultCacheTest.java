@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.querycache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.common.datatable.DataTableBuilder;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.apache.pinot.pql.parsers.Pql2Compiler;
+import org.apache.pinot.spi.config.table.TableType;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class QueryResultCacheTest {
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  @Test
+  public void testPutAndGet()
+      throws Exception {
+    QueryResultCache queryResultCache = new QueryResultCache(1024 * 1024);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE");
+    QueryResultCache.CacheKey cacheKey = QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, 1, brokerRequest);
+    assertNull(queryResultCache.get(cacheKey));
+
+    ServerRoutingInstance server1 = new ServerRoutingInstance("localhost", 1234, TableType.OFFLINE);
+    ServerRoutingInstance server2 = new ServerRoutingInstance("localhost", 5678, TableType.OFFLINE);
+    Map<ServerRoutingInstance, DataTable> dataTableMap = new HashMap<>();
+    dataTableMap.put(server1, getDataTable(10L));
+    dataTableMap.put(server2, getDataTable(20L));
+    queryResultCache.put(cacheKey, dataTableMap);
+    assertEquals(queryResultCache.size(), 1);
+
+    // Same query should hit the cache
+    BrokerRequest sameBrokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE");
+    Map<ServerRoutingInstance, DataTable> cachedDataTableMap =
+        queryResultCache.get(QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, 1, sameBrokerRequest));
+    assertNotNull(cachedDataTableMap);
+    assertEquals(cachedDataTableMap.size(), 2);
+    assertEquals(cachedDataTableMap.get(server1).getLong(0, 0), 10L);
+    assertEquals(cachedDataTableMap.get(server2).getLong(0, 0), 20L);
+
+    // Different routing version or query should not hit the cache
+    assertNull(queryResultCache.get(QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, 2, brokerRequest)));
+    BrokerRequest differentBrokerRequest =
+        COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE WHERE foo = 'bar'");
+    assertNull(queryResultCache.get(QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, 1, differentBrokerRequest)));
+  }
+
+  @Test
+  public void testEviction()
+      throws Exception {
+    // Each entry is larger than 1KB, so the cache can hold at most 1 entry
+    QueryResultCache queryResultCache = new QueryResultCache(2048);
+    ServerRoutingInstance server = new ServerRoutingInstance("localhost", 1234, TableType.OFFLINE);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE");
+    for (int i = 0; i < 10; i++) {
+      Map<ServerRoutingInstance, DataTable> dataTableMap =
+          Collections.singletonMap(server, getDataTable(new String(new char[1024]).replace('\0', 'a')));
+      queryResultCache.put(QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, i, brokerRequest), dataTableMap);
+    }
+    assertTrue(queryResultCache.size() <= 1);
+    assertNull(queryResultCache.get(QueryResultCache.getCacheKey(OFFLINE_TABLE_NAME, 0, brokerRequest)));
+  }
+
+  @Test
+  public void testIsCacheable() {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE");
+    assertTrue(QueryResultCache.isCacheable(brokerRequest));
+
+    brokerRequest.setEnableTrace(true);
+    assertFalse(QueryResultCache.isCacheable(brokerRequest));
+
+    brokerRequest = COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable_OFFLINE");
+    brokerRequest.setQueryOptions(Collections.singletonMap(QueryOptionKey.SKIP_RESULT_CACHE, "true"));
+    assertFalse(QueryResultCache.isCacheable(brokerRequest));
+  }
+
+  private static DataTable getDataTable(long value)
+      throws Exception {
+    DataTableBuilder dataTableBuilder =
+        new DataTableBuilder(new DataSchema(new String[]{"count"}, new ColumnDataType[]{ColumnDataType.LONG}));
+    dataTableBuilder.startRow();
+    dataTableBuilder.setColumn(0, value);
+    dataTableBuilder.finishRow();
+    return dataTableBuilder.build();
+  }
+
+  private static DataTable getDataTable(String value)
+      throws Exception {
+    DataTableBuilder dataTableBuilder =
+        new DataTableBuilder(new DataSchema(new String[]{"value"}, new ColumnDataType[]{ColumnDataType.STRING}));
+    dataTableBuilder.startRow();
+    dataTableBuilder.setColumn(0, value);
+    dataTableBuilder.finishRow();
+    return dataTableBuilder.build();
+  }
+}
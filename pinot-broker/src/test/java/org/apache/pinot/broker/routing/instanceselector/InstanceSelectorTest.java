@@ -51,26 +51,38 @@ public class InstanceSelectorTest {
   public void testInstanceSelectorFactory() {
     TableConfig tableConfig = mock(TableConfig.class);
     BrokerMetrics brokerMetrics = mock(BrokerMetrics.class);
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker();
 
     // Routing config is missing
-    assertTrue(
-        InstanceSelectorFactory.getInstanceSelector(tableConfig, brokerMetrics) instanceof BalancedInstanceSelector);
+    assertTrue(InstanceSelectorFactory
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof BalancedInstanceSelector);
 
     // Instance selector type is not configured
     RoutingConfig routingConfig = mock(RoutingConfig.class);
     when(tableConfig.getRoutingConfig()).thenReturn(routingConfig);
-    assertTrue(
-        InstanceSelectorFactory.getInstanceSelector(tableConfig, brokerMetrics) instanceof BalancedInstanceSelector);
+    assertTrue(InstanceSelectorFactory
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof BalancedInstanceSelector);
 
     // Replica-group instance selector should be returned
     when(routingConfig.getInstanceSelectorType()).thenReturn(RoutingConfig.REPLICA_GROUP_INSTANCE_SELECTOR_TYPE);
     assertTrue(InstanceSelectorFactory
-        .getInstanceSelector(tableConfig, brokerMetrics) instanceof ReplicaGroupInstanceSelector);
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof ReplicaGroupInstanceSelector);
 
     // Strict replica-group instance selector should be returned
     when(routingConfig.getInstanceSelectorType()).thenReturn(RoutingConfig.STRICT_REPLICA_GROUP_INSTANCE_SELECTOR_TYPE);
+    assertTrue(InstanceSelectorFactory.getInstanceSelector(tableConfig, brokerMetrics,
+        serverLoadTracker) instanceof StrictReplicaGroupInstanceSelector);
+
+    // Adaptive instance selector should be returned
+    when(routingConfig.getInstanceSelectorType()).thenReturn(RoutingConfig.ADAPTIVE_INSTANCE_SELECTOR_TYPE);
     assertTrue(InstanceSelectorFactory
-        .getInstanceSelector(tableConfig, brokerMetrics) instanceof StrictReplicaGroupInstanceSelector);
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof AdaptiveInstanceSelector);
+
+    // Adaptive replica-group instance selector should be returned
+    when(routingConfig.getInstanceSelectorType())
+        .thenReturn(RoutingConfig.ADAPTIVE_REPLICA_GROUP_INSTANCE_SELECTOR_TYPE);
+    assertTrue(InstanceSelectorFactory.getInstanceSelector(tableConfig, brokerMetrics,
+        serverLoadTracker) instanceof AdaptiveReplicaGroupInstanceSelector);
 
     // Should be backward-compatible with legacy config
     when(routingConfig.getInstanceSelectorType()).thenReturn(null);
@@ -78,12 +90,12 @@ public class InstanceSelectorTest {
     when(routingConfig.getRoutingTableBuilderName())
         .thenReturn(InstanceSelectorFactory.LEGACY_REPLICA_GROUP_OFFLINE_ROUTING);
     assertTrue(InstanceSelectorFactory
-        .getInstanceSelector(tableConfig, brokerMetrics) instanceof ReplicaGroupInstanceSelector);
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof ReplicaGroupInstanceSelector);
     when(tableConfig.getTableType()).thenReturn(TableType.REALTIME);
     when(routingConfig.getRoutingTableBuilderName())
         .thenReturn(InstanceSelectorFactory.LEGACY_REPLICA_GROUP_REALTIME_ROUTING);
     assertTrue(InstanceSelectorFactory
-        .getInstanceSelector(tableConfig, brokerMetrics) instanceof ReplicaGroupInstanceSelector);
+        .getInstanceSelector(tableConfig, brokerMetrics, serverLoadTracker) instanceof ReplicaGroupInstanceSelector);
   }
 
   @Test
@@ -581,6 +593,154 @@ public class InstanceSelectorTest {
     assertTrue(selectionResult.getUnavailableSegments().isEmpty());
   }
 
+  @Test
+  public void testAdaptiveInstanceSelector() {
+    String offlineTableName = "testTable_OFFLINE";
+    BrokerMetrics brokerMetrics = mock(BrokerMetrics.class);
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker();
+    AdaptiveInstanceSelector adaptiveInstanceSelector =
+        new AdaptiveInstanceSelector(offlineTableName, brokerMetrics, serverLoadTracker);
+    AdaptiveReplicaGroupInstanceSelector adaptiveReplicaGroupInstanceSelector =
+        new AdaptiveReplicaGroupInstanceSelector(offlineTableName, brokerMetrics, serverLoadTracker);
+
+    // 'instance0' and 'instance2' serve the same segments, 'instance1' and 'instance3' serve the same segments
+    //   [segment0, segment1] -> [instance0, instance2]
+    //   [segment2, segment3] -> [instance1, instance3]
+    String instance0 = "instance0";
+    String instance1 = "instance1";
+    String instance2 = "instance2";
+    String instance3 = "instance3";
+    Set<String> enabledInstances = new HashSet<>(Arrays.asList(instance0, instance1, instance2, instance3));
+    ExternalView externalView = new ExternalView(offlineTableName);
+    Map<String, Map<String, String>> externalViewSegmentAssignment = externalView.getRecord().getMapFields();
+    IdealState idealState = new IdealState(offlineTableName);
+    Map<String, Map<String, String>> idealStateSegmentAssignment = idealState.getRecord().getMapFields();
+    String segment0 = "segment0";
+    String segment1 = "segment1";
+    String segment2 = "segment2";
+    String segment3 = "segment3";
+    Map<String, String> instanceStateMap0 = new TreeMap<>();
+    instanceStateMap0.put(instance0, ONLINE);
+    instanceStateMap0.put(instance2, ONLINE);
+    Map<String, String> instanceStateMap1 = new TreeMap<>();
+    instanceStateMap1.put(instance1, ONLINE);
+    instanceStateMap1.put(instance3, ONLINE);
+    for (String segment : Arrays.asList(segment0, segment1)) {
+      externalViewSegmentAssignment.put(segment, instanceStateMap0);
+      idealStateSegmentAssignment.put(segment, instanceStateMap0);
+    }
+    for (String segment : Arrays.asList(segment2, segment3)) {
+      externalViewSegmentAssignment.put(segment, instanceStateMap1);
+      idealStateSegmentAssignment.put(segment, instanceStateMap1);
+    }
+    List<String> segments = Arrays.asList(segment0, segment1, segment2, segment3);
+    Set<String> onlineSegments = new HashSet<>(segments);
+    adaptiveInstanceSelector.init(enabledInstances, externalView, idealState, onlineSegments);
+    adaptiveReplicaGroupInstanceSelector.init(enabledInstances, externalView, idealState, onlineSegments);
+
+    // Without any load tracked, should have the same behavior as BalancedInstanceSelector and
+    // ReplicaGroupInstanceSelector:
+    //   AdaptiveInstanceSelector:
+    //     segment0 -> instance0
+    //     segment1 -> instance2
+    //     segment2 -> instance1
+    //     segment3 -> instance3
+    //   AdaptiveReplicaGroupInstanceSelector:
+    //     segment0 -> instance0
+    //     segment1 -> instance0
+    //     segment2 -> instance1
+    //     segment3 -> instance1
+    BrokerRequest brokerRequest = mock(BrokerRequest.class);
+    Map<String, String> expectedAdaptiveInstanceSelectorResult = new HashMap<>();
+    expectedAdaptiveInstanceSelectorResult.put(segment0, instance0);
+    expectedAdaptiveInstanceSelectorResult.put(segment1, instance2);
+    expectedAdaptiveInstanceSelectorResult.put(segment2, instance1);
+    expectedAdaptiveInstanceSelectorResult.put(segment3, instance3);
+    InstanceSelector.SelectionResult selectionResult = adaptiveInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedAdaptiveInstanceSelectorResult);
+    assertTrue(selectionResult.getUnavailableSegments().isEmpty());
+    Map<String, String> expectedAdaptiveReplicaGroupInstanceSelectorResult = new HashMap<>();
+    expectedAdaptiveReplicaGroupInstanceSelectorResult.put(segment0, instance0);
+    expectedAdaptiveReplicaGroupInstanceSelectorResult.put(segment1, instance0);
+    expectedAdaptiveReplicaGroupInstanceSelectorResult.put(segment2, instance1);
+    expectedAdaptiveReplicaGroupInstanceSelectorResult.put(segment3, instance1);
+    selectionResult = adaptiveReplicaGroupInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedAdaptiveReplicaGroupInstanceSelectorResult);
+    assertTrue(selectionResult.getUnavailableSegments().isEmpty());
+
+    // Make 'instance2' and 'instance3' much faster than 'instance0' and 'instance1', all segments should be routed to
+    // the fast instances:
+    //   AdaptiveInstanceSelector/AdaptiveReplicaGroupInstanceSelector:
+    //     segment0 -> instance2
+    //     segment1 -> instance2
+    //     segment2 -> instance3
+    //     segment3 -> instance3
+    recordRequest(serverLoadTracker, instance0, 100);
+    recordRequest(serverLoadTracker, instance1, 100);
+    recordRequest(serverLoadTracker, instance2, 10);
+    recordRequest(serverLoadTracker, instance3, 10);
+    Map<String, String> expectedResult = new HashMap<>();
+    expectedResult.put(segment0, instance2);
+    expectedResult.put(segment1, instance2);
+    expectedResult.put(segment2, instance3);
+    expectedResult.put(segment3, instance3);
+    selectionResult = adaptiveInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+    selectionResult = adaptiveReplicaGroupInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+
+    // Pile up in-flight requests on 'instance2', segments served by 'instance2' should be routed to 'instance0':
+    //   AdaptiveInstanceSelector/AdaptiveReplicaGroupInstanceSelector:
+    //     segment0 -> instance0
+    //     segment1 -> instance0
+    //     segment2 -> instance3
+    //     segment3 -> instance3
+    for (int i = 0; i < 20; i++) {
+      serverLoadTracker.recordRequestSubmitted(instance2);
+    }
+    assertEquals(serverLoadTracker.getNumInFlightRequests(instance2), 20);
+    expectedResult.put(segment0, instance0);
+    expectedResult.put(segment1, instance0);
+    selectionResult = adaptiveInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+    selectionResult = adaptiveReplicaGroupInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+
+    // After the in-flight requests complete, segments should be routed back to 'instance2'
+    for (int i = 0; i < 20; i++) {
+      serverLoadTracker.recordRequestCompleted(instance2, 10);
+    }
+    assertEquals(serverLoadTracker.getNumInFlightRequests(instance2), 0);
+    expectedResult.put(segment0, instance2);
+    expectedResult.put(segment1, instance2);
+    selectionResult = adaptiveInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+    selectionResult = adaptiveReplicaGroupInstanceSelector.select(brokerRequest, segments);
+    assertEquals(selectionResult.getSegmentToInstanceMap(), expectedResult);
+
+    // Only 'instance0' and 'instance2' serve both 'segment0' and 'segment1', no instance serves both 'segment0' and
+    // 'segment2'
+    assertEquals(adaptiveInstanceSelector.getInstancesServingAllSegments(Arrays.asList(segment0, segment1)),
+        Arrays.asList(instance0, instance2));
+    assertTrue(adaptiveInstanceSelector.getInstancesServingAllSegments(Arrays.asList(segment0, segment2)).isEmpty());
+
+    // Latency EWMA should decay over time
+    ServerLoadTracker decayingServerLoadTracker = new ServerLoadTracker(0.5, 1000);
+    long startTimeMs = System.currentTimeMillis();
+    recordRequest(decayingServerLoadTracker, instance0, 100);
+    long endTimeMs = System.currentTimeMillis();
+    assertEquals(decayingServerLoadTracker.getLatencyEwmaMs(instance0, endTimeMs), 100, 1);
+    assertEquals(decayingServerLoadTracker.getLatencyEwmaMs(instance0, startTimeMs + 1000), 50, 1);
+    recordRequest(decayingServerLoadTracker, instance0, 200);
+    assertEquals(decayingServerLoadTracker.getLatencyEwmaMs(instance0, System.currentTimeMillis()), 150, 1);
+    assertEquals(decayingServerLoadTracker.getLoadScore(instance1, System.currentTimeMillis()), 1.0);
+  }
+
+  private static void recordRequest(ServerLoadTracker serverLoadTracker, String instance, long latencyMs) {
+    serverLoadTracker.recordRequestSubmitted(instance);
+    serverLoadTracker.recordRequestCompleted(instance, latencyMs);
+  }
+
   @Test
   public void testUnavailableSegments() {
     String offlineTableName = "testTable_OFFLINE";
@@ -299,6 +299,21 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
     setValueOfGauge(value, fullGaugeName);
   }
 
+  /**
+   * Removes a partition gauge, e.g. when the partition is no longer served.
+   *
+   * @param tableName The table name
+   * @param partitionId The partition id
+   * @param gauge The gauge to remove
+   */
+  public void removePartitionGauge(final String tableName, final int partitionId, final G gauge) {
+    final String fullGaugeName;
+    String gaugeName = gauge.getGaugeName();
+    fullGaugeName = gaugeName + "." + getTableName(tableName) + "." + partitionId;
+
+    removeGauge(fullGaugeName);
+  }
+
   /**
    * Sets the value of a custom global gauge.
    *
@@ -327,17 +342,28 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
   }
 
   private void setValueOfGauge(long value, String gaugeName) {
-    if (!_gaugeValues.containsKey(gaugeName)) {
+    AtomicLong gaugeValue = _gaugeValues.get(gaugeName);
+    if (gaugeValue == null) {
       synchronized (_gaugeValues) {
-        if (!_gaugeValues.containsKey(gaugeName)) {
-          _gaugeValues.put(gaugeName, new AtomicLong(value));
-          addCallbackGauge(gaugeName, () -> _gaugeValues.get(gaugeName).get());
+        gaugeValue = _gaugeValues.get(gaugeName);
+        if (gaugeValue == null) {
+          AtomicLong newGaugeValue = new AtomicLong(value);
+          _gaugeValues.put(gaugeName, newGaugeValue);
+          addCallbackGauge(gaugeName, newGaugeValue::get);
         } else {
-          _gaugeValues.get(gaugeName).set(value);
+          gaugeValue.set(value);
         }
       }
     } else {
-      _gaugeValues.get(gaugeName).set(value);
+      gaugeValue.set(value);
+    }
+  }
+
+  private void removeGauge(String gaugeName) {
+    synchronized (_gaugeValues) {
+      if (_gaugeValues.remove(gaugeName) != null) {
+        MetricsHelper.removeMetric(_metricsRegistry, new MetricName(_clazz, _metricPrefix + gaugeName));
+      }
     }
   }
 
@@ -90,6 +90,10 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
 
   QUERY_QUOTA_EXCEEDED("exceptions", false),
 
+  // These metrics track the lookups of the query result cache for the OFFLINE tables.
+  QUERY_RESULT_CACHE_HITS("queries", false),
+  QUERY_RESULT_CACHE_MISSES("queries", false),
+
   // tracks a case a segment is not hosted by any server
   // this is different from NO_SERVER_FOUND_EXCEPTIONS which tracks unavailability across all segments
   NO_SERVING_HOST_FOR_SEGMENT("badResponses", false),
@@ -102,6 +106,11 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   NETTY_CONNECTION_BYTES_SENT("nettyConnection", true),
   NETTY_CONNECTION_BYTES_RECEIVED("nettyConnection", true),
 
+  // Hedged request metrics: hedged requests sent to another replica for slow servers, and hedged requests that
+  // responded before the original request
+  HEDGED_REQUESTS_SENT("requests", false),
+  HEDGED_REQUESTS_WON("requests", false),
+
   PROACTIVE_CLUSTER_CHANGE_CHECK("proactiveClusterChangeCheck", true);
 
   private final String brokerMeterName;
@@ -41,6 +41,12 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   REALTIME_OFFHEAP_MEMORY_USED("bytes", false),
   REALTIME_SEGMENT_NUM_PARTITIONS("realtimeSegmentNumPartitions", false),
   LLC_SIMULTANEOUS_SEGMENT_BUILDS("llcSimultaneousSegmentBuilds", true),
+  // Server-wide budget and usage of the off-heap memory for the realtime consuming segments
+  REALTIME_OFFHEAP_MEMORY_BUDGET("bytes", true),
+  REALTIME_OFFHEAP_MEMORY_ALLOCATED("bytes", true),
+  REALTIME_CONSUMPTION_PAUSED_SEGMENTS("segments", true),
+  // How long the documents in the consuming segment have not been searchable through the text index
+  REALTIME_TEXT_INDEX_REFRESH_LAG_MS("milliseconds", false),
 
   // Upsert metrics
   UPSERT_PRIMARY_KEYS_COUNT("upsertPrimaryKeysCount", false);
@@ -41,6 +41,7 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   REALTIME_OFFSET_COMMIT_EXCEPTIONS("exceptions", false),
   REALTIME_PARTITION_MISMATCH("mismatch", false),
   ROWS_WITH_ERRORS("rows", false),
+  REALTIME_MEMORY_LIMIT_FLUSHES("segments", false),
   LLC_CONTROLLER_RESPONSE_NOT_SENT("messages", true),
   LLC_CONTROLLER_RESPONSE_COMMIT("messages", true),
   LLC_CONTROLLER_RESPONSE_HOLD("messages", true),
@@ -135,6 +135,8 @@ public class SegmentCompletionProtocol {
 
   public static final String REASON_ROW_LIMIT = "rowLimit";  // Stop reason sent by server as max num rows reached
   public static final String REASON_TIME_LIMIT = "timeLimit";  // Stop reason sent by server as max time reached
+  // Stop reason sent by server as the off-heap memory budget for consuming segments is exhausted
+  public static final String REASON_MEMORY_LIMIT = "memoryLimit";
 
   // Canned responses
   public static final Response RESP_NOT_LEADER =
@@ -177,6 +177,35 @@ public class CommonConstants {
     public static final String CONFIG_OF_BROKER_GROUPBY_TRIM_THRESHOLD = "pinot.broker.groupby.trim.threshold";
     public static final int DEFAULT_BROKER_GROUPBY_TRIM_THRESHOLD = 1_000_000;
 
+    // Config for streaming reduce, which reduces the server responses one at a time as they arrive instead of waiting
+    // for all the servers to respond (not applied to DISTINCT queries or queries served with the query result cache)
+    public static final String CONFIG_OF_STREAMING_REDUCE_ENABLED = "pinot.broker.streaming.reduce.enabled";
+    public static final boolean DEFAULT_STREAMING_REDUCE_ENABLED = false;
+
+    // Configs for the query result cache, which caches the server responses for the OFFLINE tables
+    public static final String CONFIG_OF_ENABLE_QUERY_RESULT_CACHE = "pinot.broker.query.result.cache.enabled";
+    public static final boolean DEFAULT_ENABLE_QUERY_RESULT_CACHE = false;
+    public static final String CONFIG_OF_QUERY_RESULT_CACHE_MAX_SIZE_BYTES =
+        "pinot.broker.query.result.cache.maxSizeBytes";
+    public static final long DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE_BYTES = 100 * 1024 * 1024L;
+
+    // Configs for the Netty channels between the broker and the servers
+    public static final String CONFIG_OF_NETTY_CONNECTIONS_PER_SERVER = "pinot.broker.netty.connectionsPerServer";
+    public static final int DEFAULT_NETTY_CONNECTIONS_PER_SERVER = 1;
+    // Use the native (Epoll) transport when available, fall back to the NIO transport otherwise
+    public static final String CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED = "pinot.broker.netty.nativeTransport.enabled";
+    public static final boolean DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED = false;
+
+    // Configs for the hedged requests, which resend the request of a slow server to another replica once the server
+    // has not responded within the given percentile of its historical latency (but no earlier than the min delay)
+    public static final String CONFIG_OF_HEDGED_REQUEST_ENABLED = "pinot.broker.hedgedRequest.enabled";
+    public static final boolean DEFAULT_HEDGED_REQUEST_ENABLED = false;
+    public static final String CONFIG_OF_HEDGED_REQUEST_LATENCY_PERCENTILE =
+        "pinot.broker.hedgedRequest.latencyPercentile";
+    public static final double DEFAULT_HEDGED_REQUEST_LATENCY_PERCENTILE = 95;
+    public static final String CONFIG_OF_HEDGED_REQUEST_MIN_DELAY_MS = "pinot.broker.hedgedRequest.minDelayMs";
+    public static final long DEFAULT_HEDGED_REQUEST_MIN_DELAY_MS = 10L;
+
     public static class Request {
       public static final String PQL = "pql";
       public static final String SQL = "sql";
@@ -190,6 +219,7 @@ public class CommonConstants {
         public static final String RESPONSE_FORMAT = "responseFormat";
         public static final String GROUP_BY_MODE = "groupByMode";
         public static final String SKIP_UPSERT = "skipUpsert";
+        public static final String SKIP_RESULT_CACHE = "skipResultCache";
       }
     }
   }
@@ -212,8 +242,15 @@ public class CommonConstants {
     public static final boolean DEFAULT_ENABLE_GRPC_SERVER = false;
     public static final String CONFIG_OF_GRPC_PORT = "pinot.server.grpc.port";
     public static final int DEFAULT_GRPC_PORT = 8090;
+    // Use the native (Epoll) transport for the Netty query server when available, fall back to the NIO transport
+    // otherwise
+    public static final String CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED = "pinot.server.netty.nativeTransport.enabled";
+    public static final boolean DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED = false;
     public static final String CONFIG_OF_ADMIN_API_PORT = "pinot.server.adminapi.port";
     public static final int DEFAULT_ADMIN_API_PORT = 8097;
+    // Version of the data table sent to the brokers, only switch to version 3 after all the brokers are upgraded
+    public static final String CONFIG_OF_CURRENT_DATA_TABLE_VERSION = "pinot.server.instance.currentDataTableVersion";
+    public static final int DEFAULT_CURRENT_DATA_TABLE_VERSION = 2;
 
     public static final String CONFIG_OF_SEGMENT_FORMAT_VERSION = "pinot.server.instance.segment.format.version";
     public static final String CONFIG_OF_ENABLE_SPLIT_COMMIT = "pinot.server.instance.enable.split.commit";
@@ -222,6 +259,9 @@ public class CommonConstants {
     public static final String CONFIG_OF_REALTIME_OFFHEAP_ALLOCATION = "pinot.server.instance.realtime.alloc.offheap";
     public static final String CONFIG_OF_REALTIME_OFFHEAP_DIRECT_ALLOCATION =
         "pinot.server.instance.realtime.alloc.offheap.direct";
+    // Number of threads to refresh the text indexes of the consuming segments for near realtime text search
+    public static final String CONFIG_OF_REALTIME_TEXT_INDEX_REFRESH_THREADS =
+        "pinot.server.instance.realtime.textIndex.refreshThreads";
     public static final String PREFIX_OF_CONFIG_OF_PINOT_FS_FACTORY = "pinot.server.storage.factory";
     public static final String PREFIX_OF_CONFIG_OF_PINOT_CRYPTER = "pinot.server.crypter";
     // Configuration to consider the server ServiceStatus as being STARTED if the percent of resources (tables) that
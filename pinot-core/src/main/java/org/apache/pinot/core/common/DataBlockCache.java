@@ -18,40 +18,52 @@
  */
 package org.apache.pinot.core.common;
 
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
-import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+import org.apache.pinot.common.utils.HashUtil;
 import org.apache.pinot.core.plan.DocIdSetPlanNode;
-import org.apache.pinot.spi.data.FieldSpec;
-import org.apache.pinot.spi.utils.EqualityUtils;
 
 
 /**
  * This class serves as a block level cache for column dictionary Ids and values. Using this class can prevent fetching
  * data for the same column multiple times. This class allocate resources on demand, and reuse them as much as possible
  * to prevent garbage collection.
+ * <p>The buffers of each column are resolved when the cache is created (at plan time) and stored in a fixed slot per
+ * buffer type, so fetching the data does not need any lookup on the column and data type pair. The buffers are borrowed
+ * from a thread local pool, and should be returned to the pool with {@link #releaseBuffers()} once the segment is fully
+ * processed, so that the next segment processed by the same thread can reuse them. The memory retained by the pool is
+ * bounded per thread (see {@link BufferPool}), the buffers released beyond the bound are left to the garbage collector.
  */
 @SuppressWarnings("Duplicates")
 public class DataBlockCache {
-  private final DataFetcher _dataFetcher;
-
-  // Mark whether data have been fetched, need to be cleared in initNewBlock()
-  private final Set<String> _columnDictIdLoaded = new HashSet<>();
-  private final Set<ColumnTypePair> _columnValueLoaded = new HashSet<>();
-  private final Set<String> _columnNumValuesLoaded = new HashSet<>();
+  // Thread local (reusable) buffers shared by all the data block caches (one per segment) processed by the same thread
+  private static final ThreadLocal<BufferPool> THREAD_LOCAL_BUFFER_POOL = ThreadLocal.withInitial(BufferPool::new);
+  // Estimated size of an object reference in the reference type buffers (e.g. String[], int[][])
+  private static final int REFERENCE_SIZE = 8;
+  // Max size of the buffers retained by the thread local pool in total and for each buffer type
+  static final long MAX_POOL_SIZE_IN_BYTES = 2 * 1024 * 1024;
+  static final long MAX_POOL_SIZE_IN_BYTES_PER_TYPE = 512 * 1024;
 
-  // Buffer for data
-  private final Map<String, Object> _dictIdsMap = new HashMap<>();
-  private final Map<ColumnTypePair, Object> _valuesMap = new HashMap<>();
-  private final Map<String, int[]> _numValuesMap = new HashMap<>();
+  private final DataFetcher _dataFetcher;
+  private final Map<String, ColumnBuffers> _columnBuffersMap;
 
+  // Id of the current block, used to mark whether data have been fetched for the current block
+  private int _blockId;
   private int[] _docIds;
   private int _length;
 
-  public DataBlockCache(DataFetcher dataFetcher) {
+  public DataBlockCache(DataFetcher dataFetcher, Collection<String> columns) {
     _dataFetcher = dataFetcher;
+    _columnBuffersMap = new HashMap<>(HashUtil.getHashMapCapacity(columns.size()));
+    for (String column : columns) {
+      _columnBuffersMap.put(column, new ColumnBuffers());
+    }
   }
 
   /**
@@ -62,12 +74,28 @@ public class DataBlockCache {
    * @param length Number of document Ids
    */
   public void initNewBlock(int[] docIds, int length) {
+    _blockId++;
     _docIds = docIds;
     _length = length;
+  }
 
-    _columnDictIdLoaded.clear();
-    _columnValueLoaded.clear();
-    _columnNumValuesLoaded.clear();
+  /**
+   * Returns all the buffers to the thread local pool. This method should be called after all the blocks are processed,
+   * and the arrays returned by this cache should not be accessed after calling this method.
+   */
+  public void releaseBuffers() {
+    BufferPool bufferPool = THREAD_LOCAL_BUFFER_POOL.get();
+    for (ColumnBuffers columnBuffers : _columnBuffersMap.values()) {
+      columnBuffers.release(bufferPool);
+    }
+  }
+
+  /**
+   * Returns the size of the buffers retained by the thread local pool of the current thread.
+   */
+  @VisibleForTesting
+  static long getThreadLocalPoolSizeInBytes() {
+    return THREAD_LOCAL_BUFFER_POOL.get()._sizeInBytes;
   }
 
   /**
@@ -90,17 +118,15 @@ public class DataBlockCache {
    * @return Array of dictionary Ids
    */
   public int[] getDictIdsForSVColumn(String column) {
-    int[] dictIds = (int[]) _dictIdsMap.get(column);
-    if (_columnDictIdLoaded.add(column)) {
-      if (dictIds == null) {
-        dictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _dictIdsMap.put(column, dictIds);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    int[] dictIds = (int[]) columnBuffers.getBuffer(BufferType.DICT_IDS_SV);
+    if (columnBuffers.markLoaded(BufferType.DICT_IDS_SV, _blockId)) {
       _dataFetcher.fetchDictIds(column, _docIds, _length, dictIds);
     }
     return dictIds;
   }
 
+
   /**
    * Get the int values for a single-valued column.
    *
@@ -108,18 +134,15 @@ public class DataBlockCache {
    * @return Array of int values
    */
   public int[] getIntValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.INT);
-    int[] intValues = (int[]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (intValues == null) {
-        intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _valuesMap.put(key, intValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    int[] intValues = (int[]) columnBuffers.getBuffer(BufferType.INT_SV);
+    if (columnBuffers.markLoaded(BufferType.INT_SV, _blockId)) {
       _dataFetcher.fetchIntValues(column, _docIds, _length, intValues);
     }
     return intValues;
   }
 
+
   /**
    * Get the long values for a single-valued column.
    *
@@ -127,18 +150,15 @@ public class DataBlockCache {
    * @return Array of long values
    */
   public long[] getLongValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.LONG);
-    long[] longValues = (long[]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (longValues == null) {
-        longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _valuesMap.put(key, longValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    long[] longValues = (long[]) columnBuffers.getBuffer(BufferType.LONG_SV);
+    if (columnBuffers.markLoaded(BufferType.LONG_SV, _blockId)) {
       _dataFetcher.fetchLongValues(column, _docIds, _length, longValues);
     }
     return longValues;
   }
 
+
   /**
    * Get the float values for a single-valued column.
    *
@@ -146,18 +166,15 @@ public class DataBlockCache {
    * @return Array of float values
    */
   public float[] getFloatValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.FLOAT);
-    float[] floatValues = (float[]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (floatValues == null) {
-        floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _valuesMap.put(key, floatValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    float[] floatValues = (float[]) columnBuffers.getBuffer(BufferType.FLOAT_SV);
+    if (columnBuffers.markLoaded(BufferType.FLOAT_SV, _blockId)) {
       _dataFetcher.fetchFloatValues(column, _docIds, _length, floatValues);
     }
     return floatValues;
   }
 
+
   /**
    * Get the double values for a single-valued column.
    *
@@ -165,18 +182,15 @@ public class DataBlockCache {
    * @return Array of double values
    */
   public double[] getDoubleValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.DOUBLE);
-    double[] doubleValues = (double[]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (doubleValues == null) {
-        doubleValues = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _valuesMap.put(key, doubleValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    double[] doubleValues = (double[]) columnBuffers.getBuffer(BufferType.DOUBLE_SV);
+    if (columnBuffers.markLoaded(BufferType.DOUBLE_SV, _blockId)) {
       _dataFetcher.fetchDoubleValues(column, _docIds, _length, doubleValues);
     }
     return doubleValues;
   }
 
+
   /**
    * Get the string values for a single-valued column.
    *
@@ -184,18 +198,15 @@ public class DataBlockCache {
    * @return Array of string values
    */
   public String[] getStringValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.STRING);
-    String[] stringValues = (String[]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (stringValues == null) {
-        stringValues = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _valuesMap.put(key, stringValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    String[] stringValues = (String[]) columnBuffers.getBuffer(BufferType.STRING_SV);
+    if (columnBuffers.markLoaded(BufferType.STRING_SV, _blockId)) {
       _dataFetcher.fetchStringValues(column, _docIds, _length, stringValues);
     }
     return stringValues;
   }
 
+
   /**
    * Get byte[] values for the given single-valued column.
    *
@@ -203,19 +214,15 @@ public class DataBlockCache {
    * @return byte[] for the column
    */
   public byte[][] getBytesValuesForSVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.BYTES);
-    byte[][] bytesValues = (byte[][]) _valuesMap.get(key);
-
-    if (_columnValueLoaded.add(key)) {
-      if (bytesValues == null) {
-        bytesValues = new byte[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, bytesValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    byte[][] bytesValues = (byte[][]) columnBuffers.getBuffer(BufferType.BYTES_SV);
+    if (columnBuffers.markLoaded(BufferType.BYTES_SV, _blockId)) {
       _dataFetcher.fetchBytesValues(column, _docIds, _length, bytesValues);
     }
     return bytesValues;
   }
 
+
   /**
    * MULTI-VALUED COLUMN API
    */
@@ -227,17 +234,15 @@ public class DataBlockCache {
    * @return Array of dictionary Ids
    */
   public int[][] getDictIdsForMVColumn(String column) {
-    int[][] dictIds = (int[][]) _dictIdsMap.get(column);
-    if (_columnDictIdLoaded.add(column)) {
-      if (dictIds == null) {
-        dictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _dictIdsMap.put(column, dictIds);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    int[][] dictIds = (int[][]) columnBuffers.getBuffer(BufferType.DICT_IDS_MV);
+    if (columnBuffers.markLoaded(BufferType.DICT_IDS_MV, _blockId)) {
       _dataFetcher.fetchDictIds(column, _docIds, _length, dictIds);
     }
     return dictIds;
   }
 
+
   /**
    * Get the int values for a multi-valued column.
    *
@@ -245,18 +250,15 @@ public class DataBlockCache {
    * @return Array of int values
    */
   public int[][] getIntValuesForMVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.INT);
-    int[][] intValues = (int[][]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (intValues == null) {
-        intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, intValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    int[][] intValues = (int[][]) columnBuffers.getBuffer(BufferType.INT_MV);
+    if (columnBuffers.markLoaded(BufferType.INT_MV, _blockId)) {
       _dataFetcher.fetchIntValues(column, _docIds, _length, intValues);
     }
     return intValues;
   }
 
+
   /**
    * Get the long values for a multi-valued column.
    *
@@ -264,18 +266,15 @@ public class DataBlockCache {
    * @return Array of long values
    */
   public long[][] getLongValuesForMVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.LONG);
-    long[][] longValues = (long[][]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (longValues == null) {
-        longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, longValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    long[][] longValues = (long[][]) columnBuffers.getBuffer(BufferType.LONG_MV);
+    if (columnBuffers.markLoaded(BufferType.LONG_MV, _blockId)) {
       _dataFetcher.fetchLongValues(column, _docIds, _length, longValues);
     }
     return longValues;
   }
 
+
   /**
    * Get the float values for a multi-valued column.
    *
@@ -283,18 +282,15 @@ public class DataBlockCache {
    * @return Array of float values
    */
   public float[][] getFloatValuesForMVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.FLOAT);
-    float[][] floatValues = (float[][]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (floatValues == null) {
-        floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, floatValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    float[][] floatValues = (float[][]) columnBuffers.getBuffer(BufferType.FLOAT_MV);
+    if (columnBuffers.markLoaded(BufferType.FLOAT_MV, _blockId)) {
       _dataFetcher.fetchFloatValues(column, _docIds, _length, floatValues);
     }
     return floatValues;
   }
 
+
   /**
    * Get the double values for a multi-valued column.
    *
@@ -302,18 +298,15 @@ public class DataBlockCache {
    * @return Array of double values
    */
   public double[][] getDoubleValuesForMVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.DOUBLE);
-    double[][] doubleValues = (double[][]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (doubleValues == null) {
-        doubleValues = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, doubleValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    double[][] doubleValues = (double[][]) columnBuffers.getBuffer(BufferType.DOUBLE_MV);
+    if (columnBuffers.markLoaded(BufferType.DOUBLE_MV, _blockId)) {
       _dataFetcher.fetchDoubleValues(column, _docIds, _length, doubleValues);
     }
     return doubleValues;
   }
 
+
   /**
    * Get the string values for a multi-valued column.
    *
@@ -321,18 +314,15 @@ public class DataBlockCache {
    * @return Array of string values
    */
   public String[][] getStringValuesForMVColumn(String column) {
-    ColumnTypePair key = new ColumnTypePair(column, FieldSpec.DataType.STRING);
-    String[][] stringValues = (String[][]) _valuesMap.get(key);
-    if (_columnValueLoaded.add(key)) {
-      if (stringValues == null) {
-        stringValues = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
-        _valuesMap.put(key, stringValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    String[][] stringValues = (String[][]) columnBuffers.getBuffer(BufferType.STRING_MV);
+    if (columnBuffers.markLoaded(BufferType.STRING_MV, _blockId)) {
       _dataFetcher.fetchStringValues(column, _docIds, _length, stringValues);
     }
     return stringValues;
   }
 
+
   /**
    * Get the number of values for a multi-valued column.
    *
@@ -340,39 +330,141 @@ public class DataBlockCache {
    * @return Array of number of values
    */
   public int[] getNumValuesForMVColumn(String column) {
-    int[] numValues = _numValuesMap.get(column);
-    if (_columnNumValuesLoaded.add(column)) {
-      if (numValues == null) {
-        numValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
-        _numValuesMap.put(column, numValues);
-      }
+    ColumnBuffers columnBuffers = _columnBuffersMap.get(column);
+    int[] numValues = (int[]) columnBuffers.getBuffer(BufferType.NUM_VALUES_MV);
+    if (columnBuffers.markLoaded(BufferType.NUM_VALUES_MV, _blockId)) {
       _dataFetcher.fetchNumValues(column, _docIds, _length, numValues);
     }
     return numValues;
   }
 
+
   /**
-   * Helper class to store pair of column name and data type.
+   * Type of the buffer, which decides the slot of the buffer within the {@link ColumnBuffers}.
    */
-  private static class ColumnTypePair {
-    final String _column;
-    final FieldSpec.DataType _dataType;
+  private enum BufferType {
+    DICT_IDS_SV(() -> new int[DocIdSetPlanNode.MAX_DOC_PER_CALL], Integer.BYTES),
+    INT_SV(() -> new int[DocIdSetPlanNode.MAX_DOC_PER_CALL], Integer.BYTES),
+    LONG_SV(() -> new long[DocIdSetPlanNode.MAX_DOC_PER_CALL], Long.BYTES),
+    FLOAT_SV(() -> new float[DocIdSetPlanNode.MAX_DOC_PER_CALL], Float.BYTES),
+    DOUBLE_SV(() -> new double[DocIdSetPlanNode.MAX_DOC_PER_CALL], Double.BYTES),
+    STRING_SV(() -> new String[DocIdSetPlanNode.MAX_DOC_PER_CALL], REFERENCE_SIZE),
+    BYTES_SV(() -> new byte[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    DICT_IDS_MV(() -> new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    INT_MV(() -> new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    LONG_MV(() -> new long[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    FLOAT_MV(() -> new float[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    DOUBLE_MV(() -> new double[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    STRING_MV(() -> new String[DocIdSetPlanNode.MAX_DOC_PER_CALL][], REFERENCE_SIZE),
+    NUM_VALUES_MV(() -> new int[DocIdSetPlanNode.MAX_DOC_PER_CALL], Integer.BYTES);
+
+    static final BufferType[] VALUES = values();
+
+    final Supplier<Object> _allocator;
+    final int _elementSize;
 
-    ColumnTypePair(@Nonnull String column, @Nonnull FieldSpec.DataType dataType) {
-      _column = column;
-      _dataType = dataType;
+    BufferType(Supplier<Object> allocator, int elementSize) {
+      _allocator = allocator;
+      _elementSize = elementSize;
     }
 
-    @Override
-    public int hashCode() {
-      return EqualityUtils.hashCodeOf(_column.hashCode(), _dataType.hashCode());
+    /**
+     * Returns the (estimated) size of the given buffer of this type. The values referenced by the buffers of the
+     * reference types are not counted because they are cleared when the buffer is returned to the pool.
+     */
+    long getSizeInBytes(Object buffer) {
+      return (long) Array.getLength(buffer) * _elementSize;
     }
+  }
+
+  /**
+   * Helper class to store the buffers of a column, indexed by the ordinal of the buffer type.
+   */
+  private static class ColumnBuffers {
+    final Object[] _buffers = new Object[BufferType.VALUES.length];
+    // Id of the block for which the buffer is loaded
+    final int[] _loadedBlockIds = new int[BufferType.VALUES.length];
 
-    @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
-    @Override
-    public boolean equals(Object obj) {
-      ColumnTypePair that = (ColumnTypePair) obj;
-      return _column.equals(that._column) && _dataType == that._dataType;
+    Object getBuffer(BufferType bufferType) {
+      int index = bufferType.ordinal();
+      Object buffer = _buffers[index];
+      if (buffer == null) {
+        buffer = THREAD_LOCAL_BUFFER_POOL.get().borrow(bufferType);
+        _buffers[index] = buffer;
+      }
+      return buffer;
+    }
+
+    /**
+     * Marks the buffer as loaded for the given block, returns {@code true} if the buffer was not loaded for the block.
+     */
+    boolean markLoaded(BufferType bufferType, int blockId) {
+      int index = bufferType.ordinal();
+      if (_loadedBlockIds[index] == blockId) {
+        return false;
+      } else {
+        _loadedBlockIds[index] = blockId;
+        return true;
+      }
+    }
+
+    void release(BufferPool bufferPool) {
+      for (int i = 0; i < _buffers.length; i++) {
+        Object buffer = _buffers[i];
+        if (buffer != null) {
+          bufferPool.release(BufferType.VALUES[i], buffer);
+          _buffers[i] = null;
+          _loadedBlockIds[i] = 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Pool of the buffers for a thread.
+   * <p>The memory retained by the pool is bounded by {@link #MAX_POOL_SIZE_IN_BYTES} in total and
+   * {@link #MAX_POOL_SIZE_IN_BYTES_PER_TYPE} for each buffer type, so that the pool of an idle thread does not hold the
+   * buffers for all the buffer types of the widest query processed by the thread.
+   */
+  private static class BufferPool {
+    final ArrayDeque<Object>[] _buffers;
+    final long[] _sizesInBytes = new long[BufferType.VALUES.length];
+    long _sizeInBytes;
+
+    @SuppressWarnings("unchecked")
+    BufferPool() {
+      _buffers = new ArrayDeque[BufferType.VALUES.length];
+      for (int i = 0; i < _buffers.length; i++) {
+        _buffers[i] = new ArrayDeque<>();
+      }
+    }
+
+    Object borrow(BufferType bufferType) {
+      int index = bufferType.ordinal();
+      Object buffer = _buffers[index].pollFirst();
+      if (buffer != null) {
+        long bufferSizeInBytes = bufferType.getSizeInBytes(buffer);
+        _sizesInBytes[index] -= bufferSizeInBytes;
+        _sizeInBytes -= bufferSizeInBytes;
+        return buffer;
+      } else {
+        return bufferType._allocator.get();
+      }
+    }
+
+    void release(BufferType bufferType, Object buffer) {
+      int index = bufferType.ordinal();
+      long bufferSizeInBytes = bufferType.getSizeInBytes(buffer);
+      if (_sizesInBytes[index] + bufferSizeInBytes <= MAX_POOL_SIZE_IN_BYTES_PER_TYPE
+          && _sizeInBytes + bufferSizeInBytes <= MAX_POOL_SIZE_IN_BYTES) {
+        // Do not retain the values (e.g. String, byte[]) referenced by the buffer
+        if (buffer instanceof Object[]) {
+          Arrays.fill((Object[]) buffer, null);
+        }
+        _buffers[index].addFirst(buffer);
+        _sizesInBytes[index] += bufferSizeInBytes;
+        _sizeInBytes += bufferSizeInBytes;
+      }
     }
   }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.common.datatable;
 
+import com.google.common.base.Preconditions;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -75,11 +76,23 @@ import org.apache.pinot.spi.utils.ByteArray;
 // TODO:   1. Fix float size.
 // TODO:   2. Use one dictionary for all columns (save space).
 // TODO:   3. Given a data schema, write all values one by one instead of using rowId and colId to position (save time).
-// TODO:   4. Store bytes as variable size data instead of String
+// TODO:   4. Store bytes as variable size data instead of String (done in data table V3)
 public class DataTableBuilder {
+  public static final int VERSION_2 = 2;
+  public static final int VERSION_3 = 3;
+
+  // NOTE: Data table V3 can only be deserialized by the brokers with the V3 support, so it should be enabled after all
+  //       the brokers are upgraded.
+  private static int _version = VERSION_2;
+
+  private static final int INITIAL_COLUMNAR_CAPACITY_IN_ROWS = 16;
+
   private final DataSchema _dataSchema;
   private final int[] _columnOffsets;
   private final int _rowSizeInBytes;
+  // Only set for data table V3, where the fixed size data of each column is directly written into its own buffer
+  private final int[] _columnSizes;
+  private final ByteBuffer[] _columnarFixedSizeDataBuffers;
   private final Map<String, Map<String, Integer>> _dictionaryMap = new HashMap<>();
   private final Map<String, Map<Integer, String>> _reverseDictionaryMap = new HashMap<>();
   private final ByteArrayOutputStream _fixedSizeDataByteArrayOutputStream = new ByteArrayOutputStream();
@@ -88,61 +101,113 @@ public class DataTableBuilder {
       new DataOutputStream(_variableSizeDataByteArrayOutputStream);
 
   private int _numRows;
+  private int _columnarCapacityInRows;
   private ByteBuffer _currentRowDataByteBuffer;
 
+  public static int getCurrentDataTableVersion() {
+    return _version;
+  }
+
+  public static void setCurrentDataTableVersion(int version) {
+    Preconditions.checkArgument(version == VERSION_2 || version == VERSION_3, "Unsupported data table version: %s",
+        version);
+    _version = version;
+  }
+
+  /**
+   * Returns an empty data table (without data schema) of the current version.
+   */
+  public static DataTable getEmptyDataTable() {
+    return _version == VERSION_3 ? new DataTableImplV3() : new DataTableImplV2();
+  }
+
   public DataTableBuilder(DataSchema dataSchema) {
     _dataSchema = dataSchema;
     _columnOffsets = new int[dataSchema.size()];
     _rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, _columnOffsets);
+    if (_version == VERSION_3) {
+      int numColumns = _columnOffsets.length;
+      _columnSizes = new int[numColumns];
+      _columnarFixedSizeDataBuffers = new ByteBuffer[numColumns];
+      for (int colId = 0; colId < numColumns; colId++) {
+        _columnSizes[colId] =
+            (colId < numColumns - 1 ? _columnOffsets[colId + 1] : _rowSizeInBytes) - _columnOffsets[colId];
+        _columnarFixedSizeDataBuffers[colId] =
+            ByteBuffer.allocate(INITIAL_COLUMNAR_CAPACITY_IN_ROWS * _columnSizes[colId]);
+      }
+      _columnarCapacityInRows = INITIAL_COLUMNAR_CAPACITY_IN_ROWS;
+    } else {
+      _columnSizes = null;
+      _columnarFixedSizeDataBuffers = null;
+    }
   }
 
   public void startRow() {
     _numRows++;
-    _currentRowDataByteBuffer = ByteBuffer.allocate(_rowSizeInBytes);
+    if (_columnarFixedSizeDataBuffers == null) {
+      _currentRowDataByteBuffer = ByteBuffer.allocate(_rowSizeInBytes);
+    } else if (_numRows > _columnarCapacityInRows) {
+      _columnarCapacityInRows <<= 1;
+      int numColumns = _columnarFixedSizeDataBuffers.length;
+      for (int colId = 0; colId < numColumns; colId++) {
+        ByteBuffer columnBuffer = ByteBuffer.allocate(_columnarCapacityInRows * _columnSizes[colId]);
+        columnBuffer.put(_columnarFixedSizeDataBuffers[colId].array());
+        _columnarFixedSizeDataBuffers[colId] = columnBuffer;
+      }
+    }
+  }
+
+  /**
+   * Returns the buffer positioned at the fixed size value of the given column for the current row. For data table V3,
+   * the value is written directly into the buffer of the column so that no conversion is needed when building the data
+   * table.
+   */
+  private ByteBuffer getFixedSizeDataBuffer(int colId) {
+    if (_columnarFixedSizeDataBuffers == null) {
+      _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+      return _currentRowDataByteBuffer;
+    } else {
+      ByteBuffer columnBuffer = _columnarFixedSizeDataBuffers[colId];
+      columnBuffer.position((_numRows - 1) * _columnSizes[colId]);
+      return columnBuffer;
+    }
   }
 
   public void setColumn(int colId, boolean value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
     if (value) {
-      _currentRowDataByteBuffer.put((byte) 1);
+      byteBuffer.put((byte) 1);
     } else {
-      _currentRowDataByteBuffer.put((byte) 0);
+      byteBuffer.put((byte) 0);
     }
   }
 
   public void setColumn(int colId, byte value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.put(value);
+    getFixedSizeDataBuffer(colId).put(value);
   }
 
   public void setColumn(int colId, char value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putChar(value);
+    getFixedSizeDataBuffer(colId).putChar(value);
   }
 
   public void setColumn(int colId, short value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putShort(value);
+    getFixedSizeDataBuffer(colId).putShort(value);
   }
 
   public void setColumn(int colId, int value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(value);
+    getFixedSizeDataBuffer(colId).putInt(value);
   }
 
   public void setColumn(int colId, long value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putLong(value);
+    getFixedSizeDataBuffer(colId).putLong(value);
   }
 
   public void setColumn(int colId, float value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putFloat(value);
+    getFixedSizeDataBuffer(colId).putFloat(value);
   }
 
   public void setColumn(int colId, double value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putDouble(value);
+    getFixedSizeDataBuffer(colId).putDouble(value);
   }
 
   public void setColumn(int colId, String value) {
@@ -154,49 +219,46 @@ public class DataTableBuilder {
       _reverseDictionaryMap.put(columnName, new HashMap<>());
     }
 
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
     Integer dictId = dictionary.get(value);
     if (dictId == null) {
       dictId = dictionary.size();
       dictionary.put(value, dictId);
       _reverseDictionaryMap.get(columnName).put(dictId, value);
     }
-    _currentRowDataByteBuffer.putInt(dictId);
+    byteBuffer.putInt(dictId);
   }
 
   public void setColumn(int colId, ByteArray value)
       throws IOException {
-    // NOTE: Use String to store bytes value in DataTable V2 for backward-compatibility
-    setColumn(colId, value.toHexString());
-
-    /*
-    TODO: Store bytes as variable size data instead of String. Make the change for the next version data table for
-          backward-compatibility
-
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    byte[] bytes = value.getBytes();
-    _currentRowDataByteBuffer.putInt(bytes.length);
-    _variableSizeDataByteArrayOutputStream.write(bytes);
-     */
+    if (_columnarFixedSizeDataBuffers == null) {
+      // NOTE: Use String to store bytes value in DataTable V2 for backward-compatibility
+      setColumn(colId, value.toHexString());
+    } else {
+      ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+      byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+      byte[] bytes = value.getBytes();
+      byteBuffer.putInt(bytes.length);
+      _variableSizeDataByteArrayOutputStream.write(bytes);
+    }
   }
 
   public void setColumn(int colId, Object value)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
     int objectTypeValue = ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
     byte[] bytes = ObjectSerDeUtils.serialize(value, objectTypeValue);
-    _currentRowDataByteBuffer.putInt(bytes.length);
+    byteBuffer.putInt(bytes.length);
     _variableSizeDataOutputStream.writeInt(objectTypeValue);
     _variableSizeDataByteArrayOutputStream.write(bytes);
   }
 
   public void setColumn(int colId, int[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (int value : values) {
       _variableSizeDataOutputStream.writeInt(value);
     }
@@ -204,9 +266,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, long[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (long value : values) {
       _variableSizeDataOutputStream.writeLong(value);
     }
@@ -214,9 +276,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, float[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (float value : values) {
       _variableSizeDataOutputStream.writeFloat(value);
     }
@@ -224,9 +286,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, double[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (double value : values) {
       _variableSizeDataOutputStream.writeDouble(value);
     }
@@ -234,9 +296,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, String[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getFixedSizeDataBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
 
     String columnName = _dataSchema.getColumnName(colId);
     Map<String, Integer> dictionary = _dictionaryMap.get(columnName);
@@ -259,11 +321,57 @@ public class DataTableBuilder {
 
   public void finishRow()
       throws IOException {
-    _fixedSizeDataByteArrayOutputStream.write(_currentRowDataByteBuffer.array());
+    if (_columnarFixedSizeDataBuffers == null) {
+      _fixedSizeDataByteArrayOutputStream.write(_currentRowDataByteBuffer.array());
+    }
   }
 
   public DataTable build() {
-    return new DataTableImplV2(_numRows, _dataSchema, _reverseDictionaryMap,
-        _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
+    if (_columnarFixedSizeDataBuffers == null) {
+      return new DataTableImplV2(_numRows, _dataSchema, _reverseDictionaryMap,
+          _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
+    } else {
+      return new DataTableImplV3(_numRows, _dataSchema, getDictionaries(), getColumnarFixedSizeDataBytes(),
+          _variableSizeDataByteArrayOutputStream.toByteArray());
+    }
+  }
+
+  /**
+   * Returns the dictionary values in dictionary id order for each column, or {@code null} if no column has dictionary.
+   */
+  private String[][] getDictionaries() {
+    if (_reverseDictionaryMap.isEmpty()) {
+      return null;
+    }
+    int numColumns = _dataSchema.size();
+    String[][] dictionaries = new String[numColumns][];
+    for (int colId = 0; colId < numColumns; colId++) {
+      Map<Integer, String> reverseDictionary = _reverseDictionaryMap.get(_dataSchema.getColumnName(colId));
+      if (reverseDictionary != null) {
+        int dictionarySize = reverseDictionary.size();
+        String[] dictionary = new String[dictionarySize];
+        for (int dictId = 0; dictId < dictionarySize; dictId++) {
+          dictionary[dictId] = reverseDictionary.get(dictId);
+        }
+        dictionaries[colId] = dictionary;
+      }
+    }
+    return dictionaries;
+  }
+
+  /**
+   * Concatenates the fixed size data of all the columns into the columnar layout used by data table V3.
+   */
+  private byte[] getColumnarFixedSizeDataBytes() {
+    byte[] columnarBytes = new byte[_numRows * _rowSizeInBytes];
+    int numColumns = _columnarFixedSizeDataBuffers.length;
+    int columnarOffset = 0;
+    for (int colId = 0; colId < numColumns; colId++) {
+      int columnSizeInBytes = _numRows * _columnSizes[colId];
+      System.arraycopy(_columnarFixedSizeDataBuffers[colId].array(), 0, columnarBytes, columnarOffset,
+          columnSizeInBytes);
+      columnarOffset += columnSizeInBytes;
+    }
+    return columnarBytes;
   }
 }
@@ -0,0 +1,547 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.common.datatable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.common.response.ProcessingException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.common.utils.StringUtil;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Data table V3 stores the fixed size data in a columnar layout, and is serialized in a single pass into an exactly
+ * sized byte array.
+ * <ul>
+ *   <li>
+ *     The fixed size data is stored column by column. The values for column {@code colId} start at
+ *     {@code numRows * columnOffset}, where {@code columnOffset} is the column offset in the row based layout (see
+ *     {@link DataTableUtils#computeColumnOffsets(DataSchema, int[])}), so that no extra offsets need to be stored.
+ *   </li>
+ *   <li>
+ *     The dictionaries are stored per column as arrays of values in dictionary id order, and are only decoded when the
+ *     column is accessed, so the broker does not pay for the columns it never reads.
+ *   </li>
+ *   <li>BYTES values are stored as variable size data instead of hex encoded String in the dictionary.</li>
+ *   <li>
+ *     On the broker side, the serialized bytes are copied once and all the sections are read directly from the copy
+ *     without any per-section copy.
+ *   </li>
+ * </ul>
+ */
+public class DataTableImplV3 implements DataTable {
+  private static final int VERSION = 3;
+
+  // VERSION
+  // NUM_ROWS
+  // NUM_COLUMNS
+  // DICTIONARY_MAP (START|SIZE)
+  // METADATA (START|SIZE)
+  // DATA_SCHEMA (START|SIZE)
+  // FIXED_SIZE_DATA (START|SIZE)
+  // VARIABLE_SIZE_DATA (START|SIZE)
+  private static final int HEADER_SIZE = Integer.BYTES * 13;
+
+  // DICTIONARY_MAP:
+  // DICTIONARY_OFFSET (relative to the start of the dictionary map, -1 if the column does not have a dictionary) for
+  // each column, followed by the dictionaries
+  // DICTIONARY:
+  // NUM_VALUES, then (LENGTH|UTF8_BYTES) for each value in dictionary id order
+  private static final int NO_DICTIONARY = -1;
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  private final int[] _columnOffsets;
+  private final int[] _columnSizes;
+  private final String[][] _dictionaries;
+  private final ByteBuffer _fixedSizeData;
+  private final ByteBuffer _variableSizeData;
+  private final Map<String, String> _metadata;
+
+  // Only set on the broker side for lazy dictionary decoding
+  private final byte[] _bytes;
+  private final int _dictionaryMapStart;
+  private final int[] _dictionaryOffsets;
+
+  /**
+   * Construct data table with results. (Server side)
+   *
+   * @param numRows Number of rows
+   * @param dataSchema Data schema
+   * @param dictionaries Dictionary values in dictionary id order for each column (null if the column does not have a
+   *                     dictionary)
+   * @param fixedSizeDataBytes Fixed size data in the columnar layout
+   * @param variableSizeDataBytes Variable size data
+   */
+  public DataTableImplV3(int numRows, DataSchema dataSchema, String[][] dictionaries, byte[] fixedSizeDataBytes,
+      byte[] variableSizeDataBytes) {
+    _numRows = numRows;
+    _numColumns = dataSchema.size();
+    _dataSchema = dataSchema;
+    _columnOffsets = new int[_numColumns];
+    _columnSizes = computeColumnSizes(dataSchema, _columnOffsets);
+    _dictionaries = dictionaries;
+    _fixedSizeData = ByteBuffer.wrap(fixedSizeDataBytes);
+    _variableSizeData = ByteBuffer.wrap(variableSizeDataBytes);
+    _metadata = new HashMap<>();
+    _bytes = null;
+    _dictionaryMapStart = 0;
+    _dictionaryOffsets = null;
+  }
+
+  /**
+   * Construct empty data table. (Server side)
+   */
+  public DataTableImplV3() {
+    _numRows = 0;
+    _numColumns = 0;
+    _dataSchema = null;
+    _columnOffsets = null;
+    _columnSizes = null;
+    _dictionaries = null;
+    _fixedSizeData = null;
+    _variableSizeData = null;
+    _metadata = new HashMap<>();
+    _bytes = null;
+    _dictionaryMapStart = 0;
+    _dictionaryOffsets = null;
+  }
+
+  /**
+   * Construct data table from byte buffer. (broker side)
+   * <p>NOTE: The byte buffer might be released after the data table is constructed (e.g. Netty buffer), so the bytes
+   * are copied once, and all the sections are read from the copy.
+   */
+  public DataTableImplV3(ByteBuffer byteBuffer)
+      throws IOException {
+    // Copy all the bytes with a single bulk copy
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(0);
+    _bytes = new byte[duplicate.remaining()];
+    duplicate.get(_bytes);
+    ByteBuffer buffer = ByteBuffer.wrap(_bytes);
+
+    // Read header.
+    _numRows = buffer.getInt(Integer.BYTES);
+    _numColumns = buffer.getInt(Integer.BYTES * 2);
+    _dictionaryMapStart = buffer.getInt(Integer.BYTES * 3);
+    int dictionaryMapLength = buffer.getInt(Integer.BYTES * 4);
+    int metadataStart = buffer.getInt(Integer.BYTES * 5);
+    int metadataLength = buffer.getInt(Integer.BYTES * 6);
+    int dataSchemaStart = buffer.getInt(Integer.BYTES * 7);
+    int dataSchemaLength = buffer.getInt(Integer.BYTES * 8);
+    int fixedSizeDataStart = buffer.getInt(Integer.BYTES * 9);
+    int fixedSizeDataLength = buffer.getInt(Integer.BYTES * 10);
+    int variableSizeDataStart = buffer.getInt(Integer.BYTES * 11);
+    int variableSizeDataLength = buffer.getInt(Integer.BYTES * 12);
+
+    // Read dictionary offsets, the dictionaries are decoded lazily.
+    if (dictionaryMapLength != 0) {
+      _dictionaryOffsets = new int[_numColumns];
+      for (int i = 0; i < _numColumns; i++) {
+        _dictionaryOffsets[i] = buffer.getInt(_dictionaryMapStart + i * Integer.BYTES);
+      }
+      _dictionaries = new String[_numColumns][];
+    } else {
+      _dictionaryOffsets = null;
+      _dictionaries = null;
+    }
+
+    // Read metadata.
+    _metadata = deserializeMetadata(buffer, metadataStart, metadataLength);
+
+    // Read data schema.
+    if (dataSchemaLength != 0) {
+      byte[] schemaBytes = new byte[dataSchemaLength];
+      buffer.position(dataSchemaStart);
+      buffer.get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+      _columnOffsets = new int[_numColumns];
+      _columnSizes = computeColumnSizes(_dataSchema, _columnOffsets);
+    } else {
+      _dataSchema = null;
+      _columnOffsets = null;
+      _columnSizes = null;
+    }
+
+    // Slice fixed size data and variable size data.
+    _fixedSizeData = fixedSizeDataLength != 0 ? slice(buffer, fixedSizeDataStart, fixedSizeDataLength) : null;
+    _variableSizeData =
+        variableSizeDataLength != 0 ? slice(buffer, variableSizeDataStart, variableSizeDataLength) : null;
+  }
+
+  /**
+   * Computes the column offsets in the row based layout, and returns the size of each column.
+   */
+  private static int[] computeColumnSizes(DataSchema dataSchema, int[] columnOffsets) {
+    int numColumns = columnOffsets.length;
+    int rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, columnOffsets);
+    int[] columnSizes = new int[numColumns];
+    for (int i = 0; i < numColumns; i++) {
+      int nextColumnOffset = i < numColumns - 1 ? columnOffsets[i + 1] : rowSizeInBytes;
+      columnSizes[i] = nextColumnOffset - columnOffsets[i];
+    }
+    return columnSizes;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int start, int length) {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
+  }
+
+  private Map<String, String> deserializeMetadata(ByteBuffer buffer, int start, int length) {
+    if (length == 0) {
+      return new HashMap<>();
+    }
+    buffer.position(start);
+    int numEntries = buffer.getInt();
+    Map<String, String> metadata = new HashMap<>(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      String key = decodeString(buffer);
+      String value = decodeString(buffer);
+      metadata.put(key, value);
+    }
+    return metadata;
+  }
+
+  private String decodeString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == 0) {
+      return StringUtils.EMPTY;
+    } else {
+      int position = buffer.position();
+      buffer.position(position + length);
+      return StringUtil.decodeUtf8(_bytes, position, length);
+    }
+  }
+
+  /**
+   * Returns the dictionary for the given column, decodes it from the serialized bytes on first access.
+   */
+  private String[] getDictionary(int colId) {
+    String[] dictionary = _dictionaries[colId];
+    if (dictionary == null && _bytes != null) {
+      int dictionaryOffset = _dictionaryOffsets[colId];
+      if (dictionaryOffset == NO_DICTIONARY) {
+        return null;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(_bytes);
+      buffer.position(_dictionaryMapStart + dictionaryOffset);
+      int numValues = buffer.getInt();
+      dictionary = new String[numValues];
+      for (int i = 0; i < numValues; i++) {
+        dictionary[i] = decodeString(buffer);
+      }
+      _dictionaries[colId] = dictionary;
+    }
+    return dictionary;
+  }
+
+  @Override
+  public void addException(ProcessingException processingException) {
+    _metadata.put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    // Encode the variable length sections first to compute the size of the serialized bytes
+    byte[][][] encodedDictionaries = null;
+    int dictionaryMapLength = 0;
+    if (_numColumns > 0 && (_dictionaries != null || _dictionaryOffsets != null)) {
+      encodedDictionaries = new byte[_numColumns][][];
+      dictionaryMapLength = _numColumns * Integer.BYTES;
+      for (int i = 0; i < _numColumns; i++) {
+        String[] dictionary = getDictionary(i);
+        if (dictionary != null) {
+          int numValues = dictionary.length;
+          byte[][] encodedDictionary = new byte[numValues][];
+          dictionaryMapLength += Integer.BYTES * (numValues + 1);
+          for (int j = 0; j < numValues; j++) {
+            encodedDictionary[j] = StringUtil.encodeUtf8(dictionary[j]);
+            dictionaryMapLength += encodedDictionary[j].length;
+          }
+          encodedDictionaries[i] = encodedDictionary;
+        }
+      }
+    }
+
+    int numMetadataEntries = _metadata.size();
+    byte[][] encodedMetadata = new byte[numMetadataEntries * 2][];
+    int metadataLength = Integer.BYTES * (numMetadataEntries * 2 + 1);
+    int index = 0;
+    for (Map.Entry<String, String> entry : _metadata.entrySet()) {
+      encodedMetadata[index] = StringUtil.encodeUtf8(entry.getKey());
+      metadataLength += encodedMetadata[index++].length;
+      encodedMetadata[index] = StringUtil.encodeUtf8(entry.getValue());
+      metadataLength += encodedMetadata[index++].length;
+    }
+
+    byte[] dataSchemaBytes = _dataSchema != null ? _dataSchema.toBytes() : null;
+    int dataSchemaLength = dataSchemaBytes != null ? dataSchemaBytes.length : 0;
+    int fixedSizeDataLength = _fixedSizeData != null ? _fixedSizeData.limit() : 0;
+    int variableSizeDataLength = _variableSizeData != null ? _variableSizeData.limit() : 0;
+
+    // Write all the sections into a single exactly sized byte array
+    int dictionaryMapStart = HEADER_SIZE;
+    int metadataStart = dictionaryMapStart + dictionaryMapLength;
+    int dataSchemaStart = metadataStart + metadataLength;
+    int fixedSizeDataStart = dataSchemaStart + dataSchemaLength;
+    int variableSizeDataStart = fixedSizeDataStart + fixedSizeDataLength;
+    byte[] bytes = new byte[variableSizeDataStart + variableSizeDataLength];
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.putInt(VERSION);
+    buffer.putInt(_numRows);
+    buffer.putInt(_numColumns);
+    buffer.putInt(dictionaryMapStart);
+    buffer.putInt(dictionaryMapLength);
+    buffer.putInt(metadataStart);
+    buffer.putInt(metadataLength);
+    buffer.putInt(dataSchemaStart);
+    buffer.putInt(dataSchemaLength);
+    buffer.putInt(fixedSizeDataStart);
+    buffer.putInt(fixedSizeDataLength);
+    buffer.putInt(variableSizeDataStart);
+    buffer.putInt(variableSizeDataLength);
+
+    // Write dictionary.
+    if (encodedDictionaries != null) {
+      int dictionaryOffset = _numColumns * Integer.BYTES;
+      for (byte[][] encodedDictionary : encodedDictionaries) {
+        if (encodedDictionary != null) {
+          buffer.putInt(dictionaryOffset);
+          dictionaryOffset += Integer.BYTES * (encodedDictionary.length + 1);
+          for (byte[] valueBytes : encodedDictionary) {
+            dictionaryOffset += valueBytes.length;
+          }
+        } else {
+          buffer.putInt(NO_DICTIONARY);
+        }
+      }
+      for (byte[][] encodedDictionary : encodedDictionaries) {
+        if (encodedDictionary != null) {
+          buffer.putInt(encodedDictionary.length);
+          for (byte[] valueBytes : encodedDictionary) {
+            buffer.putInt(valueBytes.length);
+            buffer.put(valueBytes);
+          }
+        }
+      }
+    }
+
+    // Write metadata.
+    buffer.putInt(numMetadataEntries);
+    for (byte[] metadataBytes : encodedMetadata) {
+      buffer.putInt(metadataBytes.length);
+      buffer.put(metadataBytes);
+    }
+
+    // Write data schema, fixed size data and variable size data.
+    if (dataSchemaBytes != null) {
+      buffer.put(dataSchemaBytes);
+    }
+    if (_fixedSizeData != null) {
+      buffer.put(_fixedSizeData.duplicate());
+    }
+    if (_variableSizeData != null) {
+      buffer.put(_variableSizeData.duplicate());
+    }
+
+    assert !buffer.hasRemaining();
+    return bytes;
+  }
+
+  @Override
+  public Map<String, String> getMetadata() {
+    return _metadata;
+  }
+
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private int getFixedSizeDataOffset(int rowId, int colId) {
+    return _numRows * _columnOffsets[colId] + rowId * _columnSizes[colId];
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return _fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return _fixedSizeData.getLong(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return _fixedSizeData.getFloat(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return _fixedSizeData.getDouble(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public String getString(int rowId, int colId) {
+    return getDictionary(colId)[_fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId))];
+  }
+
+  @Override
+  public ByteArray getBytes(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    byte[] bytes = new byte[length];
+    ByteBuffer variableSizeData = _variableSizeData.duplicate();
+    variableSizeData.position(variableSizeDataOffset);
+    variableSizeData.get(bytes);
+    return new ByteArray(bytes);
+  }
+
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int size = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    int objectTypeValue = _variableSizeData.getInt(variableSizeDataOffset);
+    return ObjectSerDeUtils.deserialize(slice(_variableSizeData, variableSizeDataOffset + Integer.BYTES, size),
+        objectTypeValue);
+  }
+
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = _variableSizeData.getInt(variableSizeDataOffset + i * Integer.BYTES);
+    }
+    return ints;
+  }
+
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = _variableSizeData.getLong(variableSizeDataOffset + i * Long.BYTES);
+    }
+    return longs;
+  }
+
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = _variableSizeData.getFloat(variableSizeDataOffset + i * Float.BYTES);
+    }
+    return floats;
+  }
+
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = _variableSizeData.getDouble(variableSizeDataOffset + i * Double.BYTES);
+    }
+    return doubles;
+  }
+
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    String[] strings = new String[length];
+    String[] dictionary = getDictionary(colId);
+    for (int i = 0; i < length; i++) {
+      strings[i] = dictionary[_variableSizeData.getInt(variableSizeDataOffset + i * Integer.BYTES)];
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return _metadata.toString();
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(_dataSchema.toString()).append('\n');
+    stringBuilder.append("numRows: ").append(_numRows).append('\n');
+
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+        switch (_dataSchema.getColumnDataType(colId)) {
+          case INT:
+            stringBuilder.append(_fixedSizeData.getInt(fixedSizeDataOffset));
+            break;
+          case LONG:
+            stringBuilder.append(_fixedSizeData.getLong(fixedSizeDataOffset));
+            break;
+          case FLOAT:
+            stringBuilder.append(_fixedSizeData.getFloat(fixedSizeDataOffset));
+            break;
+          case DOUBLE:
+            stringBuilder.append(_fixedSizeData.getDouble(fixedSizeDataOffset));
+            break;
+          case STRING:
+            stringBuilder.append(_fixedSizeData.getInt(fixedSizeDataOffset));
+            break;
+          // Bytes, object and array.
+          default:
+            stringBuilder.append(String.format("(%s:%s)", _fixedSizeData.getInt(fixedSizeDataOffset),
+                _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES)));
+            break;
+        }
+        stringBuilder.append("\t");
+      }
+      stringBuilder.append("\n");
+    }
+    return stringBuilder.toString();
+  }
+}
@@ -36,4 +36,13 @@ public interface FunctionEvaluator {
    * Evaluate the function on the generic row and return the result
    */
   Object evaluate(GenericRow genericRow);
+
+  /**
+   * Evaluate the function on the first numRows generic rows, and put the results into the given array
+   */
+  default void evaluate(GenericRow[] genericRows, int numRows, Object[] results) {
+    for (int i = 0; i < numRows; i++) {
+      results[i] = evaluate(genericRows[i]);
+    }
+  }
 }
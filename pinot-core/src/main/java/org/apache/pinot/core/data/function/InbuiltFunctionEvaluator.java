@@ -20,6 +20,7 @@ package org.apache.pinot.core.data.function;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.pinot.common.function.FunctionInfo;
 import org.apache.pinot.common.function.FunctionInvoker;
@@ -42,11 +43,11 @@ import org.apache.pinot.spi.data.readers.GenericRow;
  * <ul>
  *   <li>FunctionNode - executes another function</li>
  *   <li>ColumnNode - fetches the value of the column from the input GenericRow</li>
- *   <li>
- *     ConstantNode - returns the same value
- *     <p>Typically constant function arguments are represented using a ConstantNode
- *   </li>
  * </ul>
+ * <p>Constant function arguments are converted to the parameter types once when planning the execution, instead of
+ * being parsed for every input.
+ * <p>The expression can also be evaluated on a batch of inputs, where each node evaluates all the inputs before
+ * passing the values to its parent node, so that the argument values are gathered column by column.
  */
 public class InbuiltFunctionEvaluator implements FunctionEvaluator {
   // Root of the execution tree
@@ -66,32 +67,31 @@ public class InbuiltFunctionEvaluator implements FunctionEvaluator {
     List<ExpressionContext> arguments = function.getArguments();
     int numArguments = arguments.size();
     ExecutableNode[] childNodes = new ExecutableNode[numArguments];
+    Object[] constantArguments = new Object[numArguments];
     for (int i = 0; i < numArguments; i++) {
       ExpressionContext argument = arguments.get(i);
-      ExecutableNode childNode;
       switch (argument.getType()) {
         case FUNCTION:
-          childNode = planExecution(argument.getFunction());
+          childNodes[i] = planExecution(argument.getFunction());
           break;
         case IDENTIFIER:
           String columnName = argument.getIdentifier();
-          childNode = new ColumnExecutionNode(columnName);
+          childNodes[i] = new ColumnExecutionNode(columnName);
           _arguments.add(columnName);
           break;
         case LITERAL:
-          childNode = new ConstantExecutionNode(argument.getLiteral());
+          constantArguments[i] = argument.getLiteral();
           break;
         default:
           throw new IllegalStateException();
       }
-      childNodes[i] = childNode;
     }
 
     FunctionInfo functionInfo = FunctionRegistry.getFunctionInfo(function.getFunctionName(), numArguments);
     Preconditions
         .checkState(functionInfo != null, "Unsupported function: %s with %s parameters", function.getFunctionName(),
             numArguments);
-    return new FunctionExecutionNode(functionInfo, childNodes);
+    return new FunctionExecutionNode(functionInfo, childNodes, constantArguments);
   }
 
   @Override
@@ -104,43 +104,81 @@ public class InbuiltFunctionEvaluator implements FunctionEvaluator {
     return _rootNode.execute(row);
   }
 
+  @Override
+  public void evaluate(GenericRow[] rows, int numRows, Object[] results) {
+    _rootNode.execute(rows, numRows, results);
+  }
+
   private interface ExecutableNode {
 
     Object execute(GenericRow row);
+
+    /**
+     * Executes the node on the first numRows rows, and puts the results into the given array.
+     */
+    void execute(GenericRow[] rows, int numRows, Object[] results);
   }
 
   private static class FunctionExecutionNode implements ExecutableNode {
     final FunctionInvoker _functionInvoker;
+    // Null for the constant arguments
     final ExecutableNode[] _argumentNodes;
+    final Object[] _constantArguments;
     final Object[] _arguments;
+    // Buffers for the argument values of the batch, allocated lazily
+    final Object[][] _argumentValues;
 
-    FunctionExecutionNode(FunctionInfo functionInfo, ExecutableNode[] argumentNodes) {
+    FunctionExecutionNode(FunctionInfo functionInfo, ExecutableNode[] argumentNodes, Object[] constantArguments) {
       _functionInvoker = new FunctionInvoker(functionInfo);
       _argumentNodes = argumentNodes;
+      _constantArguments = constantArguments;
+      try {
+        _functionInvoker.convertTypes(_constantArguments);
+      } catch (Exception e) {
+        // Keep the constant arguments unconverted so that the error is surfaced when executing the function, same as
+        // the non-constant arguments
+      }
       _arguments = new Object[_argumentNodes.length];
+      _argumentValues = new Object[_argumentNodes.length][];
     }
 
     @Override
     public Object execute(GenericRow row) {
       int numArguments = _argumentNodes.length;
       for (int i = 0; i < numArguments; i++) {
-        _arguments[i] = _argumentNodes[i].execute(row);
+        ExecutableNode argumentNode = _argumentNodes[i];
+        _arguments[i] = argumentNode != null ? argumentNode.execute(row) : _constantArguments[i];
       }
       _functionInvoker.convertTypes(_arguments);
       return _functionInvoker.invoke(_arguments);
     }
-  }
-
-  private static class ConstantExecutionNode implements ExecutableNode {
-    final String _value;
-
-    ConstantExecutionNode(String value) {
-      _value = value;
-    }
 
     @Override
-    public String execute(GenericRow row) {
-      return _value;
+    public void execute(GenericRow[] rows, int numRows, Object[] results) {
+      int numArguments = _argumentNodes.length;
+      for (int i = 0; i < numArguments; i++) {
+        ExecutableNode argumentNode = _argumentNodes[i];
+        if (argumentNode != null) {
+          if (_argumentValues[i] == null || _argumentValues[i].length < numRows) {
+            _argumentValues[i] = new Object[numRows];
+          }
+          argumentNode.execute(rows, numRows, _argumentValues[i]);
+        }
+      }
+      for (int i = 0; i < numRows; i++) {
+        for (int j = 0; j < numArguments; j++) {
+          Object[] argumentValues = _argumentValues[j];
+          _arguments[j] = argumentValues != null ? argumentValues[i] : _constantArguments[j];
+        }
+        _functionInvoker.convertTypes(_arguments);
+        results[i] = _functionInvoker.invoke(_arguments);
+      }
+      // Release the references to the values of the batch
+      for (Object[] argumentValues : _argumentValues) {
+        if (argumentValues != null) {
+          Arrays.fill(argumentValues, 0, numRows, null);
+        }
+      }
     }
   }
 
@@ -155,5 +193,12 @@ public class InbuiltFunctionEvaluator implements FunctionEvaluator {
     public Object execute(GenericRow row) {
       return row.getValue(_column);
     }
+
+    @Override
+    public void execute(GenericRow[] rows, int numRows, Object[] results) {
+      for (int i = 0; i < numRows; i++) {
+        results[i] = rows[i].getValue(_column);
+      }
+    }
   }
 }
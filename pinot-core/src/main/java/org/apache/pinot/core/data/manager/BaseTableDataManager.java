@@ -34,6 +34,7 @@ import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.core.data.manager.config.TableDataManagerConfig;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.slf4j.Logger;
@@ -124,6 +125,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
       _logger.info("Added new immutable segment: {} to table: {}", segmentName, _tableNameWithType);
     } else {
       _logger.info("Replaced immutable segment: {} of table: {}", segmentName, _tableNameWithType);
+      invalidateSegmentResultCache(segmentName);
       releaseSegment(oldSegmentManager);
     }
   }
@@ -151,6 +153,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
     _logger.info("Removing segment: {} from table: {}", segmentName, _tableNameWithType);
     SegmentDataManager segmentDataManager = _segmentDataManagerMap.remove(segmentName);
     if (segmentDataManager != null) {
+      invalidateSegmentResultCache(segmentName);
       releaseSegment(segmentDataManager);
       _logger.info("Removed segment: {} from table: {}", segmentName, _tableNameWithType);
     } else {
@@ -199,6 +202,16 @@ public abstract class BaseTableDataManager implements TableDataManager {
     }
   }
 
+  /**
+   * Invalidates the cached query results for the replaced or removed segment (no-op if the cache is not enabled).
+   */
+  private void invalidateSegmentResultCache(String segmentName) {
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    if (segmentResultCache != null) {
+      segmentResultCache.invalidate(_tableNameWithType, segmentName);
+    }
+  }
+
   private void closeSegment(SegmentDataManager segmentDataManager) {
     String segmentName = segmentDataManager.getSegmentName();
     _logger.info("Closing segment: {} of table: {}", segmentName, _tableNameWithType);
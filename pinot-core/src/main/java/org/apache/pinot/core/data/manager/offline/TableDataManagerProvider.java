@@ -27,6 +27,7 @@ import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.core.data.manager.TableDataManager;
 import org.apache.pinot.core.data.manager.config.InstanceDataManagerConfig;
 import org.apache.pinot.core.data.manager.config.TableDataManagerConfig;
+import org.apache.pinot.core.data.manager.realtime.RealtimeOffHeapMemoryPlanner;
 import org.apache.pinot.core.data.manager.realtime.RealtimeTableDataManager;
 import org.apache.pinot.spi.config.table.TableType;
 
@@ -36,15 +37,20 @@ import org.apache.pinot.spi.config.table.TableType;
  */
 public class TableDataManagerProvider {
   private static Semaphore _segmentBuildSemaphore;
+  private static RealtimeOffHeapMemoryPlanner _realtimeOffHeapMemoryPlanner;
 
   private TableDataManagerProvider() {
   }
 
-  public static void init(InstanceDataManagerConfig instanceDataManagerConfig) {
+  public static void init(InstanceDataManagerConfig instanceDataManagerConfig, ServerMetrics serverMetrics) {
     int maxParallelBuilds = instanceDataManagerConfig.getMaxParallelSegmentBuilds();
     if (maxParallelBuilds > 0) {
       _segmentBuildSemaphore = new Semaphore(maxParallelBuilds, true);
     }
+    long realtimeOffHeapMemoryBudgetBytes = instanceDataManagerConfig.getRealtimeOffHeapMemoryBudgetBytes();
+    if (realtimeOffHeapMemoryBudgetBytes > 0) {
+      _realtimeOffHeapMemoryPlanner = new RealtimeOffHeapMemoryPlanner(realtimeOffHeapMemoryBudgetBytes, serverMetrics);
+    }
   }
 
   public static TableDataManager getTableDataManager(@Nonnull TableDataManagerConfig tableDataManagerConfig,
@@ -61,7 +67,7 @@ public class TableDataManagerProvider {
         }
         break;
       case REALTIME:
-        tableDataManager = new RealtimeTableDataManager(_segmentBuildSemaphore);
+        tableDataManager = new RealtimeTableDataManager(_segmentBuildSemaphore, _realtimeOffHeapMemoryPlanner);
         break;
       default:
         throw new IllegalStateException();
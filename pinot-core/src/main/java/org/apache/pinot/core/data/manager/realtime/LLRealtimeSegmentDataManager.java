@@ -26,11 +26,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -48,6 +50,7 @@ import org.apache.pinot.common.protocols.SegmentCompletionProtocol;
 import org.apache.pinot.common.utils.CommonConstants.Segment.Realtime.CompletionMode;
 import org.apache.pinot.common.utils.LLCSegmentName;
 import org.apache.pinot.common.utils.TarGzCompressionUtils;
+import org.apache.pinot.core.data.manager.realtime.ParallelMessageDecoder.DecodedMessages;
 import org.apache.pinot.core.data.partition.PartitionFunctionFactory;
 import org.apache.pinot.core.data.recordtransformer.CompositeTransformer;
 import org.apache.pinot.core.data.recordtransformer.RecordTransformer;
@@ -70,6 +73,7 @@ import org.apache.pinot.spi.config.table.SegmentPartitionConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.BatchStreamMessageDecoder;
 import org.apache.pinot.spi.stream.MessageBatch;
 import org.apache.pinot.spi.stream.PartitionLevelConsumer;
 import org.apache.pinot.spi.stream.PartitionLevelStreamConfig;
@@ -202,6 +206,7 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private static final int MSG_COUNT_THRESHOLD_FOR_LOG = 100000;
   private static final int BUILD_TIME_LEASE_SECONDS = 30;
   private static final int MAX_CONSECUTIVE_ERROR_COUNT = 5;
+  private static final int MAX_ROWS_PER_INDEXING_BATCH = 1000;
 
   private final LLCRealtimeSegmentZKMetadata _segmentZKMetadata;
   private final TableConfig _tableConfig;
@@ -222,6 +227,15 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private final String _metricKeyName;
   private final ServerMetrics _serverMetrics;
   private final MutableSegmentImpl _realtimeSegment;
+  // Rows (and their metadata) decoded but not yet indexed into the realtime segment. The rows are transformed right
+  // before being indexed unless they are already transformed by the parallel message decoder. Only accessed by the
+  // consumer thread.
+  private final List<GenericRow> _rowsToIndex = new ArrayList<>();
+  private final List<RowMetadata> _rowMetadataToIndex = new ArrayList<>();
+  private final List<GenericRow> _decodeDestinations = new ArrayList<>();
+  // Reused buffers to transform the decoded rows as a batch when not using the parallel message decoder
+  private GenericRow[] _rowsToTransform = new GenericRow[0];
+  private boolean[] _rowsErrored = new boolean[0];
   private StreamPartitionMsgOffset _currentOffset;
   private volatile State _state;
   private volatile int _numRowsConsumed = 0;
@@ -251,6 +265,8 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   final String _clientId;
   private final LLCSegmentName _llcSegmentName;
   private final RecordTransformer _recordTransformer;
+  // Decodes and transforms the messages on worker threads in pipelined mode, null otherwise
+  private final ParallelMessageDecoder _parallelMessageDecoder;
   private PartitionLevelConsumer _partitionLevelConsumer = null;
   private StreamMetadataProvider _streamMetadataProvider = null;
   private final File _resourceTmpDir;
@@ -275,6 +291,12 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private int _lastConsumedCount = 0;
   private String _stopReason = null;
   private final Semaphore _segBuildSemaphore;
+  // Server-wide off-heap memory planner, null if no memory budget is configured
+  private final RealtimeOffHeapMemoryPlanner _offHeapMemoryPlanner;
+  // Memory allocated by the segment as last reported to the off-heap memory planner. Only accessed by the consumer
+  // thread before the segment is destroyed.
+  private long _reportedAllocatedBytes = 0;
+  private boolean _pausedForMemory = false;
   private final boolean _isOffHeap;
   private final boolean _nullHandlingEnabled;
   private final SegmentCommitterFactory _segmentCommitterFactory;
@@ -289,7 +311,7 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         // We need to consume as much data as available, until we have either reached the max number of rows or
         // the max time we are allowed to consume.
         if (now >= _consumeEndTime) {
-          if (_realtimeSegment.getNumDocsIndexed() == 0) {
+          if (_realtimeSegment.getNumDocsIndexed() == 0 && _rowsToIndex.isEmpty()) {
             segmentLogger.info("No events came in, extending time by {} hours", TIME_EXTENSION_ON_EMPTY_SEGMENT_HOURS);
             _consumeEndTime += TimeUnit.HOURS.toMillis(TIME_EXTENSION_ON_EMPTY_SEGMENT_HOURS);
             return false;
@@ -304,6 +326,19 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
               _numRowsIndexed, _numRowsConsumed, _segmentMaxRowCount);
           _stopReason = SegmentCompletionProtocol.REASON_ROW_LIMIT;
           return true;
+        } else if (_offHeapMemoryPlanner != null && _numRowsIndexed > 0
+            && _offHeapMemoryPlanner.getAction(_reportedAllocatedBytes) == RealtimeOffHeapMemoryPlanner.Action.FLUSH) {
+          if (SegmentCompletionProtocol.REASON_MEMORY_LIMIT.equals(_stopReason)) {
+            return true;
+          }
+          segmentLogger.info(
+              "Stopping consumption due to memory limit numRowsIndexed={}, allocated {} bytes ({}), total allocated {}/{} "
+                  + "bytes across {} segments", _numRowsIndexed, _reportedAllocatedBytes,
+              _memoryManager.getAllocatedBytesByContext(), _offHeapMemoryPlanner.getAllocatedBytes(),
+              _offHeapMemoryPlanner.getBudgetBytes(), _offHeapMemoryPlanner.getNumSegments());
+          _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.REALTIME_MEMORY_LIMIT_FLUSHES, 1);
+          _stopReason = SegmentCompletionProtocol.REASON_MEMORY_LIMIT;
+          return true;
         }
         return false;
 
@@ -375,32 +410,70 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     removeSegmentFile();
 
     segmentLogger.info("Starting consumption loop start offset {}, finalOffset {}", _currentOffset, _finalOffset);
+    // Next message batch fetched and decoded in parallel with indexing the current one (pipelined mode only)
+    Future<DecodedMessages> prefetchedMessages = null;
     while (!_shouldStop && !endCriteriaReached()) {
+      if (shouldPauseForMemory()) {
+        Uninterruptibles.sleepUninterruptibly(idlePipeSleepTimeMillis, TimeUnit.MILLISECONDS);
+        continue;
+      }
+
       // Consume for the next readTime ms, or we get to final offset, whichever happens earlier,
       // Update _currentOffset upon return from this method
       MessageBatch messageBatch;
+      DecodedMessages decodedMessages = null;
+      if (prefetchedMessages != null) {
+        decodedMessages = Uninterruptibles.getUninterruptibly(prefetchedMessages);
+        prefetchedMessages = null;
+        if (decodedMessages != null && decodedMessages.getStartOffset().compareTo(_currentOffset) != 0) {
+          decodedMessages.cancel();
+          decodedMessages = null;
+        }
+      }
+      if (decodedMessages != null) {
+        messageBatch = decodedMessages.getMessageBatch();
+      } else {
+        try {
+          messageBatch = _partitionLevelConsumer
+              .fetchMessages(_currentOffset, null, _partitionLevelStreamConfig.getFetchTimeoutMillis());
+          consecutiveErrorCount = 0;
+        } catch (TimeoutException e) {
+          handleTransientStreamErrors(e);
+          continue;
+        } catch (TransientConsumerException e) {
+          handleTransientStreamErrors(e);
+          continue;
+        } catch (PermanentConsumerException e) {
+          segmentLogger.warn("Permanent exception from stream when fetching messages, stopping consumption", e);
+          throw e;
+        } catch (Exception e) {
+          // Unknown exception from stream. Treat as a transient exception.
+          // One such exception seen so far is java.net.SocketTimeoutException
+          handleTransientStreamErrors(e);
+          continue;
+        }
+        if (_parallelMessageDecoder != null) {
+          decodedMessages = _parallelMessageDecoder.submit(messageBatch, _currentOffset);
+        }
+      }
+
+      // In pipelined mode, fetch and decode the next message batch while indexing the current one. The prefetched
+      // message batch is discarded if the current one is not fully consumed.
+      int messageCount = messageBatch.getMessageCount();
+      if (decodedMessages != null && messageCount > 0) {
+        StreamPartitionMsgOffset nextOffset = messageBatch.getNextStreamParitionMsgOffsetAtIndex(messageCount - 1);
+        prefetchedMessages = _parallelMessageDecoder.fetchAndSubmit(() -> _partitionLevelConsumer
+            .fetchMessages(nextOffset, null, _partitionLevelStreamConfig.getFetchTimeoutMillis()), nextOffset);
+      }
+
       try {
-        messageBatch = _partitionLevelConsumer
-            .fetchMessages(_currentOffset, null, _partitionLevelStreamConfig.getFetchTimeoutMillis());
-        consecutiveErrorCount = 0;
-      } catch (TimeoutException e) {
-        handleTransientStreamErrors(e);
-        continue;
-      } catch (TransientConsumerException e) {
-        handleTransientStreamErrors(e);
-        continue;
-      } catch (PermanentConsumerException e) {
-        segmentLogger.warn("Permanent exception from stream when fetching messages, stopping consumption", e);
-        throw e;
+        processStreamEvents(messageBatch, decodedMessages, idlePipeSleepTimeMillis);
       } catch (Exception e) {
-        // Unknown exception from stream. Treat as a transient exception.
-        // One such exception seen so far is java.net.SocketTimeoutException
-        handleTransientStreamErrors(e);
-        continue;
+        // Wait for the prefetching to finish before the stream consumer is closed
+        discardPrefetchedMessages(prefetchedMessages);
+        throw e;
       }
 
-      processStreamEvents(messageBatch, idlePipeSleepTimeMillis);
-
       if (_currentOffset.compareTo(lastUpdatedOffset) != 0) {
         consecutiveIdleCount = 0;
         // We consumed something. Update the highest stream offset as well as partition-consuming metric.
@@ -415,11 +488,19 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         if (++consecutiveIdleCount > maxIdleCountBeforeStatUpdate) {
           _serverMetrics.setValueOfTableGauge(_metricKeyName, ServerGauge.LLC_PARTITION_CONSUMING, 1);
           consecutiveIdleCount = 0;
+          discardPrefetchedMessages(prefetchedMessages);
+          prefetchedMessages = null;
           makeStreamConsumer("Idle for too long");
         }
       }
     }
 
+    discardPrefetchedMessages(prefetchedMessages);
+    if (_pausedForMemory) {
+      _serverMetrics.addValueToGlobalGauge(ServerGauge.REALTIME_CONSUMPTION_PAUSED_SEGMENTS, -1L);
+      _pausedForMemory = false;
+    }
+
     if (_numRowsErrored > 0) {
       _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.ROWS_WITH_ERRORS, _numRowsErrored);
       _serverMetrics.addMeteredTableValue(_tableStreamName, ServerMeter.ROWS_WITH_ERRORS, _numRowsErrored);
@@ -427,7 +508,25 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     return true;
   }
 
-  private void processStreamEvents(MessageBatch messagesAndOffsets, long idlePipeSleepTimeMillis) {
+  /**
+   * Waits for the prefetching to finish so that the stream consumer is not accessed concurrently, and discards the
+   * prefetched messages.
+   */
+  private void discardPrefetchedMessages(@Nullable Future<DecodedMessages> prefetchedMessages) {
+    if (prefetchedMessages != null) {
+      try {
+        DecodedMessages decodedMessages = Uninterruptibles.getUninterruptibly(prefetchedMessages);
+        if (decodedMessages != null) {
+          decodedMessages.cancel();
+        }
+      } catch (Exception e) {
+        segmentLogger.warn("Caught exception while discarding the prefetched messages", e);
+      }
+    }
+  }
+
+  private void processStreamEvents(MessageBatch messagesAndOffsets, @Nullable DecodedMessages decodedMessages,
+      long idlePipeSleepTimeMillis) {
     Meter realtimeRowsConsumedMeter = null;
     Meter realtimeRowsDroppedMeter = null;
 
@@ -435,8 +534,17 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     int streamMessageCount = 0;
     boolean canTakeMore = true;
 
-    GenericRow reuse = new GenericRow();
-    for (int index = 0; index < messagesAndOffsets.getMessageCount(); index++) {
+    int messageCount = messagesAndOffsets.getMessageCount();
+    // Decode all the messages at once if the decoder supports batch decoding
+    List<GenericRow> batchDecodedRows = null;
+    if (decodedMessages == null && _messageDecoder instanceof BatchStreamMessageDecoder && messageCount > 0) {
+      //noinspection unchecked
+      batchDecodedRows = ((BatchStreamMessageDecoder) _messageDecoder)
+          .decodeBatch(messagesAndOffsets, getDecodeDestinations(messageCount));
+    }
+    // Number of decode destinations used by the rows not indexed yet
+    int numDecodeDestinationsInUse = 0;
+    for (int index = 0; index < messageCount; index++) {
       if (_shouldStop || endCriteriaReached()) {
         break;
       }
@@ -461,61 +569,76 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         throw new RuntimeException("Realtime segment full");
       }
 
-      // Index each message
-      reuse.clear();
+      // Decode each message
       // retrieve metadata from the message batch if available
       // this can be overridden by the decoder if there is a better indicator in the message payload
       RowMetadata msgMetadata = messagesAndOffsets.getMetadataAtIndex(index);
 
-      GenericRow decodedRow = _messageDecoder
-          .decode(messagesAndOffsets.getMessageAtIndex(index), messagesAndOffsets.getMessageOffsetAtIndex(index),
-              messagesAndOffsets.getMessageLengthAtIndex(index), reuse);
-      if (decodedRow != null) {
-        try {
-          if (decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY) != null) {
-            for (Object singleRow : (Collection) decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY)) {
-              GenericRow transformedRow = _recordTransformer.transform((GenericRow) singleRow);
-              if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
-                realtimeRowsConsumedMeter = _serverMetrics
-                    .addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
-                        realtimeRowsConsumedMeter);
-                indexedMessageCount++;
-                canTakeMore = _realtimeSegment.index(transformedRow, msgMetadata);
-              } else {
-                realtimeRowsDroppedMeter = _serverMetrics
-                    .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
-                        realtimeRowsDroppedMeter);
-              }
-            }
-          } else {
-            GenericRow transformedRow = _recordTransformer.transform(decodedRow);
-            if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
-              realtimeRowsConsumedMeter = _serverMetrics
-                  .addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
-                      realtimeRowsConsumedMeter);
-              indexedMessageCount++;
-              canTakeMore = _realtimeSegment.index(transformedRow, msgMetadata);
-            } else {
-              realtimeRowsDroppedMeter = _serverMetrics
-                  .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
-                      realtimeRowsDroppedMeter);
-            }
-          }
-        } catch (Exception e) {
-          segmentLogger.error("Caught exception while transforming the record: {}", decodedRow, e);
+      int numRowsToIndex = _rowsToIndex.size();
+      int numRowsDropped;
+      if (decodedMessages != null) {
+        // Decoded and transformed by the parallel message decoder
+        List<GenericRow> rows = decodedMessages.getRows(index);
+        numRowsDropped = decodedMessages.getNumRowsDropped(index);
+        if (rows != null) {
+          _rowsToIndex.addAll(rows);
+        }
+        if (decodedMessages.isErrored(index)) {
           _numRowsErrored++;
         }
       } else {
+        GenericRow decodedRow;
+        if (batchDecodedRows != null) {
+          decodedRow = batchDecodedRows.get(index);
+        } else {
+          GenericRow reuse = getDecodeDestination(numDecodeDestinationsInUse++);
+          reuse.clear();
+          decodedRow = _messageDecoder
+              .decode(messagesAndOffsets.getMessageAtIndex(index), messagesAndOffsets.getMessageOffsetAtIndex(index),
+                  messagesAndOffsets.getMessageLengthAtIndex(index), reuse);
+        }
+        if (decodedRow != null) {
+          // The decoded rows are transformed as a batch before being indexed
+          //noinspection unchecked
+          Collection<GenericRow> rows = (Collection<GenericRow>) decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY);
+          if (rows != null) {
+            _rowsToIndex.addAll(rows);
+          } else {
+            _rowsToIndex.add(decodedRow);
+          }
+          numRowsDropped = 0;
+        } else {
+          numRowsDropped = 1;
+        }
+      }
+      int numRowsAdded = _rowsToIndex.size() - numRowsToIndex;
+      for (int i = 0; i < numRowsAdded; i++) {
+        _rowMetadataToIndex.add(msgMetadata);
+      }
+      if (numRowsAdded > 0 && decodedMessages != null) {
+        realtimeRowsConsumedMeter = _serverMetrics
+            .addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, numRowsAdded,
+                realtimeRowsConsumedMeter);
+        indexedMessageCount += numRowsAdded;
+      }
+      if (numRowsDropped > 0) {
         realtimeRowsDroppedMeter = _serverMetrics
-            .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
+            .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, numRowsDropped,
                 realtimeRowsDroppedMeter);
       }
 
       _currentOffset = messagesAndOffsets.getNextStreamParitionMsgOffsetAtIndex(index);
-      _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
       _numRowsConsumed++;
       streamMessageCount++;
+
+      // Index the pending rows as a batch when there are enough rows, or when the pending rows might fill up the
+      // segment so that the end criteria can be checked with the up-to-date number of rows indexed
+      if (_rowsToIndex.size() >= Math.min(MAX_ROWS_PER_INDEXING_BATCH, _segmentMaxRowCount - _numRowsIndexed)) {
+        canTakeMore = indexPendingRows();
+        numDecodeDestinationsInUse = 0;
+      }
     }
+    indexPendingRows();
     updateCurrentDocumentCountMetrics();
     if (streamMessageCount != 0) {
       segmentLogger.debug("Indexed {} messages ({} messages read from stream) current offset {}", indexedMessageCount,
@@ -526,6 +649,134 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     }
   }
 
+  /**
+   * Indexes the pending rows into the realtime segment as a batch, returns whether the segment can take more rows.
+   */
+  private boolean indexPendingRows() {
+    if (_parallelMessageDecoder == null) {
+      transformPendingRows();
+    }
+    if (_rowsToIndex.isEmpty()) {
+      return true;
+    }
+    boolean canTakeMore = true;
+    int numRows = _rowsToIndex.size();
+    int numDocsIndexedBeforeBatch = _realtimeSegment.getNumDocsIndexed();
+    try {
+      canTakeMore = _realtimeSegment.index(_rowsToIndex, _rowMetadataToIndex);
+    } catch (Exception e) {
+      if (_realtimeSegment.getNumDocsIndexed() != numDocsIndexedBeforeBatch) {
+        // Some records are already indexed, re-indexing the batch would index them twice
+        segmentLogger.error("Caught exception after indexing {} out of {} records as a batch",
+            _realtimeSegment.getNumDocsIndexed() - numDocsIndexedBeforeBatch, numRows, e);
+        _numRowsErrored++;
+      } else {
+        // Nothing is indexed when the batch fails the validation, so fall back to indexing the rows one by one to only
+        // skip the invalid rows
+        segmentLogger.warn("Caught exception while indexing {} records as a batch, indexing them one by one", numRows,
+            e);
+        for (int i = 0; i < numRows; i++) {
+          try {
+            canTakeMore = _realtimeSegment.index(_rowsToIndex.get(i), _rowMetadataToIndex.get(i));
+          } catch (Exception e1) {
+            segmentLogger.error("Caught exception while indexing the record: {}", _rowsToIndex.get(i), e1);
+            _numRowsErrored++;
+          }
+        }
+      }
+    }
+    _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
+    _rowsToIndex.clear();
+    _rowMetadataToIndex.clear();
+    if (_offHeapMemoryPlanner != null) {
+      reportAllocatedBytes();
+    }
+    return canTakeMore;
+  }
+
+  /**
+   * Transforms the decoded rows pending to be indexed as a batch, and removes the rows that should not be indexed.
+   */
+  private void transformPendingRows() {
+    int numRows = _rowsToIndex.size();
+    if (numRows == 0) {
+      return;
+    }
+    if (_rowsToTransform.length < numRows) {
+      _rowsToTransform = new GenericRow[numRows];
+      _rowsErrored = new boolean[numRows];
+    }
+    _rowsToIndex.toArray(_rowsToTransform);
+    ParallelMessageDecoder.transform(_recordTransformer, _rowsToTransform, numRows, _rowsErrored, segmentLogger);
+    int numRowsTransformed = 0;
+    int numRowsDropped = 0;
+    for (int i = 0; i < numRows; i++) {
+      GenericRow transformedRow = _rowsToTransform[i];
+      if (transformedRow != null) {
+        _rowsToIndex.set(numRowsTransformed, transformedRow);
+        _rowMetadataToIndex.set(numRowsTransformed, _rowMetadataToIndex.get(i));
+        numRowsTransformed++;
+      } else if (_rowsErrored[i]) {
+        _numRowsErrored++;
+      } else {
+        numRowsDropped++;
+      }
+    }
+    _rowsToIndex.subList(numRowsTransformed, numRows).clear();
+    _rowMetadataToIndex.subList(numRowsTransformed, numRows).clear();
+    Arrays.fill(_rowsToTransform, 0, numRows, null);
+    Arrays.fill(_rowsErrored, 0, numRows, false);
+    if (numRowsTransformed > 0) {
+      _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, numRowsTransformed);
+    }
+    if (numRowsDropped > 0) {
+      _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, numRowsDropped);
+    }
+  }
+
+  /**
+   * Reports the change of the memory allocated by the segment to the off-heap memory planner.
+   */
+  private void reportAllocatedBytes() {
+    long allocatedBytes = _memoryManager.getTotalAllocatedBytes();
+    _offHeapMemoryPlanner.updateAllocatedBytes(allocatedBytes - _reportedAllocatedBytes);
+    _reportedAllocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * Returns whether the consumption should be paused because the off-heap memory budget is exhausted. Empty segments
+   * are never paused because they cannot be flushed to release memory.
+   */
+  private boolean shouldPauseForMemory() {
+    boolean shouldPause = _offHeapMemoryPlanner != null && _state == State.INITIAL_CONSUMING && _numRowsIndexed > 0
+        && _offHeapMemoryPlanner.getAction(_reportedAllocatedBytes) == RealtimeOffHeapMemoryPlanner.Action.PAUSE;
+    if (shouldPause != _pausedForMemory) {
+      if (shouldPause) {
+        segmentLogger.info("Pausing consumption due to memory limit, allocated {} bytes, total allocated {}/{} bytes",
+            _reportedAllocatedBytes, _offHeapMemoryPlanner.getAllocatedBytes(), _offHeapMemoryPlanner.getBudgetBytes());
+      } else {
+        segmentLogger.info("Resuming consumption");
+      }
+      _serverMetrics.addValueToGlobalGauge(ServerGauge.REALTIME_CONSUMPTION_PAUSED_SEGMENTS, shouldPause ? 1L : -1L);
+      _pausedForMemory = shouldPause;
+    }
+    return shouldPause;
+  }
+
+  private GenericRow getDecodeDestination(int index) {
+    if (index == _decodeDestinations.size()) {
+      _decodeDestinations.add(new GenericRow());
+    }
+    return _decodeDestinations.get(index);
+  }
+
+  private List<GenericRow> getDecodeDestinations(int numDestinations) {
+    for (int i = 0; i < numDestinations; i++) {
+      getDecodeDestination(i).clear();
+    }
+    return _decodeDestinations.subList(0, numDestinations);
+  }
+
   public class PartitionConsumer implements Runnable {
     public void run() {
       long initialConsumptionEnd = 0L;
@@ -1071,7 +1322,13 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       segmentLogger.error("Could not stop consumer thread");
     }
     _realtimeSegment.destroy();
+    if (_offHeapMemoryPlanner != null) {
+      _offHeapMemoryPlanner.unregister(_reportedAllocatedBytes);
+    }
     closeKafkaConsumers();
+    if (_parallelMessageDecoder != null) {
+      _parallelMessageDecoder.close();
+    }
   }
 
   protected void start() {
@@ -1105,6 +1362,7 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       Schema schema, LLCSegmentName llcSegmentName, Semaphore partitionConsumerSemaphore, ServerMetrics serverMetrics,
       @Nullable PartitionUpsertMetadataManager partitionUpsertMetadataManager) {
     _segBuildSemaphore = realtimeTableDataManager.getSegmentBuildSemaphore();
+    _offHeapMemoryPlanner = realtimeTableDataManager.getOffHeapMemoryPlanner();
     _segmentZKMetadata = (LLCRealtimeSegmentZKMetadata) segmentZKMetadata;
     _tableConfig = tableConfig;
     _tableNameWithType = _tableConfig.getTableName();
@@ -1214,6 +1472,18 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     // Create record transformer
     _recordTransformer = CompositeTransformer.getDefaultTransformer(tableConfig, schema);
 
+    // Create parallel message decoder for pipelined mode
+    int decodingThreads = _partitionLevelStreamConfig.getDecodingThreads();
+    if (decodingThreads > 0) {
+      PartitionLevelStreamConfig partitionLevelStreamConfig = _partitionLevelStreamConfig;
+      segmentLogger.info("Decoding and transforming messages with {} threads", decodingThreads);
+      _parallelMessageDecoder = new ParallelMessageDecoder(decodingThreads,
+          () -> StreamDecoderProvider.create(partitionLevelStreamConfig, fieldsToRead),
+          () -> CompositeTransformer.getDefaultTransformer(tableConfig, schema), _segmentNameStr);
+    } else {
+      _parallelMessageDecoder = null;
+    }
+
     // Acquire semaphore to create Kafka consumers
     try {
       _partitionConsumerSemaphore.acquire();
@@ -1267,6 +1537,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     }
 
     _realtimeSegment = new MutableSegmentImpl(realtimeSegmentConfigBuilder.build(), serverMetrics);
+    if (_offHeapMemoryPlanner != null) {
+      _offHeapMemoryPlanner.register();
+      reportAllocatedBytes();
+    }
     _startOffset = _streamPartitionMsgOffsetFactory.create(_segmentZKMetadata.getStartOffset());
     _currentOffset = _streamPartitionMsgOffsetFactory.create(_startOffset);
     _resourceTmpDir = new File(resourceDataDir, "_tmp");
@@ -0,0 +1,288 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.data.recordtransformer.RecordTransformer;
+import org.apache.pinot.core.util.IngestionUtils;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.StreamMessageDecoder;
+import org.apache.pinot.spi.stream.StreamPartitionMsgOffset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code ParallelMessageDecoder} decodes and transforms the messages of a consuming partition on a small pool of
+ * worker threads, so that the consumer thread only needs to index the transformed rows.
+ * <p>The messages within a {@link MessageBatch} are split into contiguous ranges, each processed by one worker. The
+ * results are kept per message so that the consumer thread can still process the messages in the stream order, and
+ * stop at any message without affecting the offset semantics. The next message batch can also be fetched on a separate
+ * thread while the current one is being indexed.
+ * <p>Since {@link StreamMessageDecoder} and {@link RecordTransformer} are not thread-safe, each worker thread uses its
+ * own decoder and transformer.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class ParallelMessageDecoder implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMessageDecoder.class);
+  // Avoid splitting small message batches into too many tasks
+  private static final int MIN_MESSAGES_PER_TASK = 100;
+
+  private final int _numThreads;
+  private final BlockingQueue<Worker> _workers;
+  private final ExecutorService _decodingExecutor;
+  private final ExecutorService _fetchingExecutor;
+
+  ParallelMessageDecoder(int numThreads, Supplier<StreamMessageDecoder> decoderSupplier,
+      Supplier<RecordTransformer> transformerSupplier, String segmentName) {
+    _numThreads = numThreads;
+    _workers = new ArrayBlockingQueue<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      _workers.add(new Worker(decoderSupplier.get(), transformerSupplier.get()));
+    }
+    _decodingExecutor = Executors.newFixedThreadPool(numThreads,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat(segmentName + "-decoder-%d").build());
+    _fetchingExecutor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat(segmentName + "-fetcher").build());
+  }
+
+  /**
+   * Submits the messages in the given message batch to be decoded and transformed in parallel.
+   */
+  DecodedMessages submit(MessageBatch messageBatch, StreamPartitionMsgOffset startOffset) {
+    int numMessages = messageBatch.getMessageCount();
+    int numTasks = Math.max(Math.min(_numThreads, numMessages / MIN_MESSAGES_PER_TASK), 1);
+    int numMessagesPerTask = Math.max((numMessages + numTasks - 1) / numTasks, 1);
+    DecodedMessages decodedMessages = new DecodedMessages(messageBatch, startOffset, numMessagesPerTask, numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      int startIndex = i * numMessagesPerTask;
+      int endIndex = Math.min(startIndex + numMessagesPerTask, numMessages);
+      decodedMessages._futures[i] = _decodingExecutor.submit(() -> {
+        Worker worker = Uninterruptibles.takeUninterruptibly(_workers);
+        try {
+          worker.process(decodedMessages, startIndex, endIndex);
+        } finally {
+          _workers.add(worker);
+        }
+      });
+    }
+    return decodedMessages;
+  }
+
+  /**
+   * Fetches the message batch with the given fetcher on the fetching thread, then submits the messages to be decoded
+   * and transformed. The future returns {@code null} if the fetch fails.
+   */
+  Future<DecodedMessages> fetchAndSubmit(Callable<MessageBatch> fetcher, StreamPartitionMsgOffset startOffset) {
+    return _fetchingExecutor.submit(() -> {
+      MessageBatch messageBatch;
+      try {
+        messageBatch = fetcher.call();
+      } catch (Exception e) {
+        LOGGER.debug("Caught exception while fetching messages from offset: {}", startOffset, e);
+        return null;
+      }
+      return submit(messageBatch, startOffset);
+    });
+  }
+
+  @Override
+  public void close() {
+    _fetchingExecutor.shutdownNow();
+    _decodingExecutor.shutdownNow();
+  }
+
+  /**
+   * Transforms the decoded rows as a batch, and replaces the rows that should not be indexed with {@code null}. If the
+   * batch transformation fails, transforms the rows one by one to isolate the failed rows, which are replaced with
+   * {@code null} and marked in the errored flags.
+   */
+  static void transform(RecordTransformer recordTransformer, GenericRow[] rows, int numRows, boolean[] errored,
+      Logger logger) {
+    GenericRow[] transformedRows = Arrays.copyOf(rows, numRows);
+    try {
+      recordTransformer.transform(transformedRows, numRows);
+    } catch (Exception e) {
+      logger.warn("Caught exception while transforming {} records as a batch, transforming them one by one", numRows,
+          e);
+      for (int i = 0; i < numRows; i++) {
+        try {
+          transformedRows[i] = recordTransformer.transform(rows[i]);
+        } catch (Exception e1) {
+          logger.error("Caught exception while transforming the record: {}", rows[i], e1);
+          transformedRows[i] = null;
+          errored[i] = true;
+        }
+      }
+    }
+    for (int i = 0; i < numRows; i++) {
+      GenericRow transformedRow = transformedRows[i];
+      rows[i] = transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow) ? transformedRow : null;
+    }
+  }
+
+  private static class Worker {
+    final StreamMessageDecoder _decoder;
+    final RecordTransformer _recordTransformer;
+
+    Worker(StreamMessageDecoder decoder, RecordTransformer recordTransformer) {
+      _decoder = decoder;
+      _recordTransformer = recordTransformer;
+    }
+
+    /**
+     * Decodes the messages within the given index range, then transforms the decoded rows as a batch.
+     */
+    void process(DecodedMessages decodedMessages, int startIndex, int endIndex) {
+      MessageBatch messageBatch = decodedMessages._messageBatch;
+      List<GenericRow> decodedRows = new ArrayList<>(endIndex - startIndex);
+      // Index of the message for each decoded row
+      List<Integer> messageIndexes = new ArrayList<>(endIndex - startIndex);
+      for (int index = startIndex; index < endIndex; index++) {
+        GenericRow decodedRow;
+        try {
+          decodedRow = _decoder
+              .decode(messageBatch.getMessageAtIndex(index), messageBatch.getMessageOffsetAtIndex(index),
+                  messageBatch.getMessageLengthAtIndex(index), new GenericRow());
+        } catch (Exception e) {
+          // Rethrown by the consumer thread when reaching this message
+          decodedMessages._exceptions[index] = e;
+          continue;
+        }
+        if (decodedRow == null) {
+          decodedMessages._numRowsDropped[index] = 1;
+          continue;
+        }
+        decodedMessages._rows[index] = new ArrayList<>(1);
+        Collection<GenericRow> multipleRows =
+            (Collection<GenericRow>) decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY);
+        if (multipleRows != null) {
+          for (GenericRow row : multipleRows) {
+            decodedRows.add(row);
+            messageIndexes.add(index);
+          }
+        } else {
+          decodedRows.add(decodedRow);
+          messageIndexes.add(index);
+        }
+      }
+
+      int numRows = decodedRows.size();
+      GenericRow[] rows = decodedRows.toArray(new GenericRow[0]);
+      boolean[] errored = new boolean[numRows];
+      transform(_recordTransformer, rows, numRows, errored, LOGGER);
+      for (int i = 0; i < numRows; i++) {
+        int index = messageIndexes.get(i);
+        if (errored[i]) {
+          decodedMessages._errored[index] = true;
+        } else if (rows[i] == null) {
+          decodedMessages._numRowsDropped[index]++;
+        } else {
+          decodedMessages._rows[index].add(rows[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * The decoded and transformed messages of a message batch.
+   */
+  static class DecodedMessages {
+    private final MessageBatch _messageBatch;
+    private final StreamPartitionMsgOffset _startOffset;
+    private final int _numMessagesPerTask;
+    private final Future[] _futures;
+    private final List<GenericRow>[] _rows;
+    private final int[] _numRowsDropped;
+    private final boolean[] _errored;
+    private final Exception[] _exceptions;
+
+    private DecodedMessages(MessageBatch messageBatch, StreamPartitionMsgOffset startOffset, int numMessagesPerTask,
+        int numTasks) {
+      _messageBatch = messageBatch;
+      _startOffset = startOffset;
+      _numMessagesPerTask = numMessagesPerTask;
+      _futures = new Future[numTasks];
+      int numMessages = messageBatch.getMessageCount();
+      _rows = new List[numMessages];
+      _numRowsDropped = new int[numMessages];
+      _errored = new boolean[numMessages];
+      _exceptions = new Exception[numMessages];
+    }
+
+    MessageBatch getMessageBatch() {
+      return _messageBatch;
+    }
+
+    StreamPartitionMsgOffset getStartOffset() {
+      return _startOffset;
+    }
+
+    /**
+     * Waits for the message at the given index to be processed, and returns the transformed rows to be indexed
+     * ({@code null} if the message is dropped).
+     */
+    @Nullable
+    List<GenericRow> getRows(int index) {
+      try {
+        Uninterruptibles.getUninterruptibly(_futures[index / _numMessagesPerTask]);
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Caught exception while decoding messages", e.getCause());
+      }
+      Exception exception = _exceptions[index];
+      if (exception != null) {
+        throw new RuntimeException("Caught exception while decoding message at index: " + index, exception);
+      }
+      return _rows[index];
+    }
+
+    int getNumRowsDropped(int index) {
+      return _numRowsDropped[index];
+    }
+
+    boolean isErrored(int index) {
+      return _errored[index];
+    }
+
+    /**
+     * Cancels the processing of the messages that are not needed.
+     */
+    void cancel() {
+      for (Future future : _futures) {
+        future.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+
+
+/**
+ * The {@code RealtimeOffHeapMemoryPlanner} enforces a server-wide budget on the off-heap memory allocated for the
+ * realtime consuming segments.
+ * <p>Instead of relying on the estimated memory usage, each consuming segment reports the memory actually allocated by
+ * its memory manager (dictionaries, forward indexes, var-length value stores etc.) as it indexes the rows, and the
+ * planner keeps track of the total memory allocated across all the segments on the server. When the total exceeds the
+ * budget, the segments using at least their fair share of the budget stop consuming and get flushed early, and the
+ * other segments pause consuming until the memory is released. Since at least one segment always uses its fair share
+ * when the budget is exceeded, the consumption can always make progress.
+ * <p>This class is thread-safe.
+ */
+public class RealtimeOffHeapMemoryPlanner {
+
+  public enum Action {
+    // Keep consuming
+    CONSUME,
+    // Pause consuming until the memory is released by other segments
+    PAUSE,
+    // Stop consuming and flush the segment
+    FLUSH
+  }
+
+  private final long _budgetBytes;
+  private final ServerMetrics _serverMetrics;
+  private final AtomicLong _allocatedBytes = new AtomicLong();
+  private final AtomicInteger _numSegments = new AtomicInteger();
+
+  public RealtimeOffHeapMemoryPlanner(long budgetBytes, ServerMetrics serverMetrics) {
+    _budgetBytes = budgetBytes;
+    _serverMetrics = serverMetrics;
+    _serverMetrics.setValueOfGlobalGauge(ServerGauge.REALTIME_OFFHEAP_MEMORY_BUDGET, budgetBytes);
+  }
+
+  /**
+   * Registers a segment that allocates memory.
+   */
+  public void register() {
+    _numSegments.incrementAndGet();
+  }
+
+  /**
+   * Unregisters a segment after its memory is released, where the given allocated bytes is the last reported value
+   * for the segment.
+   */
+  public void unregister(long allocatedBytes) {
+    _numSegments.decrementAndGet();
+    updateAllocatedBytes(-allocatedBytes);
+  }
+
+  /**
+   * Updates the total memory allocated with the change of the memory allocated by a segment.
+   */
+  public void updateAllocatedBytes(long deltaBytes) {
+    if (deltaBytes != 0) {
+      _serverMetrics.setValueOfGlobalGauge(ServerGauge.REALTIME_OFFHEAP_MEMORY_ALLOCATED,
+          _allocatedBytes.addAndGet(deltaBytes));
+    }
+  }
+
+  public long getBudgetBytes() {
+    return _budgetBytes;
+  }
+
+  public long getAllocatedBytes() {
+    return _allocatedBytes.get();
+  }
+
+  public int getNumSegments() {
+    return _numSegments.get();
+  }
+
+  /**
+   * Returns the action for a consuming segment based on the memory allocated by the segment.
+   */
+  public Action getAction(long segmentAllocatedBytes) {
+    if (_allocatedBytes.get() <= _budgetBytes) {
+      return Action.CONSUME;
+    }
+    long fairShareBytes = _budgetBytes / Math.max(_numSegments.get(), 1);
+    return segmentAllocatedBytes >= fairShareBytes ? Action.FLUSH : Action.PAUSE;
+  }
+}
@@ -33,6 +33,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
@@ -52,17 +53,20 @@ import org.apache.pinot.common.utils.fetcher.SegmentFetcherFactory;
 import org.apache.pinot.core.data.manager.BaseTableDataManager;
 import org.apache.pinot.core.data.manager.SegmentDataManager;
 import org.apache.pinot.core.data.readers.PinotSegmentColumnReader;
+import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegmentImpl;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 import org.apache.pinot.core.realtime.impl.RealtimeSegmentStatsHistory;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
 import org.apache.pinot.core.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.core.segment.index.loader.LoaderUtils;
+import org.apache.pinot.core.segment.index.metadata.SegmentMetadataImpl;
 import org.apache.pinot.core.segment.virtualcolumn.VirtualColumnProviderFactory;
 import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager;
 import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager.RecordInfo;
 import org.apache.pinot.core.upsert.TableUpsertMetadataManager;
+import org.apache.pinot.core.upsert.ValidDocIdsSnapshotUtils;
 import org.apache.pinot.core.util.IngestionUtils;
 import org.apache.pinot.core.util.PeerServerSegmentFinder;
 import org.apache.pinot.core.util.SchemaUtils;
@@ -73,6 +77,8 @@ import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
 import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 import static org.apache.pinot.common.utils.CommonConstants.Segment.METADATA_URI_FOR_PEER_DOWNLOAD;
 
@@ -84,6 +90,8 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
   private SegmentBuildTimeLeaseExtender _leaseExtender;
   private RealtimeSegmentStatsHistory _statsHistory;
   private final Semaphore _segmentBuildSemaphore;
+  // Server-wide off-heap memory planner for the consuming segments, null if no memory budget is configured
+  private final RealtimeOffHeapMemoryPlanner _offHeapMemoryPlanner;
   // Maintains a map of partitionIds to semaphores.
   // The semaphore ensures that exactly one PartitionConsumer instance consumes from any stream partition.
   // In some streams, it's possible that having multiple consumers (with the same consumer name on the same host) consuming from the same stream partition can lead to bugs.
@@ -111,11 +119,18 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
 
   private UpsertConfig.Mode _upsertMode;
   private TableUpsertMetadataManager _tableUpsertMetadataManager;
+  private boolean _enableUpsertSnapshot;
   private List<String> _primaryKeyColumns;
   private String _timeColumnName;
 
   public RealtimeTableDataManager(Semaphore segmentBuildSemaphore) {
+    this(segmentBuildSemaphore, null);
+  }
+
+  public RealtimeTableDataManager(Semaphore segmentBuildSemaphore,
+      @Nullable RealtimeOffHeapMemoryPlanner offHeapMemoryPlanner) {
     _segmentBuildSemaphore = segmentBuildSemaphore;
+    _offHeapMemoryPlanner = offHeapMemoryPlanner;
   }
 
   @Override
@@ -158,7 +173,10 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
     if (isUpsertEnabled()) {
       Schema schema = ZKMetadataProvider.getTableSchema(_propertyStore, _tableNameWithType);
       Preconditions.checkState(schema != null, "Failed to find schema for table: %s", _tableNameWithType);
-      _tableUpsertMetadataManager = new TableUpsertMetadataManager(_tableNameWithType, _serverMetrics);
+      UpsertConfig upsertConfig = tableConfig.getUpsertConfig();
+      _tableUpsertMetadataManager = new TableUpsertMetadataManager(_tableNameWithType, _serverMetrics,
+          upsertConfig.getMetadataStoreType());
+      _enableUpsertSnapshot = upsertConfig.isEnableSnapshot();
       _primaryKeyColumns = schema.getPrimaryKeyColumns();
       Preconditions.checkState(!CollectionUtils.isEmpty(_primaryKeyColumns),
           "Primary key columns must be configured for upsert");
@@ -189,9 +207,22 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
   @Override
   protected void doShutdown() {
     _segmentAsyncExecutorService.shutdown();
+    if (_enableUpsertSnapshot) {
+      // Persist the valid doc ids snapshots for all the immutable segments before destroying any of them, so that the
+      // snapshots are consistent with each other
+      for (SegmentDataManager segmentDataManager : _segmentDataManagerMap.values()) {
+        IndexSegment segment = segmentDataManager.getSegment();
+        if (segment instanceof ImmutableSegmentImpl) {
+          ((ImmutableSegmentImpl) segment).persistValidDocIdsSnapshot();
+        }
+      }
+    }
     for (SegmentDataManager segmentDataManager : _segmentDataManagerMap.values()) {
       segmentDataManager.destroy();
     }
+    if (_tableUpsertMetadataManager != null) {
+      _tableUpsertMetadataManager.close();
+    }
     if (_leaseExtender != null) {
       _leaseExtender.shutDown();
     }
@@ -205,6 +236,11 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
     return _segmentBuildSemaphore;
   }
 
+  @Nullable
+  public RealtimeOffHeapMemoryPlanner getOffHeapMemoryPlanner() {
+    return _offHeapMemoryPlanner;
+  }
+
   public String getConsumerDir() {
     String consumerDirPath = _tableDataManagerConfig.getConsumerDir();
     File consumerDir;
@@ -340,16 +376,36 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
     PartitionUpsertMetadataManager partitionUpsertMetadataManager =
         _tableUpsertMetadataManager.getOrCreatePartitionManager(partitionId);
     int numPrimaryKeyColumns = _primaryKeyColumns.size();
+    // When the valid doc ids snapshot is available, only replay the valid docs in the snapshot
+    MutableRoaringBitmap validDocIdsSnapshot = null;
+    if (_enableUpsertSnapshot) {
+      SegmentMetadataImpl segmentMetadata = immutableSegment.getSegmentMetadata();
+      validDocIdsSnapshot =
+          ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(segmentMetadata.getIndexDir(), segmentMetadata.getCrc());
+      if (validDocIdsSnapshot != null) {
+        _logger.info("Replaying {} valid docs out of {} total docs from the snapshot for segment: {}",
+            validDocIdsSnapshot.getCardinality(), numTotalDocs, segmentName);
+      }
+    }
+    PeekableIntIterator snapshotDocIdIterator =
+        validDocIdsSnapshot != null ? validDocIdsSnapshot.getIntIterator() : null;
     Iterator<RecordInfo> recordInfoIterator = new Iterator<RecordInfo>() {
       private int _docId = 0;
 
       @Override
       public boolean hasNext() {
-        return _docId < numTotalDocs;
+        if (snapshotDocIdIterator != null) {
+          return snapshotDocIdIterator.hasNext();
+        } else {
+          return _docId < numTotalDocs;
+        }
       }
 
       @Override
       public RecordInfo next() {
+        if (snapshotDocIdIterator != null) {
+          _docId = snapshotDocIdIterator.next();
+        }
         Object[] values = new Object[numPrimaryKeyColumns];
         for (int i = 0; i < numPrimaryKeyColumns; i++) {
           Object value = columnToReaderMap.get(_primaryKeyColumns.get(i)).getValue(_docId);
@@ -365,7 +421,7 @@ public class RealtimeTableDataManager extends BaseTableDataManager {
         return new RecordInfo(primaryKey, _docId++, timestamp);
       }
     };
-    ThreadSafeMutableRoaringBitmap validDocIds =
+    ConcurrentValidDocIds validDocIds =
         partitionUpsertMetadataManager.addSegment(segmentName, recordInfoIterator);
     immutableSegment.enableUpsert(partitionUpsertMetadataManager, validDocIds);
   }
@@ -86,4 +86,11 @@ public class CompositeTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    for (RecordTransformer transformer : _transformers) {
+      transformer.transform(records, numRecords);
+    }
+  }
 }
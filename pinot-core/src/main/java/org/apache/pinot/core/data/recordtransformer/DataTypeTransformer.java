@@ -66,25 +66,32 @@ public class DataTypeTransformer implements RecordTransformer {
     MULTI_VALUE_TYPE_MAP.put(String.class, PinotDataType.STRING_ARRAY);
   }
 
-  private final Map<String, PinotDataType> _dataTypes = new HashMap<>();
+  private final String[] _columns;
+  private final PinotDataType[] _dataTypes;
 
   public DataTypeTransformer(Schema schema) {
+    List<String> columns = new ArrayList<>();
+    List<PinotDataType> dataTypes = new ArrayList<>();
     for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
       if (!fieldSpec.isVirtualColumn()) {
-        _dataTypes.put(fieldSpec.getName(), PinotDataType.getPinotDataType(fieldSpec));
+        columns.add(fieldSpec.getName());
+        dataTypes.add(PinotDataType.getPinotDataType(fieldSpec));
       }
     }
+    _columns = columns.toArray(new String[0]);
+    _dataTypes = dataTypes.toArray(new PinotDataType[0]);
   }
 
   @Override
   public GenericRow transform(GenericRow record) {
-    for (Map.Entry<String, PinotDataType> entry : _dataTypes.entrySet()) {
-      String column = entry.getKey();
+    int numColumns = _columns.length;
+    for (int i = 0; i < numColumns; i++) {
+      String column = _columns[i];
       Object value = record.getValue(column);
       if (value == null) {
         continue;
       }
-      PinotDataType dest = entry.getValue();
+      PinotDataType dest = _dataTypes[i];
       value = standardize(column, value, dest.isSingleValue());
       // NOTE: The standardized value could be null for empty Collection/Map/Object[].
       if (value == null) {
@@ -93,21 +100,7 @@ public class DataTypeTransformer implements RecordTransformer {
       }
 
       // Convert data type if necessary
-      PinotDataType source;
-      if (value instanceof Object[]) {
-        // Multi-value column
-        Object[] values = (Object[]) value;
-        source = MULTI_VALUE_TYPE_MAP.get(values[0].getClass());
-        if (source == null) {
-          source = PinotDataType.OBJECT_ARRAY;
-        }
-      } else {
-        // Single-value column
-        source = SINGLE_VALUE_TYPE_MAP.get(value.getClass());
-        if (source == null) {
-          source = PinotDataType.OBJECT;
-        }
-      }
+      PinotDataType source = getSourceType(value);
       if (source != dest) {
         value = dest.convert(value, source);
       }
@@ -117,6 +110,74 @@ public class DataTypeTransformer implements RecordTransformer {
     return record;
   }
 
+  /**
+   * Converts the values column by column. Values of a column usually share the same class, so the source data type is
+   * cached per column, and the values already in the destination data type are not put back into the records.
+   */
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    int numColumns = _columns.length;
+    for (int i = 0; i < numColumns; i++) {
+      String column = _columns[i];
+      PinotDataType dest = _dataTypes[i];
+      boolean isSingleValue = dest.isSingleValue();
+      Class lastValueClass = null;
+      boolean lastIsMultiValue = false;
+      PinotDataType lastSource = null;
+      for (int j = 0; j < numRecords; j++) {
+        GenericRow record = records[j];
+        if (record == null) {
+          continue;
+        }
+        Object value = record.getValue(column);
+        if (value == null) {
+          continue;
+        }
+        Object standardizedValue = standardize(column, value, isSingleValue);
+        // NOTE: The standardized value could be null for empty Collection/Map/Object[].
+        if (standardizedValue == null) {
+          record.putValue(column, null);
+          continue;
+        }
+
+        // Convert data type if necessary
+        boolean isMultiValue = standardizedValue instanceof Object[];
+        Class valueClass =
+            isMultiValue ? ((Object[]) standardizedValue)[0].getClass() : standardizedValue.getClass();
+        if (valueClass != lastValueClass || isMultiValue != lastIsMultiValue) {
+          lastSource = getSourceType(standardizedValue);
+          lastValueClass = valueClass;
+          lastIsMultiValue = isMultiValue;
+        }
+        PinotDataType source = lastSource;
+        if (source != dest) {
+          record.putValue(column, dest.convert(standardizedValue, source));
+        } else if (standardizedValue != value) {
+          record.putValue(column, standardizedValue);
+        }
+      }
+    }
+  }
+
+  private static PinotDataType getSourceType(Object value) {
+    PinotDataType source;
+    if (value instanceof Object[]) {
+      // Multi-value column
+      Object[] values = (Object[]) value;
+      source = MULTI_VALUE_TYPE_MAP.get(values[0].getClass());
+      if (source == null) {
+        source = PinotDataType.OBJECT_ARRAY;
+      }
+    } else {
+      // Single-value column
+      source = SINGLE_VALUE_TYPE_MAP.get(value.getClass());
+      if (source == null) {
+        source = PinotDataType.OBJECT;
+      }
+    }
+    return source;
+  }
+
   /**
    * Standardize the value into supported types.
    * <ul>
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.data.recordtransformer;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.pinot.spi.config.table.TableConfig;
@@ -36,38 +37,90 @@ import org.apache.pinot.core.data.function.FunctionEvaluatorFactory;
  */
 public class ExpressionTransformer implements RecordTransformer {
 
-  private final Map<String, FunctionEvaluator> _expressionEvaluators = new HashMap<>();
+  private final String[] _columns;
+  private final FunctionEvaluator[] _expressionEvaluators;
+
+  // Reused buffers for the batch transformation
+  private GenericRow[] _recordsToEvaluate = new GenericRow[0];
+  private Object[] _results = new Object[0];
 
   public ExpressionTransformer(TableConfig tableConfig, Schema schema) {
+    Map<String, FunctionEvaluator> expressionEvaluators = new HashMap<>();
     if (tableConfig.getIngestionConfig() != null && tableConfig.getIngestionConfig().getTransformConfigs() != null) {
       for (TransformConfig transformConfig : tableConfig.getIngestionConfig().getTransformConfigs()) {
-        _expressionEvaluators.put(transformConfig.getColumnName(),
+        expressionEvaluators.put(transformConfig.getColumnName(),
             FunctionEvaluatorFactory.getExpressionEvaluator(transformConfig.getTransformFunction()));
       }
     }
     for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
       String fieldName = fieldSpec.getName();
-      if (!fieldSpec.isVirtualColumn() && !_expressionEvaluators.containsKey(fieldName)) {
+      if (!fieldSpec.isVirtualColumn() && !expressionEvaluators.containsKey(fieldName)) {
         FunctionEvaluator functionEvaluator = FunctionEvaluatorFactory.getExpressionEvaluator(fieldSpec);
         if (functionEvaluator != null) {
-          _expressionEvaluators.put(fieldName, functionEvaluator);
+          expressionEvaluators.put(fieldName, functionEvaluator);
         }
       }
     }
+    int numColumns = expressionEvaluators.size();
+    _columns = new String[numColumns];
+    _expressionEvaluators = new FunctionEvaluator[numColumns];
+    int index = 0;
+    for (Map.Entry<String, FunctionEvaluator> entry : expressionEvaluators.entrySet()) {
+      _columns[index] = entry.getKey();
+      _expressionEvaluators[index] = entry.getValue();
+      index++;
+    }
   }
 
   @Override
   public GenericRow transform(GenericRow record) {
-    for (Map.Entry<String, FunctionEvaluator> entry : _expressionEvaluators.entrySet()) {
-      String column = entry.getKey();
-      FunctionEvaluator transformFunctionEvaluator = entry.getValue();
+    int numColumns = _columns.length;
+    for (int i = 0; i < numColumns; i++) {
+      String column = _columns[i];
       // Skip transformation if column value already exist.
       // NOTE: column value might already exist for OFFLINE data
       if (record.getValue(column) == null) {
-        Object result = transformFunctionEvaluator.evaluate(record);
+        Object result = _expressionEvaluators[i].evaluate(record);
         record.putValue(column, result);
       }
     }
     return record;
   }
+
+  /**
+   * Evaluates the expressions column by column, where each expression is evaluated on all the records missing the
+   * column value at once.
+   */
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    int numColumns = _columns.length;
+    if (numColumns == 0) {
+      return;
+    }
+    if (_recordsToEvaluate.length < numRecords) {
+      _recordsToEvaluate = new GenericRow[numRecords];
+      _results = new Object[numRecords];
+    }
+    for (int i = 0; i < numColumns; i++) {
+      String column = _columns[i];
+      int numRecordsToEvaluate = 0;
+      for (int j = 0; j < numRecords; j++) {
+        GenericRow record = records[j];
+        // Skip transformation if column value already exist.
+        // NOTE: column value might already exist for OFFLINE data
+        if (record != null && record.getValue(column) == null) {
+          _recordsToEvaluate[numRecordsToEvaluate++] = record;
+        }
+      }
+      if (numRecordsToEvaluate > 0) {
+        _expressionEvaluators[i].evaluate(_recordsToEvaluate, numRecordsToEvaluate, _results);
+        for (int j = 0; j < numRecordsToEvaluate; j++) {
+          _recordsToEvaluate[j].putValue(column, _results[j]);
+        }
+      }
+    }
+    // Release the references to the records of the batch
+    Arrays.fill(_recordsToEvaluate, 0, numRecords, null);
+    Arrays.fill(_results, 0, numRecords, null);
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.data.recordtransformer;
 
+import java.util.Arrays;
 import org.apache.pinot.core.data.function.FunctionEvaluator;
 import org.apache.pinot.core.data.function.FunctionEvaluatorFactory;
 import org.apache.pinot.spi.config.table.TableConfig;
@@ -32,6 +33,10 @@ public class FilterTransformer implements RecordTransformer {
 
   private final FunctionEvaluator _evaluator;
 
+  // Reused buffers for the batch transformation
+  private GenericRow[] _recordsToEvaluate = new GenericRow[0];
+  private Object[] _results = new Object[0];
+
   public FilterTransformer(TableConfig tableConfig) {
     String filterFunction = null;
     if (tableConfig.getIngestionConfig() != null && tableConfig.getIngestionConfig().getFilterConfig() != null) {
@@ -50,4 +55,31 @@ public class FilterTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    if (_evaluator == null) {
+      return;
+    }
+    if (_recordsToEvaluate.length < numRecords) {
+      _recordsToEvaluate = new GenericRow[numRecords];
+      _results = new Object[numRecords];
+    }
+    int numRecordsToEvaluate = 0;
+    for (int i = 0; i < numRecords; i++) {
+      GenericRow record = records[i];
+      if (record != null) {
+        _recordsToEvaluate[numRecordsToEvaluate++] = record;
+      }
+    }
+    _evaluator.evaluate(_recordsToEvaluate, numRecordsToEvaluate, _results);
+    for (int i = 0; i < numRecordsToEvaluate; i++) {
+      if (Boolean.TRUE.equals(_results[i])) {
+        _recordsToEvaluate[i].putValue(GenericRow.SKIP_RECORD_KEY, true);
+      }
+    }
+    // Release the references to the records of the batch
+    Arrays.fill(_recordsToEvaluate, 0, numRecordsToEvaluate, null);
+    Arrays.fill(_results, 0, numRecordsToEvaluate, null);
+  }
 }
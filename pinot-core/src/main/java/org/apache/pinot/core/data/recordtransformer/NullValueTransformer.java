@@ -18,8 +18,8 @@
  */
 package org.apache.pinot.core.data.recordtransformer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.FieldType;
 import org.apache.pinot.spi.data.Schema;
@@ -27,31 +27,52 @@ import org.apache.pinot.spi.data.readers.GenericRow;
 
 
 public class NullValueTransformer implements RecordTransformer {
-  private final Map<String, Object> _defaultNullValues = new HashMap<>();
+  private final String[] _columns;
+  private final Object[] _defaultNullValues;
 
   public NullValueTransformer(Schema schema) {
+    List<String> columns = new ArrayList<>();
+    List<Object> defaultNullValues = new ArrayList<>();
     for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
       if (!fieldSpec.isVirtualColumn() && fieldSpec.getFieldType() != FieldType.TIME) {
-        String fieldName = fieldSpec.getName();
+        columns.add(fieldSpec.getName());
         Object defaultNullValue = fieldSpec.getDefaultNullValue();
         if (fieldSpec.isSingleValueField()) {
-          _defaultNullValues.put(fieldName, defaultNullValue);
+          defaultNullValues.add(defaultNullValue);
         } else {
-          _defaultNullValues.put(fieldName, new Object[]{defaultNullValue});
+          defaultNullValues.add(new Object[]{defaultNullValue});
         }
       }
     }
+    _columns = columns.toArray(new String[0]);
+    _defaultNullValues = defaultNullValues.toArray();
   }
 
   @Override
   public GenericRow transform(GenericRow record) {
-    for (Map.Entry<String, Object> entry : _defaultNullValues.entrySet()) {
-      String fieldName = entry.getKey();
+    int numColumns = _columns.length;
+    for (int i = 0; i < numColumns; i++) {
+      String fieldName = _columns[i];
       Object value = record.getValue(fieldName);
       if (value == null) {
-        record.putDefaultNullValue(fieldName, entry.getValue());
+        record.putDefaultNullValue(fieldName, _defaultNullValues[i]);
       }
     }
     return record;
   }
+
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    int numColumns = _columns.length;
+    for (int i = 0; i < numColumns; i++) {
+      String fieldName = _columns[i];
+      Object defaultNullValue = _defaultNullValues[i];
+      for (int j = 0; j < numRecords; j++) {
+        GenericRow record = records[j];
+        if (record != null && record.getValue(fieldName) == null) {
+          record.putDefaultNullValue(fieldName, defaultNullValue);
+        }
+      }
+    }
+  }
 }
@@ -36,4 +36,22 @@ public interface RecordTransformer extends Serializable {
    */
   @Nullable
   GenericRow transform(GenericRow record);
+
+  /**
+   * Transforms a batch of records in place based on some custom rules. The records that do not follow certain rules
+   * are replaced with {@code null}.
+   * <p>The default implementation transforms the records one by one. Implementations can override it to process the
+   * batch column by column, so that the per-column state is resolved once per batch instead of once per record.
+   *
+   * @param records Records to transform, where the {@code null} entries are skipped
+   * @param numRecords Number of records to transform
+   */
+  default void transform(GenericRow[] records, int numRecords) {
+    for (int i = 0; i < numRecords; i++) {
+      GenericRow record = records[i];
+      if (record != null) {
+        records[i] = transform(record);
+      }
+    }
+  }
 }
@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.recordtransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.pinot.core.util.IngestionUtils;
+import org.apache.pinot.spi.data.readers.GenericRow;
+
+
+/**
+ * The {@code RecordTransformerBatch} buffers the records read from the data source, and transforms them as a batch so
+ * that the {@link RecordTransformer} can process the records column by column.
+ * <p>The record containing multiple records (under {@link GenericRow#MULTIPLE_RECORDS_KEY}) is expanded when added to
+ * the batch. Because the records are buffered, they should not be reused until the batch is transformed.
+ */
+public class RecordTransformerBatch {
+  // Keep the records of a batch small enough to stay in the CPU cache while being processed column by column
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private final RecordTransformer _recordTransformer;
+  private final int _batchSize;
+  private final List<GenericRow> _transformedRecords;
+
+  private GenericRow[] _records;
+  private int _numRecords;
+
+  public RecordTransformerBatch(RecordTransformer recordTransformer, int batchSize) {
+    _recordTransformer = recordTransformer;
+    _batchSize = batchSize;
+    _transformedRecords = new ArrayList<>(batchSize);
+    _records = new GenericRow[batchSize];
+  }
+
+  /**
+   * Adds the record to the batch, and returns whether the batch is full and should be transformed.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean add(GenericRow record) {
+    Collection<GenericRow> records = (Collection<GenericRow>) record.getValue(GenericRow.MULTIPLE_RECORDS_KEY);
+    if (records != null) {
+      for (GenericRow singleRecord : records) {
+        addSingleRecord(singleRecord);
+      }
+    } else {
+      addSingleRecord(record);
+    }
+    return _numRecords >= _batchSize;
+  }
+
+  private void addSingleRecord(GenericRow record) {
+    if (_numRecords == _records.length) {
+      _records = Arrays.copyOf(_records, _numRecords * 2);
+    }
+    _records[_numRecords++] = record;
+  }
+
+  public boolean isEmpty() {
+    return _numRecords == 0;
+  }
+
+  /**
+   * Transforms the records in the batch, and returns the transformed records that should be ingested. The batch is
+   * cleared afterwards.
+   * <p>NOTE: The returned list is reused, and is only valid until the next call.
+   */
+  public List<GenericRow> transform() {
+    _transformedRecords.clear();
+    _recordTransformer.transform(_records, _numRecords);
+    for (int i = 0; i < _numRecords; i++) {
+      GenericRow transformedRecord = _records[i];
+      if (transformedRecord != null && IngestionUtils.shouldIngestRow(transformedRecord)) {
+        _transformedRecords.add(transformedRecord);
+      }
+    }
+    Arrays.fill(_records, 0, _numRecords, null);
+    _numRecords = 0;
+    return _transformedRecords;
+  }
+}
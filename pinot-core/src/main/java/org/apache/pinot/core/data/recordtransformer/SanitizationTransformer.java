@@ -18,8 +18,8 @@
  */
 package org.apache.pinot.core.data.recordtransformer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.Schema;
@@ -38,40 +38,68 @@ import org.apache.pinot.spi.data.readers.GenericRow;
  * {@link FieldSpec}.
  */
 public class SanitizationTransformer implements RecordTransformer {
-  private final Map<String, Integer> _stringColumnMaxLengthMap = new HashMap<>();
+  private final String[] _stringColumns;
+  private final int[] _maxLengths;
 
   public SanitizationTransformer(Schema schema) {
+    List<FieldSpec> stringFieldSpecs = new ArrayList<>();
     for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
       if (!fieldSpec.isVirtualColumn() && fieldSpec.getDataType() == DataType.STRING) {
-        _stringColumnMaxLengthMap.put(fieldSpec.getName(), fieldSpec.getMaxLength());
+        stringFieldSpecs.add(fieldSpec);
       }
     }
+    int numStringColumns = stringFieldSpecs.size();
+    _stringColumns = new String[numStringColumns];
+    _maxLengths = new int[numStringColumns];
+    for (int i = 0; i < numStringColumns; i++) {
+      FieldSpec fieldSpec = stringFieldSpecs.get(i);
+      _stringColumns[i] = fieldSpec.getName();
+      _maxLengths[i] = fieldSpec.getMaxLength();
+    }
   }
 
   @Override
   public GenericRow transform(GenericRow record) {
-    for (Map.Entry<String, Integer> entry : _stringColumnMaxLengthMap.entrySet()) {
-      String stringColumn = entry.getKey();
-      int maxLength = entry.getValue();
-      Object value = record.getValue(stringColumn);
-      if (value instanceof String) {
-        // Single-valued column
-        String stringValue = (String) value;
-        String sanitizedValue = StringUtil.sanitizeStringValue(stringValue, maxLength);
-        // NOTE: reference comparison
-        //noinspection StringEquality
-        if (sanitizedValue != stringValue) {
-          record.putValue(stringColumn, sanitizedValue);
-        }
-      } else {
-        // Multi-valued column
-        Object[] values = (Object[]) value;
-        int numValues = values.length;
-        for (int i = 0; i < numValues; i++) {
-          values[i] = StringUtil.sanitizeStringValue((String) values[i], maxLength);
+    int numStringColumns = _stringColumns.length;
+    for (int i = 0; i < numStringColumns; i++) {
+      sanitize(record, _stringColumns[i], _maxLengths[i]);
+    }
+    return record;
+  }
+
+  @Override
+  public void transform(GenericRow[] records, int numRecords) {
+    int numStringColumns = _stringColumns.length;
+    for (int i = 0; i < numStringColumns; i++) {
+      String stringColumn = _stringColumns[i];
+      int maxLength = _maxLengths[i];
+      for (int j = 0; j < numRecords; j++) {
+        GenericRow record = records[j];
+        if (record != null) {
+          sanitize(record, stringColumn, maxLength);
         }
       }
     }
-    return record;
+  }
+
+  private static void sanitize(GenericRow record, String stringColumn, int maxLength) {
+    Object value = record.getValue(stringColumn);
+    if (value instanceof String) {
+      // Single-valued column
+      String stringValue = (String) value;
+      String sanitizedValue = StringUtil.sanitizeStringValue(stringValue, maxLength);
+      // NOTE: reference comparison
+      //noinspection StringEquality
+      if (sanitizedValue != stringValue) {
+        record.putValue(stringColumn, sanitizedValue);
+      }
+    } else {
+      // Multi-valued column
+      Object[] values = (Object[]) value;
+      int numValues = values.length;
+      for (int i = 0; i < numValues; i++) {
+        values[i] = StringUtil.sanitizeStringValue((String) values[i], maxLength);
+      }
+    }
   }
 }
@@ -0,0 +1,563 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.request.context.ExpressionContext;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Thread safe {@link IndexedTable} implementation which stores the groups in primitive arrays with open addressing
+ * instead of {@link Key} and {@link Record} objects in a map.
+ * <p>It can be used when all the group-by columns are numeric (INT, LONG, FLOAT, DOUBLE), and all the aggregation
+ * functions have fixed-width intermediate results (COUNT, SUM, MIN, MAX and the MV variants), see
+ * {@link #isSupported(DataSchema, QueryContext)}. The keys and aggregation values are stored as longs (floating point
+ * values as bits). The groups are spread across multiple segments based on the hash of the keys, where each segment is
+ * an open addressing hash table (linear probing) guarded by its own lock.
+ * <p>Records are only created for the groups retained in {@link #finish(boolean)}, and the trimming is performed with
+ * {@link TableResizer#getSortedRowIds(int, TableResizer.RowReader, int)} which does not create Records either.
+ */
+@SuppressWarnings("rawtypes")
+public class PrimitiveConcurrentIndexedTable extends IndexedTable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveConcurrentIndexedTable.class);
+
+  private static final int NUM_SEGMENTS_BITS = 6;
+  private static final int NUM_SEGMENTS = 1 << NUM_SEGMENTS_BITS;
+  private static final int MIN_SEGMENT_CAPACITY = 64;
+
+  private final ColumnDataType[] _keyTypes;
+  private final ValueType[] _valueTypes;
+  private final int _numValueColumns;
+  private final ReentrantReadWriteLock _readWriteLock = new ReentrantReadWriteLock();
+  private final AtomicInteger _numGroups = new AtomicInteger();
+  private final AtomicInteger _numResizes = new AtomicInteger();
+  private final AtomicLong _resizeTimeMs = new AtomicLong();
+
+  private volatile Segment[] _segments;
+  private volatile boolean _noMoreNewRecords;
+  private List<Record> _records;
+
+  public PrimitiveConcurrentIndexedTable(DataSchema dataSchema, QueryContext queryContext, int trimSize,
+      int trimThreshold) {
+    super(dataSchema, queryContext, trimSize, trimThreshold);
+    Preconditions.checkArgument(isSupported(dataSchema, queryContext),
+        "Unsupported data schema: %s or aggregation functions for primitive indexed table", dataSchema);
+    _keyTypes = new ColumnDataType[_numKeyColumns];
+    for (int i = 0; i < _numKeyColumns; i++) {
+      _keyTypes[i] = dataSchema.getColumnDataType(i);
+    }
+    _numValueColumns = _aggregationFunctions.length;
+    _valueTypes = new ValueType[_numValueColumns];
+    for (int i = 0; i < _numValueColumns; i++) {
+      _valueTypes[i] = ValueType.of(_aggregationFunctions[i]);
+    }
+    _segments = createSegments(0);
+  }
+
+  /**
+   * Returns whether the primitive indexed table can be used for the given data schema and query.
+   */
+  public static boolean isSupported(DataSchema dataSchema, QueryContext queryContext) {
+    List<ExpressionContext> groupByExpressions = queryContext.getGroupByExpressions();
+    AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+    if (groupByExpressions == null || aggregationFunctions == null) {
+      return false;
+    }
+    int numGroupByExpressions = groupByExpressions.size();
+    for (int i = 0; i < numGroupByExpressions; i++) {
+      switch (dataSchema.getColumnDataType(i)) {
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+          break;
+        default:
+          return false;
+      }
+    }
+    for (AggregationFunction aggregationFunction : aggregationFunctions) {
+      if (ValueType.of(aggregationFunction) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses the string representation of the key (as generated by the group key generator) for the given key column
+   * into the long representation used by the table.
+   */
+  public long parseKey(int keyColumnIndex, String stringKey) {
+    switch (_keyTypes[keyColumnIndex]) {
+      case INT:
+        return Integer.parseInt(stringKey);
+      case LONG:
+        return Long.parseLong(stringKey);
+      case FLOAT:
+        return Float.floatToIntBits(Float.parseFloat(stringKey));
+      case DOUBLE:
+        return Double.doubleToLongBits(Double.parseDouble(stringKey));
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  @Override
+  public boolean upsert(Key key, Record record) {
+    Preconditions.checkNotNull(key, "Cannot upsert record with null keys");
+    Object[] values = record.getValues();
+    long[] keys = new long[_numKeyColumns];
+    for (int i = 0; i < _numKeyColumns; i++) {
+      Number value = (Number) values[i];
+      switch (_keyTypes[i]) {
+        case INT:
+          keys[i] = value.intValue();
+          break;
+        case LONG:
+          keys[i] = value.longValue();
+          break;
+        case FLOAT:
+          keys[i] = Float.floatToIntBits(value.floatValue());
+          break;
+        case DOUBLE:
+          keys[i] = Double.doubleToLongBits(value.doubleValue());
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    double[] aggregationValues = new double[_numValueColumns];
+    for (int i = 0; i < _numValueColumns; i++) {
+      aggregationValues[i] = ((Number) values[_numKeyColumns + i]).doubleValue();
+    }
+    upsert(keys, aggregationValues);
+    return true;
+  }
+
+  /**
+   * Thread safe implementation of upsert for the primitive keys (see {@link #parseKey(int, String)}) and aggregation
+   * values (intermediate results as double).
+   */
+  public void upsert(long[] keys, double[] values) {
+    long hash = hash(keys);
+    int segmentId = (int) (hash >>> (Long.SIZE - NUM_SEGMENTS_BITS));
+    if (_noMoreNewRecords) { // allow only existing record updates
+      Segment segment = _segments[segmentId];
+      synchronized (segment) {
+        segment.update(keys, hash, values);
+      }
+      return;
+    }
+
+    // allow all records
+    boolean inserted;
+    _readWriteLock.readLock().lock();
+    try {
+      Segment segment = _segments[segmentId];
+      synchronized (segment) {
+        inserted = segment.upsert(keys, hash, values);
+      }
+    } finally {
+      _readWriteLock.readLock().unlock();
+    }
+
+    // resize if exceeds trim threshold
+    if (inserted && _numGroups.incrementAndGet() >= _trimThreshold) {
+      if (_hasOrderBy) {
+        // reached capacity, resize
+        _readWriteLock.writeLock().lock();
+        try {
+          if (_numGroups.get() >= _trimThreshold) {
+            resize(_trimSize);
+          }
+        } finally {
+          _readWriteLock.writeLock().unlock();
+        }
+      } else {
+        // reached capacity and no order by. No more new records will be accepted
+        _noMoreNewRecords = true;
+      }
+    }
+  }
+
+  private static long hash(long[] keys) {
+    long hash = 0;
+    for (long key : keys) {
+      hash = hash * 0x9E3779B97F4A7C15L + key;
+    }
+    // Mix the bits (MurmurHash3 fmix64) so that both the high bits (segment id) and the low bits (slot) are usable
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private Segment[] createSegments(int expectedNumGroups) {
+    int segmentCapacity = MIN_SEGMENT_CAPACITY;
+    int expectedSegmentSize = expectedNumGroups / NUM_SEGMENTS;
+    while (segmentCapacity * 3 / 4 < expectedSegmentSize) {
+      segmentCapacity <<= 1;
+    }
+    Segment[] segments = new Segment[NUM_SEGMENTS];
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      segments[i] = new Segment(segmentCapacity);
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the number of groups and fills the segment id and slot of each group into the given arrays.
+   * <p>NOTE: Should be called when no other thread is modifying the table.
+   */
+  private int collectGroups(Segment[] segments, int[] segmentIds, int[] slots) {
+    int numGroups = 0;
+    for (int segmentId = 0; segmentId < NUM_SEGMENTS; segmentId++) {
+      boolean[] occupied = segments[segmentId]._occupied;
+      int capacity = occupied.length;
+      for (int slot = 0; slot < capacity; slot++) {
+        if (occupied[slot]) {
+          segmentIds[numGroups] = segmentId;
+          slots[numGroups++] = slot;
+        }
+      }
+    }
+    return numGroups;
+  }
+
+  private int getNumGroups(Segment[] segments) {
+    int numGroups = 0;
+    for (Segment segment : segments) {
+      numGroups += segment._size;
+    }
+    return numGroups;
+  }
+
+  private void readRow(Segment segment, int slot, Object[] values) {
+    int keyOffset = slot * _numKeyColumns;
+    for (int i = 0; i < _numKeyColumns; i++) {
+      long key = segment._keys[keyOffset + i];
+      switch (_keyTypes[i]) {
+        case INT:
+          values[i] = (int) key;
+          break;
+        case LONG:
+          values[i] = key;
+          break;
+        case FLOAT:
+          values[i] = Float.intBitsToFloat((int) key);
+          break;
+        case DOUBLE:
+          values[i] = Double.longBitsToDouble(key);
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    int valueOffset = slot * _numValueColumns;
+    for (int i = 0; i < _numValueColumns; i++) {
+      long value = segment._values[valueOffset + i];
+      values[_numKeyColumns + i] = _valueTypes[i] == ValueType.COUNT ? (Object) value : Double.longBitsToDouble(value);
+    }
+  }
+
+  /**
+   * Returns the segment id and slot of the retained groups (sorted if there is order by).
+   * <p>NOTE: Should be called when no other thread is modifying the table.
+   */
+  private int[][] getRetainedGroups(Segment[] segments, int trimToSize) {
+    int numGroups = getNumGroups(segments);
+    int[] segmentIds = new int[numGroups];
+    int[] slots = new int[numGroups];
+    collectGroups(segments, segmentIds, slots);
+    if (!_hasOrderBy) {
+      return new int[][]{segmentIds, slots};
+    }
+    int[] rowIds = _tableResizer
+        .getSortedRowIds(numGroups, (rowId, values) -> readRow(segments[segmentIds[rowId]], slots[rowId], values),
+            trimToSize);
+    int numRetainedGroups = rowIds.length;
+    int[] retainedSegmentIds = new int[numRetainedGroups];
+    int[] retainedSlots = new int[numRetainedGroups];
+    for (int i = 0; i < numRetainedGroups; i++) {
+      retainedSegmentIds[i] = segmentIds[rowIds[i]];
+      retainedSlots[i] = slots[rowIds[i]];
+    }
+    return new int[][]{retainedSegmentIds, retainedSlots};
+  }
+
+  private void resize(int trimToSize) {
+    long startTime = System.currentTimeMillis();
+    Segment[] segments = _segments;
+    if (getNumGroups(segments) > trimToSize) {
+      int[][] retainedGroups = getRetainedGroups(segments, trimToSize);
+      int[] segmentIds = retainedGroups[0];
+      int[] slots = retainedGroups[1];
+      int numRetainedGroups = segmentIds.length;
+      Segment[] newSegments = createSegments(numRetainedGroups);
+      long[] keys = new long[_numKeyColumns];
+      for (int i = 0; i < numRetainedGroups; i++) {
+        Segment segment = segments[segmentIds[i]];
+        int slot = slots[i];
+        System.arraycopy(segment._keys, slot * _numKeyColumns, keys, 0, _numKeyColumns);
+        long hash = hash(keys);
+        newSegments[(int) (hash >>> (Long.SIZE - NUM_SEGMENTS_BITS))].insert(keys, hash, segment._values,
+            slot * _numValueColumns);
+      }
+      _segments = newSegments;
+      _numGroups.set(numRetainedGroups);
+    }
+    long endTime = System.currentTimeMillis();
+    long timeElapsed = endTime - startTime;
+    _numResizes.incrementAndGet();
+    _resizeTimeMs.addAndGet(timeElapsed);
+  }
+
+  @Override
+  public int size() {
+    return _records == null ? _numGroups.get() : _records.size();
+  }
+
+  @Override
+  public Iterator<Record> iterator() {
+    return _records.iterator();
+  }
+
+  @Override
+  public void finish(boolean sort) {
+    long startTime = System.currentTimeMillis();
+    Segment[] segments = _segments;
+    int[][] retainedGroups = getRetainedGroups(segments, _trimSize);
+    int[] segmentIds = retainedGroups[0];
+    int[] slots = retainedGroups[1];
+    int numRetainedGroups = segmentIds.length;
+    List<Record> records = new ArrayList<>(numRetainedGroups);
+    for (int i = 0; i < numRetainedGroups; i++) {
+      Object[] values = new Object[_numColumns];
+      readRow(segments[segmentIds[i]], slots[i], values);
+      records.add(new Record(values));
+    }
+    _records = records;
+    if (_hasOrderBy) {
+      if (sort) {
+        _sortedRecords = records;
+      }
+      long timeElapsed = System.currentTimeMillis() - startTime;
+      _numResizes.incrementAndGet();
+      _resizeTimeMs.addAndGet(timeElapsed);
+      int numResizes = _numResizes.get();
+      long resizeTime = _resizeTimeMs.get();
+      LOGGER.debug(
+          "Num resizes : {}, Total time spent in resizing : {}, Avg resize time : {}, trimSize: {}, trimThreshold: {}",
+          numResizes, resizeTime, resizeTime / numResizes, _trimSize, _trimThreshold);
+    }
+  }
+
+  @Override
+  public int getNumResizes() {
+    return _numResizes.get();
+  }
+
+  @Override
+  public long getResizeTimeMs() {
+    return _resizeTimeMs.get();
+  }
+
+  /**
+   * Type of the fixed-width aggregation intermediate result, which decides how the values are stored and merged.
+   */
+  private enum ValueType {
+    // Stored as long
+    COUNT,
+    // Stored as double bits
+    SUM, MIN, MAX;
+
+    static ValueType of(AggregationFunction aggregationFunction) {
+      switch (aggregationFunction.getType()) {
+        case COUNT:
+        case COUNTMV:
+          return COUNT;
+        case SUM:
+        case SUMMV:
+          return SUM;
+        case MIN:
+        case MINMV:
+          return MIN;
+        case MAX:
+        case MAXMV:
+          return MAX;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * Open addressing (linear probing) hash table for a subset of the groups. The keys and values of the group in slot
+   * {@code i} are stored in {@code _keys[i * numKeyColumns]} and {@code _values[i * numValueColumns]} onwards.
+   * <p>NOTE: Not thread safe, the caller should synchronize on the segment.
+   */
+  private final class Segment {
+    boolean[] _occupied;
+    long[] _keys;
+    long[] _values;
+    int _mask;
+    int _size;
+    int _growThreshold;
+
+    Segment(int capacity) {
+      init(capacity);
+    }
+
+    private void init(int capacity) {
+      _occupied = new boolean[capacity];
+      _keys = new long[capacity * _numKeyColumns];
+      _values = new long[capacity * _numValueColumns];
+      _mask = capacity - 1;
+      _growThreshold = capacity * 3 / 4;
+    }
+
+    /**
+     * Returns the slot of the given keys, or the negative value {@code -(emptySlot + 1)} if the keys do not exist.
+     */
+    int find(long[] keys, long hash) {
+      int slot = (int) hash & _mask;
+      while (_occupied[slot]) {
+        if (keysEqual(slot, keys)) {
+          return slot;
+        }
+        slot = (slot + 1) & _mask;
+      }
+      return -(slot + 1);
+    }
+
+    private boolean keysEqual(int slot, long[] keys) {
+      int keyOffset = slot * _numKeyColumns;
+      for (int i = 0; i < _numKeyColumns; i++) {
+        if (_keys[keyOffset + i] != keys[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Merges the values into the existing group, or inserts a new group if the keys do not exist. Returns
+     * {@code true} if a new group is inserted.
+     */
+    boolean upsert(long[] keys, long hash, double[] values) {
+      int slot = find(keys, hash);
+      if (slot >= 0) {
+        merge(slot, values);
+        return false;
+      }
+      slot = -(slot + 1);
+      _occupied[slot] = true;
+      System.arraycopy(keys, 0, _keys, slot * _numKeyColumns, _numKeyColumns);
+      int valueOffset = slot * _numValueColumns;
+      for (int i = 0; i < _numValueColumns; i++) {
+        _values[valueOffset + i] =
+            _valueTypes[i] == ValueType.COUNT ? (long) values[i] : Double.doubleToRawLongBits(values[i]);
+      }
+      if (++_size > _growThreshold) {
+        grow();
+      }
+      return true;
+    }
+
+    /**
+     * Merges the values into the existing group, ignores the values if the keys do not exist.
+     */
+    void update(long[] keys, long hash, double[] values) {
+      int slot = find(keys, hash);
+      if (slot >= 0) {
+        merge(slot, values);
+      }
+    }
+
+    /**
+     * Inserts a new group with the values stored in the given array from the given offset.
+     */
+    void insert(long[] keys, long hash, long[] values, int valueOffset) {
+      int slot = -(find(keys, hash) + 1);
+      _occupied[slot] = true;
+      System.arraycopy(keys, 0, _keys, slot * _numKeyColumns, _numKeyColumns);
+      System.arraycopy(values, valueOffset, _values, slot * _numValueColumns, _numValueColumns);
+      if (++_size > _growThreshold) {
+        grow();
+      }
+    }
+
+    private void merge(int slot, double[] values) {
+      int valueOffset = slot * _numValueColumns;
+      for (int i = 0; i < _numValueColumns; i++) {
+        int index = valueOffset + i;
+        switch (_valueTypes[i]) {
+          case COUNT:
+            _values[index] += (long) values[i];
+            break;
+          case SUM:
+            _values[index] = Double.doubleToRawLongBits(Double.longBitsToDouble(_values[index]) + values[i]);
+            break;
+          case MIN:
+            if (!(Double.longBitsToDouble(_values[index]) < values[i])) {
+              _values[index] = Double.doubleToRawLongBits(values[i]);
+            }
+            break;
+          case MAX:
+            if (!(Double.longBitsToDouble(_values[index]) > values[i])) {
+              _values[index] = Double.doubleToRawLongBits(values[i]);
+            }
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+    }
+
+    private void grow() {
+      boolean[] occupied = _occupied;
+      long[] keys = _keys;
+      long[] values = _values;
+      int capacity = occupied.length;
+      init(capacity << 1);
+      _size = 0;
+      long[] slotKeys = new long[_numKeyColumns];
+      for (int slot = 0; slot < capacity; slot++) {
+        if (occupied[slot]) {
+          System.arraycopy(keys, slot * _numKeyColumns, slotKeys, 0, _numKeyColumns);
+          insert(slotKeys, hash(slotKeys), values, slot * _numValueColumns);
+        }
+      }
+    }
+  }
+}
@@ -126,11 +126,15 @@ public class TableResizer {
    * For aggregation values in the order by, the final result is extracted if the intermediate result is non-comparable
    */
   private IntermediateRecord getIntermediateRecord(Key key, Record record) {
-    Comparable[] intermediateRecordValues = new Comparable[_numOrderByExpressions];
+    return new IntermediateRecord(key, -1, getOrderByValues(record.getValues()));
+  }
+
+  private Comparable[] getOrderByValues(Object[] values) {
+    Comparable[] orderByValues = new Comparable[_numOrderByExpressions];
     for (int i = 0; i < _numOrderByExpressions; i++) {
-      intermediateRecordValues[i] = _orderByValueExtractors[i].extract(record);
+      orderByValues[i] = _orderByValueExtractors[i].extract(values);
     }
-    return new IntermediateRecord(key, intermediateRecordValues);
+    return orderByValues;
   }
 
   /**
@@ -215,6 +219,52 @@ public class TableResizer {
     return Arrays.asList(sortedArray);
   }
 
+  /**
+   * Returns the ids of the top rows (at most trimToSize) based on the order by information, sorted in the query's sort
+   * sequence. The row values are read through the given {@link RowReader} into a reusable array, so that no Record
+   * needs to be materialized.
+   * <p>This method is used by the tables that do not store the rows as Records, e.g. {@link
+   * PrimitiveConcurrentIndexedTable}.
+   */
+  public int[] getSortedRowIds(int numRows, RowReader rowReader, int trimToSize) {
+    int numRowsToRetain = Math.min(numRows, trimToSize);
+    if (numRowsToRetain <= 0) {
+      return new int[0];
+    }
+    Comparator<IntermediateRecord> comparator = _intermediateRecordComparator.reversed();
+    PriorityQueue<IntermediateRecord> priorityQueue = new PriorityQueue<>(numRowsToRetain, comparator);
+    Object[] values = new Object[_dataSchema.size()];
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      rowReader.readRow(rowId, values);
+      IntermediateRecord intermediateRecord = new IntermediateRecord(null, rowId, getOrderByValues(values));
+      if (priorityQueue.size() < numRowsToRetain) {
+        priorityQueue.offer(intermediateRecord);
+      } else {
+        IntermediateRecord peek = priorityQueue.peek();
+        if (comparator.compare(peek, intermediateRecord) < 0) {
+          priorityQueue.poll();
+          priorityQueue.offer(intermediateRecord);
+        }
+      }
+    }
+    int[] sortedRowIds = new int[numRowsToRetain];
+    while (!priorityQueue.isEmpty()) {
+      sortedRowIds[--numRowsToRetain] = priorityQueue.poll()._rowId;
+    }
+    return sortedRowIds;
+  }
+
+  /**
+   * Reader for the values of a row identified by the row id.
+   */
+  public interface RowReader {
+
+    /**
+     * Reads the values of the given row into the given array (group-by expressions followed by aggregation functions).
+     */
+    void readRow(int rowId, Object[] values);
+  }
+
   /**
    * Helper class to store a subset of Record fields
    * IntermediateRecord is derived from a Record
@@ -227,16 +277,19 @@ public class TableResizer {
    */
   private static class IntermediateRecord {
     final Key _key;
+    // Only set when the IntermediateRecord is derived from a row instead of a Record
+    final int _rowId;
     final Comparable[] _values;
 
-    IntermediateRecord(Key key, Comparable[] values) {
+    IntermediateRecord(Key key, int rowId, Comparable[] values) {
       _key = key;
+      _rowId = rowId;
       _values = values;
     }
   }
 
   /**
-   * Extractor for the order-by value from a Record.
+   * Extractor for the order-by value from the values of a Record.
    */
   private interface OrderByValueExtractor {
 
@@ -246,9 +299,9 @@ public class TableResizer {
     ColumnDataType getValueType();
 
     /**
-     * Extracts the value from the given Record.
+     * Extracts the value from the given Record values.
      */
-    Comparable extract(Record record);
+    Comparable extract(Object[] values);
   }
 
   /**
@@ -267,7 +320,7 @@ public class TableResizer {
     }
 
     @Override
-    public String extract(Record record) {
+    public String extract(Object[] values) {
       return _literal;
     }
   }
@@ -288,8 +341,8 @@ public class TableResizer {
     }
 
     @Override
-    public Comparable extract(Record record) {
-      return (Comparable) record.getValues()[_index];
+    public Comparable extract(Object[] values) {
+      return (Comparable) values[_index];
     }
   }
 
@@ -311,8 +364,8 @@ public class TableResizer {
     }
 
     @Override
-    public Comparable extract(Record record) {
-      return _aggregationFunction.extractFinalResult(record.getValues()[_index]);
+    public Comparable extract(Object[] values) {
+      return _aggregationFunction.extractFinalResult(values[_index]);
     }
   }
 
@@ -346,10 +399,10 @@ public class TableResizer {
     }
 
     @Override
-    public Comparable extract(Record record) {
+    public Comparable extract(Object[] values) {
       int numArguments = _arguments.length;
       for (int i = 0; i < numArguments; i++) {
-        _arguments[i] = _argumentExtractors[i].extract(record);
+        _arguments[i] = _argumentExtractors[i].extract(values);
       }
       Object result = _postAggregationFunction.invoke(_arguments);
       if (_postAggregationFunction.getResultType() == ColumnDataType.BYTES) {
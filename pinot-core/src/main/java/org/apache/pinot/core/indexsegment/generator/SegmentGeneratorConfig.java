@@ -102,6 +102,10 @@ public class SegmentGeneratorConfig implements Serializable {
   private boolean _onHeap = false;
   private boolean _skipTimeValueCheck = false;
   private boolean _nullHandlingEnabled = false;
+  // Number of threads to index the columns in parallel (rows are indexed one by one on the calling thread if set to 1)
+  private int _numIndexingThreads = 1;
+  // Whether to collect the column stats in parallel with the indexing threads (no effect with 1 indexing thread)
+  private boolean _parallelStatsCollection = false;
 
   // constructed from FieldConfig
   private Map<String, Map<String, String>> _columnProperties = new HashMap<>();
@@ -650,4 +654,21 @@ public class SegmentGeneratorConfig implements Serializable {
   public void setNullHandlingEnabled(boolean nullHandlingEnabled) {
     _nullHandlingEnabled = nullHandlingEnabled;
   }
+
+  public int getNumIndexingThreads() {
+    return _numIndexingThreads;
+  }
+
+  public void setNumIndexingThreads(int numIndexingThreads) {
+    Preconditions.checkArgument(numIndexingThreads > 0, "Number of indexing threads must be positive");
+    _numIndexingThreads = numIndexingThreads;
+  }
+
+  public boolean isParallelStatsCollection() {
+    return _parallelStatsCollection;
+  }
+
+  public void setParallelStatsCollection(boolean parallelStatsCollection) {
+    _parallelStatsCollection = parallelStatsCollection;
+  }
 }
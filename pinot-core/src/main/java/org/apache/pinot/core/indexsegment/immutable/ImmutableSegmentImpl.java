@@ -19,13 +19,14 @@
 package org.apache.pinot.core.indexsegment.immutable;
 
 import com.google.common.base.Preconditions;
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.pinot.core.common.DataSource;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 import org.apache.pinot.core.segment.index.column.ColumnIndexContainer;
 import org.apache.pinot.core.segment.index.datasource.ImmutableDataSource;
 import org.apache.pinot.core.segment.index.metadata.ColumnMetadata;
@@ -39,6 +40,7 @@ import org.apache.pinot.core.segment.store.SegmentDirectory;
 import org.apache.pinot.core.startree.v2.StarTreeV2;
 import org.apache.pinot.core.startree.v2.store.StarTreeIndexContainer;
 import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager;
+import org.apache.pinot.core.upsert.ValidDocIdsSnapshotUtils;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,7 +56,7 @@ public class ImmutableSegmentImpl implements ImmutableSegment {
 
   // For upsert
   private PartitionUpsertMetadataManager _partitionUpsertMetadataManager;
-  private ThreadSafeMutableRoaringBitmap _validDocIds;
+  private ConcurrentValidDocIds _validDocIds;
   private ValidDocIndexReader _validDocIndex;
 
   public ImmutableSegmentImpl(SegmentDirectory segmentDirectory, SegmentMetadataImpl segmentMetadata,
@@ -70,12 +72,33 @@ public class ImmutableSegmentImpl implements ImmutableSegment {
    * Enables upsert for this segment. It should be called before the segment getting queried.
    */
   public void enableUpsert(PartitionUpsertMetadataManager partitionUpsertMetadataManager,
-      ThreadSafeMutableRoaringBitmap validDocIds) {
+      ConcurrentValidDocIds validDocIds) {
     _partitionUpsertMetadataManager = partitionUpsertMetadataManager;
     _validDocIds = validDocIds;
     _validDocIndex = new ValidDocIndexReaderImpl(validDocIds);
   }
 
+  /**
+   * Persists the snapshot of the valid doc ids into the segment index directory if upsert is enabled for this segment,
+   * so that only the valid docs need to be replayed when the segment is loaded again.
+   * <p>NOTE: The snapshot also includes the docs invalidated by the consuming segments, which are re-consumed after the
+   *       server restarts (see {@link PartitionUpsertMetadataManager#getValidDocIdsSnapshot(ConcurrentValidDocIds)}).
+   */
+  public void persistValidDocIdsSnapshot() {
+    if (_validDocIds == null) {
+      return;
+    }
+    File indexDir = _segmentMetadata.getIndexDir();
+    try {
+      ValidDocIdsSnapshotUtils
+          .persistSnapshot(indexDir, _segmentMetadata.getCrc(),
+              _partitionUpsertMetadataManager.getValidDocIdsSnapshot(_validDocIds));
+    } catch (Exception e) {
+      LOGGER.warn("Failed to persist valid doc ids snapshot for segment: {}. Continuing with error.",
+          getSegmentName(), e);
+    }
+  }
+
   @Override
   public Dictionary getDictionary(String column) {
     ColumnIndexContainer container = _indexContainerMap.get(column);
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.indexsegment.mutable;
 
 import java.io.IOException;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.spi.data.readers.GenericRow;
@@ -37,6 +38,29 @@ public interface MutableSegment extends IndexSegment {
   boolean index(GenericRow row, @Nullable RowMetadata rowMetadata)
       throws IOException;
 
+  /**
+   * Indexes a batch of records into the segment with optionally provided metadata. The result should be the same as
+   * indexing the records one by one, but the implementation can index the batch more efficiently.
+   * <p>NOTE: Implementations overriding this method should validate all the records before updating any index, so that
+   *          if the batch fails, no record of the batch is indexed and the caller can safely retry the records one by
+   *          one. If the batch fails after some records are indexed (e.g. the default implementation, or an unexpected
+   *          failure), the number of documents indexed changes, and the records should not be retried.
+   *
+   * @param rows Records represented as {@link GenericRow}s
+   * @param rowMetadataList The metadata associated with the records (one per record, can contain {@code null}), or
+   *                        {@code null} if not available
+   * @return Whether the segment can take more records after indexing the batch
+   */
+  default boolean index(List<GenericRow> rows, @Nullable List<RowMetadata> rowMetadataList)
+      throws IOException {
+    boolean canTakeMore = true;
+    int numRows = rows.size();
+    for (int i = 0; i < numRows; i++) {
+      canTakeMore = index(rows.get(i), rowMetadataList != null ? rowMetadataList.get(i) : null);
+    }
+    return canTakeMore;
+  }
+
   /**
    * Returns the number of records already indexed into the segment.
    *
@@ -39,9 +39,9 @@ import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.core.common.DataSource;
 import org.apache.pinot.core.data.partition.PartitionFunction;
 import org.apache.pinot.core.io.readerwriter.PinotDataBufferMemoryManager;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 import org.apache.pinot.core.realtime.impl.RealtimeSegmentConfig;
 import org.apache.pinot.core.realtime.impl.RealtimeSegmentStatsHistory;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
 import org.apache.pinot.core.realtime.impl.dictionary.BaseOffHeapMutableDictionary;
 import org.apache.pinot.core.realtime.impl.dictionary.MutableDictionaryFactory;
 import org.apache.pinot.core.realtime.impl.forward.FixedByteMVMutableForwardIndex;
@@ -154,7 +154,7 @@ public class MutableSegmentImpl implements MutableSegment {
   // FIXME: There is a corner case for this approach which could cause inconsistency. When there is segment load during
   //        consumption with newer timestamp (late event in consuming segment), the record location will be updated, but
   //        the valid doc ids won't be updated.
-  private final ThreadSafeMutableRoaringBitmap _validDocIds;
+  private final ConcurrentValidDocIds _validDocIds;
   private final ValidDocIndexReader _validDocIndex;
 
   public MutableSegmentImpl(RealtimeSegmentConfig config, @Nullable ServerMetrics serverMetrics) {
@@ -318,7 +318,8 @@ public class MutableSegmentImpl implements MutableSegment {
       if (textIndexColumns.contains(column)) {
         textIndex = new RealtimeLuceneTextIndexReader(column, new File(config.getConsumerDir()), _segmentName);
         if (_realtimeLuceneReaders == null) {
-          _realtimeLuceneReaders = new RealtimeLuceneReaders(_segmentName);
+          _realtimeLuceneReaders =
+              new RealtimeLuceneReaders(_segmentName, _serverMetrics, _tableNameWithType, config.getPartitionId());
         }
         _realtimeLuceneReaders.addReader(textIndex);
       } else {
@@ -352,7 +353,7 @@ public class MutableSegmentImpl implements MutableSegment {
     _upsertMode = config.getUpsertMode();
     if (isUpsertEnabled()) {
       _partitionUpsertMetadataManager = config.getPartitionUpsertMetadataManager();
-      _validDocIds = new ThreadSafeMutableRoaringBitmap();
+      _validDocIds = new ConcurrentValidDocIds();
       _validDocIndex = new ValidDocIndexReaderImpl(_validDocIds);
     } else {
       _partitionUpsertMetadataManager = null;
@@ -449,6 +450,11 @@ public class MutableSegmentImpl implements MutableSegment {
   @Override
   public boolean index(GenericRow row, @Nullable RowMetadata rowMetadata)
       throws IOException {
+    // Validate the record before updating any index so that an invalid record does not leave partial entries behind
+    validateRow(row);
+    // NOTE: Upsert cannot be used with metrics aggregation, so the record always gets a new doc id
+    RecordInfo recordInfo = isUpsertEnabled() ? getRecordInfo(row, _numDocsIndexed) : null;
+
     // Update dictionary first
     updateDictionary(row);
 
@@ -463,8 +469,8 @@ public class MutableSegmentImpl implements MutableSegment {
       // Update number of documents indexed at last to make the latest row queryable
       canTakeMore = _numDocsIndexed++ < _capacity;
 
-      if (isUpsertEnabled()) {
-        handleUpsert(row, docId);
+      if (recordInfo != null) {
+        _partitionUpsertMetadataManager.updateRecord(_segmentName, recordInfo, _validDocIds);
       }
     } else {
       Preconditions.checkArgument(!isUpsertEnabled(), "metrics aggregation cannot be used with upsert");
@@ -482,17 +488,160 @@ public class MutableSegmentImpl implements MutableSegment {
     return canTakeMore;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>The dictionaries and indexes are updated column by column for the whole batch, and the number of documents
+   * indexed is only updated once after all the columns are updated. When metrics aggregation is enabled, the records
+   * are indexed one by one because each record needs to look up the existing doc id.
+   * <p>All the records are validated (and the upsert primary keys and timestamps are extracted) before updating any
+   * index, so that an invalid record fails the whole batch without leaving partial index entries (e.g. inverted index
+   * postings, text index documents) behind for the doc ids that are going to be reused by the following records.
+   */
+  // NOTE: Okay for single-writer
+  @SuppressWarnings("NonAtomicOperationOnVolatileField")
+  @Override
+  public boolean index(List<GenericRow> rows, @Nullable List<RowMetadata> rowMetadataList)
+      throws IOException {
+    int numRows = rows.size();
+    for (int i = 0; i < numRows; i++) {
+      validateRow(rows.get(i));
+    }
+    if (_aggregateMetrics) {
+      return MutableSegment.super.index(rows, rowMetadataList);
+    }
+    if (numRows == 0) {
+      return _numDocsIndexed <= _capacity;
+    }
+
+    int startDocId = _numDocsIndexed;
+    RecordInfo[] recordInfos = null;
+    if (isUpsertEnabled()) {
+      recordInfos = new RecordInfo[numRows];
+      for (int i = 0; i < numRows; i++) {
+        recordInfos[i] = getRecordInfo(rows.get(i), startDocId + i);
+      }
+    }
+    Object[] values = new Object[numRows];
+    for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+      String column = entry.getKey();
+      IndexContainer indexContainer = entry.getValue();
+      for (int i = 0; i < numRows; i++) {
+        values[i] = rows.get(i).getValue(column);
+      }
+
+      // Update dictionary first
+      MutableDictionary dictionary = indexContainer._dictionary;
+      int[] dictIds = null;
+      int[][] dictIdsMV = null;
+      if (dictionary != null) {
+        if (indexContainer._fieldSpec.isSingleValueField()) {
+          dictIds = dictionary.index(values);
+        } else {
+          dictIdsMV = new int[numRows][];
+          for (int i = 0; i < numRows; i++) {
+            dictIdsMV[i] = dictionary.index((Object[]) values[i]);
+          }
+        }
+
+        // Update min/max value from dictionary
+        indexContainer._minValue = dictionary.getMinVal();
+        indexContainer._maxValue = dictionary.getMaxVal();
+      }
+
+      // Update indexes
+      for (int i = 0; i < numRows; i++) {
+        if (dictIds != null) {
+          indexContainer._dictId = dictIds[i];
+        } else if (dictIdsMV != null) {
+          indexContainer._dictIds = dictIdsMV[i];
+        }
+        addNewValue(column, indexContainer, values[i], startDocId + i,
+            _nullHandlingEnabled && rows.get(i).isNullValue(column));
+      }
+    }
+
+    // Update number of documents indexed at last to make the latest rows queryable
+    _numDocsIndexed = startDocId + numRows;
+
+    if (recordInfos != null) {
+      for (RecordInfo recordInfo : recordInfos) {
+        _partitionUpsertMetadataManager.updateRecord(_segmentName, recordInfo, _validDocIds);
+      }
+    }
+
+    // Update last indexed time and latest ingestion time
+    _lastIndexedTimeMs = System.currentTimeMillis();
+    if (rowMetadataList != null) {
+      for (RowMetadata rowMetadata : rowMetadataList) {
+        if (rowMetadata != null) {
+          _latestIngestionTimeMs = Math.max(_latestIngestionTimeMs, rowMetadata.getIngestionTimeMs());
+        }
+      }
+    }
+
+    // Keep the same semantic as indexing the records one by one
+    return startDocId + numRows - 1 < _capacity;
+  }
+
   private boolean isUpsertEnabled() {
     return _upsertMode != UpsertConfig.Mode.NONE;
   }
 
-  private void handleUpsert(GenericRow row, int docId) {
+  /**
+   * Extracts the upsert primary key and timestamp of the record. Should be called before updating any index so that a
+   * record with invalid time value fails without being indexed.
+   */
+  private RecordInfo getRecordInfo(GenericRow row, int docId) {
     PrimaryKey primaryKey = row.getPrimaryKey(_schema.getPrimaryKeyColumns());
     Object timeValue = row.getValue(_timeColumnName);
     Preconditions.checkArgument(timeValue instanceof Comparable, "time column shall be comparable");
-    long timestamp = IngestionUtils.extractTimeValue((Comparable) timeValue);
-    _partitionUpsertMetadataManager
-        .updateRecord(_segmentName, new RecordInfo(primaryKey, docId, timestamp), _validDocIds);
+    Long timestamp = IngestionUtils.extractTimeValue((Comparable) timeValue);
+    Preconditions.checkArgument(timestamp != null, "Failed to extract time value: %s from time column: %s", timeValue,
+        _timeColumnName);
+    return new RecordInfo(primaryKey, docId, timestamp);
+  }
+
+  /**
+   * Validates that the values of the record match the stored types of the columns, so that indexing the record does not
+   * fail half way through the columns.
+   */
+  private void validateRow(GenericRow row) {
+    for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+      String column = entry.getKey();
+      FieldSpec fieldSpec = entry.getValue()._fieldSpec;
+      Object value = row.getValue(column);
+      DataType storedType = fieldSpec.getDataType().getStoredType();
+      if (fieldSpec.isSingleValueField()) {
+        Preconditions.checkArgument(isValidValue(storedType, value), "Invalid value: %s for single-value column: %s",
+            value, column);
+      } else {
+        Preconditions.checkArgument(value instanceof Object[], "Invalid value: %s for multi-value column: %s", value,
+            column);
+        for (Object element : (Object[]) value) {
+          Preconditions.checkArgument(isValidValue(storedType, element), "Invalid value: %s for multi-value column: %s",
+              element, column);
+        }
+      }
+    }
+  }
+
+  private static boolean isValidValue(DataType storedType, @Nullable Object value) {
+    switch (storedType) {
+      case INT:
+        return value instanceof Integer;
+      case LONG:
+        return value instanceof Long;
+      case FLOAT:
+        return value instanceof Float;
+      case DOUBLE:
+        return value instanceof Double;
+      case STRING:
+        return value instanceof String;
+      case BYTES:
+        return value instanceof byte[];
+      default:
+        return false;
+    }
   }
 
   private void updateDictionary(GenericRow row) {
@@ -520,127 +669,135 @@ public class MutableSegmentImpl implements MutableSegment {
     int docId = _numDocsIndexed;
     for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
       String column = entry.getKey();
-      IndexContainer indexContainer = entry.getValue();
-      Object value = row.getValue(column);
-      FieldSpec fieldSpec = indexContainer._fieldSpec;
-      if (fieldSpec.isSingleValueField()) {
-        // Single-value column
-
-        // Check partitions
-        if (column.equals(_partitionColumn)) {
-          int partition = _partitionFunction.getPartition(value);
-          if (indexContainer._partitions.add(partition)) {
-            _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, column, value);
-            if (_serverMetrics != null) {
-              _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
-            }
+      addNewValue(column, entry.getValue(), row.getValue(column), docId,
+          _nullHandlingEnabled && row.isNullValue(column));
+    }
+  }
+
+  /**
+   * Adds the value of a new record into the indexes of the given column. The dictionary should already be updated, and
+   * the dictionary id(s) of the value should be stored in the index container.
+   */
+  private void addNewValue(String column, IndexContainer indexContainer, Object value, int docId, boolean isNull)
+      throws IOException {
+    FieldSpec fieldSpec = indexContainer._fieldSpec;
+    if (fieldSpec.isSingleValueField()) {
+      // Single-value column
+
+      // Check partitions
+      if (column.equals(_partitionColumn)) {
+        int partition = _partitionFunction.getPartition(value);
+        if (indexContainer._partitions.add(partition)) {
+          _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, column, value);
+          if (_serverMetrics != null) {
+            _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
           }
         }
+      }
 
-        // Update numValues info
-        indexContainer._numValuesInfo.updateSVEntry();
+      // Update numValues info
+      indexContainer._numValuesInfo.updateSVEntry();
 
-        // Update indexes
-        MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
-        int dictId = indexContainer._dictId;
-        if (dictId >= 0) {
-          // Dictionary-encoded single-value column
+      // Update indexes
+      MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
+      int dictId = indexContainer._dictId;
+      if (dictId >= 0) {
+        // Dictionary-encoded single-value column
 
-          // Update forward index
-          forwardIndex.setDictId(docId, dictId);
+        // Update forward index
+        forwardIndex.setDictId(docId, dictId);
 
-          // Update inverted index
-          RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
-          if (invertedIndex != null) {
-            invertedIndex.add(dictId, docId);
-          }
-        } else {
-          // Single-value column with raw index
-
-          // Update forward index
-          DataType dataType = fieldSpec.getDataType();
-          switch (dataType) {
-            case INT:
-              forwardIndex.setInt(docId, (Integer) value);
-              break;
-            case LONG:
-              forwardIndex.setLong(docId, (Long) value);
-              break;
-            case FLOAT:
-              forwardIndex.setFloat(docId, (Float) value);
-              break;
-            case DOUBLE:
-              forwardIndex.setDouble(docId, (Double) value);
-              break;
-            case STRING:
-              forwardIndex.setString(docId, (String) value);
-              break;
-            case BYTES:
-              forwardIndex.setBytes(docId, (byte[]) value);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Unsupported data type: " + dataType + " for no-dictionary column: " + column);
-          }
+        // Update inverted index
+        RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
+        if (invertedIndex != null) {
+          invertedIndex.add(dictId, docId);
+        }
+      } else {
+        // Single-value column with raw index
 
-          // Update min/max value from raw value
-          // NOTE: Skip updating min/max value for aggregated metrics because the value will change over time.
-          if (!_aggregateMetrics || fieldSpec.getFieldType() != FieldSpec.FieldType.METRIC) {
-            Comparable comparable;
-            if (dataType == DataType.BYTES) {
-              comparable = new ByteArray((byte[]) value);
-            } else {
-              comparable = (Comparable) value;
-            }
-            if (indexContainer._minValue == null) {
+        // Update forward index
+        DataType dataType = fieldSpec.getDataType();
+        switch (dataType) {
+          case INT:
+            forwardIndex.setInt(docId, (Integer) value);
+            break;
+          case LONG:
+            forwardIndex.setLong(docId, (Long) value);
+            break;
+          case FLOAT:
+            forwardIndex.setFloat(docId, (Float) value);
+            break;
+          case DOUBLE:
+            forwardIndex.setDouble(docId, (Double) value);
+            break;
+          case STRING:
+            forwardIndex.setString(docId, (String) value);
+            break;
+          case BYTES:
+            forwardIndex.setBytes(docId, (byte[]) value);
+            break;
+          default:
+            throw new UnsupportedOperationException(
+                "Unsupported data type: " + dataType + " for no-dictionary column: " + column);
+        }
+
+        // Update min/max value from raw value
+        // NOTE: Skip updating min/max value for aggregated metrics because the value will change over time.
+        if (!_aggregateMetrics || fieldSpec.getFieldType() != FieldSpec.FieldType.METRIC) {
+          Comparable comparable;
+          if (dataType == DataType.BYTES) {
+            comparable = new ByteArray((byte[]) value);
+          } else {
+            comparable = (Comparable) value;
+          }
+          if (indexContainer._minValue == null) {
+            indexContainer._minValue = comparable;
+            indexContainer._maxValue = comparable;
+          } else {
+            if (comparable.compareTo(indexContainer._minValue) < 0) {
               indexContainer._minValue = comparable;
+            }
+            if (comparable.compareTo(indexContainer._maxValue) > 0) {
               indexContainer._maxValue = comparable;
-            } else {
-              if (comparable.compareTo(indexContainer._minValue) < 0) {
-                indexContainer._minValue = comparable;
-              }
-              if (comparable.compareTo(indexContainer._maxValue) > 0) {
-                indexContainer._maxValue = comparable;
-              }
             }
           }
         }
+      }
 
-        // Update text index
-        RealtimeLuceneTextIndexReader textIndex = indexContainer._textIndex;
-        if (textIndex != null) {
-          textIndex.add((String) value);
-        }
+      // Update text index
+      RealtimeLuceneTextIndexReader textIndex = indexContainer._textIndex;
+      if (textIndex != null) {
+        textIndex.add((String) value);
+      }
 
-        // Update json index
-        MutableJsonIndex jsonIndex = indexContainer._jsonIndex;
-        if (jsonIndex != null) {
-          jsonIndex.add((String) value);
-        }
-      } else {
-        // Multi-value column (always dictionary-encoded)
+      // Update json index
+      MutableJsonIndex jsonIndex = indexContainer._jsonIndex;
+      if (jsonIndex != null) {
+        jsonIndex.add((String) value);
+      }
+    } else {
+      // Multi-value column (always dictionary-encoded)
 
-        int[] dictIds = indexContainer._dictIds;
+      int[] dictIds = indexContainer._dictIds;
 
-        // Update numValues info
-        indexContainer._numValuesInfo.updateMVEntry(dictIds.length);
+      // Update numValues info
+      indexContainer._numValuesInfo.updateMVEntry(dictIds.length);
 
-        // Update forward index
-        indexContainer._forwardIndex.setDictIdMV(docId, dictIds);
+      // Update forward index
+      indexContainer._forwardIndex.setDictIdMV(docId, dictIds);
 
-        // Update inverted index
-        RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
-        if (invertedIndex != null) {
-          for (int dictId : dictIds) {
-            invertedIndex.add(dictId, docId);
-          }
+      // Update inverted index
+      RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
+      if (invertedIndex != null) {
+        for (int dictId : dictIds) {
+          invertedIndex.add(dictId, docId);
         }
       }
+    }
 
-      // Update null value vector
-      if (_nullHandlingEnabled && row.isNullValue(column)) {
-        indexContainer._nullValueVector.setNull(docId);
-      }
+    // Update null value vector
+    if (isNull) {
+      indexContainer._nullValueVector.setNull(docId);
     }
   }
 
@@ -1085,9 +1242,13 @@ public class MutableSegmentImpl implements MutableSegment {
     }
 
     DataSource toDataSource() {
-      return new MutableDataSource(_fieldSpec, _numDocsIndexed, _numValuesInfo._numValues,
+      // NOTE: Bound the inverted index with the number of documents indexed so that the documents being indexed are
+      //       not visible to the queries
+      int numDocsIndexed = _numDocsIndexed;
+      return new MutableDataSource(_fieldSpec, numDocsIndexed, _numValuesInfo._numValues,
           _numValuesInfo._maxNumValuesPerMVEntry, _partitionFunction, _partitions, _minValue, _maxValue, _forwardIndex,
-          _dictionary, _invertedIndex, _rangeIndex, _textIndex, _enableFST, _jsonIndex, _bloomFilter, _nullValueVector);
+          _dictionary, _invertedIndex != null ? _invertedIndex.getReader(numDocsIndexed) : null, _rangeIndex,
+          _textIndex, _enableFST, _jsonIndex, _bloomFilter, _nullValueVector);
     }
 
     @Override
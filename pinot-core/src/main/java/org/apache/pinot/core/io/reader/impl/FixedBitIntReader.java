@@ -202,40 +202,39 @@ public abstract class FixedBitIntReader {
     public void read32(int index, int[] out, int outPos) {
       assert index % 32 == 0;
       int offset = index >>> 2;
-      int i0 = _dataBuffer.getInt(offset);
-      int i1 = _dataBuffer.getInt(offset + 4);
-      out[outPos] = i0 >>> 30;
-      out[outPos + 1] = (i0 >>> 28) & 0x3;
-      out[outPos + 2] = (i0 >>> 26) & 0x3;
-      out[outPos + 3] = (i0 >>> 24) & 0x3;
-      out[outPos + 4] = (i0 >>> 22) & 0x3;
-      out[outPos + 5] = (i0 >>> 20) & 0x3;
-      out[outPos + 6] = (i0 >>> 18) & 0x3;
-      out[outPos + 7] = (i0 >>> 16) & 0x3;
-      out[outPos + 8] = (i0 >>> 14) & 0x3;
-      out[outPos + 9] = (i0 >>> 12) & 0x3;
-      out[outPos + 10] = (i0 >>> 10) & 0x3;
-      out[outPos + 11] = (i0 >>> 8) & 0x3;
-      out[outPos + 12] = (i0 >>> 6) & 0x3;
-      out[outPos + 13] = (i0 >>> 4) & 0x3;
-      out[outPos + 14] = (i0 >>> 2) & 0x3;
-      out[outPos + 15] = i0 & 0x3;
-      out[outPos + 16] = i1 >>> 30;
-      out[outPos + 17] = (i1 >>> 28) & 0x3;
-      out[outPos + 18] = (i1 >>> 26) & 0x3;
-      out[outPos + 19] = (i1 >>> 24) & 0x3;
-      out[outPos + 20] = (i1 >>> 22) & 0x3;
-      out[outPos + 21] = (i1 >>> 20) & 0x3;
-      out[outPos + 22] = (i1 >>> 18) & 0x3;
-      out[outPos + 23] = (i1 >>> 16) & 0x3;
-      out[outPos + 24] = (i1 >>> 14) & 0x3;
-      out[outPos + 25] = (i1 >>> 12) & 0x3;
-      out[outPos + 26] = (i1 >>> 10) & 0x3;
-      out[outPos + 27] = (i1 >>> 8) & 0x3;
-      out[outPos + 28] = (i1 >>> 6) & 0x3;
-      out[outPos + 29] = (i1 >>> 4) & 0x3;
-      out[outPos + 30] = (i1 >>> 2) & 0x3;
-      out[outPos + 31] = i1 & 0x3;
+      long l0 = _dataBuffer.getLong(offset);
+      out[outPos] = (int) (l0 >>> 62);
+      out[outPos + 1] = (int) (l0 >>> 60) & 0x3;
+      out[outPos + 2] = (int) (l0 >>> 58) & 0x3;
+      out[outPos + 3] = (int) (l0 >>> 56) & 0x3;
+      out[outPos + 4] = (int) (l0 >>> 54) & 0x3;
+      out[outPos + 5] = (int) (l0 >>> 52) & 0x3;
+      out[outPos + 6] = (int) (l0 >>> 50) & 0x3;
+      out[outPos + 7] = (int) (l0 >>> 48) & 0x3;
+      out[outPos + 8] = (int) (l0 >>> 46) & 0x3;
+      out[outPos + 9] = (int) (l0 >>> 44) & 0x3;
+      out[outPos + 10] = (int) (l0 >>> 42) & 0x3;
+      out[outPos + 11] = (int) (l0 >>> 40) & 0x3;
+      out[outPos + 12] = (int) (l0 >>> 38) & 0x3;
+      out[outPos + 13] = (int) (l0 >>> 36) & 0x3;
+      out[outPos + 14] = (int) (l0 >>> 34) & 0x3;
+      out[outPos + 15] = (int) (l0 >>> 32) & 0x3;
+      out[outPos + 16] = (int) (l0 >>> 30) & 0x3;
+      out[outPos + 17] = (int) (l0 >>> 28) & 0x3;
+      out[outPos + 18] = (int) (l0 >>> 26) & 0x3;
+      out[outPos + 19] = (int) (l0 >>> 24) & 0x3;
+      out[outPos + 20] = (int) (l0 >>> 22) & 0x3;
+      out[outPos + 21] = (int) (l0 >>> 20) & 0x3;
+      out[outPos + 22] = (int) (l0 >>> 18) & 0x3;
+      out[outPos + 23] = (int) (l0 >>> 16) & 0x3;
+      out[outPos + 24] = (int) (l0 >>> 14) & 0x3;
+      out[outPos + 25] = (int) (l0 >>> 12) & 0x3;
+      out[outPos + 26] = (int) (l0 >>> 10) & 0x3;
+      out[outPos + 27] = (int) (l0 >>> 8) & 0x3;
+      out[outPos + 28] = (int) (l0 >>> 6) & 0x3;
+      out[outPos + 29] = (int) (l0 >>> 4) & 0x3;
+      out[outPos + 30] = (int) (l0 >>> 2) & 0x3;
+      out[outPos + 31] = (int) l0 & 0x3;
     }
   }
 
@@ -333,42 +332,40 @@ public abstract class FixedBitIntReader {
     public void read32(int index, int[] out, int outPos) {
       assert index % 32 == 0;
       int offset = index >>> 1;
-      int i0 = _dataBuffer.getInt(offset);
-      int i1 = _dataBuffer.getInt(offset + 4);
-      int i2 = _dataBuffer.getInt(offset + 8);
-      int i3 = _dataBuffer.getInt(offset + 12);
-      out[outPos] = i0 >>> 28;
-      out[outPos + 1] = (i0 >>> 24) & 0xf;
-      out[outPos + 2] = (i0 >>> 20) & 0xf;
-      out[outPos + 3] = (i0 >>> 16) & 0xf;
-      out[outPos + 4] = (i0 >>> 12) & 0xf;
-      out[outPos + 5] = (i0 >>> 8) & 0xf;
-      out[outPos + 6] = (i0 >>> 4) & 0xf;
-      out[outPos + 7] = i0 & 0xf;
-      out[outPos + 8] = i1 >>> 28;
-      out[outPos + 9] = (i1 >>> 24) & 0xf;
-      out[outPos + 10] = (i1 >>> 20) & 0xf;
-      out[outPos + 11] = (i1 >>> 16) & 0xf;
-      out[outPos + 12] = (i1 >>> 12) & 0xf;
-      out[outPos + 13] = (i1 >>> 8) & 0xf;
-      out[outPos + 14] = (i1 >>> 4) & 0xf;
-      out[outPos + 15] = i1 & 0xf;
-      out[outPos + 16] = i2 >>> 28;
-      out[outPos + 17] = (i2 >>> 24) & 0xf;
-      out[outPos + 18] = (i2 >>> 20) & 0xf;
-      out[outPos + 19] = (i2 >>> 16) & 0xf;
-      out[outPos + 20] = (i2 >>> 12) & 0xf;
-      out[outPos + 21] = (i2 >>> 8) & 0xf;
-      out[outPos + 22] = (i2 >>> 4) & 0xf;
-      out[outPos + 23] = i2 & 0xf;
-      out[outPos + 24] = i3 >>> 28;
-      out[outPos + 25] = (i3 >>> 24) & 0xf;
-      out[outPos + 26] = (i3 >>> 20) & 0xf;
-      out[outPos + 27] = (i3 >>> 16) & 0xf;
-      out[outPos + 28] = (i3 >>> 12) & 0xf;
-      out[outPos + 29] = (i3 >>> 8) & 0xf;
-      out[outPos + 30] = (i3 >>> 4) & 0xf;
-      out[outPos + 31] = i3 & 0xf;
+      long l0 = _dataBuffer.getLong(offset);
+      long l1 = _dataBuffer.getLong(offset + 8);
+      out[outPos] = (int) (l0 >>> 60);
+      out[outPos + 1] = (int) (l0 >>> 56) & 0xf;
+      out[outPos + 2] = (int) (l0 >>> 52) & 0xf;
+      out[outPos + 3] = (int) (l0 >>> 48) & 0xf;
+      out[outPos + 4] = (int) (l0 >>> 44) & 0xf;
+      out[outPos + 5] = (int) (l0 >>> 40) & 0xf;
+      out[outPos + 6] = (int) (l0 >>> 36) & 0xf;
+      out[outPos + 7] = (int) (l0 >>> 32) & 0xf;
+      out[outPos + 8] = (int) (l0 >>> 28) & 0xf;
+      out[outPos + 9] = (int) (l0 >>> 24) & 0xf;
+      out[outPos + 10] = (int) (l0 >>> 20) & 0xf;
+      out[outPos + 11] = (int) (l0 >>> 16) & 0xf;
+      out[outPos + 12] = (int) (l0 >>> 12) & 0xf;
+      out[outPos + 13] = (int) (l0 >>> 8) & 0xf;
+      out[outPos + 14] = (int) (l0 >>> 4) & 0xf;
+      out[outPos + 15] = (int) l0 & 0xf;
+      out[outPos + 16] = (int) (l1 >>> 60);
+      out[outPos + 17] = (int) (l1 >>> 56) & 0xf;
+      out[outPos + 18] = (int) (l1 >>> 52) & 0xf;
+      out[outPos + 19] = (int) (l1 >>> 48) & 0xf;
+      out[outPos + 20] = (int) (l1 >>> 44) & 0xf;
+      out[outPos + 21] = (int) (l1 >>> 40) & 0xf;
+      out[outPos + 22] = (int) (l1 >>> 36) & 0xf;
+      out[outPos + 23] = (int) (l1 >>> 32) & 0xf;
+      out[outPos + 24] = (int) (l1 >>> 28) & 0xf;
+      out[outPos + 25] = (int) (l1 >>> 24) & 0xf;
+      out[outPos + 26] = (int) (l1 >>> 20) & 0xf;
+      out[outPos + 27] = (int) (l1 >>> 16) & 0xf;
+      out[outPos + 28] = (int) (l1 >>> 12) & 0xf;
+      out[outPos + 29] = (int) (l1 >>> 8) & 0xf;
+      out[outPos + 30] = (int) (l1 >>> 4) & 0xf;
+      out[outPos + 31] = (int) l1 & 0xf;
     }
   }
 
@@ -610,46 +607,42 @@ public abstract class FixedBitIntReader {
     @Override
     public void read32(int index, int[] out, int outPos) {
       assert index % 32 == 0;
-      int i0 = _dataBuffer.getInt(index);
-      int i1 = _dataBuffer.getInt(index + 4);
-      int i2 = _dataBuffer.getInt(index + 8);
-      int i3 = _dataBuffer.getInt(index + 12);
-      int i4 = _dataBuffer.getInt(index + 16);
-      int i5 = _dataBuffer.getInt(index + 20);
-      int i6 = _dataBuffer.getInt(index + 24);
-      int i7 = _dataBuffer.getInt(index + 28);
-      out[outPos] = i0 >>> 24;
-      out[outPos + 1] = (i0 >>> 16) & 0xff;
-      out[outPos + 2] = (i0 >>> 8) & 0xff;
-      out[outPos + 3] = i0 & 0xff;
-      out[outPos + 4] = i1 >>> 24;
-      out[outPos + 5] = (i1 >>> 16) & 0xff;
-      out[outPos + 6] = (i1 >>> 8) & 0xff;
-      out[outPos + 7] = i1 & 0xff;
-      out[outPos + 8] = i2 >>> 24;
-      out[outPos + 9] = (i2 >>> 16) & 0xff;
-      out[outPos + 10] = (i2 >>> 8) & 0xff;
-      out[outPos + 11] = i2 & 0xff;
-      out[outPos + 12] = i3 >>> 24;
-      out[outPos + 13] = (i3 >>> 16) & 0xff;
-      out[outPos + 14] = (i3 >>> 8) & 0xff;
-      out[outPos + 15] = i3 & 0xff;
-      out[outPos + 16] = i4 >>> 24;
-      out[outPos + 17] = (i4 >>> 16) & 0xff;
-      out[outPos + 18] = (i4 >>> 8) & 0xff;
-      out[outPos + 19] = i4 & 0xff;
-      out[outPos + 20] = i5 >>> 24;
-      out[outPos + 21] = (i5 >>> 16) & 0xff;
-      out[outPos + 22] = (i5 >>> 8) & 0xff;
-      out[outPos + 23] = i5 & 0xff;
-      out[outPos + 24] = i6 >>> 24;
-      out[outPos + 25] = (i6 >>> 16) & 0xff;
-      out[outPos + 26] = (i6 >>> 8) & 0xff;
-      out[outPos + 27] = i6 & 0xff;
-      out[outPos + 28] = i7 >>> 24;
-      out[outPos + 29] = (i7 >>> 16) & 0xff;
-      out[outPos + 30] = (i7 >>> 8) & 0xff;
-      out[outPos + 31] = i7 & 0xff;
+      long l0 = _dataBuffer.getLong(index);
+      long l1 = _dataBuffer.getLong(index + 8);
+      long l2 = _dataBuffer.getLong(index + 16);
+      long l3 = _dataBuffer.getLong(index + 24);
+      out[outPos] = (int) (l0 >>> 56);
+      out[outPos + 1] = (int) (l0 >>> 48) & 0xff;
+      out[outPos + 2] = (int) (l0 >>> 40) & 0xff;
+      out[outPos + 3] = (int) (l0 >>> 32) & 0xff;
+      out[outPos + 4] = (int) (l0 >>> 24) & 0xff;
+      out[outPos + 5] = (int) (l0 >>> 16) & 0xff;
+      out[outPos + 6] = (int) (l0 >>> 8) & 0xff;
+      out[outPos + 7] = (int) l0 & 0xff;
+      out[outPos + 8] = (int) (l1 >>> 56);
+      out[outPos + 9] = (int) (l1 >>> 48) & 0xff;
+      out[outPos + 10] = (int) (l1 >>> 40) & 0xff;
+      out[outPos + 11] = (int) (l1 >>> 32) & 0xff;
+      out[outPos + 12] = (int) (l1 >>> 24) & 0xff;
+      out[outPos + 13] = (int) (l1 >>> 16) & 0xff;
+      out[outPos + 14] = (int) (l1 >>> 8) & 0xff;
+      out[outPos + 15] = (int) l1 & 0xff;
+      out[outPos + 16] = (int) (l2 >>> 56);
+      out[outPos + 17] = (int) (l2 >>> 48) & 0xff;
+      out[outPos + 18] = (int) (l2 >>> 40) & 0xff;
+      out[outPos + 19] = (int) (l2 >>> 32) & 0xff;
+      out[outPos + 20] = (int) (l2 >>> 24) & 0xff;
+      out[outPos + 21] = (int) (l2 >>> 16) & 0xff;
+      out[outPos + 22] = (int) (l2 >>> 8) & 0xff;
+      out[outPos + 23] = (int) l2 & 0xff;
+      out[outPos + 24] = (int) (l3 >>> 56);
+      out[outPos + 25] = (int) (l3 >>> 48) & 0xff;
+      out[outPos + 26] = (int) (l3 >>> 40) & 0xff;
+      out[outPos + 27] = (int) (l3 >>> 32) & 0xff;
+      out[outPos + 28] = (int) (l3 >>> 24) & 0xff;
+      out[outPos + 29] = (int) (l3 >>> 16) & 0xff;
+      out[outPos + 30] = (int) (l3 >>> 8) & 0xff;
+      out[outPos + 31] = (int) l3 & 0xff;
     }
   }
 
@@ -1208,54 +1201,46 @@ public abstract class FixedBitIntReader {
     public void read32(int index, int[] out, int outPos) {
       assert index % 32 == 0;
       long offset = (long) index << 1;
-      int i0 = _dataBuffer.getInt(offset);
-      int i1 = _dataBuffer.getInt(offset + 4);
-      int i2 = _dataBuffer.getInt(offset + 8);
-      int i3 = _dataBuffer.getInt(offset + 12);
-      int i4 = _dataBuffer.getInt(offset + 16);
-      int i5 = _dataBuffer.getInt(offset + 20);
-      int i6 = _dataBuffer.getInt(offset + 24);
-      int i7 = _dataBuffer.getInt(offset + 28);
-      int i8 = _dataBuffer.getInt(offset + 32);
-      int i9 = _dataBuffer.getInt(offset + 36);
-      int i10 = _dataBuffer.getInt(offset + 40);
-      int i11 = _dataBuffer.getInt(offset + 44);
-      int i12 = _dataBuffer.getInt(offset + 48);
-      int i13 = _dataBuffer.getInt(offset + 52);
-      int i14 = _dataBuffer.getInt(offset + 56);
-      int i15 = _dataBuffer.getInt(offset + 60);
-      out[outPos] = i0 >>> 16;
-      out[outPos + 1] = i0 & 0xffff;
-      out[outPos + 2] = i1 >>> 16;
-      out[outPos + 3] = i1 & 0xffff;
-      out[outPos + 4] = i2 >>> 16;
-      out[outPos + 5] = i2 & 0xffff;
-      out[outPos + 6] = i3 >>> 16;
-      out[outPos + 7] = i3 & 0xffff;
-      out[outPos + 8] = i4 >>> 16;
-      out[outPos + 9] = i4 & 0xffff;
-      out[outPos + 10] = i5 >>> 16;
-      out[outPos + 11] = i5 & 0xffff;
-      out[outPos + 12] = i6 >>> 16;
-      out[outPos + 13] = i6 & 0xffff;
-      out[outPos + 14] = i7 >>> 16;
-      out[outPos + 15] = i7 & 0xffff;
-      out[outPos + 16] = i8 >>> 16;
-      out[outPos + 17] = i8 & 0xffff;
-      out[outPos + 18] = i9 >>> 16;
-      out[outPos + 19] = i9 & 0xffff;
-      out[outPos + 20] = i10 >>> 16;
-      out[outPos + 21] = i10 & 0xffff;
-      out[outPos + 22] = i11 >>> 16;
-      out[outPos + 23] = i11 & 0xffff;
-      out[outPos + 24] = i12 >>> 16;
-      out[outPos + 25] = i12 & 0xffff;
-      out[outPos + 26] = i13 >>> 16;
-      out[outPos + 27] = i13 & 0xffff;
-      out[outPos + 28] = i14 >>> 16;
-      out[outPos + 29] = i14 & 0xffff;
-      out[outPos + 30] = i15 >>> 16;
-      out[outPos + 31] = i15 & 0xffff;
+      long l0 = _dataBuffer.getLong(offset);
+      long l1 = _dataBuffer.getLong(offset + 8);
+      long l2 = _dataBuffer.getLong(offset + 16);
+      long l3 = _dataBuffer.getLong(offset + 24);
+      long l4 = _dataBuffer.getLong(offset + 32);
+      long l5 = _dataBuffer.getLong(offset + 40);
+      long l6 = _dataBuffer.getLong(offset + 48);
+      long l7 = _dataBuffer.getLong(offset + 56);
+      out[outPos] = (int) (l0 >>> 48);
+      out[outPos + 1] = (int) (l0 >>> 32) & 0xffff;
+      out[outPos + 2] = (int) (l0 >>> 16) & 0xffff;
+      out[outPos + 3] = (int) l0 & 0xffff;
+      out[outPos + 4] = (int) (l1 >>> 48);
+      out[outPos + 5] = (int) (l1 >>> 32) & 0xffff;
+      out[outPos + 6] = (int) (l1 >>> 16) & 0xffff;
+      out[outPos + 7] = (int) l1 & 0xffff;
+      out[outPos + 8] = (int) (l2 >>> 48);
+      out[outPos + 9] = (int) (l2 >>> 32) & 0xffff;
+      out[outPos + 10] = (int) (l2 >>> 16) & 0xffff;
+      out[outPos + 11] = (int) l2 & 0xffff;
+      out[outPos + 12] = (int) (l3 >>> 48);
+      out[outPos + 13] = (int) (l3 >>> 32) & 0xffff;
+      out[outPos + 14] = (int) (l3 >>> 16) & 0xffff;
+      out[outPos + 15] = (int) l3 & 0xffff;
+      out[outPos + 16] = (int) (l4 >>> 48);
+      out[outPos + 17] = (int) (l4 >>> 32) & 0xffff;
+      out[outPos + 18] = (int) (l4 >>> 16) & 0xffff;
+      out[outPos + 19] = (int) l4 & 0xffff;
+      out[outPos + 20] = (int) (l5 >>> 48);
+      out[outPos + 21] = (int) (l5 >>> 32) & 0xffff;
+      out[outPos + 22] = (int) (l5 >>> 16) & 0xffff;
+      out[outPos + 23] = (int) l5 & 0xffff;
+      out[outPos + 24] = (int) (l6 >>> 48);
+      out[outPos + 25] = (int) (l6 >>> 32) & 0xffff;
+      out[outPos + 26] = (int) (l6 >>> 16) & 0xffff;
+      out[outPos + 27] = (int) l6 & 0xffff;
+      out[outPos + 28] = (int) (l7 >>> 48);
+      out[outPos + 29] = (int) (l7 >>> 32) & 0xffff;
+      out[outPos + 30] = (int) (l7 >>> 16) & 0xffff;
+      out[outPos + 31] = (int) l7 & 0xffff;
     }
   }
 
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.io.readerwriter;
 
 import java.io.Closeable;
+import java.util.Map;
 import org.apache.pinot.core.segment.memory.PinotDataBuffer;
 
 
@@ -43,4 +44,11 @@ public interface PinotDataBufferMemoryManager extends Closeable {
    * @return Total memory size in bytes.
    */
   long getTotalAllocatedBytes();
+
+  /**
+   * Returns the size of memory allocated in bytes for each allocation context (e.g. the index of a column).
+   *
+   * @return Map from allocation context to memory size in bytes.
+   */
+  Map<String, Long> getAllocatedBytesByContext();
 }
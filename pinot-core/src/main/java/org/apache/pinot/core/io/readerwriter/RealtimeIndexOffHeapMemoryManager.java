@@ -20,8 +20,11 @@ package org.apache.pinot.core.io.readerwriter;
 
 import com.google.common.base.Preconditions;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.apache.pinot.common.metrics.ServerGauge;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.utils.HLCSegmentName;
@@ -43,6 +46,7 @@ public abstract class RealtimeIndexOffHeapMemoryManager implements PinotDataBuff
   private final List<PinotDataBuffer> _buffers = new LinkedList<>();
   private final String _segmentName;
   private final ServerMetrics _serverMetrics;
+  private final Map<String, Long> _allocatedBytesByContext = new HashMap<>();
   private long _totalAllocatedBytes = 0;
   private final String _tableName;
 
@@ -78,6 +82,7 @@ public abstract class RealtimeIndexOffHeapMemoryManager implements PinotDataBuff
         "Illegal memory allocation " + size + " for segment " + _segmentName + " column " + allocationContext);
     PinotDataBuffer buffer = allocateInternal(size, allocationContext);
     _totalAllocatedBytes += size;
+    _allocatedBytesByContext.merge(allocationContext, size, Long::sum);
     _buffers.add(buffer);
     _serverMetrics.addValueToTableGauge(_tableName, ServerGauge.REALTIME_OFFHEAP_MEMORY_USED, size);
     return buffer;
@@ -107,6 +112,7 @@ public abstract class RealtimeIndexOffHeapMemoryManager implements PinotDataBuff
     _serverMetrics.addValueToTableGauge(_tableName, ServerGauge.REALTIME_OFFHEAP_MEMORY_USED, -_totalAllocatedBytes);
     doClose();
     _buffers.clear();
+    _allocatedBytesByContext.clear();
     _totalAllocatedBytes = 0;
   }
 
@@ -114,4 +120,9 @@ public abstract class RealtimeIndexOffHeapMemoryManager implements PinotDataBuff
   public long getTotalAllocatedBytes() {
     return _totalAllocatedBytes;
   }
+
+  @Override
+  public Map<String, Long> getAllocatedBytesByContext() {
+    return Collections.unmodifiableMap(_allocatedBytesByContext);
+  }
 }
@@ -337,6 +337,7 @@ public abstract class PinotDataBitSetV2 implements Closeable {
       long bitOffset = startIndex * _numBitsPerValue;
       long byteOffset = bitOffset / Byte.SIZE;
       bitOffset = bitOffset & 7;
+      long packedLong;
       int packed = 0;
       int i = 0;
 
@@ -344,7 +345,8 @@ public abstract class PinotDataBitSetV2 implements Closeable {
        * Bytes are read as follows to get maximum vectorization
        *
        * [1 byte] - read from either the 2nd/4th/6th bit to 7th bit to unpack 1/2/3 integers
-       * [chunks of 4 bytes] - read 4 bytes at a time to unpack 16 integers
+       * [chunks of 8 bytes] - read 8 bytes at a time to unpack 32 integers
+       * [1 chunk of 4 bytes] - read 4 bytes to unpack 16 integers
        * [1 chunk of 2 bytes] - read 2 bytes to unpack 8 integers
        * [1 byte] - read the byte to unpack 4 integers
        * [1 byte] - unpack 1/2/3 integers from first 2/4/6 bits
@@ -376,8 +378,48 @@ public abstract class PinotDataBitSetV2 implements Closeable {
         byteOffset++;
       }
 
-      // aligned reads at 4-byte boundary to unpack 16 integers
-      while (length >= 16) {
+      // aligned reads at 8-byte boundary to unpack 32 integers
+      while (length >= 32) {
+        packedLong = _dataBuffer.getLong(byteOffset);
+        out[i] = (int) (packedLong >>> 62);
+        out[i + 1] = (int) (packedLong >>> 60) & 3;
+        out[i + 2] = (int) (packedLong >>> 58) & 3;
+        out[i + 3] = (int) (packedLong >>> 56) & 3;
+        out[i + 4] = (int) (packedLong >>> 54) & 3;
+        out[i + 5] = (int) (packedLong >>> 52) & 3;
+        out[i + 6] = (int) (packedLong >>> 50) & 3;
+        out[i + 7] = (int) (packedLong >>> 48) & 3;
+        out[i + 8] = (int) (packedLong >>> 46) & 3;
+        out[i + 9] = (int) (packedLong >>> 44) & 3;
+        out[i + 10] = (int) (packedLong >>> 42) & 3;
+        out[i + 11] = (int) (packedLong >>> 40) & 3;
+        out[i + 12] = (int) (packedLong >>> 38) & 3;
+        out[i + 13] = (int) (packedLong >>> 36) & 3;
+        out[i + 14] = (int) (packedLong >>> 34) & 3;
+        out[i + 15] = (int) (packedLong >>> 32) & 3;
+        out[i + 16] = (int) (packedLong >>> 30) & 3;
+        out[i + 17] = (int) (packedLong >>> 28) & 3;
+        out[i + 18] = (int) (packedLong >>> 26) & 3;
+        out[i + 19] = (int) (packedLong >>> 24) & 3;
+        out[i + 20] = (int) (packedLong >>> 22) & 3;
+        out[i + 21] = (int) (packedLong >>> 20) & 3;
+        out[i + 22] = (int) (packedLong >>> 18) & 3;
+        out[i + 23] = (int) (packedLong >>> 16) & 3;
+        out[i + 24] = (int) (packedLong >>> 14) & 3;
+        out[i + 25] = (int) (packedLong >>> 12) & 3;
+        out[i + 26] = (int) (packedLong >>> 10) & 3;
+        out[i + 27] = (int) (packedLong >>> 8) & 3;
+        out[i + 28] = (int) (packedLong >>> 6) & 3;
+        out[i + 29] = (int) (packedLong >>> 4) & 3;
+        out[i + 30] = (int) (packedLong >>> 2) & 3;
+        out[i + 31] = (int) packedLong & 3;
+        length -= 32;
+        byteOffset += 8;
+        i += 32;
+      }
+
+      // aligned read at 4-byte boundary to unpack 16 integers
+      if (length >= 16) {
         packed = _dataBuffer.getInt(byteOffset);
         out[i] = packed >>> 30;
         out[i + 1] = (packed >>> 28) & 3;
@@ -469,6 +511,7 @@ public abstract class PinotDataBitSetV2 implements Closeable {
       long bitOffset = startIndex * _numBitsPerValue;
       long byteOffset = bitOffset / Byte.SIZE;
       bitOffset = bitOffset & 7;
+      long packedLong;
       int packed = 0;
       int i = 0;
 
@@ -476,7 +519,8 @@ public abstract class PinotDataBitSetV2 implements Closeable {
        * Bytes are read as follows to get maximum vectorization
        *
        * [1 byte] - read from the 4th bit to 7th bit to unpack 1 integer
-       * [chunks of 4 bytes] - read 4 bytes at a time to unpack 8 integers
+       * [chunks of 8 bytes] - read 8 bytes at a time to unpack 16 integers
+       * [1 chunk of 4 bytes] - read 4 bytes to unpack 8 integers
        * [1 chunk of 2 bytes] - read 2 bytes to unpack 4 integers
        * [1 byte] - unpack 1 integer from first 4 bits
        */
@@ -490,8 +534,32 @@ public abstract class PinotDataBitSetV2 implements Closeable {
         length--;
       }
 
+      // aligned reads at 8-byte boundary to unpack 16 integers
+      while (length >= 16) {
+        packedLong = _dataBuffer.getLong(byteOffset);
+        out[i] = (int) (packedLong >>> 60);
+        out[i + 1] = (int) (packedLong >>> 56) & 0xf;
+        out[i + 2] = (int) (packedLong >>> 52) & 0xf;
+        out[i + 3] = (int) (packedLong >>> 48) & 0xf;
+        out[i + 4] = (int) (packedLong >>> 44) & 0xf;
+        out[i + 5] = (int) (packedLong >>> 40) & 0xf;
+        out[i + 6] = (int) (packedLong >>> 36) & 0xf;
+        out[i + 7] = (int) (packedLong >>> 32) & 0xf;
+        out[i + 8] = (int) (packedLong >>> 28) & 0xf;
+        out[i + 9] = (int) (packedLong >>> 24) & 0xf;
+        out[i + 10] = (int) (packedLong >>> 20) & 0xf;
+        out[i + 11] = (int) (packedLong >>> 16) & 0xf;
+        out[i + 12] = (int) (packedLong >>> 12) & 0xf;
+        out[i + 13] = (int) (packedLong >>> 8) & 0xf;
+        out[i + 14] = (int) (packedLong >>> 4) & 0xf;
+        out[i + 15] = (int) packedLong & 0xf;
+        length -= 16;
+        byteOffset += 8;
+        i += 16;
+      }
+
       // aligned read at 4-byte boundary to unpack 8 integers
-      while (length >= 8) {
+      if (length >= 8) {
         packed = _dataBuffer.getInt(byteOffset);
         out[i] = packed >>> 28;
         out[i + 1] = (packed >>> 24) & 0xf;
@@ -554,18 +622,36 @@ public abstract class PinotDataBitSetV2 implements Closeable {
       long bitOffset = startIndex * _numBitsPerValue;
       long byteOffset = bitOffset / Byte.SIZE;
       int i = 0;
+      long packedLong;
       int packed = 0;
 
       /*
        * Bytes are read as follows to get maximum vectorization
        *
-       * [chunks of 4 bytes] - read 4 bytes at a time to unpack 4 integers
+       * [chunks of 8 bytes] - read 8 bytes at a time to unpack 8 integers
+       * [1 chunk of 4 bytes] - read 4 bytes to unpack 4 integers
        * [1 chunk of 2 bytes] - read 2 bytes to unpack 4 integers
        * [1 byte] - unpack 1 integer from first 4 bits
        */
 
+      // aligned reads at 8-byte boundary to unpack 8 integers
+      while (length >= 8) {
+        packedLong = _dataBuffer.getLong(byteOffset);
+        out[i] = (int) (packedLong >>> 56);
+        out[i + 1] = (int) (packedLong >>> 48) & 0xff;
+        out[i + 2] = (int) (packedLong >>> 40) & 0xff;
+        out[i + 3] = (int) (packedLong >>> 32) & 0xff;
+        out[i + 4] = (int) (packedLong >>> 24) & 0xff;
+        out[i + 5] = (int) (packedLong >>> 16) & 0xff;
+        out[i + 6] = (int) (packedLong >>> 8) & 0xff;
+        out[i + 7] = (int) packedLong & 0xff;
+        length -= 8;
+        byteOffset += 8;
+        i += 8;
+      }
+
       // aligned read at 4-byte boundary to unpack 4 integers
-      while (length >= 4) {
+      if (length >= 4) {
         packed = _dataBuffer.getInt(byteOffset);
         out[i] = packed >>> 24;
         out[i + 1] = (packed >>> 16) & 0xff;
@@ -611,17 +697,31 @@ public abstract class PinotDataBitSetV2 implements Closeable {
       long bitOffset = startIndex * _numBitsPerValue;
       long byteOffset = bitOffset / Byte.SIZE;
       int i = 0;
+      long packedLong;
       int packed;
 
       /*
        * Bytes are read as follows to get maximum vectorization
        *
-       * [chunks of 4 bytes] - read 4 bytes at a time to unpack 2 integers
+       * [chunks of 8 bytes] - read 8 bytes at a time to unpack 4 integers
+       * [1 chunk of 4 bytes] - read 4 bytes to unpack 2 integers
        * [1 chunk of 2 bytes] - read 2 bytes to unpack 1 integer
        */
 
-      // aligned reads at 4-byte boundary to unpack 2 integers
-      while (length >= 2) {
+      // aligned reads at 8-byte boundary to unpack 4 integers
+      while (length >= 4) {
+        packedLong = _dataBuffer.getLong(byteOffset);
+        out[i] = (int) (packedLong >>> 48);
+        out[i + 1] = (int) (packedLong >>> 32) & 0xffff;
+        out[i + 2] = (int) (packedLong >>> 16) & 0xffff;
+        out[i + 3] = (int) packedLong & 0xffff;
+        length -= 4;
+        byteOffset += 8;
+        i += 4;
+      }
+
+      // aligned read at 4-byte boundary to unpack 2 integers
+      if (length >= 2) {
         packed = _dataBuffer.getInt(byteOffset);
         out[i] = packed >>> 16;
         out[i + 1] = packed & 0xffff;
@@ -38,7 +38,7 @@ public class ProjectionOperator extends BaseOperator<ProjectionBlock> {
       @Nullable BaseOperator<DocIdSetBlock> docIdSetOperator) {
     _dataSourceMap = dataSourceMap;
     _docIdSetOperator = docIdSetOperator;
-    _dataBlockCache = new DataBlockCache(new DataFetcher(dataSourceMap));
+    _dataBlockCache = new DataBlockCache(new DataFetcher(dataSourceMap), dataSourceMap.keySet());
   }
 
   /**
@@ -50,12 +50,23 @@ public class ProjectionOperator extends BaseOperator<ProjectionBlock> {
     return _dataSourceMap;
   }
 
+  /**
+   * Returns the buffers of the data block cache to the thread local pool. The buffers are automatically released when
+   * all the blocks are processed, so this method only needs to be called when the operator is not fully consumed. The
+   * arrays within the returned projection blocks should not be accessed after calling this method.
+   */
+  public void releaseBuffers() {
+    _dataBlockCache.releaseBuffers();
+  }
+
   @Override
   protected ProjectionBlock getNextBlock() {
     // NOTE: Should not be called when _docIdSetOperator is null.
     assert _docIdSetOperator != null;
     DocIdSetBlock docIdSetBlock = _docIdSetOperator.nextBlock();
     if (docIdSetBlock == null) {
+      // All the blocks are processed, return the buffers so that they can be reused by the next segment
+      _dataBlockCache.releaseBuffers();
       return null;
     } else {
       _dataBlockCache.initNewBlock(docIdSetBlock.getDocIdSet(), docIdSetBlock.getSearchableLength());
@@ -26,12 +26,16 @@ import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.BaseOperator;
 import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
 import org.apache.pinot.core.query.exception.EarlyTerminationException;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.scheduler.resources.QueryExecutorService;
 import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,14 +43,24 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Base implementation of the combine operator.
- * <p>Combine operator uses multiple worker threads to process segments in parallel, and uses the main thread to merge
- * the results blocks from the processed segments. It can early-terminate the query to save the system resources if it
+ * <p>Combine operator uses multiple worker threads to process segments in parallel. Each worker thread merges the
+ * results blocks from the segments it processed, and the main thread merges the per-thread results blocks, so that most
+ * of the merge work is also done in parallel. It can early-terminate the query to save the system resources if it
  * detects that the merged results can already satisfy the query, or the query is already errored out or timed out.
+ * <p>The segments are dynamically assigned to the worker threads in the order of the operators: each worker thread
+ * picks up the next unprocessed segment once it finishes the current one, so that a large or slow segment does not hold
+ * back the other segments. Between segments, a worker thread might give up its thread to other queries if the query
+ * scheduler deprioritizes the query (see {@link QueryExecutorService#shouldYieldWorker()}), in which case the
+ * remaining segments are processed by the other worker threads.
  */
 @SuppressWarnings("rawtypes")
 public abstract class BaseCombineOperator extends BaseOperator<IntermediateResultsBlock> {
   protected static final Logger LOGGER = LoggerFactory.getLogger(BaseCombineOperator.class);
 
+  // When a thread does not process any segment, it inserts this special IntermediateResultsBlock into the BlockingQueue
+  // to notify the main thread
+  private static final IntermediateResultsBlock EMPTY_RESULTS_BLOCK = new IntermediateResultsBlock();
+
   protected final List<Operator> _operators;
   protected final QueryContext _queryContext;
   protected final ExecutorService _executorService;
@@ -65,8 +79,14 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
     int numOperators = _operators.size();
     int numThreads = CombineOperatorUtils.getNumThreadsForQuery(numOperators);
 
-    // Use a BlockingQueue to store the per-segment result
-    BlockingQueue<IntermediateResultsBlock> blockingQueue = new ArrayBlockingQueue<>(numOperators);
+    // Use a BlockingQueue to store the per-thread merged result
+    BlockingQueue<IntermediateResultsBlock> blockingQueue = new ArrayBlockingQueue<>(Math.max(numThreads, 1));
+    // Use an AtomicInteger to track the index of the next operator to process
+    AtomicInteger nextOperatorIndex = new AtomicInteger();
+    // Use an AtomicInteger to track the number of worker threads processing segments, so that the last one never yields
+    AtomicInteger numActiveThreads = new AtomicInteger();
+    // Use an AtomicReference to track the first results block with exception
+    AtomicReference<IntermediateResultsBlock> exceptionResultsBlock = new AtomicReference<>();
     // Use a Phaser to ensure all the Futures are done (not scheduled, finished or interrupted) before the main thread
     // returns. We need to ensure this because the main thread holds the reference to the segments. If a segment is
     // deleted/refreshed, the segment will be released after the main thread returns, which would lead to undefined
@@ -75,10 +95,10 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
 
     Future[] futures = new Future[numThreads];
     for (int i = 0; i < numThreads; i++) {
-      int threadIndex = i;
       futures[i] = _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
+          boolean active = false;
           try {
             // Register the thread to the phaser
             // NOTE: If the phaser is terminated (returning negative value) when trying to register the thread, that
@@ -87,30 +107,57 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
             if (phaser.register() < 0) {
               return;
             }
+            numActiveThreads.incrementAndGet();
+            active = true;
 
-            for (int operatorIndex = threadIndex; operatorIndex < numOperators; operatorIndex += numThreads) {
+            // Merge the segment results processed by this thread into the thread merged block, so that the merge work
+            // is spread across all the threads
+            IntermediateResultsBlock threadMergedBlock = null;
+            int operatorIndex;
+            while ((operatorIndex = nextOperatorIndex.getAndIncrement()) < numOperators) {
               try {
                 IntermediateResultsBlock resultsBlock =
                     (IntermediateResultsBlock) _operators.get(operatorIndex).nextBlock();
-                if (isQuerySatisfied(resultsBlock)) {
-                  // Query is satisfied, skip processing the remaining segments
-                  blockingQueue.offer(resultsBlock);
-                  return;
+                if (resultsBlock.getProcessingExceptions() != null) {
+                  // Segment result contains exception, skip processing the remaining operators (for all threads)
+                  nextOperatorIndex.set(numOperators);
+                  exceptionResultsBlock.compareAndSet(null, resultsBlock);
+                  break;
+                }
+                if (threadMergedBlock == null) {
+                  threadMergedBlock = resultsBlock;
                 } else {
-                  blockingQueue.offer(resultsBlock);
+                  mergeResultsBlocks(threadMergedBlock, resultsBlock);
+                }
+                if (isQuerySatisfied(threadMergedBlock)) {
+                  // Query is satisfied, skip processing the remaining segments (for all threads)
+                  nextOperatorIndex.set(numOperators);
+                  break;
+                }
+                if (shouldYield(numActiveThreads)) {
+                  // Query is deprioritized, give up the thread and leave the remaining segments to the other threads
+                  active = false;
+                  break;
                 }
               } catch (EarlyTerminationException e) {
                 // Early-terminated by interruption (canceled by the main thread)
                 return;
               } catch (Exception e) {
-                // Caught exception, skip processing the remaining operators
+                // Caught exception, skip processing the remaining operators (for all threads)
                 LOGGER.error("Caught exception while executing operator of index: {} (query: {})", operatorIndex,
                     _queryContext, e);
-                blockingQueue.offer(new IntermediateResultsBlock(e));
-                return;
+                nextOperatorIndex.set(numOperators);
+                exceptionResultsBlock.compareAndSet(null, new IntermediateResultsBlock(e));
+                break;
               }
             }
+
+            // NOTE: Always insert one block per thread so that the main thread knows when all the threads are done.
+            blockingQueue.offer(threadMergedBlock != null ? threadMergedBlock : EMPTY_RESULTS_BLOCK);
           } finally {
+            if (active) {
+              numActiveThreads.decrementAndGet();
+            }
             phaser.arriveAndDeregister();
           }
         }
@@ -120,7 +167,7 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
     IntermediateResultsBlock mergedBlock = null;
     try {
       int numBlocksMerged = 0;
-      while (numBlocksMerged < numOperators) {
+      while (numBlocksMerged < numThreads) {
         IntermediateResultsBlock blockToMerge =
             blockingQueue.poll(_endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
         if (blockToMerge == null) {
@@ -131,18 +178,21 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
               new TimeoutException("Timed out while polling results block")));
           break;
         }
-        if (blockToMerge.getProcessingExceptions() != null) {
+        if (exceptionResultsBlock.get() != null) {
           // Caught exception while processing segment, skip merging the remaining results blocks and directly return
           // the exception
-          mergedBlock = blockToMerge;
+          mergedBlock = exceptionResultsBlock.get();
           break;
         }
+        numBlocksMerged++;
+        if (blockToMerge == EMPTY_RESULTS_BLOCK) {
+          continue;
+        }
         if (mergedBlock == null) {
           mergedBlock = blockToMerge;
         } else {
-          mergeResultsBlocks(mergedBlock, blockToMerge);
+          mergeThreadResultsBlocks(mergedBlock, blockToMerge);
         }
-        numBlocksMerged++;
         if (isQuerySatisfied(mergedBlock)) {
           // Query is satisfied, skip merging the remaining results blocks
           break;
@@ -166,6 +216,40 @@ public abstract class BaseCombineOperator extends BaseOperator<IntermediateResul
     return mergedBlock;
   }
 
+  /**
+   * Returns {@code true} if the worker thread should stop processing segments because the query is deprioritized by the
+   * query scheduler. The last active worker thread never yields so that all the segments are still processed.
+   * <p>NOTE: The active thread count is decremented when returning {@code true}.
+   */
+  private boolean shouldYield(AtomicInteger numActiveThreads) {
+    if (!(_executorService instanceof QueryExecutorService) || !((QueryExecutorService) _executorService)
+        .shouldYieldWorker()) {
+      return false;
+    }
+    int numThreads;
+    while ((numThreads = numActiveThreads.get()) > 1) {
+      if (numActiveThreads.compareAndSet(numThreads, numThreads - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Merges a per-thread merged IntermediateResultsBlock into the main IntermediateResultsBlock. Unlike the segment
+   * result, the per-thread merged block might carry exceptions from the merge within the thread (e.g. data schema
+   * mismatch), which are kept in the main IntermediateResultsBlock.
+   */
+  protected void mergeThreadResultsBlocks(IntermediateResultsBlock mergedBlock, IntermediateResultsBlock blockToMerge) {
+    mergeResultsBlocks(mergedBlock, blockToMerge);
+    List<ProcessingException> processingExceptions = blockToMerge.getProcessingExceptions();
+    if (processingExceptions != null) {
+      for (ProcessingException processingException : processingExceptions) {
+        mergedBlock.addToProcessingExceptions(processingException);
+      }
+    }
+  }
+
   /**
    * Can be overridden for early termination.
    */
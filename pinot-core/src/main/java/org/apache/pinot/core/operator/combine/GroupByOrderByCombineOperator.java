@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.operator.combine;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -36,7 +37,9 @@ import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
+import org.apache.pinot.core.data.table.IndexedTable;
 import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.PrimitiveConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
 import org.apache.pinot.core.operator.BaseOperator;
@@ -73,7 +76,7 @@ public class GroupByOrderByCombineOperator extends BaseOperator<IntermediateResu
   private final int _trimThreshold;
   private final Lock _initLock;
   private DataSchema _dataSchema;
-  private ConcurrentIndexedTable _indexedTable;
+  private IndexedTable _indexedTable;
 
   public GroupByOrderByCombineOperator(List<Operator> operators, QueryContext queryContext,
       ExecutorService executorService, long endTimeMs, int trimThreshold) {
@@ -86,6 +89,30 @@ public class GroupByOrderByCombineOperator extends BaseOperator<IntermediateResu
     _trimThreshold = trimThreshold;
   }
 
+  /**
+   * Creates the indexed table to merge the group-by results into.
+   * <p>NOTE: {@link PrimitiveConcurrentIndexedTable} is only used when all the group-by keys are numeric (INT, LONG,
+   *       FLOAT, DOUBLE) and all the aggregation results are fixed-width. Other keys (e.g. STRING, BYTES) fall back to
+   *       {@link ConcurrentIndexedTable}. Dictionary ids cannot be used as keys because they are local to each segment.
+   */
+  @VisibleForTesting
+  static IndexedTable createIndexedTable(DataSchema dataSchema, QueryContext queryContext, int trimSize,
+      int trimThreshold) {
+    if (PrimitiveConcurrentIndexedTable.isSupported(dataSchema, queryContext)) {
+      // All the group-by keys and aggregation results are fixed-width numbers, store them in primitive arrays to avoid
+      // creating Key and Record for each group.
+      return new PrimitiveConcurrentIndexedTable(dataSchema, queryContext, trimSize, trimThreshold);
+    } else if (trimThreshold >= MAX_TRIM_THRESHOLD) {
+      // special case of trim threshold where it is set to max value.
+      // there won't be any trimming during upsert in this case.
+      // thus we can avoid the overhead of read-lock and write-lock
+      // in the upsert method.
+      return new UnboundedConcurrentIndexedTable(dataSchema, queryContext, trimSize, trimThreshold);
+    } else {
+      return new ConcurrentIndexedTable(dataSchema, queryContext, trimSize, trimThreshold);
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -144,16 +171,7 @@ public class GroupByOrderByCombineOperator extends BaseOperator<IntermediateResu
             try {
               if (_dataSchema == null) {
                 _dataSchema = intermediateResultsBlock.getDataSchema();
-                if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
-                  // special case of trim threshold where it is set to max value.
-                  // there won't be any trimming during upsert in this case.
-                  // thus we can avoid the overhead of read-lock and write-lock
-                  // in the upsert method.
-                  _indexedTable = new UnboundedConcurrentIndexedTable(_dataSchema, _queryContext,
-                      _trimSize, _trimThreshold);
-                } else {
-                  _indexedTable = new ConcurrentIndexedTable(_dataSchema, _queryContext, _trimSize, _trimThreshold);
-                }
+                _indexedTable = createIndexedTable(_dataSchema, _queryContext, _trimSize, _trimThreshold);
               }
             } finally {
               _initLock.unlock();
@@ -168,7 +186,30 @@ public class GroupByOrderByCombineOperator extends BaseOperator<IntermediateResu
             // Merge aggregation group-by result.
             AggregationGroupByResult aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
             if (aggregationGroupByResult != null) {
-              if (numGroupByExpressions == 1) {
+              if (_indexedTable instanceof PrimitiveConcurrentIndexedTable) {
+                PrimitiveConcurrentIndexedTable primitiveIndexedTable = (PrimitiveConcurrentIndexedTable) _indexedTable;
+
+                // Iterate over the group-by keys, for each key, update the group-by result in the indexedTable with the
+                // primitive keys and values (the arrays can be reused because they are copied into the table)
+                long[] keys = new long[numGroupByExpressions];
+                double[] values = new double[numAggregationFunctions];
+                Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+                while (groupKeyIterator.hasNext()) {
+                  GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+                  if (numGroupByExpressions == 1) {
+                    keys[0] = primitiveIndexedTable.parseKey(0, groupKey._stringKey);
+                  } else {
+                    String[] stringKeys = groupKey.getKeys();
+                    for (int i = 0; i < numGroupByExpressions; i++) {
+                      keys[i] = primitiveIndexedTable.parseKey(i, stringKeys[i]);
+                    }
+                  }
+                  for (int i = 0; i < numAggregationFunctions; i++) {
+                    values[i] = aggregationGroupByResult.getDoubleResultForKey(groupKey, i);
+                  }
+                  primitiveIndexedTable.upsert(keys, values);
+                }
+              } else if (numGroupByExpressions == 1) {
                 // Get converter function
                 Function converterFunction = getConverterFunction(_dataSchema.getColumnDataType(0));
 
@@ -60,8 +60,8 @@ import org.apache.pinot.core.util.trace.TraceRunnable;
 public class SelectionOrderByCombineOperator extends BaseCombineOperator {
   private static final String OPERATOR_NAME = "SelectionOrderByCombineOperator";
 
-  // For min/max value based combine, when a thread detects that no more segments need to be processed, it inserts this
-  // special IntermediateResultsBlock into the BlockingQueue to awake the main thread
+  // For min/max value based combine, when a thread does not process any segment, it inserts this special
+  // IntermediateResultsBlock into the BlockingQueue to notify the main thread
   private static final IntermediateResultsBlock LAST_RESULTS_BLOCK =
       new IntermediateResultsBlock(new DataSchema(new String[0], new DataSchema.ColumnDataType[0]),
           Collections.emptyList());
@@ -140,12 +140,17 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
     }
 
     int numThreads = CombineOperatorUtils.getNumThreadsForQuery(numOperators);
+    // Use an AtomicReference to track the global boundary value, which is updated by all the threads
     AtomicReference<Comparable> globalBoundaryValue = new AtomicReference<>();
 
-    // Use a BlockingQueue to store the per-segment result
-    BlockingQueue<IntermediateResultsBlock> blockingQueue = new ArrayBlockingQueue<>(numOperators);
-    // Use an AtomicInteger to track the number of operators skipped (no result inserted into the BlockingQueue)
-    AtomicInteger numOperatorsSkipped = new AtomicInteger();
+    // Use a BlockingQueue to store the per-thread merged result
+    BlockingQueue<IntermediateResultsBlock> blockingQueue = new ArrayBlockingQueue<>(numThreads);
+    // Use an AtomicInteger to track the index of the next operator to process
+    // NOTE: The operators are processed in the sorted order, so once an operator can be skipped, all the operators after
+    //       it can also be skipped.
+    AtomicInteger nextOperatorIndex = new AtomicInteger();
+    // Use an AtomicReference to track the first results block with exception
+    AtomicReference<IntermediateResultsBlock> exceptionResultsBlock = new AtomicReference<>();
     // Use a Phaser to ensure all the Futures are done (not scheduled, finished or interrupted) before the main thread
     // returns. We need to ensure this because the main thread holds the reference to the segments. If a segment is
     // deleted/refreshed, the segment will be released after the main thread returns, which would lead to undefined
@@ -154,7 +159,6 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
 
     Future[] futures = new Future[numThreads];
     for (int i = 0; i < numThreads; i++) {
-      int threadIndex = i;
       futures[i] = _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
@@ -167,32 +171,13 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
               return;
             }
 
-            // Keep a boundary value for the thread
-            // NOTE: The thread boundary value can be different from the global boundary value because thread boundary
-            //       value is updated after processing the segment, while global boundary value is updated after the
-            //       segment result is merged.
-            Comparable threadBoundaryValue = null;
-
-            for (int operatorIndex = threadIndex; operatorIndex < numOperators; operatorIndex += numThreads) {
-              // Calculate the boundary value from global boundary and thread boundary
-              Comparable boundaryValue = globalBoundaryValue.get();
-              if (boundaryValue == null) {
-                boundaryValue = threadBoundaryValue;
-              } else {
-                if (threadBoundaryValue != null) {
-                  if (asc) {
-                    if (threadBoundaryValue.compareTo(boundaryValue) < 0) {
-                      boundaryValue = threadBoundaryValue;
-                    }
-                  } else {
-                    if (threadBoundaryValue.compareTo(boundaryValue) > 0) {
-                      boundaryValue = threadBoundaryValue;
-                    }
-                  }
-                }
-              }
-
+            // Merge the segment results processed by this thread into the thread merged block, and update the global
+            // boundary value from it once it has enough rows
+            IntermediateResultsBlock threadMergedBlock = null;
+            int operatorIndex;
+            while ((operatorIndex = nextOperatorIndex.getAndIncrement()) < numOperators) {
               // Check if the segment can be skipped
+              Comparable boundaryValue = globalBoundaryValue.get();
               MinMaxValueContext minMaxValueContext = minMaxValueContexts.get(operatorIndex);
               if (boundaryValue != null) {
                 if (asc) {
@@ -201,9 +186,8 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
                   if (minMaxValueContext._minValue != null) {
                     int result = minMaxValueContext._minValue.compareTo(boundaryValue);
                     if (result > 0 || (result == 0 && numOrderByExpressions == 1)) {
-                      numOperatorsSkipped.getAndAdd((numOperators - operatorIndex - 1) / numThreads);
-                      blockingQueue.offer(LAST_RESULTS_BLOCK);
-                      return;
+                      nextOperatorIndex.set(numOperators);
+                      break;
                     }
                   }
                 } else {
@@ -212,9 +196,8 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
                   if (minMaxValueContext._maxValue != null) {
                     int result = minMaxValueContext._maxValue.compareTo(boundaryValue);
                     if (result < 0 || (result == 0 && numOrderByExpressions == 1)) {
-                      numOperatorsSkipped.getAndAdd((numOperators - operatorIndex - 1) / numThreads);
-                      blockingQueue.offer(LAST_RESULTS_BLOCK);
-                      return;
+                      nextOperatorIndex.set(numOperators);
+                      break;
                     }
                   }
                 }
@@ -223,38 +206,49 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
               // Process the segment
               try {
                 IntermediateResultsBlock resultsBlock = minMaxValueContext._operator.nextBlock();
-                PriorityQueue<Object[]> selectionResult = (PriorityQueue<Object[]>) resultsBlock.getSelectionResult();
+                if (resultsBlock.getProcessingExceptions() != null) {
+                  // Segment result contains exception, skip processing the remaining operators (for all threads)
+                  nextOperatorIndex.set(numOperators);
+                  exceptionResultsBlock.compareAndSet(null, resultsBlock);
+                  break;
+                }
+                if (threadMergedBlock == null) {
+                  threadMergedBlock = resultsBlock;
+                } else {
+                  mergeResultsBlocks(threadMergedBlock, resultsBlock);
+                }
+                PriorityQueue<Object[]> selectionResult =
+                    (PriorityQueue<Object[]>) threadMergedBlock.getSelectionResult();
                 if (selectionResult != null && selectionResult.size() == _numRowsToKeep) {
-                  // Segment result has enough rows, update the boundary value
+                  // Thread result has enough rows, update the global boundary value
                   assert selectionResult.peek() != null;
-                  Comparable segmentBoundaryValue = (Comparable) selectionResult.peek()[0];
-                  if (boundaryValue == null) {
-                    boundaryValue = segmentBoundaryValue;
-                  } else {
+                  Comparable threadBoundaryValue = (Comparable) selectionResult.peek()[0];
+                  globalBoundaryValue.accumulateAndGet(threadBoundaryValue, (currentValue, newValue) -> {
+                    if (currentValue == null) {
+                      return newValue;
+                    }
                     if (asc) {
-                      if (segmentBoundaryValue.compareTo(boundaryValue) < 0) {
-                        boundaryValue = segmentBoundaryValue;
-                      }
+                      return newValue.compareTo(currentValue) < 0 ? newValue : currentValue;
                     } else {
-                      if (segmentBoundaryValue.compareTo(boundaryValue) > 0) {
-                        boundaryValue = segmentBoundaryValue;
-                      }
+                      return newValue.compareTo(currentValue) > 0 ? newValue : currentValue;
                     }
-                  }
+                  });
                 }
-                threadBoundaryValue = boundaryValue;
-                blockingQueue.offer(resultsBlock);
               } catch (EarlyTerminationException e) {
                 // Early-terminated by interruption (canceled by the main thread)
                 return;
               } catch (Exception e) {
-                // Caught exception, skip processing the remaining operators
+                // Caught exception, skip processing the remaining operators (for all threads)
                 LOGGER.error("Caught exception while executing operator of index: {} (query: {})", operatorIndex,
                     _queryContext, e);
-                blockingQueue.offer(new IntermediateResultsBlock(e));
-                return;
+                nextOperatorIndex.set(numOperators);
+                exceptionResultsBlock.compareAndSet(null, new IntermediateResultsBlock(e));
+                break;
               }
             }
+
+            // NOTE: Always insert one block per thread so that the main thread knows when all the threads are done.
+            blockingQueue.offer(threadMergedBlock != null ? threadMergedBlock : LAST_RESULTS_BLOCK);
           } finally {
             phaser.arriveAndDeregister();
           }
@@ -265,7 +259,7 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
     IntermediateResultsBlock mergedBlock = null;
     try {
       int numBlocksMerged = 0;
-      while (numBlocksMerged + numOperatorsSkipped.get() < numOperators) {
+      while (numBlocksMerged < numThreads) {
         IntermediateResultsBlock blockToMerge =
             blockingQueue.poll(_endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
         if (blockToMerge == null) {
@@ -276,26 +270,20 @@ public class SelectionOrderByCombineOperator extends BaseCombineOperator {
               new TimeoutException("Timed out while polling results block")));
           break;
         }
-        if (blockToMerge.getProcessingExceptions() != null) {
+        if (exceptionResultsBlock.get() != null) {
           // Caught exception while processing segment, skip merging the remaining results blocks and directly return
           // the exception
-          mergedBlock = blockToMerge;
+          mergedBlock = exceptionResultsBlock.get();
           break;
         }
+        numBlocksMerged++;
+        if (blockToMerge == LAST_RESULTS_BLOCK) {
+          continue;
+        }
         if (mergedBlock == null) {
           mergedBlock = blockToMerge;
         } else {
-          if (blockToMerge != LAST_RESULTS_BLOCK) {
-            mergeResultsBlocks(mergedBlock, blockToMerge);
-          }
-        }
-        numBlocksMerged++;
-
-        // Update the boundary value if enough rows are collected
-        PriorityQueue<Object[]> selectionResult = (PriorityQueue<Object[]>) mergedBlock.getSelectionResult();
-        if (selectionResult != null && selectionResult.size() == _numRowsToKeep) {
-          assert selectionResult.peek() != null;
-          globalBoundaryValue.set((Comparable) selectionResult.peek()[0]);
+          mergeThreadResultsBlocks(mergedBlock, blockToMerge);
         }
       }
     } catch (Exception e) {
@@ -42,12 +42,17 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 public final class ExpressionScanDocIdIterator implements ScanBasedDocIdIterator {
   private final TransformFunction _transformFunction;
   private final PredicateEvaluator _predicateEvaluator;
-  private final Map<String, DataSource> _dataSourceMap;
   private final int _endDocId;
 
   private final int[] _docIdBuffer = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
   private int _numDocIdsFilled;
 
+  // NOTE: Share one projection operator (and its data block cache) for all the blocks of the iterator, and release the
+  //       buffers after processing each block so that they are always returned to the thread local pool even if the
+  //       iterator is not fully consumed.
+  private final ExpressionDocIdSetOperator _docIdSetOperator = new ExpressionDocIdSetOperator();
+  private final ProjectionOperator _projectionOperator;
+
   private int _blockEndDocId = 0;
   private PeekableIntIterator _docIdIterator;
 
@@ -59,8 +64,8 @@ public final class ExpressionScanDocIdIterator implements ScanBasedDocIdIterator
       Map<String, DataSource> dataSourceMap, int numDocs) {
     _transformFunction = transformFunction;
     _predicateEvaluator = predicateEvaluator;
-    _dataSourceMap = dataSourceMap;
     _endDocId = numDocs;
+    _projectionOperator = new ProjectionOperator(dataSourceMap, _docIdSetOperator);
   }
 
   @Override
@@ -74,11 +79,13 @@ public final class ExpressionScanDocIdIterator implements ScanBasedDocIdIterator
     while (_blockEndDocId < _endDocId) {
       int blockStartDocId = _blockEndDocId;
       _blockEndDocId = Math.min(blockStartDocId + DocIdSetPlanNode.MAX_DOC_PER_CALL, _endDocId);
-      ProjectionBlock projectionBlock =
-          new ProjectionOperator(_dataSourceMap, new RangeDocIdSetOperator(blockStartDocId, _blockEndDocId))
-              .nextBlock();
+      _docIdSetOperator.setRange(blockStartDocId, _blockEndDocId);
       MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
-      processProjectionBlock(projectionBlock, matchingDocIds);
+      try {
+        processProjectionBlock(_projectionOperator.nextBlock(), matchingDocIds);
+      } finally {
+        _projectionOperator.releaseBuffers();
+      }
       if (!matchingDocIds.isEmpty()) {
         _docIdIterator = matchingDocIds.getIntIterator();
         return _docIdIterator.next();
@@ -108,11 +115,15 @@ public final class ExpressionScanDocIdIterator implements ScanBasedDocIdIterator
 
   @Override
   public MutableRoaringBitmap applyAnd(ImmutableRoaringBitmap docIds) {
-    ProjectionOperator projectionOperator = new ProjectionOperator(_dataSourceMap, new BitmapDocIdSetOperator(docIds));
+    _docIdSetOperator.setBitmap(docIds);
     MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
-    ProjectionBlock projectionBlock;
-    while ((projectionBlock = projectionOperator.nextBlock()) != null) {
-      processProjectionBlock(projectionBlock, matchingDocIds);
+    try {
+      ProjectionBlock projectionBlock;
+      while ((projectionBlock = _projectionOperator.nextBlock()) != null) {
+        processProjectionBlock(projectionBlock, matchingDocIds);
+      }
+    } finally {
+      _projectionOperator.releaseBuffers();
     }
     return matchingDocIds;
   }
@@ -264,57 +275,49 @@ public final class ExpressionScanDocIdIterator implements ScanBasedDocIdIterator
   }
 
   /**
-   * NOTE: This operator contains only one block.
+   * Doc id set operator that serves either a range of documents as one block (for {@link #next()}), or the documents
+   * within a bitmap as multiple blocks (for {@link #applyAnd(ImmutableRoaringBitmap)}), so that the same projection
+   * operator can be used for all the blocks of the iterator.
    */
-  private class RangeDocIdSetOperator extends BaseOperator<DocIdSetBlock> {
-    static final String OPERATOR_NAME = "RangeDocIdSetOperator";
+  private class ExpressionDocIdSetOperator extends BaseOperator<DocIdSetBlock> {
+    static final String OPERATOR_NAME = "ExpressionDocIdSetOperator";
 
-    private DocIdSetBlock _docIdSetBlock;
+    int _startDocId;
+    int _endDocId;
+    IntIterator _intIterator;
 
-    RangeDocIdSetOperator(int startDocId, int endDocId) {
-      _numDocIdsFilled = endDocId - startDocId;
-      for (int i = 0; i < _numDocIdsFilled; i++) {
-        _docIdBuffer[i] = startDocId + i;
-      }
-      _docIdSetBlock = new DocIdSetBlock(_docIdBuffer, _numDocIdsFilled);
+    void setRange(int startDocId, int endDocId) {
+      _startDocId = startDocId;
+      _endDocId = endDocId;
+      _intIterator = null;
     }
 
-    @Override
-    protected DocIdSetBlock getNextBlock() {
-      DocIdSetBlock docIdSetBlock = _docIdSetBlock;
-      _docIdSetBlock = null;
-      return docIdSetBlock;
-    }
-
-    @Override
-    public String getOperatorName() {
-      return OPERATOR_NAME;
-    }
-  }
-
-  /**
-   * NOTE: This operator may contain multiple blocks.
-   */
-  private class BitmapDocIdSetOperator extends BaseOperator<DocIdSetBlock> {
-    static final String OPERATOR_NAME = "BitmapDocIdSetOperator";
-
-    final IntIterator _intIterator;
-
-    BitmapDocIdSetOperator(ImmutableRoaringBitmap bitmap) {
+    void setBitmap(ImmutableRoaringBitmap bitmap) {
+      _startDocId = 0;
+      _endDocId = 0;
       _intIterator = bitmap.getIntIterator();
     }
 
     @Override
     protected DocIdSetBlock getNextBlock() {
-      _numDocIdsFilled = 0;
-      while (_numDocIdsFilled < DocIdSetPlanNode.MAX_DOC_PER_CALL && _intIterator.hasNext()) {
-        _docIdBuffer[_numDocIdsFilled++] = _intIterator.next();
-      }
-      if (_numDocIdsFilled > 0) {
+      if (_startDocId < _endDocId) {
+        _numDocIdsFilled = _endDocId - _startDocId;
+        for (int i = 0; i < _numDocIdsFilled; i++) {
+          _docIdBuffer[i] = _startDocId + i;
+        }
+        _startDocId = _endDocId;
         return new DocIdSetBlock(_docIdBuffer, _numDocIdsFilled);
-      } else {
-        return null;
       }
+      if (_intIterator != null) {
+        _numDocIdsFilled = 0;
+        while (_numDocIdsFilled < DocIdSetPlanNode.MAX_DOC_PER_CALL && _intIterator.hasNext()) {
+          _docIdBuffer[_numDocIdsFilled++] = _intIterator.next();
+        }
+        if (_numDocIdsFilled > 0) {
+          return new DocIdSetBlock(_docIdBuffer, _numDocIdsFilled);
+        }
+      }
+      return null;
     }
 
     @Override
@@ -30,17 +30,36 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 /**
  * The {@code SVScanDocIdIterator} is the scan-based iterator for SVScanDocIdSet to scan a single-value column for the
  * matching document ids.
+ * <p>The values are read and evaluated in batches of up to {@link #MAX_BATCH_SIZE} documents to avoid the per-value
+ * virtual calls into the forward index reader and the predicate evaluator. The number of entries scanned is still
+ * tracked per document id consumed so that the stats are not affected by the batching.
+ * <p>When {@link #advance(int)} skips documents beyond the current batch (e.g. when the iterator is driven by a
+ * selective iterator within an AND), the next batch only reads the target document, and the batch size doubles for
+ * each following contiguous batch. This way a sparse advance pattern does not read and evaluate values for the
+ * documents that are going to be skipped.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
+  public static final int MAX_BATCH_SIZE = 256;
+
   private final PredicateEvaluator _predicateEvaluator;
   private final ForwardIndexReader _reader;
   // TODO: Figure out a way to close the reader context
   //       ChunkReaderContext should be closed explicitly to release the off-heap buffer
   private final ForwardIndexReaderContext _readerContext;
   private final int _numDocs;
+  private final int _batchSize;
   private final ValueMatcher _valueMatcher;
 
+  // Buffer for the matching document ids within the current batch
+  private final int[] _docIdBuffer;
+  private int _numMatchingDocIds = 0;
+  private int _bufferIndex = 0;
+  // End document id (exclusive) of the current batch
+  private int _batchEndDocId = 0;
+  // Number of documents to read in the next batch, which is reset to 1 on a sparse advance
+  private int _nextBatchSize;
+
   private int _nextDocId = 0;
   private long _numEntriesScanned = 0L;
 
@@ -49,24 +68,51 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _reader = reader;
     _readerContext = reader.createContext();
     _numDocs = numDocs;
+    _batchSize = Math.max(Math.min(numDocs, MAX_BATCH_SIZE), 1);
+    _nextBatchSize = _batchSize;
+    _docIdBuffer = new int[_batchSize];
     _valueMatcher = getValueMatcher();
   }
 
   @Override
   public int next() {
-    while (_nextDocId < _numDocs) {
-      int nextDocId = _nextDocId++;
-      _numEntriesScanned++;
-      if (_valueMatcher.doesValueMatch(nextDocId)) {
-        return nextDocId;
+    while (true) {
+      while (_bufferIndex < _numMatchingDocIds) {
+        int docId = _docIdBuffer[_bufferIndex++];
+        if (docId >= _nextDocId) {
+          _numEntriesScanned += docId - _nextDocId + 1;
+          _nextDocId = docId + 1;
+          return docId;
+        }
+      }
+      // No more matching document ids in the current batch
+      if (_nextDocId < _batchEndDocId) {
+        _numEntriesScanned += _batchEndDocId - _nextDocId;
+        _nextDocId = _batchEndDocId;
       }
+      if (_nextDocId >= _numDocs) {
+        return Constants.EOF;
+      }
+      int limit = Math.min(_numDocs - _nextDocId, _nextBatchSize);
+      _nextBatchSize = Math.min(_nextBatchSize << 1, _batchSize);
+      for (int i = 0; i < limit; i++) {
+        _docIdBuffer[i] = _nextDocId + i;
+      }
+      _batchEndDocId = _nextDocId + limit;
+      _numMatchingDocIds = _valueMatcher.matchValues(limit, _docIdBuffer);
+      _bufferIndex = 0;
     }
-    return Constants.EOF;
   }
 
   @Override
   public int advance(int targetDocId) {
-    _nextDocId = targetDocId;
+    if (targetDocId > _nextDocId) {
+      if (targetDocId > _batchEndDocId) {
+        // Sparse advance, only read the target document in the next batch
+        _nextBatchSize = 1;
+      }
+      _nextDocId = targetDocId;
+    }
     return next();
   }
 
@@ -74,13 +120,19 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   public MutableRoaringBitmap applyAnd(ImmutableRoaringBitmap docIds) {
     MutableRoaringBitmap result = new MutableRoaringBitmap();
     IntIterator docIdIterator = docIds.getIntIterator();
-    int nextDocId;
-    while (docIdIterator.hasNext() && (nextDocId = docIdIterator.next()) < _numDocs) {
-      _numEntriesScanned++;
-      if (_valueMatcher.doesValueMatch(nextDocId)) {
-        result.add(nextDocId);
+    int[] docIdBuffer = new int[_batchSize];
+    int limit;
+    do {
+      limit = 0;
+      int nextDocId;
+      while (limit < _batchSize && docIdIterator.hasNext() && (nextDocId = docIdIterator.next()) < _numDocs) {
+        docIdBuffer[limit++] = nextDocId;
       }
-    }
+      if (limit > 0) {
+        _numEntriesScanned += limit;
+        result.addN(docIdBuffer, 0, _valueMatcher.matchValues(limit, docIdBuffer));
+      }
+    } while (limit == _batchSize);
     return result;
   }
 
@@ -115,64 +167,91 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private interface ValueMatcher {
 
     /**
-     * Returns {@code true} if the value for the given document id matches the predicate, {@code false} Otherwise.
+     * Evaluates the values for the first {@code limit} document ids in the given buffer, compacts the matching document
+     * ids into the head of the buffer and returns the number of matching document ids.
      */
-    boolean doesValueMatch(int docId);
+    int matchValues(int limit, int[] docIds);
   }
 
   private class DictIdMatcher implements ValueMatcher {
+    private final int[] _buffer = new int[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getDictId(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readDictIds(docIds, limit, _buffer, _readerContext);
+      return _predicateEvaluator.applySV(limit, docIds, _buffer);
     }
   }
 
   private class IntMatcher implements ValueMatcher {
+    private final int[] _buffer = new int[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getInt(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      return _predicateEvaluator.applySV(limit, docIds, _buffer);
     }
   }
 
   private class LongMatcher implements ValueMatcher {
+    private final long[] _buffer = new long[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getLong(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      return _predicateEvaluator.applySV(limit, docIds, _buffer);
     }
   }
 
   private class FloatMatcher implements ValueMatcher {
+    private final float[] _buffer = new float[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getFloat(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      return _predicateEvaluator.applySV(limit, docIds, _buffer);
     }
   }
 
   private class DoubleMatcher implements ValueMatcher {
+    private final double[] _buffer = new double[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getDouble(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      return _predicateEvaluator.applySV(limit, docIds, _buffer);
     }
   }
 
   private class StringMatcher implements ValueMatcher {
+    private final String[] _buffer = new String[_batchSize];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getString(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      int numMatchingDocIds = 0;
+      for (int i = 0; i < limit; i++) {
+        if (_predicateEvaluator.applySV(_buffer[i])) {
+          docIds[numMatchingDocIds++] = docIds[i];
+        }
+      }
+      return numMatchingDocIds;
     }
   }
 
   private class BytesMatcher implements ValueMatcher {
+    private final byte[][] _buffer = new byte[_batchSize][];
 
     @Override
-    public boolean doesValueMatch(int docId) {
-      return _predicateEvaluator.applySV(_reader.getBytes(docId, _readerContext));
+    public int matchValues(int limit, int[] docIds) {
+      _reader.readValuesSV(docIds, limit, _buffer, _readerContext);
+      int numMatchingDocIds = 0;
+      for (int i = 0; i < limit; i++) {
+        if (_predicateEvaluator.applySV(_buffer[i])) {
+          docIds[numMatchingDocIds++] = docIds[i];
+        }
+      }
+      return numMatchingDocIds;
     }
   }
 }
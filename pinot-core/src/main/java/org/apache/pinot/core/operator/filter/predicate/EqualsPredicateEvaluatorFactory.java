@@ -99,6 +99,19 @@ public class EqualsPredicateEvaluatorFactory {
       return _matchingDictId == dictId;
     }
 
+    @Override
+    public int applySV(int limit, int[] docIds, int[] values) {
+      // NOTE: Inline the check to avoid the virtual call per value
+      int numMatchingDocIds = 0;
+      int matchingDictId = _matchingDictId;
+      for (int i = 0; i < limit; i++) {
+        if (values[i] == matchingDictId) {
+          docIds[numMatchingDocIds++] = docIds[i];
+        }
+      }
+      return numMatchingDocIds;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       return _matchingDictIds;
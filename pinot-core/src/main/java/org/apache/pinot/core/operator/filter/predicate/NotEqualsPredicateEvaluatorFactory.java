@@ -102,6 +102,19 @@ public class NotEqualsPredicateEvaluatorFactory {
       return _nonMatchingDictId != dictId;
     }
 
+    @Override
+    public int applySV(int limit, int[] docIds, int[] values) {
+      // NOTE: Inline the check to avoid the virtual call per value
+      int numMatchingDocIds = 0;
+      int nonMatchingDictId = _nonMatchingDictId;
+      for (int i = 0; i < limit; i++) {
+        if (values[i] != nonMatchingDictId) {
+          docIds[numMatchingDocIds++] = docIds[i];
+        }
+      }
+      return numMatchingDocIds;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       if (_matchingDictIds == null) {
@@ -146,6 +146,21 @@ public class RangePredicateEvaluatorFactory {
       return _startDictId <= dictId && _endDictId > dictId;
     }
 
+    @Override
+    public int applySV(int limit, int[] docIds, int[] values) {
+      // NOTE: Inline the check to avoid the virtual call per value
+      int numMatchingDocIds = 0;
+      int startDictId = _startDictId;
+      int endDictId = _endDictId;
+      for (int i = 0; i < limit; i++) {
+        int dictId = values[i];
+        if (startDictId <= dictId && endDictId > dictId) {
+          docIds[numMatchingDocIds++] = docIds[i];
+        }
+      }
+      return numMatchingDocIds;
+    }
+
     @Override
     public int getNumMatchingDictIds() {
       return _numMatchingDictIds;
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.query;
+
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * The <code>SegmentResultCacheOperator</code> class provides the operator that serves the results of a single segment
+ * from the {@link SegmentResultCache}, or executes the underlying segment operator and caches its results.
+ * <p>For cache hits, the execution statistics of the cached execution are returned so that the query stats are the
+ * same with or without cache.
+ */
+@SuppressWarnings("rawtypes")
+public class SegmentResultCacheOperator extends BaseOperator<IntermediateResultsBlock> {
+  private static final String OPERATOR_NAME = "SegmentResultCacheOperator";
+
+  private final AggregationFunction[] _aggregationFunctions;
+  private final SegmentResultCache.CachedResult _cachedResult;
+  private final Operator<IntermediateResultsBlock> _operator;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.CacheKey _cacheKey;
+
+  /**
+   * Constructor for cache hit.
+   */
+  public SegmentResultCacheOperator(AggregationFunction[] aggregationFunctions,
+      SegmentResultCache.CachedResult cachedResult) {
+    _aggregationFunctions = aggregationFunctions;
+    _cachedResult = cachedResult;
+    _operator = null;
+    _segmentResultCache = null;
+    _cacheKey = null;
+  }
+
+  /**
+   * Constructor for cache miss.
+   */
+  public SegmentResultCacheOperator(Operator<IntermediateResultsBlock> operator,
+      SegmentResultCache segmentResultCache, SegmentResultCache.CacheKey cacheKey) {
+    _aggregationFunctions = null;
+    _cachedResult = null;
+    _operator = operator;
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+  }
+
+  @Override
+  protected IntermediateResultsBlock getNextBlock() {
+    if (_cachedResult != null) {
+      return _cachedResult.getResultsBlock(_aggregationFunctions);
+    }
+    IntermediateResultsBlock resultsBlock = _operator.nextBlock();
+    // Cache the results before they are merged (merging might modify the intermediate results)
+    _segmentResultCache.put(_cacheKey, resultsBlock, _operator.getExecutionStatistics());
+    return resultsBlock;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _cachedResult != null ? _cachedResult.getExecutionStatistics() : _operator.getExecutionStatistics();
+  }
+}
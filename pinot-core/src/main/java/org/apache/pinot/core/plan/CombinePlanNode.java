@@ -26,6 +26,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.proto.Server;
 import org.apache.pinot.core.common.Operator;
@@ -41,7 +42,7 @@ import org.apache.pinot.core.query.exception.BadQueryRequestException;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
 import org.apache.pinot.core.util.QueryOptions;
-import org.apache.pinot.core.util.trace.TraceCallable;
+import org.apache.pinot.core.util.trace.TraceRunnable;
 
 
 /**
@@ -112,27 +113,29 @@ public class CombinePlanNode implements PlanNode {
       // them.
       Phaser phaser = new Phaser(1);
 
+      // Dynamically assign the plan nodes to the threads, and keep the operators in the same order as the plan nodes
+      Operator[] operatorArray = new Operator[numPlanNodes];
+      AtomicInteger nextPlanNodeIndex = new AtomicInteger();
+
       // Submit all jobs
       Future[] futures = new Future[numThreads];
       for (int i = 0; i < numThreads; i++) {
-        int index = i;
-        futures[i] = _executorService.submit(new TraceCallable<List<Operator>>() {
+        futures[i] = _executorService.submit(new TraceRunnable() {
           @Override
-          public List<Operator> callJob() {
+          public void runJob() {
             try {
               // Register the thread to the phaser.
               // If the phaser is terminated (returning negative value) when trying to register the thread, that means
               // the query execution has timed out, and the main thread has deregistered itself and returned the result.
               // Directly return as no execution result will be taken.
               if (phaser.register() < 0) {
-                return Collections.emptyList();
+                return;
               }
 
-              List<Operator> operators = new ArrayList<>();
-              for (int i = index; i < numPlanNodes; i += numThreads) {
-                operators.add(_planNodes.get(i).run());
+              int index;
+              while ((index = nextPlanNodeIndex.getAndIncrement()) < numPlanNodes) {
+                operatorArray[index] = _planNodes.get(index).run();
               }
-              return operators;
             } finally {
               phaser.arriveAndDeregister();
             }
@@ -140,13 +143,12 @@ public class CombinePlanNode implements PlanNode {
         });
       }
 
-      // Get all results
+      // Wait for all jobs to finish
       try {
         for (Future future : futures) {
-          List<Operator> ops =
-              (List<Operator>) future.get(_endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-          operators.addAll(ops);
+          future.get(_endTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
         }
+        Collections.addAll(operators, operatorArray);
       } catch (Exception e) {
         // Future object will throw ExecutionException for execution exception, need to check the cause to determine
         // whether it is caused by bad query
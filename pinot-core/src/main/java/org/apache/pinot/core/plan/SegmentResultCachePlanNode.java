@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.operator.query.SegmentResultCacheOperator;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * The <code>SegmentResultCachePlanNode</code> class provides the execution plan for a single segment with the results
+ * served from or stored into the {@link SegmentResultCache}.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private final PlanNode _planNode;
+  private final AggregationFunction[] _aggregationFunctions;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.CacheKey _cacheKey;
+  private final SegmentResultCache.CachedResult _cachedResult;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param planNode Plan node for the segment, or {@code null} if the result is cached
+   * @param aggregationFunctions Aggregation functions of the query
+   * @param segmentResultCache Segment result cache
+   * @param cacheKey Cache key for the segment
+   * @param cachedResult Cached result for the segment, or {@code null} if the result is not cached
+   */
+  public SegmentResultCachePlanNode(@Nullable PlanNode planNode, AggregationFunction[] aggregationFunctions,
+      SegmentResultCache segmentResultCache, SegmentResultCache.CacheKey cacheKey,
+      @Nullable SegmentResultCache.CachedResult cachedResult) {
+    _planNode = planNode;
+    _aggregationFunctions = aggregationFunctions;
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+    _cachedResult = cachedResult;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentResultCacheOperator run() {
+    if (_cachedResult != null) {
+      return new SegmentResultCacheOperator(_aggregationFunctions, _cachedResult);
+    } else {
+      return new SegmentResultCacheOperator((Operator<IntermediateResultsBlock>) _planNode.run(), _segmentResultCache,
+          _cacheKey);
+    }
+  }
+}
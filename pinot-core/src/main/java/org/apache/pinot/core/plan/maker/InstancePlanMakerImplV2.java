@@ -22,8 +22,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.grpc.stub.StreamObserver;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.function.AggregationFunctionType;
 import org.apache.pinot.common.proto.Server;
 import org.apache.pinot.core.indexsegment.IndexSegment;
@@ -38,9 +40,11 @@ import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.query.config.QueryExecutorConfig;
 import org.apache.pinot.core.query.request.context.ExpressionContext;
 import org.apache.pinot.core.query.request.context.FunctionContext;
@@ -72,12 +76,15 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private final int _numGroupsLimit;
   // Used for SQL GROUP BY (server combine)
   private final int _groupByTrimThreshold;
+  // Cache for the per-segment results on immutable segments, null if not enabled
+  private final SegmentResultCache _segmentResultCache;
 
   @VisibleForTesting
   public InstancePlanMakerImplV2() {
     _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
     _numGroupsLimit = DEFAULT_NUM_GROUPS_LIMIT;
     _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+    _segmentResultCache = null;
   }
 
   @VisibleForTesting
@@ -85,6 +92,15 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _maxInitialResultHolderCapacity = maxInitialResultHolderCapacity;
     _numGroupsLimit = numGroupsLimit;
     _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+    _segmentResultCache = null;
+  }
+
+  @VisibleForTesting
+  public InstancePlanMakerImplV2(@Nullable SegmentResultCache segmentResultCache) {
+    _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
+    _numGroupsLimit = DEFAULT_NUM_GROUPS_LIMIT;
+    _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+    _segmentResultCache = segmentResultCache;
   }
 
   /**
@@ -92,6 +108,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    * <ul>
    *   <li>Set limit on the initial result holder capacity</li>
    *   <li>Set limit on number of groups returned from each segment and combined result</li>
+   *   <li>Enable the per-segment result cache for immutable segments</li>
    * </ul>
    *
    * @param queryExecutorConfig Query executor configuration
@@ -107,14 +124,35 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         _maxInitialResultHolderCapacity, _numGroupsLimit);
     LOGGER.info("Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}",
         _maxInitialResultHolderCapacity, _numGroupsLimit);
+    if (queryExecutorConfig.getConfig().getProperty(SegmentResultCache.SEGMENT_RESULT_CACHE_ENABLED,
+        SegmentResultCache.DEFAULT_SEGMENT_RESULT_CACHE_ENABLED)) {
+      _segmentResultCache = SegmentResultCache.init(queryExecutorConfig.getConfig()
+          .getProperty(SegmentResultCache.SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES,
+              SegmentResultCache.DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES));
+    } else {
+      _segmentResultCache = null;
+    }
   }
 
   @Override
   public Plan makeInstancePlan(List<IndexSegment> indexSegments, QueryContext queryContext,
       ExecutorService executorService, long endTimeMs) {
     List<PlanNode> planNodes = new ArrayList<>(indexSegments.size());
-    for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeSegmentPlanNode(indexSegment, queryContext));
+    String canonicalQuery =
+        _segmentResultCache != null ? SegmentResultCache.getCanonicalQuery(queryContext) : null;
+    for (IndexSegment indexSegment : sortSegmentsByNumDocs(indexSegments)) {
+      if (canonicalQuery != null && SegmentResultCache.isCacheable(indexSegment)) {
+        // Skip planning the segment if the result is already cached
+        SegmentResultCache.CacheKey cacheKey =
+            SegmentResultCache.getCacheKey(queryContext.getTableName(), indexSegment, canonicalQuery);
+        SegmentResultCache.CachedResult cachedResult = _segmentResultCache.get(cacheKey);
+        PlanNode planNode = cachedResult == null ? makeSegmentPlanNode(indexSegment, queryContext) : null;
+        planNodes.add(
+            new SegmentResultCachePlanNode(planNode, queryContext.getAggregationFunctions(), _segmentResultCache,
+                cacheKey, cachedResult));
+      } else {
+        planNodes.add(makeSegmentPlanNode(indexSegment, queryContext));
+      }
     }
     CombinePlanNode combinePlanNode =
         new CombinePlanNode(planNodes, queryContext, executorService, endTimeMs, _numGroupsLimit, null,
@@ -122,6 +160,32 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
   }
 
+  /**
+   * Returns the segments sorted by the number of documents in descending order. The combine operator processes the
+   * segments in this order, so the largest segments are started first and the smaller segments fill up the idle
+   * threads at the end of the query.
+   * <p>NOTE: The number of documents for consuming segments can change while sorting, so take a snapshot first.
+   */
+  @VisibleForTesting
+  static List<IndexSegment> sortSegmentsByNumDocs(List<IndexSegment> indexSegments) {
+    int numSegments = indexSegments.size();
+    if (numSegments <= 1) {
+      return indexSegments;
+    }
+    int[] numDocs = new int[numSegments];
+    Integer[] indexes = new Integer[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      numDocs[i] = indexSegments.get(i).getSegmentMetadata().getTotalDocs();
+      indexes[i] = i;
+    }
+    Arrays.sort(indexes, (i1, i2) -> Integer.compare(numDocs[i2], numDocs[i1]));
+    List<IndexSegment> sortedSegments = new ArrayList<>(numSegments);
+    for (int index : indexes) {
+      sortedSegments.add(indexSegments.get(index));
+    }
+    return sortedSegments;
+  }
+
   @Override
   public PlanNode makeSegmentPlanNode(IndexSegment indexSegment, QueryContext queryContext) {
     if (QueryContextUtils.isAggregationQuery(queryContext)) {
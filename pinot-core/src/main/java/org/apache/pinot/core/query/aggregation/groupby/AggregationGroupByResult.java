@@ -67,4 +67,13 @@ public class AggregationGroupByResult {
   public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
     return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey._groupId);
   }
+
+  /**
+   * Given a group-by key and an index into the result holder array, returns the corresponding aggregation result as a
+   * double without converting it into the intermediate result object. Should only be called for the aggregation
+   * functions that store double results in the result holder (e.g. COUNT, SUM, MIN, MAX).
+   */
+  public double getDoubleResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+    return _resultHolders[index].getDoubleResult(groupKey._groupId);
+  }
 }
@@ -0,0 +1,484 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
+import org.apache.pinot.core.util.QueryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SegmentResultCache} caches the per-segment intermediate results of the aggregation and aggregation
+ * group-by queries on the immutable segments, so that repeated queries (e.g. from time-series dashboards) do not need
+ * to re-scan the historical segments whose data never changes.
+ * <p>The cache key contains the table name, the segment name, the segment CRC and the canonical form of the parts of
+ * the query that affect the segment result (everything except the limit and the query options). Consuming segments and segments with
+ * valid doc index (upsert) keep changing, so they are never cached. The entries for a segment are invalidated when the
+ * segment is replaced or removed (see {@link org.apache.pinot.core.data.manager.BaseTableDataManager}).
+ * <p>The results are stored in an immutable form (intermediate result objects that might be modified while merging are
+ * stored serialized), and a new {@link IntermediateResultsBlock} is created for each cache hit.
+ * <p>The cache keys are also indexed by segment, so that invalidating a segment only touches the entries of the segment
+ * instead of scanning the whole cache. The index is cleaned up when the entries are evicted.
+ */
+@ThreadSafe
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  // set as pinot.server.query.executor.segment.result.cache.enabled
+  public static final String SEGMENT_RESULT_CACHE_ENABLED = "segment.result.cache.enabled";
+  public static final boolean DEFAULT_SEGMENT_RESULT_CACHE_ENABLED = false;
+  // set as pinot.server.query.executor.segment.result.cache.max.size.bytes
+  public static final String SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = "segment.result.cache.max.size.bytes";
+  public static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = 100 * 1024 * 1024L;
+
+  // Rough estimation of the object overhead used to weigh the cache entries
+  private static final int OBJECT_OVERHEAD_IN_BYTES = 16;
+
+  private static volatile SegmentResultCache _instance;
+
+  private final Cache<CacheKey, CachedResult> _cache;
+  // Segment id (see CacheKey._segmentId) -> cache keys of the segment
+  // NOTE: The key sets are only modified within the compute methods of the map, so they don't need to be thread-safe.
+  private final ConcurrentHashMap<String, Set<CacheKey>> _segmentKeysMap = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  public SegmentResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CachedResult value) -> key._sizeInBytes + value._sizeInBytes)
+        .removalListener(this::onRemoval).build();
+  }
+
+  /**
+   * Initializes the instance-level segment result cache if not already initialized, and returns it.
+   */
+  public static synchronized SegmentResultCache init(long maxSizeInBytes) {
+    if (_instance == null) {
+      LOGGER.info("Initializing segment result cache with max size: {} bytes", maxSizeInBytes);
+      _instance = new SegmentResultCache(maxSizeInBytes);
+    }
+    return _instance;
+  }
+
+  /**
+   * Returns the instance-level segment result cache, or {@code null} if it is not enabled.
+   */
+  @Nullable
+  public static SegmentResultCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Returns the canonical form of the parts of the query that affect the segment result, or {@code null} if the
+   * segment results of the query cannot be cached (only aggregation and aggregation group-by queries are cached).
+   * <p>NOTE: Having and order-by are applied after the segment results are combined, but they can add aggregation
+   *       functions that are computed on the segments, so they are included together with the full list of the
+   *       aggregation functions. Only the limit and the query options (other than the group-by mode) are excluded.
+   */
+  @Nullable
+  public static String getCanonicalQuery(QueryContext queryContext) {
+    if (!QueryContextUtils.isAggregationQuery(queryContext)) {
+      return null;
+    }
+    Map<String, String> queryOptions = queryContext.getQueryOptions();
+    if (queryOptions != null && Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_RESULT_CACHE))) {
+      return null;
+    }
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append("select:").append(queryContext.getSelectExpressions()).append(",aggregations:[");
+    AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+    if (aggregationFunctions != null) {
+      for (AggregationFunction aggregationFunction : aggregationFunctions) {
+        stringBuilder.append(aggregationFunction.getResultColumnName()).append(',');
+      }
+    }
+    stringBuilder.append("],filter:").append(queryContext.getFilter());
+    List<?> groupByExpressions = queryContext.getGroupByExpressions();
+    if (groupByExpressions != null) {
+      // Group-by in SQL and PQL mode are processed with different operators
+      stringBuilder.append(",groupBy:").append(groupByExpressions).append(",sql:")
+          .append(new QueryOptions(queryOptions).isGroupByModeSQL());
+    }
+    stringBuilder.append(",having:").append(queryContext.getHavingFilter()).append(",orderBy:")
+        .append(queryContext.getOrderByExpressions());
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Returns {@code true} if the results on the given segment can be cached, {@code false} otherwise.
+   * <p>Only immutable segments without valid doc index can be cached because the data within them never changes. The
+   * segment CRC is required to distinguish the refreshed segments.
+   */
+  public static boolean isCacheable(IndexSegment indexSegment) {
+    return indexSegment instanceof ImmutableSegment && indexSegment.getValidDocIndex() == null
+        && indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
+  /**
+   * Returns the cache key for the given segment and canonical query (see {@link #getCanonicalQuery(QueryContext)}).
+   */
+  public static CacheKey getCacheKey(String tableNameWithType, IndexSegment indexSegment, String canonicalQuery) {
+    return new CacheKey(tableNameWithType, indexSegment.getSegmentName(),
+        indexSegment.getSegmentMetadata().getCrc(), canonicalQuery);
+  }
+
+  /**
+   * Returns the cached result for the given cache key, or {@code null} if it is not cached.
+   */
+  @Nullable
+  public CachedResult get(CacheKey key) {
+    return _cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the given segment results block and execution statistics. Results blocks with processing exceptions or
+   * intermediate results that cannot be serialized are not cached.
+   * <p>NOTE: Should be called before the results block is merged because merging might modify the intermediate
+   * results.
+   */
+  public void put(CacheKey key, IntermediateResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    if (resultsBlock.getProcessingExceptions() != null) {
+      return;
+    }
+    CachedResult cachedResult;
+    try {
+      cachedResult = CachedResult.of(resultsBlock, executionStatistics);
+    } catch (Exception e) {
+      LOGGER.debug("Failed to cache the results for segment: {}", key._segmentName, e);
+      return;
+    }
+    if (cachedResult != null) {
+      // Index the key before putting the entry so that the key is removed from the index if the entry is evicted
+      _segmentKeysMap.compute(key._segmentId, (segmentId, keys) -> {
+        if (keys == null) {
+          keys = new HashSet<>();
+        }
+        keys.add(key);
+        return keys;
+      });
+      _cache.put(key, cachedResult);
+    }
+  }
+
+  /**
+   * Invalidates all the cached results for the given segment.
+   */
+  public void invalidate(String tableNameWithType, String segmentName) {
+    Set<CacheKey> keys = _segmentKeysMap.remove(CacheKey.getSegmentId(tableNameWithType, segmentName));
+    if (keys != null) {
+      _cache.invalidateAll(keys);
+    }
+  }
+
+  @VisibleForTesting
+  public long size() {
+    return _cache.size();
+  }
+
+  @VisibleForTesting
+  public int getNumSegments() {
+    return _segmentKeysMap.size();
+  }
+
+  /**
+   * Removes the key from the segment index when the entry is evicted or invalidated.
+   */
+  private void onRemoval(RemovalNotification<CacheKey, CachedResult> notification) {
+    // The key is still in the cache when the entry is replaced
+    if (notification.getCause() == RemovalCause.REPLACED) {
+      return;
+    }
+    CacheKey key = notification.getKey();
+    if (key == null) {
+      return;
+    }
+    _segmentKeysMap.computeIfPresent(key._segmentId, (segmentId, keys) -> {
+      keys.remove(key);
+      return keys.isEmpty() ? null : keys;
+    });
+  }
+
+  /**
+   * Returns the value to be stored in the cache for the given intermediate result. Immutable values are stored as is,
+   * other values are serialized so that they are not shared among the queries.
+   */
+  @Nullable
+  private static Object toCachedValue(@Nullable Object value) {
+    if (value == null || value instanceof Long || value instanceof Double || value instanceof Integer
+        || value instanceof Float || value instanceof String) {
+      return value;
+    }
+    ObjectSerDeUtils.ObjectType objectType = ObjectSerDeUtils.ObjectType.getObjectType(value);
+    return new SerializedValue(objectType.getValue(), ObjectSerDeUtils.serialize(value, objectType));
+  }
+
+  @Nullable
+  private static Object fromCachedValue(@Nullable Object cachedValue) {
+    if (cachedValue instanceof SerializedValue) {
+      SerializedValue serializedValue = (SerializedValue) cachedValue;
+      return ObjectSerDeUtils.deserialize(serializedValue._bytes, serializedValue._objectType);
+    } else {
+      return cachedValue;
+    }
+  }
+
+  private static int getSizeInBytes(@Nullable Object cachedValue) {
+    if (cachedValue instanceof SerializedValue) {
+      return ((SerializedValue) cachedValue)._bytes.length + 2 * OBJECT_OVERHEAD_IN_BYTES;
+    } else if (cachedValue instanceof String) {
+      return 2 * ((String) cachedValue).length() + 2 * OBJECT_OVERHEAD_IN_BYTES;
+    } else {
+      return OBJECT_OVERHEAD_IN_BYTES;
+    }
+  }
+
+  public static final class CacheKey {
+    private final String _tableName;
+    private final String _segmentName;
+    private final String _segmentCrc;
+    private final String _canonicalQuery;
+    private final String _segmentId;
+    private final int _hashCode;
+    private final int _sizeInBytes;
+
+    private CacheKey(String tableName, String segmentName, String segmentCrc, String canonicalQuery) {
+      _tableName = tableName;
+      _segmentName = segmentName;
+      _segmentCrc = segmentCrc;
+      _canonicalQuery = canonicalQuery;
+      _segmentId = getSegmentId(tableName, segmentName);
+      _hashCode = Arrays.hashCode(new Object[]{tableName, segmentName, segmentCrc, canonicalQuery});
+      _sizeInBytes = 2 * (tableName.length() + segmentName.length() + segmentCrc.length() + canonicalQuery.length())
+          + 5 * OBJECT_OVERHEAD_IN_BYTES;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey cacheKey = (CacheKey) o;
+      return _hashCode == cacheKey._hashCode && _tableName.equals(cacheKey._tableName) && _segmentName
+          .equals(cacheKey._segmentName) && _segmentCrc.equals(cacheKey._segmentCrc) && _canonicalQuery
+          .equals(cacheKey._canonicalQuery);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+
+    // NOTE: Segment name cannot contain '/'
+    private static String getSegmentId(String tableName, String segmentName) {
+      return tableName + '/' + segmentName;
+    }
+  }
+
+  /**
+   * Immutable cached segment result, from which a new results block can be created for each query.
+   */
+  public static final class CachedResult {
+    // For aggregation only query
+    private final Object[] _aggregationResult;
+    // For aggregation group-by query
+    private final boolean _isGroupBy;
+    private final DataSchema _dataSchema;
+    private final String[] _groupKeys;
+    // Indexed by aggregation function index, then group id
+    private final Object[][] _groupByResults;
+    private final ExecutionStatistics _executionStatistics;
+    private final int _sizeInBytes;
+
+    private CachedResult(@Nullable Object[] aggregationResult, boolean isGroupBy, @Nullable DataSchema dataSchema,
+        @Nullable String[] groupKeys, @Nullable Object[][] groupByResults, ExecutionStatistics executionStatistics,
+        int sizeInBytes) {
+      _aggregationResult = aggregationResult;
+      _isGroupBy = isGroupBy;
+      _dataSchema = dataSchema;
+      _groupKeys = groupKeys;
+      _groupByResults = groupByResults;
+      _executionStatistics = executionStatistics;
+      _sizeInBytes = sizeInBytes;
+    }
+
+    @Nullable
+    private static CachedResult of(IntermediateResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+      AggregationFunction[] aggregationFunctions = resultsBlock.getAggregationFunctions();
+      if (aggregationFunctions == null) {
+        return null;
+      }
+      int numAggregationFunctions = aggregationFunctions.length;
+      int sizeInBytes = OBJECT_OVERHEAD_IN_BYTES;
+
+      // Aggregation only
+      List<Object> aggregationResult = resultsBlock.getAggregationResult();
+      if (aggregationResult != null) {
+        Object[] cachedAggregationResult = new Object[numAggregationFunctions];
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Object cachedValue = toCachedValue(aggregationResult.get(i));
+          cachedAggregationResult[i] = cachedValue;
+          sizeInBytes += getSizeInBytes(cachedValue);
+        }
+        return new CachedResult(cachedAggregationResult, false, null, null, null, executionStatistics, sizeInBytes);
+      }
+
+      // Aggregation group-by
+      AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+      if (aggregationGroupByResult == null) {
+        return new CachedResult(null, true, resultsBlock.getDataSchema(), null, null, executionStatistics,
+            sizeInBytes);
+      }
+      int numGroups = 0;
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        groupKeyIterator.next();
+        numGroups++;
+      }
+      String[] groupKeys = new String[numGroups];
+      Object[][] groupByResults = new Object[numAggregationFunctions][numGroups];
+      groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      for (int groupId = 0; groupId < numGroups; groupId++) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        groupKeys[groupId] = groupKey._stringKey;
+        sizeInBytes += getSizeInBytes(groupKey._stringKey);
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          Object cachedValue = toCachedValue(aggregationGroupByResult.getResultForKey(groupKey, i));
+          groupByResults[i][groupId] = cachedValue;
+          sizeInBytes += getSizeInBytes(cachedValue);
+        }
+      }
+      return new CachedResult(null, true, resultsBlock.getDataSchema(), groupKeys, groupByResults,
+          executionStatistics, sizeInBytes);
+    }
+
+    /**
+     * Returns a new results block with the cached result for the given aggregation functions.
+     */
+    public IntermediateResultsBlock getResultsBlock(AggregationFunction[] aggregationFunctions) {
+      if (!_isGroupBy) {
+        int numAggregationFunctions = _aggregationResult.length;
+        Object[] aggregationResult = new Object[numAggregationFunctions];
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          aggregationResult[i] = fromCachedValue(_aggregationResult[i]);
+        }
+        return new IntermediateResultsBlock(aggregationFunctions, Arrays.asList(aggregationResult), false);
+      }
+      AggregationGroupByResult aggregationGroupByResult =
+          _groupKeys != null ? new CachedAggregationGroupByResult(aggregationFunctions, _groupKeys, _groupByResults)
+              : null;
+      if (_dataSchema != null) {
+        return new IntermediateResultsBlock(aggregationFunctions, aggregationGroupByResult, _dataSchema);
+      } else {
+        return new IntermediateResultsBlock(aggregationFunctions, aggregationGroupByResult);
+      }
+    }
+
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+  }
+
+  /**
+   * Aggregation group-by result backed by the cached group keys and results. The serialized results are de-serialized
+   * on access so that each caller gets its own copy.
+   */
+  private static final class CachedAggregationGroupByResult extends AggregationGroupByResult {
+    private final String[] _groupKeys;
+    private final Object[][] _groupByResults;
+
+    CachedAggregationGroupByResult(AggregationFunction[] aggregationFunctions, String[] groupKeys,
+        Object[][] groupByResults) {
+      super(null, aggregationFunctions, null);
+      _groupKeys = groupKeys;
+      _groupByResults = groupByResults;
+    }
+
+    @Override
+    public Iterator<GroupKeyGenerator.GroupKey> getGroupKeyIterator() {
+      return new Iterator<GroupKeyGenerator.GroupKey>() {
+        private int _groupId = 0;
+
+        @Override
+        public boolean hasNext() {
+          return _groupId < _groupKeys.length;
+        }
+
+        @Override
+        public GroupKeyGenerator.GroupKey next() {
+          if (_groupId >= _groupKeys.length) {
+            throw new NoSuchElementException();
+          }
+          GroupKeyGenerator.GroupKey groupKey = new GroupKeyGenerator.GroupKey();
+          groupKey._groupId = _groupId;
+          groupKey._stringKey = _groupKeys[_groupId++];
+          return groupKey;
+        }
+      };
+    }
+
+    @Override
+    public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+      return fromCachedValue(_groupByResults[index][groupKey._groupId]);
+    }
+
+    @Override
+    public double getDoubleResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+      return ((Number) _groupByResults[index][groupKey._groupId]).doubleValue();
+    }
+  }
+
+  private static final class SerializedValue {
+    private final int _objectType;
+    private final byte[] _bytes;
+
+    private SerializedValue(int objectType, byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+}
@@ -41,12 +41,15 @@ import org.apache.pinot.core.util.QueryOptions;
  * Helper class to reduce and set Aggregation results into the BrokerResponseNative
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
-public class AggregationDataTableReducer implements DataTableReducer {
+public class AggregationDataTableReducer implements DataTableReducer, StreamingDataTableReducer {
   private final QueryContext _queryContext;
   private final AggregationFunction[] _aggregationFunctions;
   private final boolean _preserveType;
   private final boolean _responseFormatSql;
 
+  // Merged intermediate results for streaming reduce, null if no data table has been reduced
+  private Object[] _intermediateResults;
+
   AggregationDataTableReducer(QueryContext queryContext) {
     _queryContext = queryContext;
     _aggregationFunctions = queryContext.getAggregationFunctions();
@@ -65,42 +68,81 @@ public class AggregationDataTableReducer implements DataTableReducer {
       Map<ServerRoutingInstance, DataTable> dataTableMap, BrokerResponseNative brokerResponseNative,
       DataTableReducerContext reducerContext, BrokerMetrics brokerMetrics) {
     if (dataTableMap.isEmpty()) {
-      if (_responseFormatSql) {
-        DataSchema resultTableSchema =
-            new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema()).getResultDataSchema();
-        brokerResponseNative.setResultTable(new ResultTable(resultTableSchema, Collections.emptyList()));
-      }
+      setEmptyResults(brokerResponseNative);
       return;
     }
 
     // Merge results from all data tables
-    int numAggregationFunctions = _aggregationFunctions.length;
-    Object[] intermediateResults = new Object[numAggregationFunctions];
+    Object[] intermediateResults = new Object[_aggregationFunctions.length];
     for (DataTable dataTable : dataTableMap.values()) {
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        Object intermediateResultToMerge;
-        ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
-        switch (columnDataType) {
-          case LONG:
-            intermediateResultToMerge = dataTable.getLong(0, i);
-            break;
-          case DOUBLE:
-            intermediateResultToMerge = dataTable.getDouble(0, i);
-            break;
-          case OBJECT:
-            intermediateResultToMerge = dataTable.getObject(0, i);
-            break;
-          default:
-            throw new IllegalStateException("Illegal column data type in aggregation results: " + columnDataType);
-        }
-        Object mergedIntermediateResult = intermediateResults[i];
-        if (mergedIntermediateResult == null) {
-          intermediateResults[i] = intermediateResultToMerge;
-        } else {
-          intermediateResults[i] = _aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
-        }
+      mergeDataTable(intermediateResults, dataTable, dataSchema);
+    }
+    setFinalResults(intermediateResults, dataSchema, brokerResponseNative);
+  }
+
+  @Override
+  public void reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable,
+      DataTableReducerContext reducerContext) {
+    if (_intermediateResults == null) {
+      _intermediateResults = new Object[_aggregationFunctions.length];
+    }
+    mergeDataTable(_intermediateResults, dataTable, dataTable.getDataSchema());
+  }
+
+  @Override
+  public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics) {
+    if (_intermediateResults == null) {
+      setEmptyResults(brokerResponseNative);
+    } else {
+      setFinalResults(_intermediateResults, dataSchema, brokerResponseNative);
+    }
+  }
+
+  private void setEmptyResults(BrokerResponseNative brokerResponseNative) {
+    if (_responseFormatSql) {
+      DataSchema resultTableSchema =
+          new PostAggregationHandler(_queryContext, getPrePostAggregationDataSchema()).getResultDataSchema();
+      brokerResponseNative.setResultTable(new ResultTable(resultTableSchema, Collections.emptyList()));
+    }
+  }
+
+  /**
+   * Merges the intermediate results from the data table into the given intermediate results (in-place).
+   */
+  private void mergeDataTable(Object[] intermediateResults, DataTable dataTable, DataSchema dataSchema) {
+    int numAggregationFunctions = _aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Object intermediateResultToMerge;
+      ColumnDataType columnDataType = dataSchema.getColumnDataType(i);
+      switch (columnDataType) {
+        case LONG:
+          intermediateResultToMerge = dataTable.getLong(0, i);
+          break;
+        case DOUBLE:
+          intermediateResultToMerge = dataTable.getDouble(0, i);
+          break;
+        case OBJECT:
+          intermediateResultToMerge = dataTable.getObject(0, i);
+          break;
+        default:
+          throw new IllegalStateException("Illegal column data type in aggregation results: " + columnDataType);
+      }
+      Object mergedIntermediateResult = intermediateResults[i];
+      if (mergedIntermediateResult == null) {
+        intermediateResults[i] = intermediateResultToMerge;
+      } else {
+        intermediateResults[i] = _aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
       }
     }
+  }
+
+  /**
+   * Extracts the final results from the merged intermediate results and sets them into the broker response.
+   */
+  private void setFinalResults(Object[] intermediateResults, DataSchema dataSchema,
+      BrokerResponseNative brokerResponseNative) {
+    int numAggregationFunctions = _aggregationFunctions.length;
     Serializable[] finalResults = new Serializable[numAggregationFunctions];
     for (int i = 0; i < numAggregationFunctions; i++) {
       finalResults[i] = AggregationFunctionUtils
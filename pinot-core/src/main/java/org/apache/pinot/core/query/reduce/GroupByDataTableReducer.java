@@ -64,7 +64,7 @@ import org.apache.pinot.core.util.trace.TraceRunnable;
  * Helper class to reduce data tables and set group by results into the BrokerResponseNative
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
-public class GroupByDataTableReducer implements DataTableReducer {
+public class GroupByDataTableReducer implements DataTableReducer, StreamingDataTableReducer {
   private static final int MIN_DATA_TABLES_FOR_CONCURRENT_REDUCE = 2; // TBD, find a better value.
 
   private final QueryContext _queryContext;
@@ -78,6 +78,13 @@ public class GroupByDataTableReducer implements DataTableReducer {
   private final boolean _responseFormatSql;
   private final boolean _sqlQuery;
 
+  // States for streaming reduce
+  // Indexed table for SQL group-by mode
+  private IndexedTable _indexedTable;
+  // Column names and merged intermediate result maps for PQL group-by mode
+  private String[] _columnNames;
+  private Map<String, Object>[] _intermediateResultMaps;
+
   GroupByDataTableReducer(QueryContext queryContext) {
     _queryContext = queryContext;
     _aggregationFunctions = queryContext.getAggregationFunctions();
@@ -103,7 +110,6 @@ public class GroupByDataTableReducer implements DataTableReducer {
       Map<ServerRoutingInstance, DataTable> dataTableMap, BrokerResponseNative brokerResponseNative,
       DataTableReducerContext reducerContext, BrokerMetrics brokerMetrics) {
     assert dataSchema != null;
-    int resultSize = 0;
     Collection<DataTable> dataTables = dataTableMap.values();
 
     // For group by, PQL behavior is different than the SQL behavior. In the PQL way,
@@ -117,62 +123,129 @@ public class GroupByDataTableReducer implements DataTableReducer {
     //
     // Long term, we may completely move to sql, and keep only full sql mode alive
     // Until then, we need to support responseFormat = sql for both the modes of execution.
-    // The 4 variants are as described below:
+    // The 4 variants are as described in setSQLGroupByResults() and setPQLGroupByResults()
 
     if (_groupByModeSql) {
+      IndexedTable indexedTable;
+      try {
+        indexedTable = getIndexedTable(dataSchema, dataTables, reducerContext);
+      } catch (TimeoutException e) {
+        brokerResponseNative.getProcessingExceptions()
+            .add(new QueryProcessingException(QueryException.BROKER_TIMEOUT_ERROR_CODE, e.getMessage()));
+        return;
+      }
+      setSQLGroupByResults(tableName, dataSchema, indexedTable, brokerResponseNative, brokerMetrics);
+    } else {
+      String[] columnNames = new String[_numAggregationFunctions];
+      Map<String, Object>[] intermediateResultMaps = new Map[_numAggregationFunctions];
+      for (DataTable dataTable : dataTables) {
+        mergeDataTable(columnNames, intermediateResultMaps, dataTable);
+      }
+      setPQLGroupByResults(tableName, columnNames, intermediateResultMaps, brokerResponseNative, brokerMetrics);
+    }
+  }
 
-      if (_responseFormatSql) {
-        // 1. groupByMode = sql, responseFormat = sql
-        // This is the primary SQL compliant group by
-
-        try {
-          setSQLGroupByInResultTable(brokerResponseNative, dataSchema, dataTables, reducerContext, tableName,
-              brokerMetrics);
-        } catch (TimeoutException e) {
-          brokerResponseNative.getProcessingExceptions()
-              .add(new QueryProcessingException(QueryException.BROKER_TIMEOUT_ERROR_CODE, e.getMessage()));
-        }
-        resultSize = brokerResponseNative.getResultTable().getRows().size();
-      } else {
-        // 2. groupByMode = sql, responseFormat = pql
-        // This mode will invoke SQL style group by execution, but present results in PQL way
-        // This mode is useful for users who want to avail of SQL compliant group by behavior,
-        // w/o having to forcefully move to a new result type
-
-        try {
-          setSQLGroupByInAggregationResults(brokerResponseNative, dataSchema, dataTables, reducerContext);
-        } catch (TimeoutException e) {
-          brokerResponseNative.getProcessingExceptions()
-              .add(new QueryProcessingException(QueryException.BROKER_TIMEOUT_ERROR_CODE, e.getMessage()));
-        }
+  /**
+   * Reduces the data table into the indexed table (SQL group-by mode) or the intermediate result maps (PQL group-by
+   * mode). The indexed table is created with the data schema of the first data table reduced.
+   */
+  @Override
+  public void reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable,
+      DataTableReducerContext reducerContext) {
+    if (_groupByModeSql) {
+      DataSchema dataSchema = dataTable.getDataSchema();
+      if (_indexedTable == null) {
+        // NOTE: Data tables are reduced by a single thread, so use SimpleIndexedTable to avoid the locking overhead
+        _indexedTable =
+            new SimpleIndexedTable(dataSchema, _queryContext, GroupByUtils.getTableCapacity(_queryContext),
+                reducerContext.getGroupByTrimThreshold());
+      }
+      upsertDataTable(_indexedTable, dataTable, dataSchema.getColumnDataTypes());
+    } else {
+      if (_columnNames == null) {
+        _columnNames = new String[_numAggregationFunctions];
+        _intermediateResultMaps = new Map[_numAggregationFunctions];
+      }
+      mergeDataTable(_columnNames, _intermediateResultMaps, dataTable);
+    }
+  }
 
-        if (!brokerResponseNative.getAggregationResults().isEmpty()) {
-          resultSize = brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size();
-        }
+  @Override
+  public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics) {
+    if (_groupByModeSql) {
+      IndexedTable indexedTable = _indexedTable;
+      if (indexedTable == null) {
+        indexedTable = new SimpleIndexedTable(dataSchema, _queryContext, GroupByUtils.getTableCapacity(_queryContext),
+            GroupByOrderByCombineOperator.MAX_TRIM_THRESHOLD);
       }
+      indexedTable.finish(true);
+      setSQLGroupByResults(tableName, dataSchema, indexedTable, brokerResponseNative, brokerMetrics);
     } else {
+      String[] columnNames = _columnNames;
+      Map<String, Object>[] intermediateResultMaps = _intermediateResultMaps;
+      if (columnNames == null) {
+        columnNames = new String[_numAggregationFunctions];
+        intermediateResultMaps = new Map[_numAggregationFunctions];
+      }
+      setPQLGroupByResults(tableName, columnNames, intermediateResultMaps, brokerResponseNative, brokerMetrics);
+    }
+  }
 
-      // 3. groupByMode = pql, responseFormat = sql
-      // This mode is for users who want response presented in SQL style, but want PQL style group by behavior
-      // Multiple aggregations in PQL violates the tabular nature of results
-      // As a result, in this mode, only single aggregations are supported
+  /**
+   * Sets the results of the SQL group-by mode from the finished indexed table.
+   */
+  private void setSQLGroupByResults(String tableName, DataSchema dataSchema, IndexedTable indexedTable,
+      BrokerResponseNative brokerResponseNative, BrokerMetrics brokerMetrics) {
+    int resultSize = 0;
+    if (_responseFormatSql) {
+      // 1. groupByMode = sql, responseFormat = sql
+      // This is the primary SQL compliant group by
 
-      // 4. groupByMode = pql, responseFormat = pql
-      // This is the primary PQL compliant group by
+      setSQLGroupByInResultTable(brokerResponseNative, dataSchema, indexedTable, tableName, brokerMetrics);
+      resultSize = brokerResponseNative.getResultTable().getRows().size();
+    } else {
+      // 2. groupByMode = sql, responseFormat = pql
+      // This mode will invoke SQL style group by execution, but present results in PQL way
+      // This mode is useful for users who want to avail of SQL compliant group by behavior,
+      // w/o having to forcefully move to a new result type
+
+      setSQLGroupByInAggregationResults(brokerResponseNative, dataSchema, indexedTable);
+      if (!brokerResponseNative.getAggregationResults().isEmpty()) {
+        resultSize = brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size();
+      }
+    }
+    if (brokerMetrics != null && resultSize > 0) {
+      brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.GROUP_BY_SIZE, resultSize);
+    }
+  }
 
-      setGroupByResults(brokerResponseNative, dataTables);
+  /**
+   * Sets the results of the PQL group-by mode from the merged intermediate result maps.
+   */
+  private void setPQLGroupByResults(String tableName, String[] columnNames,
+      Map<String, Object>[] intermediateResultMaps, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics) {
+    // 3. groupByMode = pql, responseFormat = sql
+    // This mode is for users who want response presented in SQL style, but want PQL style group by behavior
+    // Multiple aggregations in PQL violates the tabular nature of results
+    // As a result, in this mode, only single aggregations are supported
 
-      if (_responseFormatSql) {
-        resultSize = brokerResponseNative.getResultTable().getRows().size();
-      } else {
-        // We emit the group by size when the result isn't empty. All the sizes among group-by results should be the same.
-        // Thus, we can just emit the one from the 1st result.
-        if (!brokerResponseNative.getAggregationResults().isEmpty()) {
-          resultSize = brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size();
-        }
+    // 4. groupByMode = pql, responseFormat = pql
+    // This is the primary PQL compliant group by
+
+    setGroupByResults(brokerResponseNative, columnNames, intermediateResultMaps);
+
+    int resultSize = 0;
+    if (_responseFormatSql) {
+      resultSize = brokerResponseNative.getResultTable().getRows().size();
+    } else {
+      // We emit the group by size when the result isn't empty. All the sizes among group-by results should be the same.
+      // Thus, we can just emit the one from the 1st result.
+      if (!brokerResponseNative.getAggregationResults().isEmpty()) {
+        resultSize = brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size();
       }
     }
-
     if (brokerMetrics != null && resultSize > 0) {
       brokerMetrics.addMeteredTableValue(tableName, BrokerMeter.GROUP_BY_SIZE, resultSize);
     }
@@ -182,17 +255,12 @@ public class GroupByDataTableReducer implements DataTableReducer {
    * Extract group by order by results and set into {@link ResultTable}
    * @param brokerResponseNative broker response
    * @param dataSchema data schema
-   * @param dataTables Collection of data tables
-   * @param reducerContext DataTableReducer context
+   * @param indexedTable finished indexed table
    * @param rawTableName table name
    * @param brokerMetrics broker metrics (meters)
-   * @throws TimeoutException If unable complete within timeout.
    */
   private void setSQLGroupByInResultTable(BrokerResponseNative brokerResponseNative, DataSchema dataSchema,
-      Collection<DataTable> dataTables, DataTableReducerContext reducerContext, String rawTableName,
-      BrokerMetrics brokerMetrics)
-      throws TimeoutException {
-    IndexedTable indexedTable = getIndexedTable(dataSchema, dataTables, reducerContext);
+      IndexedTable indexedTable, String rawTableName, BrokerMetrics brokerMetrics) {
     if (brokerMetrics != null) {
       brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.NUM_RESIZES, indexedTable.getNumResizes());
       brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESIZE_TIME_MS, indexedTable.getResizeTimeMs());
@@ -313,41 +381,8 @@ public class GroupByDataTableReducer implements DataTableReducer {
         @Override
         public void runJob() {
           for (DataTable dataTable : reduceGroup) {
-            int numRows = dataTable.getNumberOfRows();
-
             try {
-              for (int rowId = 0; rowId < numRows; rowId++) {
-                Object[] values = new Object[_numColumns];
-                for (int colId = 0; colId < _numColumns; colId++) {
-                  switch (columnDataTypes[colId]) {
-                    case INT:
-                      values[colId] = dataTable.getInt(rowId, colId);
-                      break;
-                    case LONG:
-                      values[colId] = dataTable.getLong(rowId, colId);
-                      break;
-                    case FLOAT:
-                      values[colId] = dataTable.getFloat(rowId, colId);
-                      break;
-                    case DOUBLE:
-                      values[colId] = dataTable.getDouble(rowId, colId);
-                      break;
-                    case STRING:
-                      values[colId] = dataTable.getString(rowId, colId);
-                      break;
-                    case BYTES:
-                      values[colId] = dataTable.getBytes(rowId, colId);
-                      break;
-                    case OBJECT:
-                      values[colId] = dataTable.getObject(rowId, colId);
-                      break;
-                    // Add other aggregation intermediate result / group-by column type supports here
-                    default:
-                      throw new IllegalStateException();
-                  }
-                }
-                indexedTable.upsert(new Record(values));
-              }
+              upsertDataTable(indexedTable, dataTable, columnDataTypes);
             } finally {
               countDownLatch.countDown();
             }
@@ -372,6 +407,45 @@ public class GroupByDataTableReducer implements DataTableReducer {
     return indexedTable;
   }
 
+  /**
+   * Helper method to upsert the rows of the data table into the indexed table.
+   */
+  private void upsertDataTable(IndexedTable indexedTable, DataTable dataTable, ColumnDataType[] columnDataTypes) {
+    int numRows = dataTable.getNumberOfRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      Object[] values = new Object[_numColumns];
+      for (int colId = 0; colId < _numColumns; colId++) {
+        switch (columnDataTypes[colId]) {
+          case INT:
+            values[colId] = dataTable.getInt(rowId, colId);
+            break;
+          case LONG:
+            values[colId] = dataTable.getLong(rowId, colId);
+            break;
+          case FLOAT:
+            values[colId] = dataTable.getFloat(rowId, colId);
+            break;
+          case DOUBLE:
+            values[colId] = dataTable.getDouble(rowId, colId);
+            break;
+          case STRING:
+            values[colId] = dataTable.getString(rowId, colId);
+            break;
+          case BYTES:
+            values[colId] = dataTable.getBytes(rowId, colId);
+            break;
+          case OBJECT:
+            values[colId] = dataTable.getObject(rowId, colId);
+            break;
+          // Add other aggregation intermediate result / group-by column type supports here
+          default:
+            throw new IllegalStateException();
+        }
+      }
+      indexedTable.upsert(new Record(values));
+    }
+  }
+
   /**
    * Computes the number of reduce threads to use per query.
    * <ul>
@@ -397,13 +471,10 @@ public class GroupByDataTableReducer implements DataTableReducer {
    * There will be 1 aggregation result per aggregation. The group by keys will be the same across all aggregations
    * @param brokerResponseNative broker response
    * @param dataSchema data schema
-   * @param dataTables Collection of data tables
-   * @param reducerContext DataTableReducer context
-   * @throws TimeoutException If unable to complete within the timeout.
+   * @param indexedTable finished indexed table
    */
   private void setSQLGroupByInAggregationResults(BrokerResponseNative brokerResponseNative, DataSchema dataSchema,
-      Collection<DataTable> dataTables, DataTableReducerContext reducerContext)
-      throws TimeoutException {
+      IndexedTable indexedTable) {
 
     List<String> groupByColumns = new ArrayList<>(_numGroupByExpressions);
     int idx = 0;
@@ -420,39 +491,35 @@ public class GroupByDataTableReducer implements DataTableReducer {
       idx++;
     }
 
-    if (!dataTables.isEmpty()) {
-      IndexedTable indexedTable = getIndexedTable(dataSchema, dataTables, reducerContext);
-
-      int limit = _queryContext.getLimit();
-      Iterator<Record> sortedIterator = indexedTable.iterator();
-      int numRows = 0;
-      while (numRows < limit && sortedIterator.hasNext()) {
-        Record nextRecord = sortedIterator.next();
-        Object[] values = nextRecord.getValues();
-
-        int index = 0;
-        List<String> group = new ArrayList<>(_numGroupByExpressions);
-        while (index < _numGroupByExpressions) {
-          group.add(values[index].toString());
-          index++;
-        }
+    int limit = _queryContext.getLimit();
+    Iterator<Record> sortedIterator = indexedTable.iterator();
+    int numRows = 0;
+    while (numRows < limit && sortedIterator.hasNext()) {
+      Record nextRecord = sortedIterator.next();
+      Object[] values = nextRecord.getValues();
+
+      int index = 0;
+      List<String> group = new ArrayList<>(_numGroupByExpressions);
+      while (index < _numGroupByExpressions) {
+        group.add(values[index].toString());
+        index++;
+      }
 
-        int aggNum = 0;
-        while (index < _numColumns) {
-          Serializable serializableValue =
-              getSerializableValue(_aggregationFunctions[aggNum].extractFinalResult(values[index]));
-          if (!_preserveType) {
-            serializableValue = AggregationFunctionUtils.formatValue(serializableValue);
-          }
-          GroupByResult groupByResult = new GroupByResult();
-          groupByResult.setGroup(group);
-          groupByResult.setValue(serializableValue);
-          groupByResults.get(aggNum).add(groupByResult);
-          index++;
-          aggNum++;
+      int aggNum = 0;
+      while (index < _numColumns) {
+        Serializable serializableValue =
+            getSerializableValue(_aggregationFunctions[aggNum].extractFinalResult(values[index]));
+        if (!_preserveType) {
+          serializableValue = AggregationFunctionUtils.formatValue(serializableValue);
         }
-        numRows++;
+        GroupByResult groupByResult = new GroupByResult();
+        groupByResult.setGroup(group);
+        groupByResult.setValue(serializableValue);
+        groupByResults.get(aggNum).add(groupByResult);
+        index++;
+        aggNum++;
       }
+      numRows++;
     }
 
     List<AggregationResult> aggregationResults = new ArrayList<>(_numAggregationFunctions);
@@ -488,49 +555,45 @@ public class GroupByDataTableReducer implements DataTableReducer {
   }
 
   /**
-   * Reduce group-by results from multiple servers and set them into BrokerResponseNative passed in.
-   *
-   * @param brokerResponseNative broker response.
-   * @param dataTables Collection of data tables
+   * Helper method to merge the intermediate result maps from the data table into the given intermediate result maps
+   * (in-place).
    */
-  private void setGroupByResults(BrokerResponseNative brokerResponseNative, Collection<DataTable> dataTables) {
-
-    // Merge results from all data tables.
-    String[] columnNames = new String[_numAggregationFunctions];
-    Map<String, Object>[] intermediateResultMaps = new Map[_numAggregationFunctions];
-    if (_numGroupByExpressions == 1) {
-      for (DataTable dataTable : dataTables) {
-        for (int i = 0; i < _numAggregationFunctions; i++) {
-          if (columnNames[i] == null) {
-            columnNames[i] = dataTable.getString(i, 0);
-            intermediateResultMaps[i] = dataTable.getObject(i, 1);
-          } else {
-            mergeResultMap(intermediateResultMaps[i], dataTable.getObject(i, 1), _aggregationFunctions[i]);
-          }
-        }
+  private void mergeDataTable(String[] columnNames, Map<String, Object>[] intermediateResultMaps, DataTable dataTable) {
+    for (int i = 0; i < _numAggregationFunctions; i++) {
+      Map<String, Object> intermediateResultMap = dataTable.getObject(i, 1);
+      if (_numGroupByExpressions != 1) {
+        intermediateResultMap = convertLegacyGroupKeyDelimiter(intermediateResultMap);
       }
-    } else {
-      for (DataTable dataTable : dataTables) {
-        for (int i = 0; i < _numAggregationFunctions; i++) {
-          if (columnNames[i] == null) {
-            columnNames[i] = dataTable.getString(i, 0);
-            intermediateResultMaps[i] = convertLegacyGroupKeyDelimiter(dataTable.getObject(i, 1));
-          } else {
-            mergeResultMap(intermediateResultMaps[i], convertLegacyGroupKeyDelimiter(dataTable.getObject(i, 1)),
-                _aggregationFunctions[i]);
-          }
-        }
+      if (columnNames[i] == null) {
+        columnNames[i] = dataTable.getString(i, 0);
+        intermediateResultMaps[i] = intermediateResultMap;
+      } else {
+        mergeResultMap(intermediateResultMaps[i], intermediateResultMap, _aggregationFunctions[i]);
       }
     }
+  }
+
+  /**
+   * Reduce group-by results from multiple servers and set them into BrokerResponseNative passed in.
+   *
+   * @param brokerResponseNative broker response.
+   * @param columnNames column names of the aggregations
+   * @param intermediateResultMaps merged intermediate result maps
+   */
+  private void setGroupByResults(BrokerResponseNative brokerResponseNative, String[] columnNames,
+      Map<String, Object>[] intermediateResultMaps) {
 
     // Extract final result maps from the merged intermediate result maps.
     Map<String, Comparable>[] finalResultMaps = new Map[_numAggregationFunctions];
     for (int i = 0; i < _numAggregationFunctions; i++) {
       Map<String, Object> intermediateResultMap = intermediateResultMaps[i];
       Map<String, Comparable> finalResultMap = new HashMap<>();
-      for (String groupKey : intermediateResultMap.keySet()) {
-        Object intermediateResult = intermediateResultMap.get(groupKey);
-        finalResultMap.put(groupKey, _aggregationFunctions[i].extractFinalResult(intermediateResult));
+      // NOTE: Intermediate result map can be null when there is no data table reduced
+      if (intermediateResultMap != null) {
+        for (String groupKey : intermediateResultMap.keySet()) {
+          Object intermediateResult = intermediateResultMap.get(groupKey);
+          finalResultMap.put(groupKey, _aggregationFunctions[i].extractFinalResult(intermediateResult));
+        }
       }
       finalResultMaps[i] = finalResultMap;
     }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.query.reduce;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.common.function.AggregationFunctionType;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.function.DistinctAggregationFunction;
@@ -54,4 +55,19 @@ public final class ResultReducerFactory {
       }
     }
   }
+
+  /**
+   * Constructs the right streaming result reducer based on the given query context, or returns {@code null} if the
+   * query does not support streaming reduce.
+   * <p>NOTE: DISTINCT query does not support streaming reduce yet, and should be reduced with the batch reduce.
+   */
+  @Nullable
+  public static StreamingDataTableReducer getStreamingResultReducer(QueryContext queryContext) {
+    DataTableReducer dataTableReducer = getResultReducer(queryContext);
+    if (dataTableReducer instanceof StreamingDataTableReducer) {
+      return (StreamingDataTableReducer) dataTableReducer;
+    } else {
+      return null;
+    }
+  }
 }
@@ -45,13 +45,20 @@ import org.slf4j.LoggerFactory;
 /**
  * Helper class to reduce and set Selection results into the BrokerResponseNative
  */
-public class SelectionDataTableReducer implements DataTableReducer {
+public class SelectionDataTableReducer implements DataTableReducer, StreamingDataTableReducer {
   private static final Logger LOGGER = LoggerFactory.getLogger(SelectionDataTableReducer.class);
 
   private final QueryContext _queryContext;
   private final boolean _preserveType;
   private final boolean _responseFormatSql;
 
+  // States for streaming reduce
+  // Data schema of the first data table reduced, upgraded to cover the data schemas of the following data tables
+  private DataSchema _dataSchema;
+  private SelectionOperatorService _selectionService;
+  private List<Object[]> _rows;
+  private final List<ServerRoutingInstance> _droppedServers = new ArrayList<>();
+
   SelectionDataTableReducer(QueryContext queryContext) {
     _queryContext = queryContext;
     QueryOptions queryOptions = new QueryOptions(queryContext.getQueryOptions());
@@ -69,30 +76,12 @@ public class SelectionDataTableReducer implements DataTableReducer {
       Map<ServerRoutingInstance, DataTable> dataTableMap, BrokerResponseNative brokerResponseNative,
       DataTableReducerContext reducerContext, BrokerMetrics brokerMetrics) {
     if (dataTableMap.isEmpty()) {
-      // For empty data table map, construct empty result using the cached data schema for selection query
-      List<String> selectionColumns =
-          SelectionOperatorUtils.getSelectionColumns(_queryContext.getSelectExpressions(), dataSchema);
-      if (_responseFormatSql) {
-        DataSchema selectionDataSchema = SelectionOperatorUtils.getResultTableDataSchema(dataSchema, selectionColumns);
-        brokerResponseNative.setResultTable(new ResultTable(selectionDataSchema, Collections.emptyList()));
-      } else {
-        brokerResponseNative.setSelectionResults(new SelectionResults(selectionColumns, Collections.emptyList()));
-      }
+      setEmptyResults(dataSchema, brokerResponseNative);
     } else {
       // For data table map with more than one data tables, remove conflicting data tables
       if (dataTableMap.size() > 1) {
         List<ServerRoutingInstance> droppedServers = removeConflictingResponses(dataSchema, dataTableMap);
-        if (!droppedServers.isEmpty()) {
-          String errorMessage = QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
-              + " from servers: " + droppedServers + " got dropped due to data schema inconsistency.";
-          LOGGER.warn(errorMessage);
-          if (brokerMetrics != null) {
-            brokerMetrics.addMeteredTableValue(TableNameBuilder.extractRawTableName(tableName),
-                BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
-          }
-          brokerResponseNative
-              .addToExceptions(new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
-        }
+        addDroppedServersException(tableName, droppedServers, brokerResponseNative, brokerMetrics);
       }
 
       int limit = _queryContext.getLimit();
@@ -100,24 +89,113 @@ public class SelectionDataTableReducer implements DataTableReducer {
         // Selection order-by
         SelectionOperatorService selectionService = new SelectionOperatorService(_queryContext, dataSchema);
         selectionService.reduceWithOrdering(dataTableMap.values());
-        if (_responseFormatSql) {
-          brokerResponseNative.setResultTable(selectionService.renderResultTableWithOrdering());
-        } else {
-          brokerResponseNative.setSelectionResults(selectionService.renderSelectionResultsWithOrdering(_preserveType));
-        }
+        setResultsWithOrdering(selectionService, brokerResponseNative);
       } else {
         // Selection only
-        List<String> selectionColumns =
-            SelectionOperatorUtils.getSelectionColumns(_queryContext.getSelectExpressions(), dataSchema);
         List<Object[]> reducedRows = SelectionOperatorUtils.reduceWithoutOrdering(dataTableMap.values(), limit);
-        if (_responseFormatSql) {
-          brokerResponseNative
-              .setResultTable(SelectionOperatorUtils.renderResultTableWithoutOrdering(reducedRows, dataSchema));
-        } else {
-          brokerResponseNative.setSelectionResults(SelectionOperatorUtils
-              .renderSelectionResultsWithoutOrdering(reducedRows, dataSchema, selectionColumns, _preserveType));
-        }
+        setResultsWithoutOrdering(reducedRows, dataSchema, brokerResponseNative);
+      }
+    }
+  }
+
+  /**
+   * Reduces the data table into the selection rows. Data tables not compatible with the data schema of the first data
+   * table reduced are dropped.
+   */
+  @Override
+  public void reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable,
+      DataTableReducerContext reducerContext) {
+    DataSchema dataSchema = dataTable.getDataSchema();
+    int limit = _queryContext.getLimit();
+    boolean orderBy = limit > 0 && _queryContext.getOrderByExpressions() != null;
+    if (_dataSchema == null) {
+      _dataSchema = dataSchema;
+      if (orderBy) {
+        _selectionService = new SelectionOperatorService(_queryContext, dataSchema);
+      } else {
+        _rows = new ArrayList<>(Math.min(limit, SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY));
+      }
+    } else {
+      if (!_dataSchema.isTypeCompatibleWith(dataSchema)) {
+        _droppedServers.add(serverRoutingInstance);
+        return;
+      }
+      _dataSchema.upgradeToCover(dataSchema);
+    }
+
+    if (orderBy) {
+      _selectionService.reduceWithOrdering(Collections.singletonList(dataTable));
+    } else {
+      int numRows = dataTable.getNumberOfRows();
+      for (int rowId = 0; rowId < numRows && _rows.size() < limit; rowId++) {
+        _rows.add(SelectionOperatorUtils.extractRowFromDataTable(dataTable, rowId));
+      }
+    }
+  }
+
+  @Override
+  public void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics) {
+    if (_dataSchema == null) {
+      setEmptyResults(dataSchema, brokerResponseNative);
+      return;
+    }
+    addDroppedServersException(tableName, _droppedServers, brokerResponseNative, brokerMetrics);
+    if (_selectionService != null) {
+      setResultsWithOrdering(_selectionService, brokerResponseNative);
+    } else {
+      setResultsWithoutOrdering(_rows, _dataSchema, brokerResponseNative);
+    }
+  }
+
+  /**
+   * Constructs empty result using the cached data schema for selection query.
+   */
+  private void setEmptyResults(DataSchema dataSchema, BrokerResponseNative brokerResponseNative) {
+    List<String> selectionColumns =
+        SelectionOperatorUtils.getSelectionColumns(_queryContext.getSelectExpressions(), dataSchema);
+    if (_responseFormatSql) {
+      DataSchema selectionDataSchema = SelectionOperatorUtils.getResultTableDataSchema(dataSchema, selectionColumns);
+      brokerResponseNative.setResultTable(new ResultTable(selectionDataSchema, Collections.emptyList()));
+    } else {
+      brokerResponseNative.setSelectionResults(new SelectionResults(selectionColumns, Collections.emptyList()));
+    }
+  }
+
+  private void setResultsWithOrdering(SelectionOperatorService selectionService,
+      BrokerResponseNative brokerResponseNative) {
+    if (_responseFormatSql) {
+      brokerResponseNative.setResultTable(selectionService.renderResultTableWithOrdering());
+    } else {
+      brokerResponseNative.setSelectionResults(selectionService.renderSelectionResultsWithOrdering(_preserveType));
+    }
+  }
+
+  private void setResultsWithoutOrdering(List<Object[]> reducedRows, DataSchema dataSchema,
+      BrokerResponseNative brokerResponseNative) {
+    if (_responseFormatSql) {
+      brokerResponseNative
+          .setResultTable(SelectionOperatorUtils.renderResultTableWithoutOrdering(reducedRows, dataSchema));
+    } else {
+      List<String> selectionColumns =
+          SelectionOperatorUtils.getSelectionColumns(_queryContext.getSelectExpressions(), dataSchema);
+      brokerResponseNative.setSelectionResults(SelectionOperatorUtils
+          .renderSelectionResultsWithoutOrdering(reducedRows, dataSchema, selectionColumns, _preserveType));
+    }
+  }
+
+  private static void addDroppedServersException(String tableName, List<ServerRoutingInstance> droppedServers,
+      BrokerResponseNative brokerResponseNative, BrokerMetrics brokerMetrics) {
+    if (!droppedServers.isEmpty()) {
+      String errorMessage = QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
+          + " from servers: " + droppedServers + " got dropped due to data schema inconsistency.";
+      LOGGER.warn(errorMessage);
+      if (brokerMetrics != null) {
+        brokerMetrics.addMeteredTableValue(TableNameBuilder.extractRawTableName(tableName),
+            BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
       }
+      brokerResponseNative
+          .addToExceptions(new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
     }
   }
 
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.reduce;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+
+
+/**
+ * The {@code StreamingBrokerReducer} reduces the data tables of a query one at a time as they arrive from the servers,
+ * so that the reduce overlaps with waiting for the slower servers, and each data table can be released right after it
+ * is reduced instead of holding all of them until the last server responds.
+ * <p>Call {@link #reduce(ServerRoutingInstance, DataTable)} for each data table received, then call
+ * {@link #getBrokerResponse()} to get the final broker response. The result is the same as reducing all the data
+ * tables with {@link BrokerReduceService#reduceOnDataTable}, except that the order of the selection rows (without
+ * ORDER BY) follows the order of the data tables arriving.
+ */
+@NotThreadSafe
+public class StreamingBrokerReducer {
+  private final BrokerRequest _brokerRequest;
+  private final QueryContext _queryContext;
+  private final StreamingDataTableReducer _dataTableReducer;
+  private final DataTableReducerContext _reducerContext;
+  private final BrokerMetrics _brokerMetrics;
+  private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+  private final DataTableMetadataAggregator _metadataAggregator;
+
+  // Cache a data schema from data tables (try to cache one with data rows associated with it).
+  private DataSchema _cachedDataSchema;
+  private int _numDataTablesReduced;
+
+  StreamingBrokerReducer(BrokerRequest brokerRequest, QueryContext queryContext,
+      StreamingDataTableReducer dataTableReducer, DataTableReducerContext reducerContext,
+      @Nullable BrokerMetrics brokerMetrics) {
+    _brokerRequest = brokerRequest;
+    _queryContext = queryContext;
+    _dataTableReducer = dataTableReducer;
+    _reducerContext = reducerContext;
+    _brokerMetrics = brokerMetrics;
+    _metadataAggregator = new DataTableMetadataAggregator(brokerRequest.isEnableTrace(), _brokerResponseNative);
+  }
+
+  /**
+   * Reduces the data table received from the given server.
+   */
+  public void reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable) {
+    _numDataTablesReduced++;
+    _metadataAggregator.aggregate(serverRoutingInstance, dataTable);
+
+    // Skip data tables without data rows inside after processing the metadata
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null) {
+      return;
+    }
+    if (dataTable.getNumberOfRows() == 0) {
+      if (_cachedDataSchema == null) {
+        _cachedDataSchema = dataSchema;
+      }
+      return;
+    }
+    _cachedDataSchema = dataSchema;
+    _dataTableReducer.reduce(serverRoutingInstance, dataTable, _reducerContext);
+  }
+
+  /**
+   * Returns the number of data tables reduced.
+   */
+  public int getNumDataTablesReduced() {
+    return _numDataTablesReduced;
+  }
+
+  /**
+   * Returns the broker response with the results of all the data tables reduced. Should be called only once after all
+   * the data tables are reduced.
+   */
+  public BrokerResponseNative getBrokerResponse() {
+    if (_numDataTablesReduced == 0) {
+      // Empty response.
+      return BrokerResponseNative.empty();
+    }
+
+    // Set execution statistics and update broker metrics.
+    String rawTableName = TableNameBuilder.extractRawTableName(_brokerRequest.getQuerySource().getTableName());
+    _metadataAggregator.setStats(rawTableName, _brokerMetrics);
+
+    // NOTE: When there is no cached data schema, that means all servers encountered exception. In such case, return the
+    //       response with metadata only.
+    if (_cachedDataSchema == null) {
+      return _brokerResponseNative;
+    }
+
+    _dataTableReducer.setResults(rawTableName, _cachedDataSchema, _brokerResponseNative, _brokerMetrics);
+    BrokerReduceService.updateAlias(_queryContext, _brokerResponseNative);
+    return _brokerResponseNative;
+  }
+}
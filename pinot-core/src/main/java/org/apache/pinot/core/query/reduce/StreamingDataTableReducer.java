@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.reduce;
+
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+
+
+/**
+ * Interface for data table reducers that can reduce the data tables one at a time as they arrive from the servers,
+ * instead of waiting for all the data tables to be gathered.
+ * <p>The reducer keeps the intermediate results across the calls, and is not thread-safe.
+ */
+public interface StreamingDataTableReducer {
+
+  /**
+   * Reduces a data table (with data schema and data rows) into the intermediate results.
+   * @param serverRoutingInstance server the data table is received from
+   * @param dataTable data table to reduce
+   * @param reducerContext DataTableReducer context
+   */
+  void reduce(ServerRoutingInstance serverRoutingInstance, DataTable dataTable,
+      DataTableReducerContext reducerContext);
+
+  /**
+   * Sets the results of the reduced data tables into the BrokerResponseNative
+   * @param tableName table name
+   * @param dataSchema schema from broker reduce service
+   * @param brokerResponseNative broker response
+   * @param brokerMetrics broker metrics
+   */
+  void setResults(String tableName, DataSchema dataSchema, BrokerResponseNative brokerResponseNative,
+      BrokerMetrics brokerMetrics);
+}
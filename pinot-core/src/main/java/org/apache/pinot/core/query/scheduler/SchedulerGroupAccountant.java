@@ -72,4 +72,23 @@ public interface SchedulerGroupAccountant extends Comparable<SchedulerGroupAccou
    * Mark end of query execution.
    */
   void endQuery();
+
+  /**
+   * Charges the CPU time consumed by a thread executing a query of this group. Implementors that schedule based on
+   * the actual CPU utilization can override this method; wall clock based accounting ignores it.
+   * @param cpuTimeNs CPU time in nanoseconds
+   */
+  default void addCpuTimeNs(long cpuTimeNs) {
+  }
+
+  /**
+   * Returns whether the worker threads of a query of this group should give up their threads to other groups between
+   * segment boundaries. This is used to deprioritize long-running queries of groups using more than their share of
+   * resources.
+   * @param queryRunningTimeMs time since the query started executing
+   * @return true if the worker threads should yield
+   */
+  default boolean shouldYieldWorkers(long queryRunningTimeMs) {
+    return false;
+  }
 }
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.scheduler.fairshare;
+
+import com.google.common.util.concurrent.ListenableFutureTask;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAccumulator;
+import javax.annotation.Nonnull;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.query.executor.QueryExecutor;
+import org.apache.pinot.core.query.request.ServerQueryRequest;
+import org.apache.pinot.core.query.scheduler.MultiLevelPriorityQueue;
+import org.apache.pinot.core.query.scheduler.PriorityScheduler;
+import org.apache.pinot.core.query.scheduler.SchedulerGroup;
+import org.apache.pinot.core.query.scheduler.SchedulerGroupFactory;
+import org.apache.pinot.core.query.scheduler.TableBasedGroupMapper;
+import org.apache.pinot.core.query.scheduler.resources.BoundedAccountingExecutor;
+import org.apache.pinot.core.query.scheduler.resources.PolicyBasedResourceManager;
+import org.apache.pinot.core.query.scheduler.resources.ResourceManager;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+
+
+/**
+ * Schedules queries from the {@link SchedulerGroup} with the lowest weighted CPU usage on priority.
+ * This is a thin wrapper factory class that configures {@link PriorityScheduler} with
+ * {@link FairShareSchedulerGroup}, and charges the CPU time of the query runner threads to the groups (the CPU time
+ * of the query worker threads is charged by {@link BoundedAccountingExecutor}).
+ *
+ * The weight of a table is configured with {@code table_weight.<tableNameWithType>} or
+ * {@code table_weight.<rawTableName>}, and defaults to {@code default_table_weight}.
+ */
+public class FairSharePriorityScheduler extends PriorityScheduler {
+  public static final String TABLE_WEIGHT_KEY_PREFIX = "table_weight.";
+  public static final String DEFAULT_TABLE_WEIGHT_KEY = "default_table_weight";
+  public static final String CPU_USAGE_HALF_LIFE_MS_KEY = "cpu_usage_half_life_ms";
+  public static final String YIELD_WORKERS_AFTER_MS_KEY = "yield_workers_after_ms";
+  private static final double DEFAULT_TABLE_WEIGHT = 1.0;
+  private static final long DEFAULT_CPU_USAGE_HALF_LIFE_MS = 10_000L;
+  private static final long DEFAULT_YIELD_WORKERS_AFTER_MS = 1_000L;
+
+  public static FairSharePriorityScheduler create(@Nonnull PinotConfiguration config,
+      @Nonnull QueryExecutor queryExecutor, @Nonnull ServerMetrics metrics, @Nonnull LongAccumulator latestQueryTime) {
+    final ResourceManager rm = new PolicyBasedResourceManager(config);
+    final Map<String, FairShareSchedulerGroup> schedulerGroups = new ConcurrentHashMap<>();
+    final SchedulerGroupFactory groupFactory = new SchedulerGroupFactory() {
+      @Override
+      public SchedulerGroup create(PinotConfiguration config, String groupName) {
+        double defaultWeight = config.getProperty(DEFAULT_TABLE_WEIGHT_KEY, DEFAULT_TABLE_WEIGHT);
+        double weight = config.getProperty(TABLE_WEIGHT_KEY_PREFIX + groupName,
+            config.getProperty(TABLE_WEIGHT_KEY_PREFIX + TableNameBuilder.extractRawTableName(groupName),
+                defaultWeight));
+        long cpuUsageHalfLifeMs = config.getProperty(CPU_USAGE_HALF_LIFE_MS_KEY, DEFAULT_CPU_USAGE_HALF_LIFE_MS);
+        long yieldWorkersAfterMs = config.getProperty(YIELD_WORKERS_AFTER_MS_KEY, DEFAULT_YIELD_WORKERS_AFTER_MS);
+
+        FairShareSchedulerGroup group =
+            new FairShareSchedulerGroup(groupName, weight, cpuUsageHalfLifeMs, yieldWorkersAfterMs,
+                schedulerGroups.values());
+        schedulerGroups.put(groupName, group);
+        return group;
+      }
+    };
+
+    MultiLevelPriorityQueue queue = new MultiLevelPriorityQueue(config, rm, groupFactory, new TableBasedGroupMapper());
+    return new FairSharePriorityScheduler(config, rm, queryExecutor, queue, metrics, latestQueryTime);
+  }
+
+  private FairSharePriorityScheduler(@Nonnull PinotConfiguration config, @Nonnull ResourceManager resourceManager,
+      @Nonnull QueryExecutor queryExecutor, @Nonnull MultiLevelPriorityQueue queue, @Nonnull ServerMetrics metrics,
+      @Nonnull LongAccumulator latestQueryTime) {
+    super(config, resourceManager, queryExecutor, queue, metrics, latestQueryTime);
+  }
+
+  @Override
+  protected ListenableFutureTask<byte[]> createQueryFutureTask(@Nonnull ServerQueryRequest queryRequest,
+      @Nonnull ExecutorService executorService) {
+    if (!(executorService instanceof BoundedAccountingExecutor)) {
+      return super.createQueryFutureTask(queryRequest, executorService);
+    }
+    BoundedAccountingExecutor accountingExecutor = (BoundedAccountingExecutor) executorService;
+    return ListenableFutureTask.create(() -> {
+      long startCpuTimeNs = BoundedAccountingExecutor.getCurrentThreadCpuTimeNs();
+      try {
+        return processQueryAndSerialize(queryRequest, executorService);
+      } finally {
+        accountingExecutor.addCpuTimeNs(BoundedAccountingExecutor.getCurrentThreadCpuTimeNs() - startCpuTimeNs);
+      }
+    });
+  }
+
+  @Override
+  public String name() {
+    return "FairShare";
+  }
+}
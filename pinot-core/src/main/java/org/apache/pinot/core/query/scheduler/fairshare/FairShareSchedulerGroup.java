@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.scheduler.fairshare;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import org.apache.pinot.core.query.scheduler.AbstractSchedulerGroup;
+import org.apache.pinot.core.query.scheduler.SchedulerGroup;
+import org.apache.pinot.core.query.scheduler.SchedulerGroupAccountant;
+import org.apache.pinot.core.query.scheduler.fcfs.FCFSSchedulerGroup;
+
+
+/**
+ * Scheduler group that manages accounting based on the CPU time consumed by its queries.
+ *
+ * The CPU time of the query runner and worker threads is charged to the group, and decays exponentially over time
+ * so that recent utilization weighs more than the history. The decayed CPU time divided by the weight of the group
+ * is its normalized usage. Group with lower normalized usage has higher priority, which gives each group a share of
+ * the CPU proportional to its weight, so that a heavy group cannot starve the light ones.
+ *
+ * Long-running queries of a group are deprioritized when another group with lower normalized usage has pending
+ * queries: their worker threads give up the threads between segments.
+ */
+public class FairShareSchedulerGroup extends AbstractSchedulerGroup {
+  private final double weight;
+  private final long cpuUsageHalfLifeMs;
+  // Minimum running time of a query before its worker threads can be asked to yield, negative to never yield
+  private final long yieldWorkersAfterMs;
+  // All the scheduler groups (including this one), used to check whether groups with lower usage are waiting
+  private final Collection<FairShareSchedulerGroup> schedulerGroups;
+
+  // Decayed CPU time in nanoseconds
+  private double cpuUsageNs;
+  // Last time the CPU usage was decayed
+  private long lastDecayTimeMs;
+
+  FairShareSchedulerGroup(String schedGroupName, double weight, long cpuUsageHalfLifeMs, long yieldWorkersAfterMs,
+      Collection<FairShareSchedulerGroup> schedulerGroups) {
+    super(schedGroupName);
+    Preconditions.checkArgument(weight > 0);
+    Preconditions.checkArgument(cpuUsageHalfLifeMs > 0);
+    this.weight = weight;
+    this.cpuUsageHalfLifeMs = cpuUsageHalfLifeMs;
+    this.yieldWorkersAfterMs = yieldWorkersAfterMs;
+    this.schedulerGroups = schedulerGroups;
+    lastDecayTimeMs = currentTimeMillis();
+  }
+
+  double getWeight() {
+    return weight;
+  }
+
+  /**
+   * Returns the decayed CPU time divided by the weight of the group.
+   */
+  synchronized double getNormalizedCpuUsage() {
+    decayCpuUsage();
+    return cpuUsageNs / weight;
+  }
+
+  @Override
+  public synchronized void addCpuTimeNs(long cpuTimeNs) {
+    decayCpuUsage();
+    cpuUsageNs += cpuTimeNs;
+  }
+
+  @Override
+  public boolean shouldYieldWorkers(long queryRunningTimeMs) {
+    if (yieldWorkersAfterMs < 0 || queryRunningTimeMs < yieldWorkersAfterMs) {
+      return false;
+    }
+    double normalizedCpuUsage = getNormalizedCpuUsage();
+    for (FairShareSchedulerGroup group : schedulerGroups) {
+      if (group != this && !group.isEmpty() && group.getNormalizedCpuUsage() < normalizedCpuUsage) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compares priority of this group with respect to another scheduler group.
+   * Priority is compared on the basis of normalized CPU usage. SchedulerGroup with
+   * lower usage wins. If both groups have the same usage then the group with earliest
+   * waiting job has higher priority (FCFS if usages are equal).
+   * @param rhs SchedulerGroupAccount to compare with
+   * @return < 0 if lhs has lower priority than rhs
+   *     > 0 if lhs has higher priority than rhs
+   *     = 0 if lhs has same priority as rhs
+   */
+  @Override
+  public int compareTo(SchedulerGroupAccountant rhs) {
+    if (rhs == null) {
+      return 1;
+    }
+
+    if (this == rhs) {
+      return 0;
+    }
+
+    int comparison =
+        Double.compare(((FairShareSchedulerGroup) rhs).getNormalizedCpuUsage(), getNormalizedCpuUsage());
+    if (comparison != 0) {
+      return comparison;
+    }
+    return FCFSSchedulerGroup.compare(this, (SchedulerGroup) rhs);
+  }
+
+  public String toString() {
+    return String
+        .format(" {%s:[%.0f,%d,%d,%d,%d]},", name(), getNormalizedCpuUsage(), numPending(), numRunning(),
+            getThreadsInUse(), totalReservedThreads());
+  }
+
+  // callers must synchronize access to this method
+  private void decayCpuUsage() {
+    long currentTimeMs = currentTimeMillis();
+    long diffMs = currentTimeMs - lastDecayTimeMs;
+    if (diffMs > 0) {
+      cpuUsageNs *= Math.pow(0.5, (double) diffMs / cpuUsageHalfLifeMs);
+      lastDecayTimeMs = currentTimeMs;
+    }
+  }
+
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+}
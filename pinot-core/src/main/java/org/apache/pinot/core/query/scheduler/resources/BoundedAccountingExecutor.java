@@ -19,8 +19,11 @@
 package org.apache.pinot.core.query.scheduler.resources;
 
 import com.google.common.base.Preconditions;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 import org.apache.pinot.core.query.scheduler.SchedulerGroupAccountant;
 import org.slf4j.Logger;
@@ -36,14 +39,26 @@ import org.slf4j.LoggerFactory;
  * This class also supports a resource accounting interface to accurately track resources
  * utilization based on submission time and end time of a task. This does not require
  * any changes to client code which continue to use ExecutorService interface.
+ *
+ * The CPU time consumed by the tasks is measured with {@link ThreadMXBean}, recorded per query and charged to the
+ * accountant, so that the scheduler can account for the actual CPU utilization of the queries in addition to the wall
+ * clock time. CPU time is charged when a task finishes, and also when a running task checks
+ * {@link #shouldYieldWorker()} between segments so that long-running tasks are accounted for while running.
  */
 public class BoundedAccountingExecutor extends QueryExecutorService {
   private static Logger LOGGER = LoggerFactory.getLogger(BoundedAccountingExecutor.class);
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean THREAD_CPU_TIME_SUPPORTED =
+      THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+  // Thread CPU time when the CPU time of the task running on the current thread was last charged, -1 if no task running
+  private static final ThreadLocal<long[]> LAST_CHARGED_CPU_TIME_NS = ThreadLocal.withInitial(() -> new long[]{-1});
 
   private final Executor delegateExecutor;
   private final int bounds;
   private Semaphore semaphore;
   private final SchedulerGroupAccountant accountant;
+  private final long startTimeMs;
+  private final AtomicLong cpuTimeNs = new AtomicLong();
 
   public BoundedAccountingExecutor(@Nonnull Executor s, int bounds, @Nonnull SchedulerGroupAccountant accountant) {
     Preconditions.checkNotNull(s);
@@ -53,6 +68,15 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
     this.bounds = bounds;
     this.semaphore = new Semaphore(bounds);
     this.accountant = accountant;
+    this.startTimeMs = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the CPU time consumed by the current thread in nanoseconds, or the wall clock time in nanoseconds if thread
+   * CPU time measurement is not supported by the JVM. Only the difference between two calls is meaningful.
+   */
+  public static long getCurrentThreadCpuTimeNs() {
+    return THREAD_CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
   }
 
   @Override
@@ -65,6 +89,33 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
     accountant.releasedReservedThreads(bounds);
   }
 
+  @Override
+  public boolean shouldYieldWorker() {
+    long[] lastChargedCpuTimeNs = LAST_CHARGED_CPU_TIME_NS.get();
+    if (lastChargedCpuTimeNs[0] >= 0) {
+      long currentCpuTimeNs = getCurrentThreadCpuTimeNs();
+      addCpuTimeNs(currentCpuTimeNs - lastChargedCpuTimeNs[0]);
+      lastChargedCpuTimeNs[0] = currentCpuTimeNs;
+    }
+    return accountant.shouldYieldWorkers(System.currentTimeMillis() - startTimeMs);
+  }
+
+  /**
+   * Records the CPU time consumed by the query and charges it to the accountant. Can be called to charge the CPU time
+   * of a thread outside of this executor (e.g. the query runner thread).
+   */
+  public void addCpuTimeNs(long cpuTimeNs) {
+    this.cpuTimeNs.addAndGet(cpuTimeNs);
+    accountant.addCpuTimeNs(cpuTimeNs);
+  }
+
+  /**
+   * Returns the CPU time in nanoseconds consumed by the query so far.
+   */
+  public long getCpuTimeNs() {
+    return cpuTimeNs.get();
+  }
+
   private QueryAccountingRunnable toAccountingRunnable(Runnable runnable) {
     acquirePermits(1);
     return new QueryAccountingRunnable(runnable, semaphore, accountant);
@@ -92,12 +143,16 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
 
     @Override
     public void run() {
+      long[] lastChargedCpuTimeNs = LAST_CHARGED_CPU_TIME_NS.get();
+      lastChargedCpuTimeNs[0] = getCurrentThreadCpuTimeNs();
       try {
         if (accountant != null) {
           accountant.incrementThreads();
         }
         runnable.run();
       } finally {
+        addCpuTimeNs(getCurrentThreadCpuTimeNs() - lastChargedCpuTimeNs[0]);
+        lastChargedCpuTimeNs[0] = -1;
         if (accountant != null) {
           accountant.decrementThreads();
         }
@@ -51,6 +51,14 @@ public abstract class QueryExecutorService implements ExecutorService {
 
   }
 
+  /**
+   * Returns whether a worker thread of the query should stop picking up new segments and give up the thread to other
+   * queries. Checked between segment boundaries, the remaining segments are processed by the other worker threads.
+   */
+  public boolean shouldYieldWorker() {
+    return false;
+  }
+
   @Override
   public <T> Future<T> submit(Runnable task, T result) {
     return submit(Executors.callable(task, result));
@@ -126,7 +126,9 @@ public class RealtimeSegmentConverter {
     RealtimeSegmentSegmentCreationDataSource dataSource =
         new RealtimeSegmentSegmentCreationDataSource(_realtimeSegmentImpl, reader, _dataSchema);
     driver.init(genConfig, dataSource, CompositeTransformer.getPassThroughTransformer());
-    driver.build();
+    // Build the segment column by column from the mutable segment, which reuses the mutable dictionaries and statistics
+    // without re-reading the records
+    driver.buildColumnar(_realtimeSegmentImpl, reader.getSortedDocIdIterationOrder());
 
     if (segmentPartitionConfig != null) {
       Map<String, ColumnPartitionConfig> columnPartitionMap = segmentPartitionConfig.getColumnPartitionMap();
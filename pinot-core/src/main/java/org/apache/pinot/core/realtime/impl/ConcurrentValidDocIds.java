@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.realtime.impl;
+
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MappeableBitmapContainer;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Concurrent bitmap of the valid doc ids for the upsert segments, where the queries can read the valid doc ids without
+ * locking while the upsert metadata manager is updating them.
+ * <p>The doc ids are stored as a bit set split into chunks of 2^16 bits (same as the containers of the roaring bitmap).
+ * Bits are set and cleared with CAS on the words, and new chunks are published by replacing the chunk array (copy on
+ * write), so neither the writers nor the readers need to lock for existing chunks.
+ * <p>The queries read an immutable snapshot of the valid doc ids, which is cached and shared by all the queries until
+ * the next modification (tracked by a version number incremented after each modification).
+ */
+public class ConcurrentValidDocIds {
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+  private static final int WORD_SHIFT = 6;
+  private static final int NUM_WORDS_PER_CHUNK = 1 << (CHUNK_SHIFT - WORD_SHIFT);
+
+  private final AtomicLong _version = new AtomicLong();
+  private volatile AtomicLongArray[] _chunks = new AtomicLongArray[0];
+  private volatile Snapshot _snapshot = new Snapshot(0, new MutableRoaringBitmap());
+
+  public void add(int docId) {
+    AtomicLongArray chunk = getOrCreateChunk(docId >>> CHUNK_SHIFT);
+    int wordIndex = (docId & CHUNK_MASK) >>> WORD_SHIFT;
+    long mask = 1L << docId;
+    while (true) {
+      long word = chunk.get(wordIndex);
+      if ((word & mask) != 0) {
+        return;
+      }
+      if (chunk.compareAndSet(wordIndex, word, word | mask)) {
+        _version.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  public void remove(int docId) {
+    AtomicLongArray chunk = getChunk(docId >>> CHUNK_SHIFT);
+    if (chunk == null) {
+      return;
+    }
+    int wordIndex = (docId & CHUNK_MASK) >>> WORD_SHIFT;
+    long mask = 1L << docId;
+    while (true) {
+      long word = chunk.get(wordIndex);
+      if ((word & mask) == 0) {
+        return;
+      }
+      if (chunk.compareAndSet(wordIndex, word, word & ~mask)) {
+        _version.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  public boolean contains(int docId) {
+    AtomicLongArray chunk = getChunk(docId >>> CHUNK_SHIFT);
+    return chunk != null && (chunk.get((docId & CHUNK_MASK) >>> WORD_SHIFT) & (1L << docId)) != 0;
+  }
+
+  /**
+   * Returns an immutable snapshot of the valid doc ids without locking. The snapshot includes all the modifications
+   * finished before this method is invoked, and is shared across the callers until the next modification.
+   */
+  public ImmutableRoaringBitmap getSnapshot() {
+    // NOTE: Read the version before reading the chunks so that the snapshot contains all the modifications up to this
+    //       version (version is incremented after the bit is modified).
+    long version = _version.get();
+    Snapshot snapshot = _snapshot;
+    if (snapshot._version == version) {
+      return snapshot._bitmap;
+    }
+    MutableRoaringBitmap bitmap = buildBitmap();
+    if (version > snapshot._version) {
+      _snapshot = new Snapshot(version, bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns a copy of the valid doc ids that can be modified by the caller.
+   */
+  public MutableRoaringBitmap getMutableRoaringBitmap() {
+    return buildBitmap();
+  }
+
+  private MutableRoaringBitmap buildBitmap() {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    AtomicLongArray[] chunks = _chunks;
+    int numChunks = chunks.length;
+    for (int i = 0; i < numChunks; i++) {
+      AtomicLongArray chunk = chunks[i];
+      if (chunk == null) {
+        continue;
+      }
+      long[] words = new long[NUM_WORDS_PER_CHUNK];
+      boolean empty = true;
+      for (int j = 0; j < NUM_WORDS_PER_CHUNK; j++) {
+        long word = chunk.get(j);
+        words[j] = word;
+        empty &= word == 0;
+      }
+      if (!empty) {
+        // Cardinality -1 to compute the cardinality and convert to array container for sparse chunks
+        bitmap.append((char) i, new MappeableBitmapContainer(LongBuffer.wrap(words), -1).repairAfterLazy());
+      }
+    }
+    return bitmap;
+  }
+
+  private AtomicLongArray getChunk(int chunkId) {
+    AtomicLongArray[] chunks = _chunks;
+    return chunkId < chunks.length ? chunks[chunkId] : null;
+  }
+
+  private AtomicLongArray getOrCreateChunk(int chunkId) {
+    AtomicLongArray chunk = getChunk(chunkId);
+    if (chunk != null) {
+      return chunk;
+    }
+    synchronized (this) {
+      AtomicLongArray[] chunks = _chunks;
+      int numChunks = chunks.length;
+      if (chunkId < numChunks && chunks[chunkId] != null) {
+        return chunks[chunkId];
+      }
+      AtomicLongArray[] newChunks = new AtomicLongArray[Math.max(numChunks, chunkId + 1)];
+      System.arraycopy(chunks, 0, newChunks, 0, numChunks);
+      chunk = new AtomicLongArray(NUM_WORDS_PER_CHUNK);
+      newChunks[chunkId] = chunk;
+      _chunks = newChunks;
+      return chunk;
+    }
+  }
+
+  private static class Snapshot {
+    final long _version;
+    final ImmutableRoaringBitmap _bitmap;
+
+    Snapshot(long version, ImmutableRoaringBitmap bitmap) {
+      _version = version;
+      _bitmap = bitmap;
+    }
+  }
+}
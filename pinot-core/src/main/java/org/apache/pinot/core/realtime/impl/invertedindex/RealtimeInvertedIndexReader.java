@@ -18,68 +18,211 @@
  */
 package org.apache.pinot.core.realtime.impl.invertedindex;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
 import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
 /**
- * Real-time bitmap based inverted index reader which allows adding values on the fly.
- * <p>This class is thread-safe for single writer multiple readers.
+ * Real-time inverted index reader which allows adding values on the fly.
+ * <p>This class is thread-safe for single writer multiple readers without locking. The document ids for each dictionary
+ * id are kept in an append-only posting list, and the readers only read the part of the posting list published by the
+ * writer. Because documents are indexed in order, each posting list is sorted, and the documents beyond the number of
+ * documents indexed in the segment can be skipped (see {@link #getReader(int)}).
+ * <p>Each posting list keeps the document ids of the current block (2^16 document ids, same as a roaring bitmap
+ * container) in an int array, and seals the previous blocks into an immutable roaring bitmap that is replaced (instead
+ * of modified) when a block is sealed. This bounds the int arrays of a column to the documents of one block (at most
+ * 512KB after doubling for a single-value column), while the sealed documents take the same memory as a regular roaring
+ * bitmap (e.g. 8KB per block for a dense posting list of a low cardinality column).
  */
 public class RealtimeInvertedIndexReader implements InvertedIndexReader<MutableRoaringBitmap> {
-  private final List<ThreadSafeMutableRoaringBitmap> _bitmaps = new ArrayList<>();
-  private final ReentrantReadWriteLock.ReadLock _readLock;
-  private final ReentrantReadWriteLock.WriteLock _writeLock;
-
-  public RealtimeInvertedIndexReader() {
-    ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    _readLock = readWriteLock.readLock();
-    _writeLock = readWriteLock.writeLock();
-  }
+  private static final int INITIAL_NUM_POSTING_LISTS = 16;
+
+  // NOTE: The writer publishes the array before the size when the array is grown, and both fields are volatile. Readers
+  //       should always read the size before reading the array, so that the array read is at least the one published
+  //       together with the size, and contains all the elements below the size (a grown array is a copy of the previous
+  //       one, so reading a newer array is also safe).
+  private volatile PostingList[] _postingLists = new PostingList[INITIAL_NUM_POSTING_LISTS];
+  private volatile int _numPostingLists;
 
   /**
-   * Adds the document id to the bitmap of the given dictionary id.
+   * Adds the document id to the posting list of the given dictionary id.
    */
   public void add(int dictId, int docId) {
-    if (_bitmaps.size() == dictId) {
-      // Bitmap for the dictionary id does not exist, add a new bitmap into the list
-      ThreadSafeMutableRoaringBitmap bitmap = new ThreadSafeMutableRoaringBitmap(docId);
-      try {
-        _writeLock.lock();
-        _bitmaps.add(bitmap);
-      } finally {
-        _writeLock.unlock();
-      }
-    } else {
-      // Bitmap for the dictionary id already exists, check and add document id into the bitmap
-      _bitmaps.get(dictId).add(docId);
+    int numPostingLists = _numPostingLists;
+    if (dictId < numPostingLists) {
+      _postingLists[dictId].add(docId);
+      return;
     }
+
+    // Posting list for the dictionary id does not exist, add the new posting lists
+    // NOTE: For multi-valued column, the dictionary id might be larger than the number of posting lists (not equal).
+    PostingList[] postingLists = _postingLists;
+    if (dictId >= postingLists.length) {
+      postingLists = Arrays.copyOf(postingLists, Math.max(postingLists.length * 2, dictId + 1));
+    }
+    for (int i = numPostingLists; i < dictId; i++) {
+      postingLists[i] = new PostingList();
+    }
+    PostingList postingList = new PostingList();
+    postingList.add(docId);
+    postingLists[dictId] = postingList;
+    _postingLists = postingLists;
+    _numPostingLists = dictId + 1;
   }
 
   @Override
   public MutableRoaringBitmap getDocIds(int dictId) {
-    ThreadSafeMutableRoaringBitmap bitmap;
-    try {
-      _readLock.lock();
-      // NOTE: the given dictionary id might not be added to the inverted index yet. We first add the value to the
-      // dictionary. Before the value is added to the inverted index, the query might have predicates that match the
-      // newly added value. In that case, the given dictionary id does not exist in the inverted index, and we return an
-      // empty bitmap. For multi-valued column, the dictionary id might be larger than the bitmap size (not equal).
-      if (_bitmaps.size() <= dictId) {
-        return new MutableRoaringBitmap();
-      }
-      bitmap = _bitmaps.get(dictId);
-    } finally {
-      _readLock.unlock();
+    return getDocIds(dictId, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the document ids smaller than the given number of documents for the given dictionary id.
+   */
+  public MutableRoaringBitmap getDocIds(int dictId, int numDocs) {
+    MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+    // NOTE: the given dictionary id might not be added to the inverted index yet. We first add the value to the
+    // dictionary. Before the value is added to the inverted index, the query might have predicates that match the
+    // newly added value. In that case, the given dictionary id does not exist in the inverted index, and we return an
+    // empty bitmap.
+    if (dictId < _numPostingLists) {
+      _postingLists[dictId].addTo(docIds, numDocs);
+    }
+    return docIds;
+  }
+
+  /**
+   * Returns the estimated size of the posting lists in bytes.
+   */
+  @VisibleForTesting
+  long getSizeInBytes() {
+    int numPostingLists = _numPostingLists;
+    PostingList[] postingLists = _postingLists;
+    long sizeInBytes = 0;
+    for (int i = 0; i < numPostingLists; i++) {
+      sizeInBytes += postingLists[i].getSizeInBytes();
     }
-    return bitmap.getMutableRoaringBitmap();
+    return sizeInBytes;
+  }
+
+  /**
+   * Returns a reader which only returns the document ids smaller than the given number of documents. It is used to
+   * bound the inverted index to the documents already indexed in the segment, so that queries never see the documents
+   * that are partially indexed.
+   */
+  public InvertedIndexReader<MutableRoaringBitmap> getReader(int numDocs) {
+    return new InvertedIndexReader<MutableRoaringBitmap>() {
+      @Override
+      public MutableRoaringBitmap getDocIds(int dictId) {
+        return RealtimeInvertedIndexReader.this.getDocIds(dictId, numDocs);
+      }
+
+      @Override
+      public void close() {
+      }
+    };
   }
 
   @Override
   public void close() {
   }
+
+  /**
+   * Append-only sorted list of document ids for a dictionary id.
+   */
+  private static class PostingList {
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final MutableRoaringBitmap EMPTY_BITMAP = new MutableRoaringBitmap();
+
+    // NOTE: The sealed bitmap is never modified after being published. The writer publishes the sealed bitmap before
+    //       the new current block, and readers should read the current block before the sealed bitmap, so that the
+    //       documents of the current block read are always either in the current block or in the sealed bitmap.
+    private volatile MutableRoaringBitmap _sealedDocIds = EMPTY_BITMAP;
+    private volatile CurrentBlock _currentBlock = new CurrentBlock(0);
+
+    void add(int docId) {
+      CurrentBlock currentBlock = _currentBlock;
+      int blockId = docId >>> BLOCK_SHIFT;
+      if (blockId != currentBlock._blockId) {
+        // Seal the current block, and start a new block (documents are added in order, so the new block is always
+        // after the current block)
+        int size = currentBlock._size;
+        if (size > 0) {
+          MutableRoaringBitmap sealedDocIds = _sealedDocIds.clone();
+          sealedDocIds.addN(currentBlock._docIds, 0, size);
+          sealedDocIds.runOptimize();
+          _sealedDocIds = sealedDocIds;
+        }
+        currentBlock = new CurrentBlock(blockId);
+        currentBlock.add(docId);
+        _currentBlock = currentBlock;
+      } else {
+        currentBlock.add(docId);
+      }
+    }
+
+    void addTo(MutableRoaringBitmap bitmap, int numDocs) {
+      CurrentBlock currentBlock = _currentBlock;
+      MutableRoaringBitmap sealedDocIds = _sealedDocIds;
+      if (!sealedDocIds.isEmpty()) {
+        bitmap.or(sealedDocIds);
+        // The sealed bitmap might contain documents beyond the number of documents when the reader is bounded to a
+        // previous number of documents
+        if (sealedDocIds.last() >= numDocs) {
+          bitmap.remove((long) numDocs, 0x100000000L);
+          return;
+        }
+      }
+      currentBlock.addTo(bitmap, numDocs);
+    }
+
+    long getSizeInBytes() {
+      return _sealedDocIds.getLongSizeInBytes() + 4L * _currentBlock._docIds.length;
+    }
+  }
+
+  /**
+   * Document ids of the current block of a posting list.
+   */
+  private static class CurrentBlock {
+    private static final int INITIAL_CAPACITY = 4;
+
+    final int _blockId;
+
+    // NOTE: Same as the posting lists, the array is published before the size, and should be read after the size.
+    volatile int[] _docIds = new int[INITIAL_CAPACITY];
+    volatile int _size;
+
+    CurrentBlock(int blockId) {
+      _blockId = blockId;
+    }
+
+    void add(int docId) {
+      int size = _size;
+      int[] docIds = _docIds;
+      if (size > 0 && docIds[size - 1] == docId) {
+        // Same value appears multiple times in a multi-valued entry
+        return;
+      }
+      if (size == docIds.length) {
+        // A block contains at most BLOCK_SIZE documents
+        docIds = Arrays.copyOf(docIds, Math.min(size * 2, PostingList.BLOCK_SIZE));
+        _docIds = docIds;
+      }
+      docIds[size] = docId;
+      _size = size + 1;
+    }
+
+    void addTo(MutableRoaringBitmap bitmap, int numDocs) {
+      int size = _size;
+      int[] docIds = _docIds;
+      if (size > 0 && docIds[size - 1] >= numDocs) {
+        int index = Arrays.binarySearch(docIds, 0, size, numDocs);
+        size = index >= 0 ? index : -(index + 1);
+      }
+      bitmap.addN(docIds, 0, size);
+    }
+  }
 }
@@ -48,6 +48,8 @@ public class RealtimeLuceneDocIdCollector implements Collector {
 
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) {
+    // Lucene doc ids are relative to the leaf, and the index can have multiple leaves after multiple refreshes
+    int docBase = context.docBase;
     return new LeafCollector() {
 
       @Override
@@ -57,7 +59,7 @@ public class RealtimeLuceneDocIdCollector implements Collector {
 
       @Override
       public void collect(int doc) throws IOException {
-        _docIds.add(doc);
+        _docIds.add(docBase + doc);
       }
     };
   }
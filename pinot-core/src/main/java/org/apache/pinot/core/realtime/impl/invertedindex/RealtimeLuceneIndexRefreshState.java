@@ -18,57 +18,85 @@
  */
 package org.apache.pinot.core.realtime.impl.invertedindex;
 
-import java.util.LinkedList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
- * This class manages the realtime lucene index readers. Creates a global
- * queue with all the realtime segment lucene index readers across
- * all tables and manages their refresh using {@link RealtimeLuceneIndexReaderRefreshThread}
+ * This class manages the refresh of the realtime lucene index readers for supporting near realtime text search across
+ * all the realtime segments of all tables.
  *
- * TODO: eventually we should explore partitioning this queue on per table basis
+ * The readers of each realtime segment are refreshed by a task scheduled on a shared thread pool, so that multiple
+ * segments can be refreshed concurrently. After each refresh, the task re-schedules itself with a delay based on the
+ * query demand of the segment: segments queried recently are refreshed every {@link #ACTIVE_REFRESH_INTERVAL_MS},
+ * while the other segments are refreshed every {@link #IDLE_REFRESH_INTERVAL_MS}. Because the pool picks the tasks in
+ * the order of their scheduled time, the segments being queried are also prioritized when the pool is saturated.
+ * The task is not re-scheduled once the segment is destroyed.
  */
 public class RealtimeLuceneIndexRefreshState {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeLuceneIndexRefreshState.class);
+  public static final int DEFAULT_NUM_REFRESH_THREADS = 2;
+  // Refresh interval for the segments queried within the last ACTIVE_QUERY_PERIOD_MS
+  static final long ACTIVE_REFRESH_INTERVAL_MS = 10;
+  // Refresh interval for the segments not queried recently
+  static final long IDLE_REFRESH_INTERVAL_MS = 1000;
+  static final long ACTIVE_QUERY_PERIOD_MS = 60_000;
+
   private static RealtimeLuceneIndexRefreshState _singletonInstance;
-  private static RealtimeLuceneIndexReaderRefreshThread _realtimeRefreshThread;
-  private final Lock _mutex;
-  private final Condition _conditionVariable;
-  private static ConcurrentLinkedQueue<RealtimeLuceneReaders> _luceneRealtimeReaders;
+
+  // Readers added before the refresh state is started
+  private final List<RealtimeLuceneReaders> _pendingReaders = new ArrayList<>();
+  private volatile ScheduledExecutorService _executorService;
 
   private RealtimeLuceneIndexRefreshState() {
-    _mutex = new ReentrantLock();
-    _conditionVariable = _mutex.newCondition();
-    _luceneRealtimeReaders = new ConcurrentLinkedQueue<>();
   }
 
   /**
-   * Used by HelixServerStarter during bootstrap to create the singleton
-   * instance of this class and start the realtime reader refresh thread.
+   * Used by HelixServerStarter during bootstrap to start refreshing the realtime readers with the default number of
+   * threads.
    */
   public void start() {
-    _realtimeRefreshThread =
-        new RealtimeLuceneIndexReaderRefreshThread(_luceneRealtimeReaders, _mutex, _conditionVariable);
-    Thread t = new Thread(_realtimeRefreshThread);
-    t.start();
+    start(DEFAULT_NUM_REFRESH_THREADS);
   }
 
   /**
-   * Used by HelixServerStarter during shutdown. This sets the volatile
-   * "stopped" variable to indicate the shutdown to refresh thread.
-   * Since refresh thread might be suspended waiting on the condition variable,
-   * we signal the condition variable for the refresh thread to wake up,
-   * check that shutdown has been initiated and exit.
+   * Used by HelixServerStarter during bootstrap to start refreshing the realtime readers with the given number of
+   * threads.
    */
-  public void stop() {
-    _realtimeRefreshThread.setStopped();
-    _mutex.lock();
-    _conditionVariable.signal();
-    _mutex.unlock();
+  public synchronized void start(int numRefreshThreads) {
+    if (_executorService != null) {
+      return;
+    }
+    LOGGER.info("Starting realtime lucene index refresh with {} threads", numRefreshThreads);
+    _executorService = Executors.newScheduledThreadPool(numRefreshThreads,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("realtime-lucene-refresh-%d").build());
+    for (RealtimeLuceneReaders readers : _pendingReaders) {
+      schedule(readers, 0);
+    }
+    _pendingReaders.clear();
+  }
+
+  /**
+   * Used by HelixServerStarter during shutdown to stop refreshing the realtime readers.
+   */
+  public synchronized void stop() {
+    if (_executorService != null) {
+      _executorService.shutdownNow();
+      _executorService = null;
+    }
   }
 
   public static RealtimeLuceneIndexRefreshState getInstance() {
@@ -82,11 +110,51 @@ public class RealtimeLuceneIndexRefreshState {
     return _singletonInstance;
   }
 
-  public void addRealtimeReadersToQueue(RealtimeLuceneReaders readersForRealtimeSegment) {
-    _mutex.lock();
-    _luceneRealtimeReaders.offer(readersForRealtimeSegment);
-    _conditionVariable.signal();
-    _mutex.unlock();
+  public synchronized void addRealtimeReadersToQueue(RealtimeLuceneReaders readersForRealtimeSegment) {
+    if (_executorService != null) {
+      schedule(readersForRealtimeSegment, 0);
+    } else {
+      _pendingReaders.add(readersForRealtimeSegment);
+    }
+  }
+
+  private void schedule(RealtimeLuceneReaders readers, long delayMs) {
+    ScheduledExecutorService executorService = _executorService;
+    if (executorService == null) {
+      return;
+    }
+    try {
+      executorService.schedule(() -> refresh(readers), delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The refresh state has been stopped
+    }
+  }
+
+  private void refresh(RealtimeLuceneReaders readers) {
+    // Take the lock to prevent the realtime segment from being concurrently destroyed and thus closing the realtime
+    // readers while refreshing them
+    readers.getLock().lock();
+    try {
+      if (readers.isSegmentDestroyed()) {
+        // Stop refreshing the destroyed segment
+        return;
+      }
+      for (RealtimeLuceneTextIndexReader realtimeReader : readers.getRealtimeLuceneReaders()) {
+        try {
+          realtimeReader.refresh();
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while refreshing realtime lucene reader for segment: {}",
+              readers.getSegmentName(), e);
+        }
+      }
+      // NOTE: Report the refresh lag with the lock held so that the gauge is not re-added after the segment is
+      //       destroyed
+      readers.reportRefreshLag(System.currentTimeMillis());
+    } finally {
+      readers.getLock().unlock();
+    }
+
+    schedule(readers, readers.getRefreshIntervalMs(System.currentTimeMillis()));
   }
 
   /**
@@ -98,14 +166,29 @@ public class RealtimeLuceneIndexRefreshState {
   public static class RealtimeLuceneReaders {
     private final String segmentName;
     private final Lock lock;
-    private boolean segmentDestroyed;
+    private volatile boolean segmentDestroyed;
     private final List<RealtimeLuceneTextIndexReader> realtimeLuceneReaders;
+    private final ServerMetrics serverMetrics;
+    private final String tableNameWithType;
+    private final int partitionId;
 
     public RealtimeLuceneReaders(String segmentName) {
+      this(segmentName, null, null, 0);
+    }
+
+    /**
+     * The refresh lag of the readers is reported as a partition gauge if the server metrics is provided.
+     */
+    public RealtimeLuceneReaders(String segmentName, @Nullable ServerMetrics serverMetrics,
+        @Nullable String tableNameWithType, int partitionId) {
       this.segmentName = segmentName;
       lock = new ReentrantLock();
       segmentDestroyed = false;
-      realtimeLuceneReaders = new LinkedList<>();
+      // NOTE: Use copy-on-write list so that the readers can be iterated without locking
+      realtimeLuceneReaders = new CopyOnWriteArrayList<>();
+      this.serverMetrics = serverMetrics;
+      this.tableNameWithType = tableNameWithType;
+      this.partitionId = partitionId;
     }
 
     public void addReader(RealtimeLuceneTextIndexReader realtimeLuceneTextIndexReader) {
@@ -114,6 +197,7 @@ public class RealtimeLuceneIndexRefreshState {
 
     public void setSegmentDestroyed() {
       segmentDestroyed = true;
+      removeRefreshLagGauge();
     }
 
     public Lock getLock() {
@@ -130,10 +214,53 @@ public class RealtimeLuceneIndexRefreshState {
 
     public void clearRealtimeReaderList() {
       realtimeLuceneReaders.clear();
+      removeRefreshLagGauge();
     }
 
     boolean isSegmentDestroyed() {
       return segmentDestroyed;
     }
+
+    /**
+     * Returns the max refresh lag (how long the documents have not been searchable) across all the readers of the
+     * segment.
+     */
+    public long getRefreshLagMs(long currentTimeMs) {
+      long refreshLagMs = 0;
+      for (RealtimeLuceneTextIndexReader realtimeReader : realtimeLuceneReaders) {
+        refreshLagMs = Math.max(refreshLagMs, realtimeReader.getRefreshLagMs(currentTimeMs));
+      }
+      return refreshLagMs;
+    }
+
+    /**
+     * Returns the delay before the next refresh based on when the readers of the segment were last queried.
+     */
+    long getRefreshIntervalMs(long currentTimeMs) {
+      for (RealtimeLuceneTextIndexReader realtimeReader : realtimeLuceneReaders) {
+        if (currentTimeMs - realtimeReader.getLastQueriedTimeMs() < ACTIVE_QUERY_PERIOD_MS) {
+          return ACTIVE_REFRESH_INTERVAL_MS;
+        }
+      }
+      return IDLE_REFRESH_INTERVAL_MS;
+    }
+
+    void reportRefreshLag(long currentTimeMs) {
+      if (serverMetrics != null && !realtimeLuceneReaders.isEmpty()) {
+        serverMetrics.setValueOfPartitionGauge(tableNameWithType, partitionId,
+            ServerGauge.REALTIME_TEXT_INDEX_REFRESH_LAG_MS, getRefreshLagMs(currentTimeMs));
+      }
+    }
+
+    /**
+     * Removes the refresh lag gauge of the partition once the readers are dropped, so that the last reported lag is not
+     * kept forever. The next consuming segment of the partition reports the gauge again on its first refresh.
+     */
+    private void removeRefreshLagGauge() {
+      if (serverMetrics != null) {
+        serverMetrics.removePartitionGauge(tableNameWithType, partitionId,
+            ServerGauge.REALTIME_TEXT_INDEX_REFRESH_LAG_MS);
+      }
+    }
   }
 }
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.realtime.impl.invertedindex;
 
 import java.io.File;
+import java.io.IOException;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexWriter;
@@ -50,6 +51,13 @@ public class RealtimeLuceneTextIndexReader implements TextIndexReader {
   private final String _column;
   private final String _segmentName;
 
+  // For tracking the refresh lag and the query demand. Number of docs added is only updated by the consuming thread,
+  // and the refresh state is only updated by the refresh task of the segment.
+  private volatile int _numDocsAdded;
+  private volatile int _numDocsRefreshed;
+  private volatile long _lastRefreshTimeMs = System.currentTimeMillis();
+  private volatile long _lastQueriedTimeMs;
+
   /**
    * Created by {@link org.apache.pinot.core.indexsegment.mutable.MutableSegmentImpl}
    * for each column on which text index has been enabled
@@ -86,8 +94,10 @@ public class RealtimeLuceneTextIndexReader implements TextIndexReader {
   /**
    * Adds a new document.
    */
+  @SuppressWarnings("NonAtomicOperationOnVolatileField")
   public void add(String document) {
     _indexCreator.add(document);
+    _numDocsAdded++;
   }
 
   @Override
@@ -97,6 +107,7 @@ public class RealtimeLuceneTextIndexReader implements TextIndexReader {
 
   @Override
   public MutableRoaringBitmap getDocIds(String searchQuery) {
+    _lastQueriedTimeMs = System.currentTimeMillis();
     MutableRoaringBitmap docIDs = new MutableRoaringBitmap();
     Collector docIDCollector = new RealtimeLuceneDocIdCollector(docIDs);
     IndexSearcher indexSearcher = null;
@@ -157,4 +168,32 @@ public class RealtimeLuceneTextIndexReader implements TextIndexReader {
   SearcherManager getSearcherManager() {
     return _searcherManager;
   }
+
+  /**
+   * Refreshes the searcher to make the documents added so far searchable.
+   */
+  void refresh()
+      throws IOException {
+    long refreshStartTimeMs = System.currentTimeMillis();
+    int numDocsAdded = _numDocsAdded;
+    if (numDocsAdded != _numDocsRefreshed) {
+      // Skip updating the refresh state if the searcher is being refreshed by another thread
+      if (!_searcherManager.maybeRefresh()) {
+        return;
+      }
+      _numDocsRefreshed = numDocsAdded;
+    }
+    _lastRefreshTimeMs = refreshStartTimeMs;
+  }
+
+  /**
+   * Returns how long the documents added have not been searchable, or 0 if all the documents are searchable.
+   */
+  long getRefreshLagMs(long currentTimeMs) {
+    return _numDocsAdded != _numDocsRefreshed ? Math.max(currentTimeMs - _lastRefreshTimeMs, 0) : 0;
+  }
+
+  long getLastQueriedTimeMs() {
+    return _lastQueriedTimeMs;
+  }
 }
@@ -18,13 +18,14 @@
  */
 package org.apache.pinot.core.segment.creator;
 
-import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.pinot.common.Utils;
-import org.apache.pinot.core.util.IngestionUtils;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.data.readers.RecordReader;
 import org.apache.pinot.core.data.recordtransformer.CompositeTransformer;
 import org.apache.pinot.core.data.recordtransformer.RecordTransformer;
+import org.apache.pinot.core.data.recordtransformer.RecordTransformerBatch;
 import org.apache.pinot.core.segment.creator.impl.stats.SegmentPreIndexStatsCollectorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,7 @@ import org.slf4j.LoggerFactory;
 // TODO: make it Closeable so that resource in record reader can be released
 public class RecordReaderSegmentCreationDataSource implements SegmentCreationDataSource {
   private static final Logger LOGGER = LoggerFactory.getLogger(RecordReaderSegmentCreationDataSource.class);
+  private static final int STATS_COLLECTION_BATCH_SIZE = 10_000;
 
   private final RecordReader _recordReader;
 
@@ -54,23 +56,22 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
       collector.init();
 
       // Gather the stats
-      GenericRow reuse = new GenericRow();
-      while (_recordReader.hasNext()) {
-        reuse.clear();
-
-        reuse = _recordReader.next(reuse);
-        if (reuse.getValue(GenericRow.MULTIPLE_RECORDS_KEY) != null) {
-          for (Object singleRow : (Collection) reuse.getValue(GenericRow.MULTIPLE_RECORDS_KEY)) {
-            GenericRow transformedRow = recordTransformer.transform((GenericRow) singleRow);
-            if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
+      int numCollectionThreads = statsCollectorConfig.getNumCollectionThreads();
+      if (numCollectionThreads > 1) {
+        gatherStatsInParallel(collector, recordTransformer, numCollectionThreads);
+      } else {
+        RecordTransformerBatch recordTransformerBatch =
+            new RecordTransformerBatch(recordTransformer, RecordTransformerBatch.DEFAULT_BATCH_SIZE);
+        while (_recordReader.hasNext()) {
+          // NOTE: Cannot reuse the row because it is buffered to be transformed as a batch
+          if (recordTransformerBatch.add(_recordReader.next())) {
+            for (GenericRow transformedRow : recordTransformerBatch.transform()) {
               collector.collectRow(transformedRow);
             }
           }
-        } else {
-          GenericRow transformedRow = recordTransformer.transform(reuse);
-          if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
-            collector.collectRow(transformedRow);
-          }
+        }
+        for (GenericRow transformedRow : recordTransformerBatch.transform()) {
+          collector.collectRow(transformedRow);
         }
       }
 
@@ -83,6 +84,31 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
     }
   }
 
+  /**
+   * Reads the rows in batches on the current thread, and collects the stats for each batch with the columns processed
+   * in parallel.
+   */
+  private void gatherStatsInParallel(SegmentPreIndexStatsCollector collector, RecordTransformer recordTransformer,
+      int numThreads)
+      throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      RecordTransformerBatch recordTransformerBatch =
+          new RecordTransformerBatch(recordTransformer, STATS_COLLECTION_BATCH_SIZE);
+      while (_recordReader.hasNext()) {
+        // NOTE: Cannot reuse the row because it is buffered
+        if (recordTransformerBatch.add(_recordReader.next())) {
+          collector.collectRows(recordTransformerBatch.transform(), executorService);
+        }
+      }
+      if (!recordTransformerBatch.isEmpty()) {
+        collector.collectRows(recordTransformerBatch.transform(), executorService);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
   @Override
   public RecordReader getRecordReader() {
     try {
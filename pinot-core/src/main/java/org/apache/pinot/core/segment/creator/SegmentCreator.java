@@ -22,8 +22,12 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
@@ -55,6 +59,29 @@ public interface SegmentCreator extends Closeable, Serializable {
   void indexRow(GenericRow row)
       throws IOException;
 
+  /**
+   * Adds a batch of rows to the index, where the columns are indexed in parallel with the given executor. The result is
+   * the same as adding the rows one by one with {@link #indexRow(GenericRow)}.
+   *
+   * @param rows The rows to index
+   * @param executorService The executor to index the columns
+   */
+  void indexRows(List<GenericRow> rows, ExecutorService executorService)
+      throws IOException;
+
+  /**
+   * Adds all the values of a column from an existing segment to the index. This can be used instead of
+   * {@link #indexRow(GenericRow)} to build the index column by column when the values are already available in a
+   * segment, e.g. when converting a mutable segment into an immutable segment. The statistics used to initialize the
+   * segment creation should be collected from the same segment.
+   *
+   * @param columnName The column to index
+   * @param sortedDocIds The doc ids of the segment in the order to index, or {@code null} to index in doc id order
+   * @param segment The segment to read the values from
+   */
+  void indexColumn(String columnName, @Nullable int[] sortedDocIds, IndexSegment segment)
+      throws IOException;
+
   /**
    * Sets the name of the segment.
    *
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.core.segment.creator;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import org.apache.pinot.spi.data.readers.GenericRow;
 
 
@@ -31,5 +33,11 @@ public interface SegmentPreIndexStatsCollector extends SegmentPreIndexStatsConta
   void collectRow(GenericRow row)
       throws Exception;
 
+  /**
+   * Collects the stats for a batch of rows, where the columns are processed in parallel with the given executor.
+   */
+  void collectRows(List<GenericRow> rows, ExecutorService executorService)
+      throws Exception;
+
   void logStats();
 }
@@ -38,6 +38,7 @@ public class StatsCollectorConfig {
   private final TableConfig _tableConfig;
   private final Schema _schema;
   private final SegmentPartitionConfig _segmentPartitionConfig;
+  private int _numCollectionThreads = 1;
 
   /**
    * Constructor for the class.
@@ -87,4 +88,15 @@ public class StatsCollectorConfig {
   public TableConfig getTableConfig() {
     return _tableConfig;
   }
+
+  /**
+   * Returns the number of threads to collect the stats of the columns in parallel.
+   */
+  public int getNumCollectionThreads() {
+    return _numCollectionThreads;
+  }
+
+  public void setNumCollectionThreads(int numCollectionThreads) {
+    _numCollectionThreads = numCollectionThreads;
+  }
 }
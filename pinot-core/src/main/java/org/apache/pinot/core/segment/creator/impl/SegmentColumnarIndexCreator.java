@@ -23,16 +23,24 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.pinot.common.utils.FileUtils;
+import org.apache.pinot.core.common.DataSource;
 import org.apache.pinot.core.data.partition.PartitionFunction;
+import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import org.apache.pinot.core.io.compression.ChunkCompressorFactory;
 import org.apache.pinot.core.io.util.PinotDataBitSet;
@@ -57,6 +65,10 @@ import org.apache.pinot.core.segment.creator.impl.inv.json.OnHeapJsonIndexCreato
 import org.apache.pinot.core.segment.creator.impl.inv.text.LuceneFSTIndexCreator;
 import org.apache.pinot.core.segment.creator.impl.nullvalue.NullValueVectorCreator;
 import org.apache.pinot.core.segment.creator.impl.text.LuceneTextIndexCreator;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
+import org.apache.pinot.core.segment.index.readers.ForwardIndexReader;
+import org.apache.pinot.core.segment.index.readers.ForwardIndexReaderContext;
+import org.apache.pinot.core.segment.index.readers.NullValueVectorReader;
 import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.data.DateTimeFieldSpec;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -361,85 +373,244 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (columnValueToIndex == null) {
         throw new RuntimeException("Null value for column:" + columnName);
       }
+      indexValue(columnName, forwardIndexCreator, columnValueToIndex);
 
-      boolean isSingleValue = schema.getFieldSpecFor(columnName).isSingleValueField();
-      SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+      if (_nullHandlingEnabled) {
+        // If row has null value for given column name, add to null value vector
+        if (row.isNullValue(columnName)) {
+          _nullValueVectorCreatorMap.get(columnName).setNull(docIdCounter);
+        }
+      }
+    }
+    docIdCounter++;
+  }
 
-      if (isSingleValue) {
-        // SV column
-        // text-index enabled SV column
-        TextIndexCreator textIndexCreator = _textIndexCreatorMap.get(columnName);
-        if (textIndexCreator != null) {
-          textIndexCreator.add((String) columnValueToIndex);
+  @Override
+  public void indexRows(List<GenericRow> rows, ExecutorService executorService)
+      throws IOException {
+    int startDocId = docIdCounter;
+    List<Future<?>> futures = new ArrayList<>(_forwardIndexCreatorMap.size());
+    for (Map.Entry<String, ForwardIndexCreator> entry : _forwardIndexCreatorMap.entrySet()) {
+      String columnName = entry.getKey();
+      ForwardIndexCreator forwardIndexCreator = entry.getValue();
+      NullValueVectorCreator nullValueVectorCreator =
+          _nullHandlingEnabled ? _nullValueVectorCreatorMap.get(columnName) : null;
+      futures.add(executorService.submit(() -> {
+        int docId = startDocId;
+        for (GenericRow row : rows) {
+          Object columnValueToIndex = row.getValue(columnName);
+          if (columnValueToIndex == null) {
+            throw new RuntimeException("Null value for column:" + columnName);
+          }
+          indexValue(columnName, forwardIndexCreator, columnValueToIndex);
+          if (nullValueVectorCreator != null && row.isNullValue(columnName)) {
+            nullValueVectorCreator.setNull(docId);
+          }
+          docId++;
         }
-        JsonIndexCreator jsonIndexCreator = _jsonIndexCreatorMap.get(columnName);
-        if (jsonIndexCreator != null) {
-          jsonIndexCreator.add((String) columnValueToIndex);
+        return null;
+      }));
+    }
+
+    // Wait for all the columns to finish before returning or throwing exception so that no creator is still in use
+    Throwable failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failure = e.getCause();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      if (failure instanceof IOException) {
+        throw (IOException) failure;
+      }
+      throw new RuntimeException("Caught exception while indexing rows", failure);
+    }
+    docIdCounter += rows.size();
+  }
+
+  @Override
+  public void indexColumn(String columnName, @Nullable int[] sortedDocIds, IndexSegment segment)
+      throws IOException {
+    ForwardIndexCreator forwardIndexCreator = _forwardIndexCreatorMap.get(columnName);
+    DataSource dataSource = segment.getDataSource(columnName);
+    @SuppressWarnings("unchecked")
+    ForwardIndexReader<ForwardIndexReaderContext> forwardIndexReader =
+        (ForwardIndexReader<ForwardIndexReaderContext>) dataSource.getForwardIndex();
+    Dictionary dictionary = dataSource.getDictionary();
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+
+    try (ForwardIndexReaderContext readerContext = forwardIndexReader.createContext()) {
+      if (dictionaryCreator != null && dictionary != null) {
+        // Both the source segment and the new segment are dictionary encoded. Map the dictionary ids of the source
+        // segment to the dictionary ids of the new segment once, then copy the dictionary ids without reading values.
+        int sourceCardinality = dictionary.length();
+        int[] dictIdMap = new int[sourceCardinality];
+        for (int i = 0; i < sourceCardinality; i++) {
+          dictIdMap[i] = dictionaryCreator.indexOfSV(dictionary.get(i));
         }
-        if (dictionaryCreator != null) {
-          // dictionary encoded SV column
-          // get dictID from dictionary
-          int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
-          // store the docID -> dictID mapping in forward index
-          forwardIndexCreator.putDictId(dictId);
-          DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
-          if (invertedIndexCreator != null) {
-            // if inverted index enabled during segment creation,
-            // then store dictID -> docID mapping in inverted index
-            invertedIndexCreator.add(dictId);
+        DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+        if (schema.getFieldSpecFor(columnName).isSingleValueField()) {
+          TextIndexCreator textIndexCreator = _textIndexCreatorMap.get(columnName);
+          JsonIndexCreator jsonIndexCreator = _jsonIndexCreatorMap.get(columnName);
+          for (int i = 0; i < totalDocs; i++) {
+            int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+            int sourceDictId = forwardIndexReader.getDictId(docId, readerContext);
+            int dictId = dictIdMap[sourceDictId];
+            forwardIndexCreator.putDictId(dictId);
+            if (invertedIndexCreator != null) {
+              invertedIndexCreator.add(dictId);
+            }
+            if (textIndexCreator != null) {
+              textIndexCreator.add(dictionary.getStringValue(sourceDictId));
+            }
+            if (jsonIndexCreator != null) {
+              jsonIndexCreator.add(dictionary.getStringValue(sourceDictId));
+            }
           }
         } else {
-          // non-dictionary encoded SV column
-          // store the docId -> raw value mapping in forward index
-          if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
-            // for text index on raw columns, check the config to determine if actual raw value should
-            // be stored or not
-            columnValueToIndex = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
-            if (columnValueToIndex == null) {
-              columnValueToIndex = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
+          int[] sourceDictIds = new int[dataSource.getDataSourceMetadata().getMaxNumValuesPerMVEntry()];
+          for (int i = 0; i < totalDocs; i++) {
+            int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+            int numValues = forwardIndexReader.getDictIdMV(docId, sourceDictIds, readerContext);
+            int[] dictIds = new int[numValues];
+            for (int j = 0; j < numValues; j++) {
+              dictIds[j] = dictIdMap[sourceDictIds[j]];
+            }
+            forwardIndexCreator.putDictIdMV(dictIds);
+            if (invertedIndexCreator != null) {
+              invertedIndexCreator.add(dictIds, numValues);
             }
-          }
-          switch (forwardIndexCreator.getValueType()) {
-            case INT:
-              forwardIndexCreator.putInt((int) columnValueToIndex);
-              break;
-            case LONG:
-              forwardIndexCreator.putLong((long) columnValueToIndex);
-              break;
-            case FLOAT:
-              forwardIndexCreator.putFloat((float) columnValueToIndex);
-              break;
-            case DOUBLE:
-              forwardIndexCreator.putDouble((double) columnValueToIndex);
-              break;
-            case STRING:
-              forwardIndexCreator.putString((String) columnValueToIndex);
-              break;
-            case BYTES:
-              forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
-              break;
-            default:
-              throw new IllegalStateException();
           }
         }
       } else {
-        // MV column (always dictionary encoded)
-        int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
-        forwardIndexCreator.putDictIdMV(dictIds);
-        DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
-        if (invertedIndexCreator != null) {
-          invertedIndexCreator.add(dictIds, dictIds.length);
+        // Either the source segment or the new segment is raw encoded, index the values one by one
+        Preconditions.checkState(dictionary != null || forwardIndexReader.isSingleValue(),
+            "Raw multi-value column: %s is not supported", columnName);
+        for (int i = 0; i < totalDocs; i++) {
+          int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+          Object value;
+          if (dictionary != null) {
+            value = dictionary.get(forwardIndexReader.getDictId(docId, readerContext));
+          } else {
+            value = getRawValue(forwardIndexReader, docId, readerContext);
+          }
+          indexValue(columnName, forwardIndexCreator, value);
         }
       }
+    }
 
-      if (_nullHandlingEnabled) {
-        // If row has null value for given column name, add to null value vector
-        if (row.isNullValue(columnName)) {
-          _nullValueVectorCreatorMap.get(columnName).setNull(docIdCounter);
+    if (_nullHandlingEnabled) {
+      NullValueVectorReader nullValueVectorReader = dataSource.getNullValueVector();
+      if (nullValueVectorReader != null) {
+        NullValueVectorCreator nullValueVectorCreator = _nullValueVectorCreatorMap.get(columnName);
+        for (int i = 0; i < totalDocs; i++) {
+          if (nullValueVectorReader.isNull(sortedDocIds != null ? sortedDocIds[i] : i)) {
+            nullValueVectorCreator.setNull(i);
+          }
         }
       }
     }
-    docIdCounter++;
+  }
+
+  private static Object getRawValue(ForwardIndexReader<ForwardIndexReaderContext> forwardIndexReader, int docId,
+      ForwardIndexReaderContext readerContext) {
+    switch (forwardIndexReader.getValueType()) {
+      case INT:
+        return forwardIndexReader.getInt(docId, readerContext);
+      case LONG:
+        return forwardIndexReader.getLong(docId, readerContext);
+      case FLOAT:
+        return forwardIndexReader.getFloat(docId, readerContext);
+      case DOUBLE:
+        return forwardIndexReader.getDouble(docId, readerContext);
+      case STRING:
+        return forwardIndexReader.getString(docId, readerContext);
+      case BYTES:
+        return forwardIndexReader.getBytes(docId, readerContext);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Indexes a single value (SV or MV) of the given column into the forward index and the other indexes of the column.
+   */
+  private void indexValue(String columnName, ForwardIndexCreator forwardIndexCreator, Object columnValueToIndex)
+      throws IOException {
+    boolean isSingleValue = schema.getFieldSpecFor(columnName).isSingleValueField();
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+
+    if (isSingleValue) {
+      // SV column
+      // text-index enabled SV column
+      TextIndexCreator textIndexCreator = _textIndexCreatorMap.get(columnName);
+      if (textIndexCreator != null) {
+        textIndexCreator.add((String) columnValueToIndex);
+      }
+      JsonIndexCreator jsonIndexCreator = _jsonIndexCreatorMap.get(columnName);
+      if (jsonIndexCreator != null) {
+        jsonIndexCreator.add((String) columnValueToIndex);
+      }
+      if (dictionaryCreator != null) {
+        // dictionary encoded SV column
+        // get dictID from dictionary
+        int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
+        // store the docID -> dictID mapping in forward index
+        forwardIndexCreator.putDictId(dictId);
+        DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+        if (invertedIndexCreator != null) {
+          // if inverted index enabled during segment creation,
+          // then store dictID -> docID mapping in inverted index
+          invertedIndexCreator.add(dictId);
+        }
+      } else {
+        // non-dictionary encoded SV column
+        // store the docId -> raw value mapping in forward index
+        if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
+          // for text index on raw columns, check the config to determine if actual raw value should
+          // be stored or not
+          columnValueToIndex = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
+          if (columnValueToIndex == null) {
+            columnValueToIndex = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
+          }
+        }
+        switch (forwardIndexCreator.getValueType()) {
+          case INT:
+            forwardIndexCreator.putInt((int) columnValueToIndex);
+            break;
+          case LONG:
+            forwardIndexCreator.putLong((long) columnValueToIndex);
+            break;
+          case FLOAT:
+            forwardIndexCreator.putFloat((float) columnValueToIndex);
+            break;
+          case DOUBLE:
+            forwardIndexCreator.putDouble((double) columnValueToIndex);
+            break;
+          case STRING:
+            forwardIndexCreator.putString((String) columnValueToIndex);
+            break;
+          case BYTES:
+            forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+    } else {
+      // MV column (always dictionary encoded)
+      int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
+      forwardIndexCreator.putDictIdMV(dictIds);
+      DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+      if (invertedIndexCreator != null) {
+        invertedIndexCreator.add(dictIds, dictIds.length);
+      }
+    }
   }
 
   private boolean shouldStoreRawValueForTextIndex(String column) {
@@ -23,18 +23,23 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.core.data.readers.PinotSegmentRecordReader;
 import org.apache.pinot.core.data.recordtransformer.CompositeTransformer;
 import org.apache.pinot.core.data.recordtransformer.RecordTransformer;
+import org.apache.pinot.core.data.recordtransformer.RecordTransformerBatch;
+import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import org.apache.pinot.core.indexsegment.generator.SegmentVersion;
 import org.apache.pinot.core.segment.creator.ColumnIndexCreationInfo;
@@ -73,6 +78,7 @@ import org.slf4j.LoggerFactory;
 // TODO: Check resource leaks
 public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDriver {
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentIndexCreationDriverImpl.class);
+  private static final int INDEXING_BATCH_SIZE = 10_000;
 
   private SegmentGeneratorConfig config;
   private RecordReader recordReader;
@@ -89,6 +95,9 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   private long totalRecordReadTime = 0;
   private long totalIndexTime = 0;
   private long totalStatsCollectorTime = 0;
+  // Only used when indexing the columns in parallel
+  private ExecutorService _indexingExecutor;
+  private List<GenericRow> _pendingRows;
 
   @Override
   public void init(SegmentGeneratorConfig config)
@@ -151,8 +160,18 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     _recordTransformer = recordTransformer;
 
     // Initialize stats collection
-    segmentStats = dataSource
-        .gatherStats(new StatsCollectorConfig(config.getTableConfig(), dataSchema, config.getSegmentPartitionConfig()));
+    StatsCollectorConfig statsCollectorConfig =
+        new StatsCollectorConfig(config.getTableConfig(), dataSchema, config.getSegmentPartitionConfig());
+    if (config.isParallelStatsCollection()) {
+      int numIndexingThreads = config.getNumIndexingThreads();
+      if (numIndexingThreads > 1) {
+        statsCollectorConfig.setNumCollectionThreads(numIndexingThreads);
+      } else {
+        LOGGER.warn("Parallel stats collection is enabled but has no effect with 1 indexing thread, "
+            + "set the number of indexing threads to more than 1 to collect stats in parallel");
+      }
+    }
+    segmentStats = dataSource.gatherStats(statsCollectorConfig);
     totalDocs = segmentStats.getTotalDocCount();
 
     // Initialize index creation
@@ -192,49 +211,117 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       // Build the index
       recordReader.rewind();
       LOGGER.info("Start building IndexCreator!");
-      GenericRow reuse = new GenericRow();
+      int numIndexingThreads = config.getNumIndexingThreads();
+      if (numIndexingThreads > 1) {
+        LOGGER.info("Indexing columns in parallel with {} threads", numIndexingThreads);
+        _indexingExecutor = Executors.newFixedThreadPool(numIndexingThreads);
+        _pendingRows = new ArrayList<>(INDEXING_BATCH_SIZE);
+      }
+      RecordTransformerBatch recordTransformerBatch =
+          new RecordTransformerBatch(_recordTransformer, RecordTransformerBatch.DEFAULT_BATCH_SIZE);
       while (recordReader.hasNext()) {
         long recordReadStartTime = System.currentTimeMillis();
-        long recordReadStopTime;
-        long indexStopTime;
-        reuse.clear();
-        GenericRow decodedRow = recordReader.next(reuse);
-        if (decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY) != null) {
-          recordReadStopTime = System.currentTimeMillis();
-          totalRecordReadTime += (recordReadStopTime - recordReadStartTime);
-          for (Object singleRow : (Collection) decodedRow.getValue(GenericRow.MULTIPLE_RECORDS_KEY)) {
-            recordReadStartTime = System.currentTimeMillis();
-            GenericRow transformedRow = _recordTransformer.transform((GenericRow) singleRow);
-            recordReadStopTime = System.currentTimeMillis();
-            totalRecordReadTime += (recordReadStopTime - recordReadStartTime);
-            if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
-              indexCreator.indexRow(transformedRow);
-              indexStopTime = System.currentTimeMillis();
-              totalIndexTime += (indexStopTime - recordReadStopTime);
-            }
-          }
-        } else {
-          GenericRow transformedRow = _recordTransformer.transform(decodedRow);
-          recordReadStopTime = System.currentTimeMillis();
-          totalRecordReadTime += (recordReadStopTime - recordReadStartTime);
-          if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
-            indexCreator.indexRow(transformedRow);
-            indexStopTime = System.currentTimeMillis();
-            totalIndexTime += (indexStopTime - recordReadStopTime);
-          }
+        // NOTE: Cannot reuse the row because it is buffered to be transformed as a batch
+        GenericRow decodedRow = recordReader.next();
+        totalRecordReadTime += System.currentTimeMillis() - recordReadStartTime;
+        if (recordTransformerBatch.add(decodedRow)) {
+          transformAndIndexRows(recordTransformerBatch);
         }
       }
+      if (!recordTransformerBatch.isEmpty()) {
+        transformAndIndexRows(recordTransformerBatch);
+      }
+      if (_pendingRows != null && !_pendingRows.isEmpty()) {
+        long indexStartTime = System.currentTimeMillis();
+        indexPendingRows();
+        totalIndexTime += System.currentTimeMillis() - indexStartTime;
+      }
     } catch (Exception e) {
       indexCreator.close();
       throw e;
     } finally {
       recordReader.close();
+      if (_indexingExecutor != null) {
+        _indexingExecutor.shutdownNow();
+        _indexingExecutor = null;
+      }
+      _pendingRows = null;
     }
     LOGGER.info("Finished records indexing in IndexCreator!");
 
     handlePostCreation();
   }
 
+  /**
+   * Transforms the rows in the batch, and indexes the transformed rows.
+   */
+  private void transformAndIndexRows(RecordTransformerBatch recordTransformerBatch)
+      throws IOException {
+    long transformStartTime = System.currentTimeMillis();
+    List<GenericRow> transformedRows = recordTransformerBatch.transform();
+    long indexStartTime = System.currentTimeMillis();
+    totalRecordReadTime += indexStartTime - transformStartTime;
+    for (GenericRow transformedRow : transformedRows) {
+      indexRow(transformedRow);
+    }
+    totalIndexTime += System.currentTimeMillis() - indexStartTime;
+  }
+
+  /**
+   * Indexes the row directly, or buffers it to be indexed as a batch with the columns indexed in parallel.
+   */
+  private void indexRow(GenericRow row)
+      throws IOException {
+    if (_pendingRows == null) {
+      indexCreator.indexRow(row);
+    } else {
+      _pendingRows.add(row);
+      if (_pendingRows.size() >= INDEXING_BATCH_SIZE) {
+        indexPendingRows();
+      }
+    }
+  }
+
+  private void indexPendingRows()
+      throws IOException {
+    indexCreator.indexRows(_pendingRows, _indexingExecutor);
+    _pendingRows.clear();
+  }
+
+  /**
+   * Builds the segment column by column from the given index segment instead of reading and indexing the records one
+   * by one. The dictionaries of the index segment are mapped to the new dictionaries once per column, and the
+   * dictionary ids are copied into the new indexes without materializing the records.
+   * <p>The data source used to initialize the driver should gather the statistics from the same index segment.
+   *
+   * @param indexSegment The segment to read the values from
+   * @param sortedDocIds The doc ids of the segment in the order to index, or {@code null} to index in doc id order
+   */
+  public void buildColumnar(IndexSegment indexSegment, @Nullable int[] sortedDocIds)
+      throws Exception {
+    buildIndexCreationInfo();
+    LOGGER.info("Collected stats for {} documents", totalDocs);
+
+    try {
+      indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
+
+      LOGGER.info("Start building IndexCreator column by column!");
+      long indexStartTime = System.currentTimeMillis();
+      for (String columnName : indexCreationInfoMap.keySet()) {
+        indexCreator.indexColumn(columnName, sortedDocIds, indexSegment);
+      }
+      totalIndexTime += System.currentTimeMillis() - indexStartTime;
+    } catch (Exception e) {
+      indexCreator.close();
+      throw e;
+    } finally {
+      recordReader.close();
+    }
+    LOGGER.info("Finished columnar indexing in IndexCreator!");
+
+    handlePostCreation();
+  }
+
   private void handlePostCreation()
       throws Exception {
     ColumnStatistics timeColumnStatistics = segmentStats.getColumnProfileFor(config.getTimeColumnName());
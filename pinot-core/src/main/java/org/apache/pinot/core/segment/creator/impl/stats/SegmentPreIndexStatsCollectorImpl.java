@@ -18,8 +18,13 @@
  */
 package org.apache.pinot.core.segment.creator.impl.stats;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.pinot.core.segment.creator.ColumnStatistics;
 import org.apache.pinot.core.segment.creator.SegmentPreIndexStatsCollector;
 import org.apache.pinot.core.segment.creator.StatsCollectorConfig;
@@ -112,6 +117,44 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
     ++totalDocCount;
   }
 
+  @Override
+  public void collectRows(List<GenericRow> rows, ExecutorService executorService)
+      throws Exception {
+    List<Future<?>> futures = new ArrayList<>(columnStatsCollectorMap.size());
+    for (Map.Entry<String, AbstractColumnStatisticsCollector> entry : columnStatsCollectorMap.entrySet()) {
+      String columnName = entry.getKey();
+      AbstractColumnStatisticsCollector statsCollector = entry.getValue();
+      futures.add(executorService.submit(() -> {
+        for (GenericRow row : rows) {
+          Map<String, Object> fieldToValueMap = row.getFieldToValueMap();
+          if (fieldToValueMap.containsKey(columnName)) {
+            try {
+              statsCollector.collect(fieldToValueMap.get(columnName));
+            } catch (Exception e) {
+              LOGGER.error("Exception while collecting stats for column:{} in row:{}", columnName, row);
+              throw e;
+            }
+          }
+        }
+      }));
+    }
+
+    // Wait for all the columns to finish before returning or throwing exception
+    ExecutionException exception = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        exception = e;
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+
+    totalDocCount += rows.size();
+  }
+
   @Override
   public int getTotalDocCount() {
     return totalDocCount;
@@ -76,6 +76,20 @@ public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<
         _reader.read32(i, dictIdBuffer, index);
         index += 32;
       }
+    } else if (lastDocId - firstDocId + 1 <= 2 * length && length >= 64) {
+      // Use bulk read for dense doc ids (at least half of the doc ids within the range are included), and pick the
+      // values for the included doc ids from the bulk read buffer
+      int[] bulkBuffer = new int[32];
+      int bulkEndIndex = lastDocId & 0xffffffe0;
+      int docId;
+      while ((docId = docIds[index]) < bulkEndIndex) {
+        int bulkStartIndex = docId & 0xffffffe0;
+        int bulkLimit = bulkStartIndex + 32;
+        _reader.read32(bulkStartIndex, bulkBuffer, 0);
+        do {
+          dictIdBuffer[index++] = bulkBuffer[docId - bulkStartIndex];
+        } while ((docId = docIds[index]) < bulkLimit);
+      }
     }
 
     // Process the remaining docs
@@ -91,4 +91,88 @@ public final class FixedByteChunkSVForwardIndexReader extends BaseChunkSVForward
       return _rawData.getDouble(docId * Double.BYTES);
     }
   }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, int[] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = chunkBuffer.getInt((docId - chunkStartDocId) * Integer.BYTES);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = _rawData.getInt(docIds[i] * Integer.BYTES);
+      }
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, long[] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = chunkBuffer.getLong((docId - chunkStartDocId) * Long.BYTES);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = _rawData.getLong(docIds[i] * Long.BYTES);
+      }
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, float[] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = chunkBuffer.getFloat((docId - chunkStartDocId) * Float.BYTES);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = _rawData.getFloat(docIds[i] * Float.BYTES);
+      }
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, double[] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = chunkBuffer.getDouble((docId - chunkStartDocId) * Double.BYTES);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = _rawData.getDouble(docIds[i] * Double.BYTES);
+      }
+    }
+  }
 }
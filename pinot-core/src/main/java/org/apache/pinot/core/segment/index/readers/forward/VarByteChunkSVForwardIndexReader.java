@@ -67,9 +67,13 @@ public final class VarByteChunkSVForwardIndexReader extends BaseChunkSVForwardIn
    * Helper method to read STRING value from the compressed index.
    */
   private String getStringCompressed(int docId, ChunkReaderContext context) {
-    int chunkRowId = docId % _numDocsPerChunk;
-    ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+    return getStringFromChunk(docId % _numDocsPerChunk, getChunkBuffer(docId, context));
+  }
 
+  /**
+   * Helper method to read STRING value at the given row of the decompressed chunk.
+   */
+  private String getStringFromChunk(int chunkRowId, ByteBuffer chunkBuffer) {
     // These offsets are offset in the chunk buffer
     int valueStartOffset = chunkBuffer.getInt(chunkRowId * ROW_OFFSET_SIZE);
     int valueEndOffset = getValueEndOffset(chunkRowId, chunkBuffer);
@@ -112,9 +116,13 @@ public final class VarByteChunkSVForwardIndexReader extends BaseChunkSVForwardIn
    * Helper method to read BYTES value from the compressed index.
    */
   private byte[] getBytesCompressed(int docId, ChunkReaderContext context) {
-    int chunkRowId = docId % _numDocsPerChunk;
-    ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+    return getBytesFromChunk(docId % _numDocsPerChunk, getChunkBuffer(docId, context));
+  }
 
+  /**
+   * Helper method to read BYTES value at the given row of the decompressed chunk.
+   */
+  private byte[] getBytesFromChunk(int chunkRowId, ByteBuffer chunkBuffer) {
     // These offsets are offset in the chunk buffer
     int valueStartOffset = chunkBuffer.getInt(chunkRowId * ROW_OFFSET_SIZE);
     int valueEndOffset = getValueEndOffset(chunkRowId, chunkBuffer);
@@ -142,6 +150,48 @@ public final class VarByteChunkSVForwardIndexReader extends BaseChunkSVForwardIn
     return bytes;
   }
 
+  @Override
+  public void readValuesSV(int[] docIds, int length, String[] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = getStringFromChunk(docId - chunkStartDocId, chunkBuffer);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = getStringUncompressed(docIds[i]);
+      }
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, byte[][] valueBuffer, ChunkReaderContext context) {
+    if (_isCompressed) {
+      int i = 0;
+      while (i < length) {
+        // Decompress the chunk once, and read all the values within the chunk from it
+        int docId = docIds[i];
+        ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+        int chunkStartDocId = docId - docId % _numDocsPerChunk;
+        int chunkEndDocId = chunkStartDocId + _numDocsPerChunk;
+        do {
+          valueBuffer[i] = getBytesFromChunk(docId - chunkStartDocId, chunkBuffer);
+        } while (++i < length && (docId = docIds[i]) >= chunkStartDocId && docId < chunkEndDocId);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        valueBuffer[i] = getBytesUncompressed(docIds[i]);
+      }
+    }
+  }
+
   /**
    * Helper method to compute the end offset of the value in the chunk buffer.
    */
@@ -22,7 +22,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.utils.DataTable;
 
@@ -30,16 +33,31 @@ import org.apache.pinot.common.utils.DataTable;
 /**
  * The {@code AsyncQueryResponse} class represents an asynchronous query response.
  * <p>Call {@link #getResponse()} to get the query response asynchronously.
+ * <p>When hedged requests are enabled, the request to a slow server might be resent to another replica with a
+ * separate request id. The response is keyed by the original server, and whichever response arrives first is taken.
+ * <p>Call {@link #getResponse(BiConsumer)} instead to consume the data tables one at a time as they arrive (streaming
+ * reduce) on the calling thread.
  */
 @ThreadSafe
 public class AsyncQueryResponse {
+  // Marker put into the received servers queue to wake up the streaming consumer when the query fails
+  private static final ServerRoutingInstance QUERY_FAILED_MARKER = new ServerRoutingInstance("", 0, null);
+
   private final QueryRouter _queryRouter;
   private final long _requestId;
   private final ConcurrentHashMap<ServerRoutingInstance, ServerResponse> _responseMap;
   private final CountDownLatch _countDownLatch;
+  // Servers with data table received, in the order of arrival
+  private final LinkedBlockingQueue<ServerRoutingInstance> _receivedServers = new LinkedBlockingQueue<>();
+  private final long _timeoutMs;
   private final long _maxEndTimeMs;
+  // Map from hedged request id to the hedged request
+  private final ConcurrentHashMap<Long, HedgedRequest> _hedgedRequestMap = new ConcurrentHashMap<>();
+  // Original servers with hedged request sent
+  private final Set<ServerRoutingInstance> _hedgedServers = ConcurrentHashMap.newKeySet();
 
   private volatile Exception _brokerRequestSendException;
+  private volatile boolean _queryDone;
 
   public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<ServerRoutingInstance> serversQueried,
       long startTimeMs, long timeoutMs) {
@@ -51,6 +69,7 @@ public class AsyncQueryResponse {
       _responseMap.put(serverRoutingInstance, new ServerResponse(startTimeMs));
     }
     _countDownLatch = new CountDownLatch(numServersQueried);
+    _timeoutMs = timeoutMs;
     _maxEndTimeMs = startTimeMs + timeoutMs;
   }
 
@@ -63,7 +82,47 @@ public class AsyncQueryResponse {
       _countDownLatch.await(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
       return _responseMap;
     } finally {
-      _queryRouter.markQueryDone(_requestId);
+      markQueryDone();
+    }
+  }
+
+  /**
+   * Waits until the query is done and returns a map from the server to the response. The data table from each server
+   * is passed to the given consumer on the calling thread as soon as it arrives, then released from the server response
+   * so that it can be garbage collected before the query finishes.
+   * <p>NOTE: {@link ServerResponse#getDataTable()} returns {@code null} for the data tables consumed, use
+   * {@link ServerResponse#isDataTableReceived()} to check whether the server responded.
+   */
+  public Map<ServerRoutingInstance, ServerResponse> getResponse(
+      BiConsumer<ServerRoutingInstance, DataTable> dataTableConsumer)
+      throws InterruptedException {
+    try {
+      int numServersQueried = _responseMap.size();
+      int numDataTablesConsumed = 0;
+      while (numDataTablesConsumed < numServersQueried) {
+        ServerRoutingInstance serverRoutingInstance =
+            _receivedServers.poll(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        if (serverRoutingInstance == null || serverRoutingInstance == QUERY_FAILED_MARKER) {
+          break;
+        }
+        ServerResponse serverResponse = _responseMap.get(serverRoutingInstance);
+        dataTableConsumer.accept(serverRoutingInstance, serverResponse.getDataTable());
+        serverResponse.releaseDataTable();
+        numDataTablesConsumed++;
+      }
+      return _responseMap;
+    } finally {
+      markQueryDone();
+    }
+  }
+
+  private void markQueryDone() {
+    _queryDone = true;
+    _queryRouter.markQueryDone(_requestId);
+    for (Map.Entry<Long, HedgedRequest> entry : _hedgedRequestMap.entrySet()) {
+      _queryRouter.markQueryDone(entry.getKey());
+      // Hedged requests without response are penalized with the query timeout as the latency
+      entry.getValue().markCompleted(_timeoutMs);
     }
   }
 
@@ -84,13 +143,88 @@ public class AsyncQueryResponse {
     _responseMap.get(serverRoutingInstance).markRequestSubmitted();
   }
 
-  void receiveDataTable(ServerRoutingInstance serverRoutingInstance, DataTable dataTable, int responseSize,
-      int deserializationTimeMs) {
-    _responseMap.get(serverRoutingInstance).receiveDataTable(dataTable, responseSize, deserializationTimeMs);
-    _countDownLatch.countDown();
+  void receiveDataTable(long requestId, ServerRoutingInstance serverRoutingInstance, DataTable dataTable,
+      int responseSize, int deserializationTimeMs) {
+    long currentTimeMs = System.currentTimeMillis();
+    if (requestId == _requestId) {
+      ServerResponse serverResponse = _responseMap.get(serverRoutingInstance);
+      recordServerLatency(serverRoutingInstance, serverResponse, currentTimeMs);
+      if (serverResponse.receiveDataTable(dataTable, responseSize, deserializationTimeMs)) {
+        _receivedServers.offer(serverRoutingInstance);
+        _countDownLatch.countDown();
+      }
+    } else {
+      HedgedRequest hedgedRequest = _hedgedRequestMap.get(requestId);
+      if (hedgedRequest == null) {
+        return;
+      }
+      long latencyMs = currentTimeMs - hedgedRequest._submitTimeMs;
+      _queryRouter.recordServerLatency(serverRoutingInstance, latencyMs);
+      hedgedRequest.markCompleted(latencyMs);
+      ServerRoutingInstance originalServer = hedgedRequest._originalServer;
+      ServerResponse serverResponse = _responseMap.get(originalServer);
+      if (serverResponse.receiveDataTable(dataTable, responseSize, deserializationTimeMs)) {
+        _receivedServers.offer(originalServer);
+        _countDownLatch.countDown();
+        // NOTE: The original server has not responded yet, record the elapsed time as its latency (lower bound) so
+        //       that its latency histogram still reflects the slowness
+        recordServerLatency(originalServer, serverResponse, currentTimeMs);
+        _queryRouter.markHedgedRequestWon(hedgedRequest._rawTableName);
+      }
+    }
+  }
+
+  private void recordServerLatency(ServerRoutingInstance serverRoutingInstance, ServerResponse serverResponse,
+      long currentTimeMs) {
+    long submitRequestTimeMs = serverResponse.getSubmitRequestTimeMs();
+    // NOTE: Response might be received before the request is marked submitted
+    if (submitRequestTimeMs != 0) {
+      _queryRouter.recordServerLatency(serverRoutingInstance, currentTimeMs - submitRequestTimeMs);
+    }
+  }
+
+  boolean isQueryDone() {
+    return _queryDone;
+  }
+
+  boolean isResponseReceived(ServerRoutingInstance serverRoutingInstance) {
+    return _responseMap.get(serverRoutingInstance).isDataTableReceived();
+  }
+
+  /**
+   * Registers a hedged request from the given original server to the given target server, returns {@code false} if the
+   * query is already done, in which case the hedged request should not be sent.
+   * <p>The hedged request is recorded as submitted to the target selector when registered, and recorded as completed
+   * when the response is received, when it is removed, or when the query is done, whichever comes first.
+   */
+  boolean addHedgedRequest(long hedgedRequestId, ServerRoutingInstance originalServer, ServerInstance targetServer,
+      String rawTableName, HedgedRequestTargetSelector hedgedRequestTargetSelector) {
+    if (_queryDone) {
+      return false;
+    }
+    hedgedRequestTargetSelector.onRequestSubmitted(targetServer);
+    _hedgedServers.add(originalServer);
+    _hedgedRequestMap.put(hedgedRequestId,
+        new HedgedRequest(originalServer, targetServer, rawTableName, hedgedRequestTargetSelector,
+            System.currentTimeMillis()));
+    // NOTE: Check again in case the query is done while registering the hedged request
+    if (_queryDone) {
+      removeHedgedRequest(hedgedRequestId);
+      return false;
+    }
+    return true;
+  }
+
+  void removeHedgedRequest(long hedgedRequestId) {
+    HedgedRequest hedgedRequest = _hedgedRequestMap.remove(hedgedRequestId);
+    if (hedgedRequest != null) {
+      _hedgedServers.remove(hedgedRequest._originalServer);
+      hedgedRequest.markCompleted(_timeoutMs);
+    }
   }
 
   void markQueryFailed() {
+    _receivedServers.offer(QUERY_FAILED_MARKER);
     int count = (int) _countDownLatch.getCount();
     for (int i = 0; i < count; i++) {
       _countDownLatch.countDown();
@@ -99,11 +233,12 @@ public class AsyncQueryResponse {
 
   /**
    * NOTE: the server might not be hit by the query. Only fail the query if the query was sent to the server and the
-   * server hasn't responded yet.
+   * server hasn't responded yet. If a hedged request has been sent for the server, wait for the hedged request instead.
    */
   void markServerDown(ServerRoutingInstance serverRoutingInstance) {
     ServerResponse serverResponse = _responseMap.get(serverRoutingInstance);
-    if (serverResponse != null && serverResponse.getDataTable() == null) {
+    if (serverResponse != null && !serverResponse.isDataTableReceived() && !_hedgedServers
+        .contains(serverRoutingInstance)) {
       markQueryFailed();
     }
   }
@@ -115,4 +250,28 @@ public class AsyncQueryResponse {
   void setBrokerRequestSendException(Exception brokerRequestSendException) {
     _brokerRequestSendException = brokerRequestSendException;
   }
+
+  private static class HedgedRequest {
+    final ServerRoutingInstance _originalServer;
+    final ServerInstance _targetServer;
+    final String _rawTableName;
+    final HedgedRequestTargetSelector _hedgedRequestTargetSelector;
+    final long _submitTimeMs;
+    final AtomicBoolean _completed = new AtomicBoolean();
+
+    HedgedRequest(ServerRoutingInstance originalServer, ServerInstance targetServer, String rawTableName,
+        HedgedRequestTargetSelector hedgedRequestTargetSelector, long submitTimeMs) {
+      _originalServer = originalServer;
+      _targetServer = targetServer;
+      _rawTableName = rawTableName;
+      _hedgedRequestTargetSelector = hedgedRequestTargetSelector;
+      _submitTimeMs = submitTimeMs;
+    }
+
+    void markCompleted(long latencyMs) {
+      if (_completed.compareAndSet(false, true)) {
+        _hedgedRequestTargetSelector.onRequestCompleted(_targetServer, latencyMs);
+      }
+    }
+  }
 }
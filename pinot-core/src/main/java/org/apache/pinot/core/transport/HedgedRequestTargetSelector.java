@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.spi.config.table.TableType;
+
+
+/**
+ * The {@code HedgedRequestTargetSelector} selects the server to send the hedged request to when a server does not
+ * respond in time.
+ * <p>It is also notified when a hedged request is sent to and completed on the selected server, so that the caller can
+ * track the load of the server the same way as the regular requests.
+ */
+public interface HedgedRequestTargetSelector {
+
+  /**
+   * Returns another server (other than the given server) which serves all the given segments of the given table type,
+   * or {@code null} if there is no such server.
+   */
+  @Nullable
+  ServerInstance select(TableType tableType, ServerInstance serverInstance, List<String> segments);
+
+  /**
+   * Invoked right before a hedged request is sent to the given server (returned by {@link #select}).
+   */
+  default void onRequestSubmitted(ServerInstance serverInstance) {
+  }
+
+  /**
+   * Invoked exactly once for each {@link #onRequestSubmitted(ServerInstance)} when the hedged request is completed on
+   * the given server. For hedged requests without response (e.g. timed out or failed to send), the query timeout is
+   * used as the latency.
+   */
+  default void onRequestCompleted(ServerInstance serverInstance, long latencyMs) {
+  }
+}
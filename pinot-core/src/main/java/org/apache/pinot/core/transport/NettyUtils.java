@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Utility methods to pick the Netty transport for the channels between the broker and the servers.
+ * <p>The native (Epoll) transport avoids the selector overhead of the NIO transport, but is only available on Linux
+ * with the native library loaded. When it is not available, the NIO transport is used instead.
+ */
+public class NettyUtils {
+  private NettyUtils() {
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NettyUtils.class);
+
+  /**
+   * Returns whether to use the native transport, logs a warning if it is enabled but not available.
+   */
+  public static boolean useNativeTransport(boolean nativeTransportEnabled) {
+    if (!nativeTransportEnabled) {
+      return false;
+    }
+    if (Epoll.isAvailable()) {
+      return true;
+    }
+    LOGGER.warn("Native transport is not available, falling back to NIO transport", Epoll.unavailabilityCause());
+    return false;
+  }
+
+  /**
+   * Creates an event loop group with the default number of threads.
+   */
+  public static EventLoopGroup newEventLoopGroup(boolean nativeTransport) {
+    return nativeTransport ? new EpollEventLoopGroup() : new NioEventLoopGroup();
+  }
+
+  public static Class<? extends SocketChannel> getSocketChannelClass(boolean nativeTransport) {
+    return nativeTransport ? EpollSocketChannel.class : NioSocketChannel.class;
+  }
+
+  public static Class<? extends ServerSocketChannel> getServerSocketChannelClass(boolean nativeTransport) {
+    return nativeTransport ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+  }
+}
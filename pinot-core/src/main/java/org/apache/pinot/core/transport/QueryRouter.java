@@ -18,16 +18,26 @@
  */
 package org.apache.pinot.core.transport;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.request.InstanceRequest;
+import org.apache.pinot.common.utils.CommonConstants.Broker;
 import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.spi.config.table.TableType;
 import org.slf4j.Logger;
@@ -37,7 +47,14 @@ import org.slf4j.LoggerFactory;
 /**
  * The {@code QueryRouter} class provides methods to route the query based on the routing table, and returns a
  * {@link AsyncQueryResponse} so that caller can handle the query response asynchronously.
- * <p>It works on {@link ServerChannels} which maintains only a single connection between the broker and each server.
+ * <p>It works on {@link ServerChannels} which maintains a configurable number of connections between the broker and
+ * each server.
+ * <p>When hedged requests are enabled, it tracks the latency histogram of each server, and resends the request to
+ * another replica (selected by the {@link HedgedRequestTargetSelector}) once a server has not responded within the
+ * configured percentile of its historical latency. The hedged requests use negative request ids so that they never
+ * conflict with the request ids generated by the broker. The hedged requests are scheduled on a single scheduler thread,
+ * and sent on a separate sender thread pool so that a slow connection to one server does not delay the hedged requests
+ * to the other servers.
  */
 @ThreadSafe
 public class QueryRouter {
@@ -48,16 +65,73 @@ public class QueryRouter {
   private final ServerChannels _serverChannels;
   private final ConcurrentHashMap<Long, AsyncQueryResponse> _asyncQueryResponseMap = new ConcurrentHashMap<>();
 
+  // Hedged request related fields, hedged requests are disabled when the executors are null
+  private final double _hedgedRequestLatencyPercentile;
+  private final long _hedgedRequestMinDelayMs;
+  private final ScheduledExecutorService _hedgedRequestExecutor;
+  private final ExecutorService _hedgedRequestSender;
+  private final ConcurrentHashMap<ServerRoutingInstance, ServerLatencyHistogram> _serverLatencyHistogramMap =
+      new ConcurrentHashMap<>();
+  private final AtomicLong _hedgedRequestIdGenerator = new AtomicLong();
+
   public QueryRouter(String brokerId, BrokerMetrics brokerMetrics) {
+    this(brokerId, brokerMetrics, Broker.DEFAULT_NETTY_CONNECTIONS_PER_SERVER,
+        Broker.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED);
+  }
+
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, int numConnectionsPerServer,
+      boolean nativeTransportEnabled) {
+    this(brokerId, brokerMetrics, numConnectionsPerServer, nativeTransportEnabled, 0, 0);
+  }
+
+  /**
+   * Creates a query router with hedged requests enabled when the given latency percentile is positive. The hedged
+   * request for a server is sent after the given percentile of its historical latency, but no earlier than the given
+   * min delay.
+   */
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, int numConnectionsPerServer,
+      boolean nativeTransportEnabled, double hedgedRequestLatencyPercentile, long hedgedRequestMinDelayMs) {
+    Preconditions.checkArgument(hedgedRequestLatencyPercentile <= 100, "Invalid hedged request latency percentile: %s",
+        hedgedRequestLatencyPercentile);
     _brokerId = brokerId;
     _brokerMetrics = brokerMetrics;
-    _serverChannels = new ServerChannels(this, brokerMetrics);
+    _serverChannels = new ServerChannels(this, brokerMetrics, numConnectionsPerServer, nativeTransportEnabled);
+    _hedgedRequestLatencyPercentile = hedgedRequestLatencyPercentile;
+    _hedgedRequestMinDelayMs = hedgedRequestMinDelayMs;
+    if (hedgedRequestLatencyPercentile > 0) {
+      LOGGER.info("Enabling hedged requests with latency percentile: {}, min delay: {}ms",
+          hedgedRequestLatencyPercentile, hedgedRequestMinDelayMs);
+      _hedgedRequestExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hedged-request-scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+      // NOTE: Sending a request might block on connecting to the server, so use a cached thread pool to prevent one
+      //       unreachable server from blocking the hedged requests to the other servers
+      _hedgedRequestSender = Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hedged-request-sender-%d").build());
+    } else {
+      _hedgedRequestExecutor = null;
+      _hedgedRequestSender = null;
+    }
   }
 
   public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
       long timeoutMs) {
+    return submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
+        realtimeRoutingTable, timeoutMs, null);
+  }
+
+  /**
+   * Submits the query to the servers based on the routing tables. If hedged requests are enabled and the target
+   * selector is provided, the request to a slow server is resent to the server selected by the target selector.
+   */
+  public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
+      @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
+      long timeoutMs, @Nullable HedgedRequestTargetSelector hedgedRequestTargetSelector) {
     assert offlineBrokerRequest != null || realtimeBrokerRequest != null;
 
     // Build map from server to request based on the routing table
@@ -80,9 +154,11 @@ public class QueryRouter {
     }
 
     // Create the asynchronous query response with the request map
+    long startTimeMs = System.currentTimeMillis();
     AsyncQueryResponse asyncQueryResponse =
-        new AsyncQueryResponse(this, requestId, requestMap.keySet(), System.currentTimeMillis(), timeoutMs);
+        new AsyncQueryResponse(this, requestId, requestMap.keySet(), startTimeMs, timeoutMs);
     _asyncQueryResponseMap.put(requestId, asyncQueryResponse);
+    boolean querySubmitted = true;
     for (Map.Entry<ServerRoutingInstance, InstanceRequest> entry : requestMap.entrySet()) {
       ServerRoutingInstance serverRoutingInstance = entry.getKey();
       try {
@@ -94,15 +170,25 @@ public class QueryRouter {
         _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.REQUEST_SEND_EXCEPTIONS, 1);
         asyncQueryResponse.setBrokerRequestSendException(e);
         asyncQueryResponse.markQueryFailed();
+        querySubmitted = false;
         break;
       }
     }
 
+    if (querySubmitted && _hedgedRequestExecutor != null && hedgedRequestTargetSelector != null) {
+      scheduleHedgedRequests(rawTableName, asyncQueryResponse, hedgedRequestTargetSelector, offlineRoutingTable,
+          realtimeRoutingTable, requestMap, startTimeMs, timeoutMs);
+    }
+
     return asyncQueryResponse;
   }
 
   public void shutDown() {
     _serverChannels.shutDown();
+    if (_hedgedRequestExecutor != null) {
+      _hedgedRequestExecutor.shutdownNow();
+      _hedgedRequestSender.shutdownNow();
+    }
   }
 
   void receiveDataTable(ServerRoutingInstance serverRoutingInstance, DataTable dataTable, int responseSize,
@@ -112,10 +198,22 @@ public class QueryRouter {
 
     // Query future might be null if the query is already done (maybe due to failure)
     if (asyncQueryResponse != null) {
-      asyncQueryResponse.receiveDataTable(serverRoutingInstance, dataTable, responseSize, deserializationTimeMs);
+      asyncQueryResponse
+          .receiveDataTable(requestId, serverRoutingInstance, dataTable, responseSize, deserializationTimeMs);
+    }
+  }
+
+  void recordServerLatency(ServerRoutingInstance serverRoutingInstance, long latencyMs) {
+    if (_hedgedRequestExecutor != null) {
+      _serverLatencyHistogramMap.computeIfAbsent(serverRoutingInstance, k -> new ServerLatencyHistogram())
+          .record(latencyMs);
     }
   }
 
+  void markHedgedRequestWon(String rawTableName) {
+    _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.HEDGED_REQUESTS_WON, 1);
+  }
+
   void markServerDown(ServerRoutingInstance serverRoutingInstance) {
     for (AsyncQueryResponse asyncQueryResponse : _asyncQueryResponseMap.values()) {
       asyncQueryResponse.markServerDown(serverRoutingInstance);
@@ -126,6 +224,95 @@ public class QueryRouter {
     _asyncQueryResponseMap.remove(requestId);
   }
 
+  /**
+   * Schedules the hedged requests for the servers with enough latency history. The hedged requests are handled by a
+   * single task per query, which wakes up at the hedge time of each server in order.
+   */
+  private void scheduleHedgedRequests(String rawTableName, AsyncQueryResponse asyncQueryResponse,
+      HedgedRequestTargetSelector hedgedRequestTargetSelector,
+      @Nullable Map<ServerInstance, List<String>> offlineRoutingTable,
+      @Nullable Map<ServerInstance, List<String>> realtimeRoutingTable,
+      Map<ServerRoutingInstance, InstanceRequest> requestMap, long startTimeMs, long timeoutMs) {
+    List<HedgedRequestCandidate> candidates = new ArrayList<>();
+    addHedgedRequestCandidates(candidates, TableType.OFFLINE, offlineRoutingTable, requestMap, startTimeMs, timeoutMs);
+    addHedgedRequestCandidates(candidates, TableType.REALTIME, realtimeRoutingTable, requestMap, startTimeMs,
+        timeoutMs);
+    if (candidates.isEmpty()) {
+      return;
+    }
+    candidates.sort(Comparator.comparingLong(candidate -> candidate._hedgeTimeMs));
+    HedgedRequestTask hedgedRequestTask =
+        new HedgedRequestTask(rawTableName, asyncQueryResponse, hedgedRequestTargetSelector, candidates);
+    long delayMs = candidates.get(0)._hedgeTimeMs - System.currentTimeMillis();
+    _hedgedRequestExecutor.schedule(hedgedRequestTask, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void addHedgedRequestCandidates(List<HedgedRequestCandidate> candidates, TableType tableType,
+      @Nullable Map<ServerInstance, List<String>> routingTable, Map<ServerRoutingInstance, InstanceRequest> requestMap,
+      long startTimeMs, long timeoutMs) {
+    if (routingTable == null) {
+      return;
+    }
+    for (ServerInstance serverInstance : routingTable.keySet()) {
+      ServerRoutingInstance serverRoutingInstance = serverInstance.toServerRoutingInstance(tableType);
+      InstanceRequest instanceRequest = requestMap.get(serverRoutingInstance);
+      if (instanceRequest == null) {
+        continue;
+      }
+      ServerLatencyHistogram serverLatencyHistogram = _serverLatencyHistogramMap.get(serverRoutingInstance);
+      if (serverLatencyHistogram == null) {
+        continue;
+      }
+      long latencyMs = serverLatencyHistogram.getPercentile(_hedgedRequestLatencyPercentile);
+      if (latencyMs < 0) {
+        continue;
+      }
+      long hedgeDelayMs = Math.max(latencyMs, _hedgedRequestMinDelayMs);
+      if (hedgeDelayMs < timeoutMs) {
+        candidates.add(new HedgedRequestCandidate(serverInstance, serverRoutingInstance, instanceRequest,
+            startTimeMs + hedgeDelayMs));
+      }
+    }
+  }
+
+  private void sendHedgedRequest(String rawTableName, AsyncQueryResponse asyncQueryResponse,
+      HedgedRequestTargetSelector hedgedRequestTargetSelector, HedgedRequestCandidate candidate) {
+    ServerRoutingInstance serverRoutingInstance = candidate._serverRoutingInstance;
+    InstanceRequest instanceRequest = candidate._instanceRequest;
+    TableType tableType = serverRoutingInstance.getTableType();
+    ServerInstance targetServerInstance;
+    try {
+      targetServerInstance =
+          hedgedRequestTargetSelector.select(tableType, candidate._serverInstance, instanceRequest.getSearchSegments());
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while selecting hedged request target for request {} to server: {}",
+          instanceRequest.getRequestId(), serverRoutingInstance, e);
+      return;
+    }
+    if (targetServerInstance == null) {
+      return;
+    }
+
+    ServerRoutingInstance targetServerRoutingInstance = targetServerInstance.toServerRoutingInstance(tableType);
+    long hedgedRequestId = _hedgedRequestIdGenerator.decrementAndGet();
+    _asyncQueryResponseMap.put(hedgedRequestId, asyncQueryResponse);
+    if (!asyncQueryResponse.addHedgedRequest(hedgedRequestId, serverRoutingInstance, targetServerInstance, rawTableName,
+        hedgedRequestTargetSelector)) {
+      _asyncQueryResponseMap.remove(hedgedRequestId);
+      return;
+    }
+    try {
+      _serverChannels.sendRequest(targetServerRoutingInstance,
+          getInstanceRequest(hedgedRequestId, instanceRequest.getQuery(), instanceRequest.getSearchSegments()));
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.HEDGED_REQUESTS_SENT, 1);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while sending hedged request {} for request {} from server: {} to server: {}",
+          hedgedRequestId, instanceRequest.getRequestId(), serverRoutingInstance, targetServerRoutingInstance, e);
+      asyncQueryResponse.removeHedgedRequest(hedgedRequestId);
+      _asyncQueryResponseMap.remove(hedgedRequestId);
+    }
+  }
+
   private InstanceRequest getInstanceRequest(long requestId, BrokerRequest brokerRequest, List<String> segments) {
     InstanceRequest instanceRequest = new InstanceRequest();
     instanceRequest.setRequestId(requestId);
@@ -135,4 +322,58 @@ public class QueryRouter {
     instanceRequest.setBrokerId(_brokerId);
     return instanceRequest;
   }
+
+  private static class HedgedRequestCandidate {
+    final ServerInstance _serverInstance;
+    final ServerRoutingInstance _serverRoutingInstance;
+    final InstanceRequest _instanceRequest;
+    final long _hedgeTimeMs;
+
+    HedgedRequestCandidate(ServerInstance serverInstance, ServerRoutingInstance serverRoutingInstance,
+        InstanceRequest instanceRequest, long hedgeTimeMs) {
+      _serverInstance = serverInstance;
+      _serverRoutingInstance = serverRoutingInstance;
+      _instanceRequest = instanceRequest;
+      _hedgeTimeMs = hedgeTimeMs;
+    }
+  }
+
+  /**
+   * Task to send the hedged requests for a query. The candidates are sorted by the hedge time, and the task reschedules
+   * itself until all the candidates are processed or the query is done. The hedged requests are handed over to the
+   * sender thread pool so that the scheduler thread never blocks on sending the requests.
+   */
+  private class HedgedRequestTask implements Runnable {
+    final String _rawTableName;
+    final AsyncQueryResponse _asyncQueryResponse;
+    final HedgedRequestTargetSelector _hedgedRequestTargetSelector;
+    final List<HedgedRequestCandidate> _candidates;
+    int _candidateIndex;
+
+    HedgedRequestTask(String rawTableName, AsyncQueryResponse asyncQueryResponse,
+        HedgedRequestTargetSelector hedgedRequestTargetSelector, List<HedgedRequestCandidate> candidates) {
+      _rawTableName = rawTableName;
+      _asyncQueryResponse = asyncQueryResponse;
+      _hedgedRequestTargetSelector = hedgedRequestTargetSelector;
+      _candidates = candidates;
+    }
+
+    @Override
+    public void run() {
+      int numCandidates = _candidates.size();
+      while (_candidateIndex < numCandidates && !_asyncQueryResponse.isQueryDone()) {
+        HedgedRequestCandidate candidate = _candidates.get(_candidateIndex);
+        long currentTimeMs = System.currentTimeMillis();
+        if (candidate._hedgeTimeMs > currentTimeMs) {
+          _hedgedRequestExecutor.schedule(this, candidate._hedgeTimeMs - currentTimeMs, TimeUnit.MILLISECONDS);
+          return;
+        }
+        if (!_asyncQueryResponse.isResponseReceived(candidate._serverRoutingInstance)) {
+          _hedgedRequestSender.execute(
+              () -> sendHedgedRequest(_rawTableName, _asyncQueryResponse, _hedgedRequestTargetSelector, candidate));
+        }
+        _candidateIndex++;
+      }
+    }
+  }
 }
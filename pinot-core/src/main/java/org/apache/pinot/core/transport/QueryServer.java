@@ -23,13 +23,12 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import java.util.concurrent.TimeUnit;
 import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.CommonConstants.Server;
 import org.apache.pinot.core.query.scheduler.QueryScheduler;
 
 
@@ -41,23 +40,31 @@ public class QueryServer {
   private final int _port;
   private final QueryScheduler _queryScheduler;
   private final ServerMetrics _serverMetrics;
+  private final boolean _nativeTransport;
 
   private EventLoopGroup _bossGroup;
   private EventLoopGroup _workerGroup;
   private Channel _channel;
 
   public QueryServer(int port, QueryScheduler queryScheduler, ServerMetrics serverMetrics) {
+    this(port, queryScheduler, serverMetrics, Server.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED);
+  }
+
+  public QueryServer(int port, QueryScheduler queryScheduler, ServerMetrics serverMetrics,
+      boolean nativeTransportEnabled) {
     _port = port;
     _queryScheduler = queryScheduler;
     _serverMetrics = serverMetrics;
+    _nativeTransport = NettyUtils.useNativeTransport(nativeTransportEnabled);
   }
 
   public void start() {
-    _bossGroup = new NioEventLoopGroup();
-    _workerGroup = new NioEventLoopGroup();
+    _bossGroup = NettyUtils.newEventLoopGroup(_nativeTransport);
+    _workerGroup = NettyUtils.newEventLoopGroup(_nativeTransport);
     try {
       ServerBootstrap serverBootstrap = new ServerBootstrap();
-      _channel = serverBootstrap.group(_bossGroup, _workerGroup).channel(NioServerSocketChannel.class)
+      _channel = serverBootstrap.group(_bossGroup, _workerGroup)
+          .channel(NettyUtils.getServerSocketChannelClass(_nativeTransport))
           .option(ChannelOption.SO_BACKLOG, 128).childOption(ChannelOption.SO_KEEPALIVE, true)
           .childHandler(new ChannelInitializer<SocketChannel>() {
             @Override
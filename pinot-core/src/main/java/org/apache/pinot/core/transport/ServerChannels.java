@@ -18,43 +18,61 @@
  */
 package org.apache.pinot.core.transport;
 
+import com.google.common.base.Preconditions;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.metrics.BrokerGauge;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.request.InstanceRequest;
-import org.apache.thrift.TSerializer;
+import org.apache.pinot.common.utils.CommonConstants.Broker;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TIOStreamTransport;
 
 
 /**
  * The {@code ServerChannels} class manages the channels between broker to all the connected servers.
- * <p>There is only one channel between the broker and each connected server (we count OFFLINE and REALTIME as different
- * servers)
+ * <p>There is a configurable number of channels between the broker and each connected server (we count OFFLINE and
+ * REALTIME as different servers), and the requests to a server are spread across its channels in a round-robin
+ * fashion. The requests are serialized into pooled buffers without locking, and the lock is only held to (re)connect a
+ * channel.
  */
 @ThreadSafe
 public class ServerChannels {
   private final QueryRouter _queryRouter;
   private final BrokerMetrics _brokerMetrics;
+  private final int _numConnectionsPerServer;
+  private final boolean _nativeTransport;
   private final ConcurrentHashMap<ServerRoutingInstance, ServerChannel> _serverToChannelMap = new ConcurrentHashMap<>();
-  private final EventLoopGroup _eventLoopGroup = new NioEventLoopGroup();
+  private final EventLoopGroup _eventLoopGroup;
 
   public ServerChannels(QueryRouter queryRouter, BrokerMetrics brokerMetrics) {
+    this(queryRouter, brokerMetrics, Broker.DEFAULT_NETTY_CONNECTIONS_PER_SERVER,
+        Broker.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED);
+  }
+
+  public ServerChannels(QueryRouter queryRouter, BrokerMetrics brokerMetrics, int numConnectionsPerServer,
+      boolean nativeTransportEnabled) {
+    Preconditions.checkArgument(numConnectionsPerServer > 0, "Invalid number of connections per server: %s",
+        numConnectionsPerServer);
     _queryRouter = queryRouter;
     _brokerMetrics = brokerMetrics;
+    _numConnectionsPerServer = numConnectionsPerServer;
+    _nativeTransport = NettyUtils.useNativeTransport(nativeTransportEnabled);
+    _eventLoopGroup = NettyUtils.newEventLoopGroup(_nativeTransport);
   }
 
   public void sendRequest(ServerRoutingInstance serverRoutingInstance, InstanceRequest instanceRequest)
@@ -69,16 +87,18 @@ public class ServerChannels {
 
   @ThreadSafe
   private class ServerChannel {
-    final TSerializer _serializer = new TSerializer(new TCompactProtocol.Factory());
     final ServerRoutingInstance _serverRoutingInstance;
     final Bootstrap _bootstrap;
-    Channel _channel;
+    final AtomicReferenceArray<Channel> _channels = new AtomicReferenceArray<>(_numConnectionsPerServer);
+    // Lock for each channel, only held while connecting the channel
+    final Object[] _connectionLocks = new Object[_numConnectionsPerServer];
+    final AtomicInteger _nextChannelIndex = new AtomicInteger();
 
     ServerChannel(ServerRoutingInstance serverRoutingInstance) {
       _serverRoutingInstance = serverRoutingInstance;
       _bootstrap = new Bootstrap().remoteAddress(serverRoutingInstance.getHostname(), serverRoutingInstance.getPort())
-          .group(_eventLoopGroup).channel(NioSocketChannel.class).option(ChannelOption.SO_KEEPALIVE, true)
-          .handler(new ChannelInitializer<SocketChannel>() {
+          .group(_eventLoopGroup).channel(NettyUtils.getSocketChannelClass(_nativeTransport))
+          .option(ChannelOption.SO_KEEPALIVE, true).handler(new ChannelInitializer<SocketChannel>() {
             @Override
             protected void initChannel(SocketChannel ch) {
               ch.pipeline()
@@ -89,20 +109,50 @@ public class ServerChannels {
                       new DataTableHandler(_queryRouter, _serverRoutingInstance, _brokerMetrics));
             }
           });
+      for (int i = 0; i < _numConnectionsPerServer; i++) {
+        _connectionLocks[i] = new Object();
+      }
     }
 
-    synchronized void sendRequest(InstanceRequest instanceRequest)
+    void sendRequest(InstanceRequest instanceRequest)
         throws Exception {
-      if (_channel == null || !_channel.isActive()) {
-        long startTime = System.currentTimeMillis();
-        _channel = _bootstrap.connect().sync().channel();
-        _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.NETTY_CONNECTION_CONNECT_TIME_MS,
-            System.currentTimeMillis() - startTime);
+      Channel channel = getChannel();
+      ByteBuf requestBuf = channel.alloc().buffer();
+      try {
+        instanceRequest.write(new TCompactProtocol(new TIOStreamTransport(new ByteBufOutputStream(requestBuf))));
+      } catch (Exception e) {
+        requestBuf.release();
+        throw e;
       }
-      byte[] requestBytes = _serializer.serialize(instanceRequest);
-      _channel.writeAndFlush(Unpooled.wrappedBuffer(requestBytes), _channel.voidPromise());
+      int requestSize = requestBuf.readableBytes();
+      // NOTE: The buffer is released by Netty after being written
+      channel.writeAndFlush(requestBuf, channel.voidPromise());
       _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_REQUESTS_SENT, 1);
-      _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_BYTES_SENT, requestBytes.length);
+      _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_BYTES_SENT, requestSize);
+    }
+
+    /**
+     * Returns the next active channel in a round-robin fashion, (re)connects the channel if necessary.
+     */
+    Channel getChannel()
+        throws InterruptedException {
+      int index = _numConnectionsPerServer == 1 ? 0
+          : (_nextChannelIndex.getAndIncrement() & Integer.MAX_VALUE) % _numConnectionsPerServer;
+      Channel channel = _channels.get(index);
+      if (channel != null && channel.isActive()) {
+        return channel;
+      }
+      synchronized (_connectionLocks[index]) {
+        channel = _channels.get(index);
+        if (channel == null || !channel.isActive()) {
+          long startTime = System.currentTimeMillis();
+          channel = _bootstrap.connect().sync().channel();
+          _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.NETTY_CONNECTION_CONNECT_TIME_MS,
+              System.currentTimeMillis() - startTime);
+          _channels.set(index, channel);
+        }
+        return channel;
+      }
     }
   }
 }
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The {@code ServerLatencyHistogram} class tracks the recent response latency of a server in exponential buckets, and
+ * is used to estimate the latency percentile for the hedged requests.
+ * <p>Each bucket covers latencies up to 25% larger than the previous one, so the estimated percentile is accurate
+ * within 25%. To keep the histogram reflecting the recent latency, the counts of all buckets are halved once the total
+ * count reaches {@link #MAX_TOTAL_COUNT}.
+ */
+@ThreadSafe
+class ServerLatencyHistogram {
+  static final int MIN_TOTAL_COUNT = 100;
+  static final int MAX_TOTAL_COUNT = 1000;
+
+  private static final int NUM_BUCKETS = 64;
+  private static final double BUCKET_GROWTH_FACTOR = 1.25;
+  private static final long[] BUCKET_UPPER_BOUNDS = new long[NUM_BUCKETS];
+
+  static {
+    double upperBound = 1;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      BUCKET_UPPER_BOUNDS[i] = (long) Math.ceil(upperBound);
+      upperBound *= BUCKET_GROWTH_FACTOR;
+    }
+  }
+
+  private final int[] _counts = new int[NUM_BUCKETS];
+  private int _totalCount;
+
+  synchronized void record(long latencyMs) {
+    _counts[getBucketIndex(latencyMs)]++;
+    if (++_totalCount == MAX_TOTAL_COUNT) {
+      _totalCount = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        _counts[i] >>= 1;
+        _totalCount += _counts[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated latency (upper bound of the bucket) at the given percentile, or {@code -1} if there are not
+   * enough latencies recorded to estimate the percentile.
+   */
+  synchronized long getPercentile(double percentile) {
+    if (_totalCount < MIN_TOTAL_COUNT) {
+      return -1;
+    }
+    long targetCount = (long) Math.ceil(_totalCount * percentile / 100);
+    long count = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      count += _counts[i];
+      if (count >= targetCount) {
+        return BUCKET_UPPER_BOUNDS[i];
+      }
+    }
+    return BUCKET_UPPER_BOUNDS[NUM_BUCKETS - 1];
+  }
+
+  private static int getBucketIndex(long latencyMs) {
+    int index = 0;
+    while (index < NUM_BUCKETS - 1 && latencyMs > BUCKET_UPPER_BOUNDS[index]) {
+      index++;
+    }
+    return index;
+  }
+}
@@ -38,10 +38,21 @@ public class ServerResponse {
     _startTimeMs = startTimeMs;
   }
 
+  /**
+   * Returns the data table received, or {@code null} if no data table has been received or the data table has been
+   * released after being reduced (streaming reduce).
+   */
   public DataTable getDataTable() {
     return _dataTable;
   }
 
+  /**
+   * Returns {@code true} if the data table has been received, even if it has been released afterwards.
+   */
+  public boolean isDataTableReceived() {
+    return _receiveDataTableTimeMs != 0;
+  }
+
   public int getSubmitDelayMs() {
     if (_submitRequestTimeMs != 0) {
       return (int) (_submitRequestTimeMs - _startTimeMs);
@@ -76,10 +87,31 @@ public class ServerResponse {
     _submitRequestTimeMs = System.currentTimeMillis();
   }
 
-  void receiveDataTable(DataTable dataTable, int responseSize, int deserializationTimeMs) {
-    _receiveDataTableTimeMs = System.currentTimeMillis();
+  long getSubmitRequestTimeMs() {
+    return _submitRequestTimeMs;
+  }
+
+  /**
+   * Receives the data table for the request, returns {@code true} if it is the first data table received, or
+   * {@code false} if a data table has already been received (e.g. from the hedged request to another replica), in
+   * which case the given data table is ignored.
+   */
+  synchronized boolean receiveDataTable(DataTable dataTable, int responseSize, int deserializationTimeMs) {
+    if (_receiveDataTableTimeMs != 0) {
+      return false;
+    }
     _dataTable = dataTable;
     _responseSize = responseSize;
     _deserializationTimeMs = deserializationTimeMs;
+    // NOTE: Set the receive time last because it is used to check whether the data table is received
+    _receiveDataTableTimeMs = System.currentTimeMillis();
+    return true;
+  }
+
+  /**
+   * Releases the data table after it is reduced so that it can be garbage collected before the query finishes.
+   */
+  void releaseDataTable() {
+    _dataTable = null;
   }
 }
@@ -0,0 +1,495 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.upsert;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.PeekableIntIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Partition upsert metadata manager that keeps the primary key to record location mapping in an off-heap open
+ * addressing hash table instead of a map of objects on heap. It follows the same rules as
+ * {@link PartitionUpsertMetadataManager} to decide which record to preserve.
+ * <ul>
+ *   <li>
+ *     The primary key is stored as its 128-bit murmur3 hash, and the record location is packed as (segment ordinal,
+ *     doc id, timestamp), so that no object is allocated per primary key or per update.
+ *   </li>
+ *   <li>
+ *     Each segment keeps an off-heap reverse index from doc id to primary key hash, so that removing a segment only
+ *     needs to look up the valid docs of the segment instead of scanning the whole table.
+ *   </li>
+ * </ul>
+ * <p>All the operations on the partition are serialized with the manager lock. This is fine because a partition only
+ * has one consuming segment, and segment add/remove are not on the query path.
+ */
+@ThreadSafe
+public class OffHeapPartitionUpsertMetadataManager extends PartitionUpsertMetadataManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapPartitionUpsertMetadataManager.class);
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  // Entry layout: key hash high bits (8 bytes), key hash low bits (8 bytes), timestamp (8 bytes), segment ordinal
+  // (4 bytes), doc id (4 bytes)
+  private static final int ENTRY_SIZE = 32;
+  private static final int KEY_HIGH_OFFSET = 0;
+  private static final int KEY_LOW_OFFSET = 8;
+  private static final int TIMESTAMP_OFFSET = 16;
+  private static final int SEGMENT_ORDINAL_OFFSET = 24;
+  private static final int DOC_ID_OFFSET = 28;
+  // Reverse index entry layout: key hash high bits (8 bytes), key hash low bits (8 bytes)
+  private static final int KEY_HASH_SIZE = 16;
+  // Segment ordinal starts with 1, so that 0 can be used to mark the empty slot
+  private static final int EMPTY_SEGMENT_ORDINAL = 0;
+  private static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final double LOAD_FACTOR = 0.5;
+
+  // Segment ordinal -> segment entry
+  private final List<SegmentEntry> _segmentEntries = new ArrayList<>();
+  private final IntArrayList _freeSegmentOrdinals = new IntArrayList();
+  private final Map<ConcurrentValidDocIds, Integer> _validDocIdsToSegmentOrdinalMap = new IdentityHashMap<>();
+
+  private PinotDataBuffer _dataBuffer;
+  private int _capacity;
+  private int _mask;
+  private int _maxSize;
+  private int _size;
+
+  public OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
+      ServerMetrics serverMetrics) {
+    this(tableNameWithType, partitionId, serverMetrics, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  @VisibleForTesting
+  OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId, ServerMetrics serverMetrics,
+      int initialCapacity) {
+    super(tableNameWithType, partitionId, serverMetrics);
+    Preconditions.checkArgument(initialCapacity > 0 && initialCapacity <= MAX_CAPACITY,
+        "Illegal initial capacity: %s", initialCapacity);
+    _segmentEntries.add(null);
+    int capacity = Integer.highestOneBit(initialCapacity);
+    allocate(capacity < initialCapacity ? capacity << 1 : capacity);
+  }
+
+  @Override
+  public synchronized ConcurrentValidDocIds addSegment(String segmentName,
+      Iterator<RecordInfo> recordInfoIterator) {
+    LOGGER.info("Adding upsert metadata for segment: {}", segmentName);
+    Preconditions.checkState(_dataBuffer != null, "Upsert metadata manager is already closed");
+
+    ConcurrentValidDocIds validDocIds = new ConcurrentValidDocIds();
+    int segmentOrdinal = getOrCreateSegmentOrdinal(segmentName, validDocIds);
+    SegmentEntry segmentEntry = _segmentEntries.get(segmentOrdinal);
+    long[] keyHash = new long[2];
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      hash(recordInfo._primaryKey, keyHash);
+      long offset = (long) findSlot(keyHash[0], keyHash[1]) * ENTRY_SIZE;
+      int currentSegmentOrdinal = _dataBuffer.getInt(offset + SEGMENT_ORDINAL_OFFSET);
+      if (currentSegmentOrdinal != EMPTY_SEGMENT_ORDINAL) {
+        // Existing primary key
+        // See PartitionUpsertMetadataManager.addSegment() for the details of the rules
+        SegmentEntry currentSegmentEntry = _segmentEntries.get(currentSegmentOrdinal);
+        long currentTimestamp = _dataBuffer.getLong(offset + TIMESTAMP_OFFSET);
+        if (segmentName.equals(currentSegmentEntry._segmentName)) {
+          if (recordInfo._timestamp >= currentTimestamp) {
+            // Only update the valid doc ids for the new segment
+            if (currentSegmentOrdinal == segmentOrdinal) {
+              validDocIds.remove(_dataBuffer.getInt(offset + DOC_ID_OFFSET));
+            }
+            validDocIds.add(recordInfo._docId);
+            updateEntry(offset, currentSegmentOrdinal, segmentEntry, segmentOrdinal, recordInfo, keyHash);
+          }
+        } else {
+          if (recordInfo._timestamp > currentTimestamp || (recordInfo._timestamp == currentTimestamp
+              && LLCSegmentName.getSequenceNumber(segmentName) > LLCSegmentName
+              .getSequenceNumber(currentSegmentEntry._segmentName))) {
+            currentSegmentEntry._validDocIds.remove(_dataBuffer.getInt(offset + DOC_ID_OFFSET));
+            validDocIds.add(recordInfo._docId);
+            updateEntry(offset, currentSegmentOrdinal, segmentEntry, segmentOrdinal, recordInfo, keyHash);
+          }
+        }
+      } else {
+        // New primary key
+        validDocIds.add(recordInfo._docId);
+        insertEntry(offset, segmentEntry, segmentOrdinal, recordInfo, keyHash);
+      }
+    }
+    onSegmentAdded(segmentName);
+    // Update metrics
+    _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
+        _size);
+    return validDocIds;
+  }
+
+  @Override
+  public synchronized void updateRecord(String segmentName, RecordInfo recordInfo,
+      ConcurrentValidDocIds validDocIds) {
+    Preconditions.checkState(_dataBuffer != null, "Upsert metadata manager is already closed");
+    int segmentOrdinal = getOrCreateSegmentOrdinal(segmentName, validDocIds);
+    SegmentEntry segmentEntry = _segmentEntries.get(segmentOrdinal);
+    long[] keyHash = new long[2];
+    hash(recordInfo._primaryKey, keyHash);
+    long offset = (long) findSlot(keyHash[0], keyHash[1]) * ENTRY_SIZE;
+    int currentSegmentOrdinal = _dataBuffer.getInt(offset + SEGMENT_ORDINAL_OFFSET);
+    if (currentSegmentOrdinal != EMPTY_SEGMENT_ORDINAL) {
+      // Existing primary key
+      if (recordInfo._timestamp >= _dataBuffer.getLong(offset + TIMESTAMP_OFFSET)) {
+        invalidateDoc(segmentName, validDocIds, _segmentEntries.get(currentSegmentOrdinal)._validDocIds,
+            _dataBuffer.getInt(offset + DOC_ID_OFFSET));
+        validDocIds.add(recordInfo._docId);
+        updateEntry(offset, currentSegmentOrdinal, segmentEntry, segmentOrdinal, recordInfo, keyHash);
+      }
+    } else {
+      // New primary key
+      validDocIds.add(recordInfo._docId);
+      insertEntry(offset, segmentEntry, segmentOrdinal, recordInfo, keyHash);
+    }
+    // Update metrics
+    _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
+        _size);
+  }
+
+  @Override
+  public synchronized void removeSegment(String segmentName, ConcurrentValidDocIds validDocIds) {
+    LOGGER.info("Removing upsert metadata for segment: {}", segmentName);
+
+    onSegmentRemoved(validDocIds);
+    // The segment ordinal is already released when all the record locations of the segment are replaced
+    Integer segmentOrdinal = _validDocIdsToSegmentOrdinalMap.get(validDocIds);
+    if (segmentOrdinal != null) {
+      // Only the valid docs can be referenced by the record locations, so use the reverse index to look them up
+      SegmentEntry segmentEntry = _segmentEntries.get(segmentOrdinal);
+      PeekableIntIterator docIdIterator = validDocIds.getMutableRoaringBitmap().getIntIterator();
+      while (docIdIterator.hasNext()) {
+        int docId = docIdIterator.next();
+        long keyHashOffset = (long) docId * KEY_HASH_SIZE;
+        long keyHigh = segmentEntry._keyHashBuffer.getLong(keyHashOffset);
+        long keyLow = segmentEntry._keyHashBuffer.getLong(keyHashOffset + 8);
+        int slot = findSlot(keyHigh, keyLow);
+        long offset = (long) slot * ENTRY_SIZE;
+        // Check and remove to prevent removing the key that is just updated
+        if (_dataBuffer.getInt(offset + SEGMENT_ORDINAL_OFFSET) == segmentOrdinal
+            && _dataBuffer.getInt(offset + DOC_ID_OFFSET) == docId) {
+          removeSlot(slot);
+        }
+      }
+      releaseSegmentOrdinal(segmentOrdinal);
+    }
+    // Update metrics
+    _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
+        _size);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (_dataBuffer != null) {
+      try {
+        _dataBuffer.close();
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while closing the upsert metadata buffer for table: {}, partition: {}",
+            _tableNameWithType, _partitionId, e);
+      }
+      _dataBuffer = null;
+    }
+    int numSegmentEntries = _segmentEntries.size();
+    for (int i = 1; i < numSegmentEntries; i++) {
+      SegmentEntry segmentEntry = _segmentEntries.get(i);
+      if (segmentEntry != null) {
+        segmentEntry.close();
+      }
+    }
+    _segmentEntries.subList(1, numSegmentEntries).clear();
+    _freeSegmentOrdinals.clear();
+    _validDocIdsToSegmentOrdinalMap.clear();
+    _size = 0;
+    super.close();
+  }
+
+  /**
+   * Returns the current record location for the given primary key, or {@code null} if the primary key does not exist.
+   */
+  @VisibleForTesting
+  @Nullable
+  synchronized RecordLocation getRecordLocation(PrimaryKey primaryKey) {
+    long[] keyHash = new long[2];
+    hash(primaryKey, keyHash);
+    long offset = (long) findSlot(keyHash[0], keyHash[1]) * ENTRY_SIZE;
+    int segmentOrdinal = _dataBuffer.getInt(offset + SEGMENT_ORDINAL_OFFSET);
+    if (segmentOrdinal == EMPTY_SEGMENT_ORDINAL) {
+      return null;
+    }
+    SegmentEntry segmentEntry = _segmentEntries.get(segmentOrdinal);
+    return new RecordLocation(segmentEntry._segmentName, _dataBuffer.getInt(offset + DOC_ID_OFFSET),
+        _dataBuffer.getLong(offset + TIMESTAMP_OFFSET), segmentEntry._validDocIds);
+  }
+
+  @VisibleForTesting
+  synchronized int getNumPrimaryKeys() {
+    return _size;
+  }
+
+  @VisibleForTesting
+  synchronized int getNumSegments() {
+    return _validDocIdsToSegmentOrdinalMap.size();
+  }
+
+  /**
+   * Computes the 128-bit hash of the primary key into the given buffer (high bits first).
+   */
+  private static void hash(PrimaryKey primaryKey, long[] keyHash) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    for (Object value : primaryKey.getValues()) {
+      // Put a type tag before each value so that values with different types (e.g. Integer 1 and Long 1) are not
+      // treated as the same key, which matches the equality of the PrimaryKey
+      if (value instanceof Integer) {
+        hasher.putByte((byte) 0).putInt((Integer) value);
+      } else if (value instanceof Long) {
+        hasher.putByte((byte) 1).putLong((Long) value);
+      } else if (value instanceof Float) {
+        hasher.putByte((byte) 2).putFloat((Float) value);
+      } else if (value instanceof Double) {
+        hasher.putByte((byte) 3).putDouble((Double) value);
+      } else if (value instanceof String) {
+        String stringValue = (String) value;
+        hasher.putByte((byte) 4).putInt(stringValue.length()).putString(stringValue, StandardCharsets.UTF_8);
+      } else if (value instanceof ByteArray) {
+        byte[] bytes = ((ByteArray) value).getBytes();
+        hasher.putByte((byte) 5).putInt(bytes.length).putBytes(bytes);
+      } else if (value instanceof byte[]) {
+        byte[] bytes = (byte[]) value;
+        hasher.putByte((byte) 5).putInt(bytes.length).putBytes(bytes);
+      } else {
+        String stringValue = String.valueOf(value);
+        hasher.putByte((byte) 6).putInt(stringValue.length()).putString(stringValue, StandardCharsets.UTF_8);
+      }
+    }
+    ByteBuffer hashBuffer = ByteBuffer.wrap(hasher.hash().asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    keyHash[0] = hashBuffer.getLong(0);
+    keyHash[1] = hashBuffer.getLong(8);
+  }
+
+  /**
+   * Returns the slot for the given key hash, which is either the slot holding the key or the empty slot where the key
+   * should be inserted.
+   */
+  private int findSlot(long keyHigh, long keyLow) {
+    int slot = (int) keyHigh & _mask;
+    while (true) {
+      long offset = (long) slot * ENTRY_SIZE;
+      if (_dataBuffer.getInt(offset + SEGMENT_ORDINAL_OFFSET) == EMPTY_SEGMENT_ORDINAL || (
+          _dataBuffer.getLong(offset + KEY_HIGH_OFFSET) == keyHigh
+              && _dataBuffer.getLong(offset + KEY_LOW_OFFSET) == keyLow)) {
+        return slot;
+      }
+      slot = (slot + 1) & _mask;
+    }
+  }
+
+  private void insertEntry(long offset, SegmentEntry segmentEntry, int segmentOrdinal, RecordInfo recordInfo,
+      long[] keyHash) {
+    _dataBuffer.putLong(offset + KEY_HIGH_OFFSET, keyHash[0]);
+    _dataBuffer.putLong(offset + KEY_LOW_OFFSET, keyHash[1]);
+    _dataBuffer.putLong(offset + TIMESTAMP_OFFSET, recordInfo._timestamp);
+    _dataBuffer.putInt(offset + SEGMENT_ORDINAL_OFFSET, segmentOrdinal);
+    _dataBuffer.putInt(offset + DOC_ID_OFFSET, recordInfo._docId);
+    segmentEntry.setKeyHash(recordInfo._docId, keyHash);
+    segmentEntry._numPrimaryKeys++;
+    if (++_size > _maxSize) {
+      resize();
+    }
+  }
+
+  private void updateEntry(long offset, int currentSegmentOrdinal, SegmentEntry segmentEntry, int segmentOrdinal,
+      RecordInfo recordInfo, long[] keyHash) {
+    _dataBuffer.putLong(offset + TIMESTAMP_OFFSET, recordInfo._timestamp);
+    _dataBuffer.putInt(offset + SEGMENT_ORDINAL_OFFSET, segmentOrdinal);
+    _dataBuffer.putInt(offset + DOC_ID_OFFSET, recordInfo._docId);
+    segmentEntry.setKeyHash(recordInfo._docId, keyHash);
+    if (currentSegmentOrdinal != segmentOrdinal) {
+      segmentEntry._numPrimaryKeys++;
+      // Release the segment ordinal when no record location is pointing to the segment. This can happen when all the
+      // records of a consuming segment or a reloaded segment are moved to the new segment.
+      if (--_segmentEntries.get(currentSegmentOrdinal)._numPrimaryKeys == 0) {
+        releaseSegmentOrdinal(currentSegmentOrdinal);
+      }
+    }
+  }
+
+  /**
+   * Removes the entry in the given slot, and shifts the following entries backward to fill the hole so that no
+   * tombstone is needed for the linear probing.
+   */
+  private void removeSlot(int slot) {
+    long holeOffset = (long) slot * ENTRY_SIZE;
+    SegmentEntry segmentEntry = _segmentEntries.get(_dataBuffer.getInt(holeOffset + SEGMENT_ORDINAL_OFFSET));
+    segmentEntry._numPrimaryKeys--;
+    int hole = slot;
+    int next = (slot + 1) & _mask;
+    while (true) {
+      long nextOffset = (long) next * ENTRY_SIZE;
+      if (_dataBuffer.getInt(nextOffset + SEGMENT_ORDINAL_OFFSET) == EMPTY_SEGMENT_ORDINAL) {
+        break;
+      }
+      // Move the entry into the hole if the hole is between its home slot and its current slot
+      int home = (int) _dataBuffer.getLong(nextOffset + KEY_HIGH_OFFSET) & _mask;
+      if (((next - home) & _mask) >= ((next - hole) & _mask)) {
+        holeOffset = (long) hole * ENTRY_SIZE;
+        _dataBuffer.putLong(holeOffset, _dataBuffer.getLong(nextOffset));
+        _dataBuffer.putLong(holeOffset + 8, _dataBuffer.getLong(nextOffset + 8));
+        _dataBuffer.putLong(holeOffset + 16, _dataBuffer.getLong(nextOffset + 16));
+        _dataBuffer.putLong(holeOffset + 24, _dataBuffer.getLong(nextOffset + 24));
+        hole = next;
+      }
+      next = (next + 1) & _mask;
+    }
+    _dataBuffer.putInt((long) hole * ENTRY_SIZE + SEGMENT_ORDINAL_OFFSET, EMPTY_SEGMENT_ORDINAL);
+    _size--;
+  }
+
+  private void allocate(int capacity) {
+    _dataBuffer = PinotDataBuffer.allocateDirect((long) capacity * ENTRY_SIZE, PinotDataBuffer.NATIVE_ORDER,
+        "OffHeapPartitionUpsertMetadataManager: " + _tableNameWithType + "_" + _partitionId);
+    // The content of the allocated buffer is not defined, so mark all the slots as empty
+    for (int i = 0; i < capacity; i++) {
+      _dataBuffer.putInt((long) i * ENTRY_SIZE + SEGMENT_ORDINAL_OFFSET, EMPTY_SEGMENT_ORDINAL);
+    }
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _maxSize = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void resize() {
+    Preconditions.checkState(_capacity < MAX_CAPACITY, "Too many primary keys for table: %s, partition: %s",
+        _tableNameWithType, _partitionId);
+    PinotDataBuffer oldDataBuffer = _dataBuffer;
+    int oldCapacity = _capacity;
+    allocate(oldCapacity << 1);
+    for (int i = 0; i < oldCapacity; i++) {
+      long oldOffset = (long) i * ENTRY_SIZE;
+      if (oldDataBuffer.getInt(oldOffset + SEGMENT_ORDINAL_OFFSET) != EMPTY_SEGMENT_ORDINAL) {
+        long keyHigh = oldDataBuffer.getLong(oldOffset + KEY_HIGH_OFFSET);
+        long newOffset = (long) findSlot(keyHigh, oldDataBuffer.getLong(oldOffset + KEY_LOW_OFFSET)) * ENTRY_SIZE;
+        _dataBuffer.putLong(newOffset, keyHigh);
+        _dataBuffer.putLong(newOffset + 8, oldDataBuffer.getLong(oldOffset + 8));
+        _dataBuffer.putLong(newOffset + 16, oldDataBuffer.getLong(oldOffset + 16));
+        _dataBuffer.putLong(newOffset + 24, oldDataBuffer.getLong(oldOffset + 24));
+      }
+    }
+    try {
+      oldDataBuffer.close();
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while closing the upsert metadata buffer for table: {}, partition: {}",
+          _tableNameWithType, _partitionId, e);
+    }
+  }
+
+  private int getOrCreateSegmentOrdinal(String segmentName, ConcurrentValidDocIds validDocIds) {
+    Integer segmentOrdinal = _validDocIdsToSegmentOrdinalMap.get(validDocIds);
+    if (segmentOrdinal != null) {
+      return segmentOrdinal;
+    }
+    SegmentEntry segmentEntry = new SegmentEntry(segmentName, validDocIds,
+        "OffHeapPartitionUpsertMetadataManager: " + _tableNameWithType + "_" + _partitionId + "_" + segmentName);
+    int newSegmentOrdinal;
+    if (!_freeSegmentOrdinals.isEmpty()) {
+      newSegmentOrdinal = _freeSegmentOrdinals.removeInt(_freeSegmentOrdinals.size() - 1);
+      _segmentEntries.set(newSegmentOrdinal, segmentEntry);
+    } else {
+      newSegmentOrdinal = _segmentEntries.size();
+      _segmentEntries.add(segmentEntry);
+    }
+    _validDocIdsToSegmentOrdinalMap.put(validDocIds, newSegmentOrdinal);
+    return newSegmentOrdinal;
+  }
+
+  private void releaseSegmentOrdinal(int segmentOrdinal) {
+    SegmentEntry segmentEntry = _segmentEntries.set(segmentOrdinal, null);
+    _validDocIdsToSegmentOrdinalMap.remove(segmentEntry._validDocIds);
+    _freeSegmentOrdinals.add(segmentOrdinal);
+    segmentEntry.close();
+  }
+
+  private static class SegmentEntry {
+    private static final int INITIAL_NUM_DOCS = 1024;
+
+    final String _segmentName;
+    final ConcurrentValidDocIds _validDocIds;
+    final String _description;
+    // Off-heap reverse index from doc id to primary key hash
+    PinotDataBuffer _keyHashBuffer;
+    int _numPrimaryKeys;
+
+    SegmentEntry(String segmentName, ConcurrentValidDocIds validDocIds, String description) {
+      _segmentName = segmentName;
+      _validDocIds = validDocIds;
+      _description = description;
+      _keyHashBuffer =
+          PinotDataBuffer.allocateDirect((long) INITIAL_NUM_DOCS * KEY_HASH_SIZE, PinotDataBuffer.NATIVE_ORDER,
+              description);
+    }
+
+    void setKeyHash(int docId, long[] keyHash) {
+      long offset = (long) docId * KEY_HASH_SIZE;
+      long size = _keyHashBuffer.size();
+      if (offset >= size) {
+        PinotDataBuffer keyHashBuffer =
+            PinotDataBuffer.allocateDirect(Math.max(size << 1, offset + KEY_HASH_SIZE), PinotDataBuffer.NATIVE_ORDER,
+                _description);
+        _keyHashBuffer.copyTo(0, keyHashBuffer, 0, size);
+        close();
+        _keyHashBuffer = keyHashBuffer;
+      }
+      _keyHashBuffer.putLong(offset, keyHash[0]);
+      _keyHashBuffer.putLong(offset + 8, keyHash[1]);
+    }
+
+    void close() {
+      try {
+        _keyHashBuffer.close();
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while closing the key hash buffer for segment: {}", _segmentName, e);
+      }
+    }
+  }
+}
@@ -20,13 +20,15 @@ package org.apache.pinot.core.upsert;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.metrics.ServerGauge;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.utils.LLCSegmentName;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,14 +54,17 @@ import org.slf4j.LoggerFactory;
  *     updates applied to the new segment's valid doc ids won't be reflected to the replaced segment's valid doc ids.
  *   </li>
  * </ul>
+ * <p>The docs of the other segments invalidated by the records in the consuming segments are also tracked until the
+ * consuming segment is committed, because the consuming segment is discarded and re-consumed after the server restarts
+ * (see {@link #getValidDocIdsSnapshot(ConcurrentValidDocIds)}).
  */
 @ThreadSafe
 public class PartitionUpsertMetadataManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(PartitionUpsertMetadataManager.class);
 
-  private final String _tableNameWithType;
-  private final int _partitionId;
-  private final ServerMetrics _serverMetrics;
+  protected final String _tableNameWithType;
+  protected final int _partitionId;
+  protected final ServerMetrics _serverMetrics;
 
   public PartitionUpsertMetadataManager(String tableNameWithType, int partitionId, ServerMetrics serverMetrics) {
     _tableNameWithType = tableNameWithType;
@@ -67,17 +72,20 @@ public class PartitionUpsertMetadataManager {
     _serverMetrics = serverMetrics;
   }
 
-  // TODO(upset): consider an off-heap KV store to persist this index to improve the recovery speed.
   @VisibleForTesting
   final ConcurrentHashMap<PrimaryKey, RecordLocation> _primaryKeyToRecordLocationMap = new ConcurrentHashMap<>();
 
+  // Consuming segment name -> valid doc ids of the other segment -> docs invalidated by the consuming segment
+  private final ConcurrentHashMap<String, ConcurrentHashMap<ConcurrentValidDocIds, ConcurrentValidDocIds>>
+      _consumingInvalidatedDocIdsMap = new ConcurrentHashMap<>();
+
   /**
    * Initializes the upsert metadata for the given immutable segment, returns the valid doc ids for the segment.
    */
-  public ThreadSafeMutableRoaringBitmap addSegment(String segmentName, Iterator<RecordInfo> recordInfoIterator) {
+  public ConcurrentValidDocIds addSegment(String segmentName, Iterator<RecordInfo> recordInfoIterator) {
     LOGGER.info("Adding upsert metadata for segment: {}", segmentName);
 
-    ThreadSafeMutableRoaringBitmap validDocIds = new ThreadSafeMutableRoaringBitmap();
+    ConcurrentValidDocIds validDocIds = new ConcurrentValidDocIds();
     while (recordInfoIterator.hasNext()) {
       RecordInfo recordInfo = recordInfoIterator.next();
       _primaryKeyToRecordLocationMap.compute(recordInfo._primaryKey, (primaryKey, currentRecordLocation) -> {
@@ -130,6 +138,7 @@ public class PartitionUpsertMetadataManager {
         }
       });
     }
+    onSegmentAdded(segmentName);
     // Update metrics
     _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
         _primaryKeyToRecordLocationMap.size());
@@ -139,7 +148,7 @@ public class PartitionUpsertMetadataManager {
   /**
    * Updates the upsert metadata for a new consumed record in the given consuming segment.
    */
-  public void updateRecord(String segmentName, RecordInfo recordInfo, ThreadSafeMutableRoaringBitmap validDocIds) {
+  public void updateRecord(String segmentName, RecordInfo recordInfo, ConcurrentValidDocIds validDocIds) {
     _primaryKeyToRecordLocationMap.compute(recordInfo._primaryKey, (primaryKey, currentRecordLocation) -> {
       if (currentRecordLocation != null) {
         // Existing primary key
@@ -147,7 +156,8 @@ public class PartitionUpsertMetadataManager {
         // Update the record location when the new timestamp is greater than or equal to the current timestamp. Update
         // the record location when there is a tie to keep the newer record.
         if (recordInfo._timestamp >= currentRecordLocation.getTimestamp()) {
-          currentRecordLocation.getValidDocIds().remove(currentRecordLocation.getDocId());
+          invalidateDoc(segmentName, validDocIds, currentRecordLocation.getValidDocIds(),
+              currentRecordLocation.getDocId());
           validDocIds.add(recordInfo._docId);
           return new RecordLocation(segmentName, recordInfo._docId, recordInfo._timestamp, validDocIds);
         } else {
@@ -168,9 +178,10 @@ public class PartitionUpsertMetadataManager {
    * Removes the upsert metadata for the given immutable segment. No need to remove the upsert metadata for the
    * consuming segment because it should be replaced by the committed segment.
    */
-  public void removeSegment(String segmentName, ThreadSafeMutableRoaringBitmap validDocIds) {
+  public void removeSegment(String segmentName, ConcurrentValidDocIds validDocIds) {
     LOGGER.info("Removing upsert metadata for segment: {}", segmentName);
 
+    onSegmentRemoved(validDocIds);
     if (!validDocIds.getMutableRoaringBitmap().isEmpty()) {
       // Remove all the record locations that point to the valid doc ids of the removed segment.
       _primaryKeyToRecordLocationMap.forEach((primaryKey, recordLocation) -> {
@@ -185,10 +196,75 @@ public class PartitionUpsertMetadataManager {
         _primaryKeyToRecordLocationMap.size());
   }
 
+  /**
+   * Releases the resources held by the manager. Should be called after all the segments of the partition are removed.
+   */
+  public void close() {
+    _primaryKeyToRecordLocationMap.clear();
+    _consumingInvalidatedDocIdsMap.clear();
+  }
+
+  /**
+   * Returns the valid doc ids of the given immutable segment to be persisted as the snapshot. Besides the current valid
+   * docs, it also includes the docs invalidated by the consuming segments, because the records in the consuming
+   * segments are discarded and re-consumed after the server restarts. Including extra docs is safe because the
+   * conflicts are resolved again when the snapshot is replayed, while missing docs would drop the primary keys until
+   * they are re-consumed.
+   */
+  public MutableRoaringBitmap getValidDocIdsSnapshot(ConcurrentValidDocIds validDocIds) {
+    // NOTE: Read the valid doc ids before the invalidated docs because the docs are tracked as invalidated before being
+    //       removed from the valid doc ids
+    MutableRoaringBitmap snapshot = validDocIds.getMutableRoaringBitmap();
+    for (Map<ConcurrentValidDocIds, ConcurrentValidDocIds> invalidatedDocIdsMap : _consumingInvalidatedDocIdsMap
+        .values()) {
+      ConcurrentValidDocIds invalidatedDocIds = invalidatedDocIdsMap.get(validDocIds);
+      if (invalidatedDocIds != null) {
+        snapshot.or(invalidatedDocIds.getMutableRoaringBitmap());
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Removes the given doc from the given valid doc ids because of a newer record in the given consuming segment. Tracks
+   * the doc if it belongs to another segment so that it can be included in the snapshot.
+   */
+  protected void invalidateDoc(String consumingSegmentName, ConcurrentValidDocIds consumingValidDocIds,
+      ConcurrentValidDocIds validDocIds, int docId) {
+    if (validDocIds != consumingValidDocIds) {
+      _consumingInvalidatedDocIdsMap.computeIfAbsent(consumingSegmentName, k -> new ConcurrentHashMap<>())
+          .computeIfAbsent(validDocIds, k -> new ConcurrentValidDocIds()).add(docId);
+    }
+    validDocIds.remove(docId);
+  }
+
+  /**
+   * Should be invoked after a segment is added. When a consuming segment is committed, the records in it are no longer
+   * re-consumed after the server restarts, so the docs invalidated by it no longer need to be tracked.
+   */
+  protected void onSegmentAdded(String segmentName) {
+    _consumingInvalidatedDocIdsMap.remove(segmentName);
+  }
+
+  /**
+   * Should be invoked when a segment is removed to stop tracking the invalidated docs of the segment.
+   */
+  protected void onSegmentRemoved(ConcurrentValidDocIds validDocIds) {
+    for (Map<ConcurrentValidDocIds, ConcurrentValidDocIds> invalidatedDocIdsMap : _consumingInvalidatedDocIdsMap
+        .values()) {
+      invalidatedDocIdsMap.remove(validDocIds);
+    }
+  }
+
+  @VisibleForTesting
+  int getNumConsumingSegmentsWithInvalidatedDocs() {
+    return _consumingInvalidatedDocIdsMap.size();
+  }
+
   public static final class RecordInfo {
-    private final PrimaryKey _primaryKey;
-    private final int _docId;
-    private final long _timestamp;
+    final PrimaryKey _primaryKey;
+    final int _docId;
+    final long _timestamp;
 
     public RecordInfo(PrimaryKey primaryKey, int docId, long timestamp) {
       _primaryKey = primaryKey;
@@ -18,7 +18,7 @@
  */
 package org.apache.pinot.core.upsert;
 
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 
 
 /**
@@ -28,9 +28,9 @@ public class RecordLocation {
   private final String _segmentName;
   private final int _docId;
   private final long _timestamp;
-  private final ThreadSafeMutableRoaringBitmap _validDocIds;
+  private final ConcurrentValidDocIds _validDocIds;
 
-  public RecordLocation(String segmentName, int docId, long timestamp, ThreadSafeMutableRoaringBitmap validDocIds) {
+  public RecordLocation(String segmentName, int docId, long timestamp, ConcurrentValidDocIds validDocIds) {
     _segmentName = segmentName;
     _docId = docId;
     _timestamp = timestamp;
@@ -49,7 +49,7 @@ public class RecordLocation {
     return _timestamp;
   }
 
-  public ThreadSafeMutableRoaringBitmap getValidDocIds() {
+  public ConcurrentValidDocIds getValidDocIds() {
     return _validDocIds;
   }
 }
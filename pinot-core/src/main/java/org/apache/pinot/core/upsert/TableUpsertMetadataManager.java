@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.spi.config.table.UpsertConfig;
 
 
 /**
@@ -32,14 +33,36 @@ public class TableUpsertMetadataManager {
   private final Map<Integer, PartitionUpsertMetadataManager> _partitionMetadataManagerMap = new ConcurrentHashMap<>();
   private final String _tableNameWithType;
   private final ServerMetrics _serverMetrics;
+  private final UpsertConfig.MetadataStoreType _metadataStoreType;
 
   public TableUpsertMetadataManager(String tableNameWithType, ServerMetrics serverMetrics) {
+    this(tableNameWithType, serverMetrics, UpsertConfig.MetadataStoreType.ON_HEAP);
+  }
+
+  public TableUpsertMetadataManager(String tableNameWithType, ServerMetrics serverMetrics,
+      UpsertConfig.MetadataStoreType metadataStoreType) {
     _tableNameWithType = tableNameWithType;
     _serverMetrics = serverMetrics;
+    _metadataStoreType = metadataStoreType;
   }
 
   public PartitionUpsertMetadataManager getOrCreatePartitionManager(int partitionId) {
-    return _partitionMetadataManagerMap.computeIfAbsent(partitionId,
-        k -> new PartitionUpsertMetadataManager(_tableNameWithType, k, _serverMetrics));
+    return _partitionMetadataManagerMap.computeIfAbsent(partitionId, k -> {
+      if (_metadataStoreType == UpsertConfig.MetadataStoreType.OFF_HEAP) {
+        return new OffHeapPartitionUpsertMetadataManager(_tableNameWithType, k, _serverMetrics);
+      } else {
+        return new PartitionUpsertMetadataManager(_tableNameWithType, k, _serverMetrics);
+      }
+    });
+  }
+
+  /**
+   * Releases the resources held by all the partition managers. Should be called after all the segments are removed.
+   */
+  public void close() {
+    for (PartitionUpsertMetadataManager partitionUpsertMetadataManager : _partitionMetadataManagerMap.values()) {
+      partitionUpsertMetadataManager.close();
+    }
+    _partitionMetadataManagerMap.clear();
   }
 }
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.upsert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Utility methods to persist and load the valid doc ids snapshot of an immutable upsert segment.
+ * <p>The snapshot is stored in the segment index directory with the segment CRC, and is deleted once loaded, so that
+ * a stale snapshot (e.g. the server crashes after loading the snapshot) will never be used. The snapshot is only
+ * persisted when the table is shut down, which guarantees that the snapshots of all the segments are consistent. The
+ * docs invalidated by the consuming segments are kept in the snapshot because the consuming segments are re-consumed
+ * after the restart.
+ * <p>Snapshot format:
+ * <ul>
+ *   <li>Version (int)</li>
+ *   <li>Segment CRC (UTF string)</li>
+ *   <li>Serialized valid doc ids bitmap</li>
+ * </ul>
+ */
+public class ValidDocIdsSnapshotUtils {
+  private ValidDocIdsSnapshotUtils() {
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidDocIdsSnapshotUtils.class);
+
+  public static final String SNAPSHOT_FILE_NAME = "validdocids.snapshot";
+  private static final String TEMP_SNAPSHOT_FILE_NAME = SNAPSHOT_FILE_NAME + ".tmp";
+  private static final int VERSION = 1;
+
+  /**
+   * Persists the valid doc ids snapshot into the segment index directory.
+   */
+  public static void persistSnapshot(File indexDir, String crc, MutableRoaringBitmap validDocIds)
+      throws IOException {
+    File tempSnapshotFile = new File(indexDir, TEMP_SNAPSHOT_FILE_NAME);
+    try (DataOutputStream dataOutputStream = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tempSnapshotFile)))) {
+      dataOutputStream.writeInt(VERSION);
+      dataOutputStream.writeUTF(crc);
+      validDocIds.serialize(dataOutputStream);
+    }
+    Files.move(tempSnapshotFile.toPath(), new File(indexDir, SNAPSHOT_FILE_NAME).toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Loads the valid doc ids snapshot from the segment index directory, and deletes the snapshot file. Returns
+   * {@code null} if the snapshot does not exist, or does not match the segment CRC, or cannot be read.
+   */
+  @Nullable
+  public static MutableRoaringBitmap loadAndDeleteSnapshot(File indexDir, String crc) {
+    File snapshotFile = new File(indexDir, SNAPSHOT_FILE_NAME);
+    if (!snapshotFile.exists()) {
+      return null;
+    }
+    try (DataInputStream dataInputStream = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+      int version = dataInputStream.readInt();
+      if (version != VERSION) {
+        LOGGER.warn("Unsupported valid doc ids snapshot version: {} in: {}, skipping it", version, indexDir);
+        return null;
+      }
+      String snapshotCrc = dataInputStream.readUTF();
+      if (!snapshotCrc.equals(crc)) {
+        LOGGER.warn("Valid doc ids snapshot CRC: {} does not match segment CRC: {} in: {}, skipping it", snapshotCrc,
+            crc, indexDir);
+        return null;
+      }
+      MutableRoaringBitmap validDocIds = new MutableRoaringBitmap();
+      validDocIds.deserialize(dataInputStream);
+      return validDocIds;
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while loading valid doc ids snapshot from: {}, skipping it", indexDir, e);
+      return null;
+    } finally {
+      FileUtils.deleteQuietly(snapshotFile);
+    }
+  }
+}
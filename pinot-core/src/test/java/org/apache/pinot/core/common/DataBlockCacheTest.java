@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.assertSame;
+
+
+public class DataBlockCacheTest {
+  private static final String COLUMN_1 = "column1";
+  private static final String COLUMN_2 = "column2";
+
+  @Test
+  public void testFetchOncePerBlock() {
+    DataFetcher dataFetcher = mock(DataFetcher.class);
+    DataBlockCache dataBlockCache = new DataBlockCache(dataFetcher, Arrays.asList(COLUMN_1, COLUMN_2));
+    int[] docIds = new int[]{0, 1, 2};
+
+    dataBlockCache.initNewBlock(docIds, 3);
+    int[] intValues = dataBlockCache.getIntValuesForSVColumn(COLUMN_1);
+    assertSame(dataBlockCache.getIntValuesForSVColumn(COLUMN_1), intValues);
+    verify(dataFetcher, times(1)).fetchIntValues(eq(COLUMN_1), eq(docIds), eq(3), any(int[].class));
+
+    // Different column and data type should have separate buffers
+    assertNotSame(dataBlockCache.getIntValuesForSVColumn(COLUMN_2), intValues);
+    assertNotSame(dataBlockCache.getDictIdsForSVColumn(COLUMN_1), intValues);
+    dataBlockCache.getLongValuesForSVColumn(COLUMN_1);
+    verify(dataFetcher, times(1)).fetchLongValues(eq(COLUMN_1), eq(docIds), eq(3), any(long[].class));
+
+    // Data should be fetched again for a new block with the same buffer
+    dataBlockCache.initNewBlock(docIds, 2);
+    assertSame(dataBlockCache.getIntValuesForSVColumn(COLUMN_1), intValues);
+    verify(dataFetcher, times(1)).fetchIntValues(eq(COLUMN_1), eq(docIds), eq(2), any(int[].class));
+    verify(dataFetcher, times(3)).fetchIntValues(any(String.class), any(int[].class), anyInt(), any(int[].class));
+  }
+
+  @Test
+  public void testReleaseBuffers() {
+    DataFetcher dataFetcher = mock(DataFetcher.class);
+    int[] docIds = new int[]{0, 1, 2};
+
+    DataBlockCache dataBlockCache = new DataBlockCache(dataFetcher, Arrays.asList(COLUMN_1, COLUMN_2));
+    dataBlockCache.initNewBlock(docIds, 3);
+    String[] stringValues = dataBlockCache.getStringValuesForSVColumn(COLUMN_1);
+    stringValues[0] = "foo";
+    dataBlockCache.releaseBuffers();
+
+    // The released buffer should be reused (and cleared) by the next data block cache on the same thread
+    DataBlockCache newDataBlockCache = new DataBlockCache(dataFetcher, Arrays.asList(COLUMN_1, COLUMN_2));
+    newDataBlockCache.initNewBlock(docIds, 3);
+    assertSame(newDataBlockCache.getStringValuesForSVColumn(COLUMN_2), stringValues);
+    assertNull(stringValues[0]);
+    verify(dataFetcher, times(1)).fetchStringValues(eq(COLUMN_2), eq(docIds), eq(3), any(String[].class));
+  }
+
+  @Test
+  public void testBoundedBufferPool() {
+    DataFetcher dataFetcher = mock(DataFetcher.class);
+    int[] docIds = new int[]{0, 1, 2};
+    int numColumns = 64;
+    List<String> columns = new ArrayList<>(numColumns);
+    for (int i = 0; i < numColumns; i++) {
+      columns.add("column" + i);
+    }
+
+    // Borrow all the pooled buffers
+    DataBlockCache dataBlockCache = new DataBlockCache(dataFetcher, columns);
+    dataBlockCache.initNewBlock(docIds, 3);
+    for (String column : columns) {
+      dataBlockCache.getDictIdsForSVColumn(column);
+      dataBlockCache.getIntValuesForSVColumn(column);
+      dataBlockCache.getLongValuesForSVColumn(column);
+      dataBlockCache.getFloatValuesForSVColumn(column);
+      dataBlockCache.getDoubleValuesForSVColumn(column);
+      dataBlockCache.getStringValuesForSVColumn(column);
+      dataBlockCache.getBytesValuesForSVColumn(column);
+    }
+    assertEquals(DataBlockCache.getThreadLocalPoolSizeInBytes(), 0L);
+
+    // Buffers of a single type should be bounded by the max size per type
+    DataBlockCache longValuesDataBlockCache = new DataBlockCache(dataFetcher, columns);
+    longValuesDataBlockCache.initNewBlock(docIds, 3);
+    for (String column : columns) {
+      longValuesDataBlockCache.getLongValuesForSVColumn(column);
+    }
+    longValuesDataBlockCache.releaseBuffers();
+    long poolSizeInBytes = DataBlockCache.getThreadLocalPoolSizeInBytes();
+    assertTrue(poolSizeInBytes > 0);
+    assertTrue(poolSizeInBytes <= DataBlockCache.MAX_POOL_SIZE_IN_BYTES_PER_TYPE, "Pool size: " + poolSizeInBytes);
+
+    // Buffers of all the types should be bounded by the max total size
+    dataBlockCache.releaseBuffers();
+    poolSizeInBytes = DataBlockCache.getThreadLocalPoolSizeInBytes();
+    assertTrue(poolSizeInBytes <= DataBlockCache.MAX_POOL_SIZE_IN_BYTES, "Pool size: " + poolSizeInBytes);
+  }
+}
@@ -27,7 +27,10 @@ import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.spi.utils.ByteArray;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 
@@ -41,15 +44,26 @@ public class DataTableSerDeTest {
 
   private static final int NUM_ROWS = 100;
 
-  @Test
-  public void testException()
+  @DataProvider(name = "versions")
+  public Object[][] versions() {
+    return new Object[][]{{DataTableBuilder.VERSION_2}, {DataTableBuilder.VERSION_3}};
+  }
+
+  @AfterMethod
+  public void resetVersion() {
+    DataTableBuilder.setCurrentDataTableVersion(DataTableBuilder.VERSION_2);
+  }
+
+  @Test(dataProvider = "versions")
+  public void testException(int version)
       throws IOException {
+    DataTableBuilder.setCurrentDataTableVersion(version);
     Exception exception = new UnsupportedOperationException("Caught exception.");
     ProcessingException processingException =
         QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, exception);
     String expected = processingException.getMessage();
 
-    DataTable dataTable = new DataTableImplV2();
+    DataTable dataTable = DataTableBuilder.getEmptyDataTable();
     dataTable.addException(processingException);
     DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
     Assert.assertNull(newDataTable.getDataSchema());
@@ -60,9 +74,10 @@ public class DataTableSerDeTest {
     Assert.assertEquals(actual, expected);
   }
 
-  @Test
-  public void testEmptyStrings()
+  @Test(dataProvider = "versions")
+  public void testEmptyStrings(int version)
       throws IOException {
+    DataTableBuilder.setCurrentDataTableVersion(version);
     String emptyString = StringUtils.EMPTY;
     String[] emptyStringArray = {StringUtils.EMPTY};
 
@@ -87,9 +102,10 @@ public class DataTableSerDeTest {
     }
   }
 
-  @Test
-  public void testAllDataTypes()
+  @Test(dataProvider = "versions")
+  public void testAllDataTypes(int version)
       throws IOException {
+    DataTableBuilder.setCurrentDataTableVersion(version);
     DataSchema.ColumnDataType[] columnDataTypes = DataSchema.ColumnDataType.values();
     int numColumns = columnDataTypes.length;
     String[] columnNames = new String[numColumns];
@@ -105,6 +121,7 @@ public class DataTableSerDeTest {
     float[] floats = new float[NUM_ROWS];
     double[] doubles = new double[NUM_ROWS];
     String[] strings = new String[NUM_ROWS];
+    ByteArray[] bytes = new ByteArray[NUM_ROWS];
     Object[] objects = new Object[NUM_ROWS];
     int[][] intArrays = new int[NUM_ROWS][];
     long[][] longArrays = new long[NUM_ROWS][];
@@ -136,6 +153,10 @@ public class DataTableSerDeTest {
             strings[rowId] = RandomStringUtils.random(RANDOM.nextInt(20));
             dataTableBuilder.setColumn(colId, strings[rowId]);
             break;
+          case BYTES:
+            bytes[rowId] = new ByteArray(RandomStringUtils.random(RANDOM.nextInt(20)).getBytes());
+            dataTableBuilder.setColumn(colId, bytes[rowId]);
+            break;
           // Just test Double here, all object types will be covered in ObjectCustomSerDeTest.
           case OBJECT:
             objects[rowId] = RANDOM.nextDouble();
@@ -214,6 +235,9 @@ public class DataTableSerDeTest {
           case STRING:
             Assert.assertEquals(newDataTable.getString(rowId, colId), strings[rowId], ERROR_MESSAGE);
             break;
+          case BYTES:
+            Assert.assertEquals(newDataTable.getBytes(rowId, colId), bytes[rowId], ERROR_MESSAGE);
+            break;
           case OBJECT:
             Assert.assertEquals(newDataTable.getObject(rowId, colId), objects[rowId], ERROR_MESSAGE);
             break;
@@ -24,6 +24,7 @@ import org.apache.pinot.spi.data.readers.GenericRow;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 
@@ -64,6 +65,27 @@ public class InbuiltFunctionEvaluatorTest {
     }
   }
 
+  @Test
+  public void testBatchEvaluation() {
+    String expression = "reverse(substr(toEpochSecondsRounded(testColumn, 10), 1))";
+    InbuiltFunctionEvaluator evaluator = new InbuiltFunctionEvaluator(expression);
+    assertEquals(evaluator.getArguments(), Collections.singletonList("testColumn"));
+    int numRows = 5;
+    GenericRow[] rows = new GenericRow[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rows[i] = new GenericRow();
+      rows[i].putValue("testColumn", 1_600_000_123_456L + i * 10_000L);
+    }
+    // Evaluate on a larger results array and check the values out of the batch are not touched
+    Object[] results = new Object[numRows + 1];
+    evaluator.evaluate(rows, numRows, results);
+    for (int i = 0; i < numRows; i++) {
+      assertEquals(results[i], evaluator.evaluate(rows[i]));
+      assertEquals(results[i], new StringBuilder(Long.toString(1_600_000_120L + i * 10)).reverse().substring(0, 9));
+    }
+    assertNull(results[numRows]);
+  }
+
   @Test
   public void testStateSharedBetweenRowsForExecution()
       throws Exception {
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import org.apache.pinot.core.data.manager.realtime.ParallelMessageDecoder.DecodedMessages;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.LongMsgOffset;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.StreamMessageDecoder;
+import org.apache.pinot.spi.stream.StreamPartitionMsgOffset;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class ParallelMessageDecoderTest {
+  private static final String VALUE_COLUMN = "value";
+
+  @Test
+  public void testDecodeInOrder()
+      throws Exception {
+    int numMessages = 1000;
+    String[] messages = new String[numMessages];
+    for (int i = 0; i < numMessages; i++) {
+      messages[i] = Integer.toString(i);
+    }
+    // Multiple records in one message
+    messages[10] = "10,1010";
+    // Invalid message (decoded to null)
+    messages[20] = "invalid";
+    // Message failed to decode
+    messages[999] = "error";
+
+    // Drop the rows with value divisible by 7, and fail the transformation for value 30
+    try (ParallelMessageDecoder parallelMessageDecoder = new ParallelMessageDecoder(4, TestDecoder::new,
+        () -> row -> {
+          int value = (int) row.getValue(VALUE_COLUMN);
+          if (value == 30) {
+            throw new IllegalStateException();
+          }
+          return value % 7 == 0 ? null : row;
+        }, "testSegment")) {
+      MessageBatch<byte[]> messageBatch = new TestMessageBatch(messages);
+      DecodedMessages decodedMessages = parallelMessageDecoder.submit(messageBatch, new LongMsgOffset(0));
+      assertEquals(decodedMessages.getMessageBatch(), messageBatch);
+      assertEquals(decodedMessages.getStartOffset().compareTo(new LongMsgOffset(0)), 0);
+      for (int i = 0; i < numMessages - 1; i++) {
+        List<GenericRow> rows = decodedMessages.getRows(i);
+        if (i == 10) {
+          assertNotNull(rows);
+          assertEquals(rows.size(), 2);
+          assertEquals(rows.get(0).getValue(VALUE_COLUMN), 10);
+          assertEquals(rows.get(1).getValue(VALUE_COLUMN), 1010);
+          assertEquals(decodedMessages.getNumRowsDropped(i), 0);
+        } else if (i == 20) {
+          assertNull(rows);
+          assertEquals(decodedMessages.getNumRowsDropped(i), 1);
+        } else if (i == 30) {
+          assertNotNull(rows);
+          assertTrue(rows.isEmpty());
+          assertTrue(decodedMessages.isErrored(i));
+        } else if (i % 7 == 0) {
+          assertNotNull(rows);
+          assertTrue(rows.isEmpty());
+          assertEquals(decodedMessages.getNumRowsDropped(i), 1);
+        } else {
+          assertNotNull(rows);
+          assertEquals(rows.size(), 1);
+          assertEquals(rows.get(0).getValue(VALUE_COLUMN), i);
+          assertEquals(decodedMessages.getNumRowsDropped(i), 0);
+          assertFalse(decodedMessages.isErrored(i));
+        }
+      }
+      // Decoding exception should be thrown when reaching the message
+      try {
+        decodedMessages.getRows(numMessages - 1);
+        fail();
+      } catch (RuntimeException e) {
+        // Expected
+      }
+
+      // Fetch and decode on the fetching thread
+      StreamPartitionMsgOffset nextOffset = messageBatch.getNextStreamParitionMsgOffsetAtIndex(numMessages - 1);
+      Future<DecodedMessages> future =
+          parallelMessageDecoder.fetchAndSubmit(() -> new TestMessageBatch(new String[]{"1", "2"}), nextOffset);
+      decodedMessages = future.get();
+      assertNotNull(decodedMessages);
+      assertEquals(decodedMessages.getStartOffset().compareTo(nextOffset), 0);
+      assertEquals(decodedMessages.getRows(1).get(0).getValue(VALUE_COLUMN), 2);
+
+      // Failed fetch should return null
+      future = parallelMessageDecoder.fetchAndSubmit(() -> {
+        throw new IllegalStateException();
+      }, nextOffset);
+      assertNull(future.get());
+    }
+  }
+
+  private static class TestDecoder implements StreamMessageDecoder<byte[]> {
+
+    @Override
+    public void init(Map<String, String> props, Set<String> fieldsToRead, String topicName) {
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, GenericRow destination) {
+      return decode(payload, 0, payload.length, destination);
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
+      String message = new String(payload, offset, length, StandardCharsets.UTF_8);
+      if (message.equals("invalid")) {
+        return null;
+      }
+      if (message.equals("error")) {
+        throw new IllegalStateException();
+      }
+      String[] values = message.split(",");
+      if (values.length == 1) {
+        destination.putValue(VALUE_COLUMN, Integer.parseInt(values[0]));
+      } else {
+        GenericRow[] rows = new GenericRow[values.length];
+        for (int i = 0; i < values.length; i++) {
+          rows[i] = new GenericRow();
+          rows[i].putValue(VALUE_COLUMN, Integer.parseInt(values[i]));
+        }
+        destination.putValue(GenericRow.MULTIPLE_RECORDS_KEY, Arrays.asList(rows));
+      }
+      return destination;
+    }
+  }
+
+  private static class TestMessageBatch implements MessageBatch<byte[]> {
+    final String[] _messages;
+
+    TestMessageBatch(String[] messages) {
+      _messages = messages;
+    }
+
+    @Override
+    public int getMessageCount() {
+      return _messages.length;
+    }
+
+    @Override
+    public byte[] getMessageAtIndex(int index) {
+      return _messages[index].getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getMessageOffsetAtIndex(int index) {
+      return 0;
+    }
+
+    @Override
+    public int getMessageLengthAtIndex(int index) {
+      return _messages[index].getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public long getNextStreamMessageOffsetAtIndex(int index) {
+      return index + 1;
+    }
+
+    @Override
+    public StreamPartitionMsgOffset getNextStreamParitionMsgOffsetAtIndex(int index) {
+      return new LongMsgOffset(index + 1);
+    }
+  }
+}
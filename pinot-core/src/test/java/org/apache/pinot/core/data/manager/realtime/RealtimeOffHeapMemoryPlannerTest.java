@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import com.yammer.metrics.core.MetricsRegistry;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.data.manager.realtime.RealtimeOffHeapMemoryPlanner.Action;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+
+public class RealtimeOffHeapMemoryPlannerTest {
+
+  @Test
+  public void testGetAction() {
+    RealtimeOffHeapMemoryPlanner planner =
+        new RealtimeOffHeapMemoryPlanner(1000L, new ServerMetrics(new MetricsRegistry()));
+    assertEquals(planner.getBudgetBytes(), 1000L);
+
+    // 3 segments, within the budget
+    for (int i = 0; i < 3; i++) {
+      planner.register();
+    }
+    planner.updateAllocatedBytes(500L);
+    planner.updateAllocatedBytes(200L);
+    planner.updateAllocatedBytes(100L);
+    assertEquals(planner.getNumSegments(), 3);
+    assertEquals(planner.getAllocatedBytes(), 800L);
+    assertEquals(planner.getAction(500L), Action.CONSUME);
+    assertEquals(planner.getAction(100L), Action.CONSUME);
+
+    // Exceeding the budget, segments using at least the fair share (333 bytes) should be flushed, others paused
+    planner.updateAllocatedBytes(300L);
+    assertEquals(planner.getAllocatedBytes(), 1100L);
+    assertEquals(planner.getAction(800L), Action.FLUSH);
+    assertEquals(planner.getAction(200L), Action.PAUSE);
+    assertEquals(planner.getAction(100L), Action.PAUSE);
+
+    // Memory released after the segment is flushed
+    planner.unregister(800L);
+    assertEquals(planner.getNumSegments(), 2);
+    assertEquals(planner.getAllocatedBytes(), 300L);
+    assertEquals(planner.getAction(200L), Action.CONSUME);
+    assertEquals(planner.getAction(100L), Action.CONSUME);
+  }
+}
@@ -19,10 +19,12 @@
 package org.apache.pinot.core.data.recordtransformer;
 
 import java.util.Collections;
+import org.apache.pinot.core.util.IngestionUtils;
 import org.apache.pinot.spi.config.table.ingestion.IngestionConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.config.table.ingestion.FilterConfig;
+import org.apache.pinot.spi.config.table.ingestion.TransformConfig;
 import org.apache.pinot.spi.data.DimensionFieldSpec;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
@@ -242,6 +244,54 @@ public class RecordTransformerTest {
     }
   }
 
+  @Test
+  public void testBatchTransform() {
+    TableConfig tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName("testTable").build();
+    tableConfig.setIngestionConfig(new IngestionConfig(null, null, new FilterConfig("Groovy({svInt > 123}, svInt)"),
+        Collections.singletonList(new TransformConfig("svLong", "toEpochSecondsRounded(svInt, 10)"))));
+    RecordTransformer batchTransformer = CompositeTransformer.getDefaultTransformer(tableConfig, SCHEMA);
+    RecordTransformer transformer = CompositeTransformer.getDefaultTransformer(tableConfig, SCHEMA);
+
+    // Records with the values to convert, to be filtered, to be derived and to be filled with default values
+    int numRecords = 5;
+    GenericRow[] records = new GenericRow[numRecords];
+    GenericRow[] expectedRecords = new GenericRow[numRecords];
+    for (int i = 0; i < 2; i++) {
+      records[i] = getRecord();
+      expectedRecords[i] = getRecord();
+    }
+    records[1].putValue("svInt", 1234);
+    expectedRecords[1].putValue("svInt", 1234);
+    for (int i = 2; i < 4; i++) {
+      records[i] = new GenericRow();
+      records[i].putValue("svInt", 12345L);
+      expectedRecords[i] = new GenericRow();
+      expectedRecords[i].putValue("svInt", 12345L);
+    }
+    records[3].putValue("svLong", 123);
+    expectedRecords[3].putValue("svLong", 123);
+    // Null entries should be skipped
+    records[4] = null;
+
+    for (int round = 0; round < NUM_ROUNDS; round++) {
+      batchTransformer.transform(records, numRecords);
+      for (int i = 0; i < numRecords - 1; i++) {
+        expectedRecords[i] = transformer.transform(expectedRecords[i]);
+        for (String column : SCHEMA.getColumnNames()) {
+          assertEquals(records[i].getValue(column), expectedRecords[i].getValue(column));
+        }
+        assertEquals(records[i].getNullValueFields(), expectedRecords[i].getNullValueFields());
+        assertEquals(IngestionUtils.shouldIngestRow(records[i]), IngestionUtils.shouldIngestRow(expectedRecords[i]));
+      }
+      assertNull(records[numRecords - 1]);
+    }
+    assertTrue(IngestionUtils.shouldIngestRow(records[0]));
+    assertFalse(IngestionUtils.shouldIngestRow(records[1]));
+    assertEquals(records[2].getValue("svInt"), 12345);
+    assertEquals(records[2].getValue("svLong"), 10L);
+    assertEquals(records[3].getValue("svLong"), 123L);
+  }
+
   @Test
   public void testPassThroughTransformer() {
     RecordTransformer transformer = CompositeTransformer.getPassThroughTransformer();
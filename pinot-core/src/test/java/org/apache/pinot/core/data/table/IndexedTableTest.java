@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -275,4 +276,104 @@ public class IndexedTableTest {
 
     checkEvicted(indexedTable, "f", "g");
   }
+
+  @Test
+  public void testPrimitiveConcurrentIndexedTable()
+      throws InterruptedException, TimeoutException, ExecutionException {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContextFromSQL(
+        "SELECT COUNT(*), SUM(m1), MIN(m2), MAX(m2) FROM testTable GROUP BY d1, d2, d3, d4 ORDER BY SUM(m1) DESC, d1");
+    DataSchema dataSchema =
+        new DataSchema(new String[]{"d1", "d2", "d3", "d4", "count(*)", "sum(m1)", "min(m2)", "max(m2)"},
+            new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE,
+                ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE});
+    Assert.assertTrue(PrimitiveConcurrentIndexedTable.isSupported(dataSchema, queryContext));
+    DataSchema stringKeyDataSchema = new DataSchema(dataSchema.getColumnNames(),
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE,
+            ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE});
+    Assert.assertFalse(PrimitiveConcurrentIndexedTable.isSupported(stringKeyDataSchema, queryContext));
+
+    // Use integral values so that the sums are exact regardless of the merge order
+    int numGroups = 1000;
+    int numRecords = 20000;
+    Random random = new Random();
+    List<Object[]> rows = new ArrayList<>(numRecords);
+    for (int i = 0; i < numRecords; i++) {
+      int group = random.nextInt(numGroups);
+      double m1 = random.nextInt(100);
+      double m2 = random.nextInt(100) - 50;
+      rows.add(new Object[]{group, (long) group * 10, (float) -group, group + 0.5, 1L, m1, m2, m2});
+    }
+
+    // Without intermediate trimming, the result should match the SimpleIndexedTable
+    int trimSize = 100;
+    IndexedTable expectedTable = new SimpleIndexedTable(dataSchema, queryContext, trimSize, Integer.MAX_VALUE);
+    IndexedTable primitiveTable =
+        new PrimitiveConcurrentIndexedTable(dataSchema, queryContext, trimSize, Integer.MAX_VALUE);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<Void>> callables = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int threadId = i;
+        callables.add(() -> {
+          for (int j = threadId; j < numRecords; j += 4) {
+            primitiveTable.upsert(getRecord(rows.get(j).clone()));
+          }
+          return null;
+        });
+      }
+      for (Object[] row : rows) {
+        expectedTable.upsert(getRecord(row.clone()));
+      }
+      List<Future<Void>> futures = executorService.invokeAll(callables);
+      for (Future future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    expectedTable.finish(true);
+    primitiveTable.finish(true);
+    Assert.assertEquals(primitiveTable.size(), trimSize);
+    Iterator<Record> expectedIterator = expectedTable.iterator();
+    Iterator<Record> iterator = primitiveTable.iterator();
+    while (expectedIterator.hasNext()) {
+      Assert.assertEquals(iterator.next(), expectedIterator.next());
+    }
+    Assert.assertFalse(iterator.hasNext());
+
+    // With intermediate trimming, the groups with the smallest d1 should survive when ordering by d1
+    queryContext = QueryContextConverterUtils.getQueryContextFromSQL(
+        "SELECT COUNT(*), SUM(m1), MIN(m2), MAX(m2) FROM testTable GROUP BY d1, d2, d3, d4 ORDER BY d1");
+    IndexedTable trimmedTable = new PrimitiveConcurrentIndexedTable(dataSchema, queryContext, 10, TRIM_THRESHOLD);
+    for (int i = numGroups - 1; i >= 0; i--) {
+      trimmedTable.upsert(getRecord(new Object[]{i, (long) i, (float) i, (double) i, 1L, 1d, 1d, 1d}));
+    }
+    Assert.assertTrue(trimmedTable.getNumResizes() > 0);
+    trimmedTable.finish(true);
+    Assert.assertEquals(trimmedTable.size(), 10);
+    iterator = trimmedTable.iterator();
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(iterator.next().getValues(),
+          new Object[]{i, (long) i, (float) i, (double) i, 1L, 1d, 1d, 1d});
+    }
+
+    // Without order by, no more new groups should be accepted after reaching the trim size
+    queryContext = QueryContextConverterUtils
+        .getQueryContextFromSQL("SELECT COUNT(*), SUM(m1), MIN(m2), MAX(m2) FROM testTable GROUP BY d1, d2, d3, d4");
+    IndexedTable limitedTable = new PrimitiveConcurrentIndexedTable(dataSchema, queryContext, 5, TRIM_THRESHOLD);
+    for (int i = 0; i < 10; i++) {
+      limitedTable.upsert(getRecord(new Object[]{i, (long) i, (float) i, (double) i, 1L, 1d, 1d, 1d}));
+    }
+    limitedTable.upsert(getRecord(new Object[]{0, 0L, 0f, 0d, 1L, 2d, -1d, 3d}));
+    limitedTable.finish(false);
+    Assert.assertEquals(limitedTable.size(), 5);
+    iterator = limitedTable.iterator();
+    while (iterator.hasNext()) {
+      Object[] values = iterator.next().getValues();
+      Assert.assertTrue((int) values[0] < 5);
+      if ((int) values[0] == 0) {
+        Assert.assertEquals(values, new Object[]{0, 0L, 0f, 0d, 2L, 3d, -1d, 3d});
+      }
+    }
+  }
 }
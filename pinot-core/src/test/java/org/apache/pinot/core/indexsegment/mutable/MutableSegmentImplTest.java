@@ -21,7 +21,11 @@ package org.apache.pinot.core.indexsegment.mutable;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.segment.ReadMode;
 import org.apache.pinot.common.utils.CommonConstants;
@@ -44,6 +48,7 @@ import org.apache.pinot.spi.data.readers.FileFormat;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.data.readers.RecordReader;
 import org.apache.pinot.spi.data.readers.RecordReaderFactory;
+import org.apache.pinot.spi.stream.RowMetadata;
 import org.apache.pinot.spi.stream.StreamMessageMetadata;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -51,14 +56,17 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
 
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class MutableSegmentImplTest {
   private static final String AVRO_FILE = "data/test_data-mv.avro";
+  private static final int BATCH_SIZE = 100;
   private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "MutableSegmentImplTest");
 
   private Schema _schema;
+  private File _avroFile;
   private MutableSegmentImpl _mutableSegmentImpl;
   private ImmutableSegment _immutableSegment;
   private long _lastIndexedTs;
@@ -73,6 +81,7 @@ public class MutableSegmentImplTest {
     URL resourceUrl = MutableSegmentImplTest.class.getClassLoader().getResource(AVRO_FILE);
     Assert.assertNotNull(resourceUrl);
     File avroFile = new File(resourceUrl.getFile());
+    _avroFile = avroFile;
 
     SegmentGeneratorConfig config =
         SegmentTestUtils.getSegmentGeneratorConfigWithoutTimeColumn(avroFile, TEMP_DIR, "testTable");
@@ -202,6 +211,132 @@ public class MutableSegmentImplTest {
     }
   }
 
+  @Test
+  public void testBatchIndexing()
+      throws Exception {
+    MutableSegmentImpl batchMutableSegmentImpl = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(_schema, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+            false);
+    long ingestionTimeMs = System.currentTimeMillis();
+    StreamMessageMetadata defaultMetadata = new StreamMessageMetadata(ingestionTimeMs);
+    try (RecordReader recordReader = RecordReaderFactory
+        .getRecordReader(FileFormat.AVRO, _avroFile, _schema.getColumnNames(), null)) {
+      List<GenericRow> rows = new ArrayList<>(BATCH_SIZE);
+      List<RowMetadata> rowMetadataList = new ArrayList<>(BATCH_SIZE);
+      while (recordReader.hasNext()) {
+        rows.add(recordReader.next());
+        rowMetadataList.add(defaultMetadata);
+        if (rows.size() == BATCH_SIZE || !recordReader.hasNext()) {
+          int numDocsIndexed = batchMutableSegmentImpl.getNumDocsIndexed();
+          batchMutableSegmentImpl.index(rows, rowMetadataList);
+          assertEquals(batchMutableSegmentImpl.getNumDocsIndexed(), numDocsIndexed + rows.size());
+          rows.clear();
+          rowMetadataList.clear();
+        }
+      }
+    }
+    assertEquals(batchMutableSegmentImpl.getSegmentMetadata().getLatestIngestionTimestamp(), ingestionTimeMs);
+
+    // Rows indexed as batches should be the same as rows indexed one by one
+    int numDocs = _mutableSegmentImpl.getNumDocsIndexed();
+    assertEquals(batchMutableSegmentImpl.getNumDocsIndexed(), numDocs);
+    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+      String column = fieldSpec.getName();
+      DataSourceMetadata actualDataSourceMetadata =
+          batchMutableSegmentImpl.getDataSource(column).getDataSourceMetadata();
+      DataSourceMetadata expectedDataSourceMetadata = _mutableSegmentImpl.getDataSource(column).getDataSourceMetadata();
+      assertEquals(actualDataSourceMetadata.getMinValue(), expectedDataSourceMetadata.getMinValue());
+      assertEquals(actualDataSourceMetadata.getMaxValue(), expectedDataSourceMetadata.getMaxValue());
+    }
+    GenericRow actualRow = new GenericRow();
+    GenericRow expectedRow = new GenericRow();
+    for (int docId = 0; docId < numDocs; docId++) {
+      actualRow.clear();
+      expectedRow.clear();
+      batchMutableSegmentImpl.getRecord(docId, actualRow);
+      _mutableSegmentImpl.getRecord(docId, expectedRow);
+      for (String column : expectedRow.getFieldToValueMap().keySet()) {
+        Object expectedValue = expectedRow.getValue(column);
+        if (expectedValue instanceof Object[]) {
+          assertEquals((Object[]) actualRow.getValue(column), (Object[]) expectedValue);
+        } else {
+          assertEquals(actualRow.getValue(column), expectedValue);
+        }
+      }
+    }
+    batchMutableSegmentImpl.destroy();
+  }
+
+  @Test
+  public void testBatchIndexingWithInvalidRecord()
+      throws Exception {
+    Set<String> invertedIndexColumns = new HashSet<>();
+    String lastColumn = null;
+    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+      if (!fieldSpec.isVirtualColumn()) {
+        if (fieldSpec.getFieldType() == FieldSpec.FieldType.DIMENSION) {
+          invertedIndexColumns.add(fieldSpec.getName());
+        }
+        lastColumn = fieldSpec.getName();
+      }
+    }
+    MutableSegmentImpl batchMutableSegmentImpl = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(_schema, Collections.emptySet(), Collections.emptySet(), invertedIndexColumns, false);
+    MutableSegmentImpl expectedMutableSegmentImpl = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(_schema, Collections.emptySet(), Collections.emptySet(), invertedIndexColumns, false);
+    StreamMessageMetadata defaultMetadata = new StreamMessageMetadata(System.currentTimeMillis());
+    List<GenericRow> rows = new ArrayList<>(BATCH_SIZE);
+    List<RowMetadata> rowMetadataList = new ArrayList<>(BATCH_SIZE);
+    try (RecordReader recordReader = RecordReaderFactory
+        .getRecordReader(FileFormat.AVRO, _avroFile, _schema.getColumnNames(), null)) {
+      while (recordReader.hasNext() && rows.size() < BATCH_SIZE) {
+        rows.add(recordReader.next());
+        rowMetadataList.add(defaultMetadata);
+      }
+    }
+    int numRows = rows.size();
+
+    // Put a value of the wrong type into the last column of the last record
+    GenericRow invalidRow = new GenericRow();
+    invalidRow.init(rows.get(numRows - 1));
+    invalidRow.putValue(lastColumn, _schema.getFieldSpecFor(lastColumn).isSingleValueField() ? new Object()
+        : new Object[]{new Object()});
+    List<GenericRow> invalidRows = new ArrayList<>(rows);
+    invalidRows.set(numRows - 1, invalidRow);
+    try {
+      batchMutableSegmentImpl.index(invalidRows, rowMetadataList);
+      fail("Indexing an invalid record should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // The failed batch should not leave any dictionary entry (and thus any posting) behind
+    assertEquals(batchMutableSegmentImpl.getNumDocsIndexed(), 0);
+    for (String column : invertedIndexColumns) {
+      assertEquals(batchMutableSegmentImpl.getDataSource(column).getDictionary().length(), 0);
+    }
+
+    // The following batch reuses the same doc ids, and its postings should not be polluted by the failed batch
+    batchMutableSegmentImpl.index(rows, rowMetadataList);
+    expectedMutableSegmentImpl.index(rows, rowMetadataList);
+    assertEquals(batchMutableSegmentImpl.getNumDocsIndexed(), numRows);
+    for (String column : invertedIndexColumns) {
+      DataSource actualDataSource = batchMutableSegmentImpl.getDataSource(column);
+      DataSource expectedDataSource = expectedMutableSegmentImpl.getDataSource(column);
+      Dictionary actualDictionary = actualDataSource.getDictionary();
+      Dictionary expectedDictionary = expectedDataSource.getDictionary();
+      int cardinality = expectedDictionary.length();
+      assertEquals(actualDictionary.length(), cardinality);
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        assertEquals(actualDictionary.get(dictId), expectedDictionary.get(dictId));
+        assertEquals(actualDataSource.getInvertedIndex().getDocIds(dictId),
+            expectedDataSource.getInvertedIndex().getDocIds(dictId));
+      }
+    }
+    batchMutableSegmentImpl.destroy();
+    expectedMutableSegmentImpl.destroy();
+  }
+
   @AfterClass
   public void tearDown() {
     FileUtils.deleteQuietly(TEMP_DIR);
@@ -20,7 +20,9 @@ package org.apache.pinot.core.indexsegment.mutable;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.core.data.recordtransformer.CompositeTransformer;
 import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager;
@@ -28,6 +30,7 @@ import org.apache.pinot.core.upsert.TableUpsertMetadataManager;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.config.table.UpsertConfig;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.FileFormat;
 import org.apache.pinot.spi.data.readers.GenericRow;
@@ -87,4 +90,53 @@ public class MutableSegmentImplUpsertTest {
     Assert.assertTrue(bitmap.contains(2));
     Assert.assertFalse(bitmap.contains(3));
   }
+
+  @Test
+  public void testBatchIndexingWithInvalidTimeValue()
+      throws Exception {
+    // The string time value passes the data type validation, but cannot be extracted as the upsert timestamp
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension("event_id", DataType.STRING)
+        .addDateTime("ts", DataType.STRING, "1:DAYS:SIMPLE_DATE_FORMAT:yyyyMMdd", "1:DAYS")
+        .setPrimaryKeyColumns(Collections.singletonList("event_id")).build();
+    PartitionUpsertMetadataManager partitionUpsertMetadataManager =
+        new TableUpsertMetadataManager("testTable_REALTIME", Mockito.mock(ServerMetrics.class))
+            .getOrCreatePartitionManager(0);
+    MutableSegmentImpl mutableSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+            false, true, new UpsertConfig(UpsertConfig.Mode.FULL), "ts", partitionUpsertMetadataManager);
+    List<GenericRow> rows = Arrays.asList(getRow("aa", "20200101"), getRow("bb", "20200102"), getRow("aa", "invalid"));
+
+    // The whole batch should fail without indexing any record
+    try {
+      mutableSegment.index(rows, null);
+      Assert.fail("Batch with invalid time value should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    Assert.assertEquals(mutableSegment.getNumDocsIndexed(), 0);
+    Assert.assertTrue(mutableSegment.getValidDocIndex().getValidDocBitmap().isEmpty());
+
+    // Index the valid records one by one, the invalid record should fail without being indexed
+    mutableSegment.index(rows.get(0), null);
+    mutableSegment.index(rows.get(1), null);
+    try {
+      mutableSegment.index(rows.get(2), null);
+      Assert.fail("Record with invalid time value should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    Assert.assertEquals(mutableSegment.getNumDocsIndexed(), 2);
+    ImmutableRoaringBitmap bitmap = mutableSegment.getValidDocIndex().getValidDocBitmap();
+    Assert.assertTrue(bitmap.contains(0));
+    Assert.assertTrue(bitmap.contains(1));
+    mutableSegment.destroy();
+  }
+
+  private static GenericRow getRow(String eventId, String ts) {
+    GenericRow row = new GenericRow();
+    row.putValue("event_id", eventId);
+    row.putValue("ts", ts);
+    return row;
+  }
 }
@@ -21,6 +21,7 @@ package org.apache.pinot.core.io.writer.impl;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
@@ -125,6 +126,9 @@ public class MmapMemoryManagerTest {
     File dir = new File(_tmpDir);
     Assert.assertEquals(dir.listFiles().length, 1);
 
+    Assert.assertEquals(memoryManager.getTotalAllocatedBytes(), s1 + s2);
+    Assert.assertEquals(memoryManager.getAllocatedBytesByContext(), Collections.singletonMap(col1, s1 + s2));
+
     buf1.close();
     buf2.close();
 
@@ -134,6 +138,8 @@ public class MmapMemoryManagerTest {
     Assert.assertEquals(allocationContexts.size(), 0);
 
     Assert.assertEquals(dir.listFiles().length, 0);
+    Assert.assertEquals(memoryManager.getTotalAllocatedBytes(), 0);
+    Assert.assertTrue(memoryManager.getAllocatedBytesByContext().isEmpty());
   }
 
   @Test
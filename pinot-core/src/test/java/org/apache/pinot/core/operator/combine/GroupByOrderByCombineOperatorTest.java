@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.combine;
+
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
+import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.data.table.PrimitiveConcurrentIndexedTable;
+import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+
+/**
+ * Test for the indexed table selection in {@link GroupByOrderByCombineOperator}.
+ */
+public class GroupByOrderByCombineOperatorTest {
+  private static final int TRIM_SIZE = 100;
+  private static final int TRIM_THRESHOLD = 10_000;
+
+  @Test
+  public void testCreateIndexedTable() {
+    QueryContext queryContext = QueryContextConverterUtils
+        .getQueryContextFromSQL("SELECT COUNT(*), SUM(m1) FROM testTable GROUP BY d1, d2 ORDER BY SUM(m1) DESC");
+    String[] columnNames = new String[]{"d1", "d2", "count(*)", "sum(m1)"};
+
+    // Numeric keys
+    DataSchema numericKeyDataSchema = new DataSchema(columnNames,
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.LONG, ColumnDataType.DOUBLE});
+    assertIndexedTableClass(numericKeyDataSchema, queryContext, TRIM_THRESHOLD, PrimitiveConcurrentIndexedTable.class);
+    assertIndexedTableClass(numericKeyDataSchema, queryContext, GroupByOrderByCombineOperator.MAX_TRIM_THRESHOLD,
+        PrimitiveConcurrentIndexedTable.class);
+
+    // Non-numeric keys should fall back to the Key and Record based indexed tables
+    for (ColumnDataType keyType : new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.BYTES}) {
+      DataSchema dataSchema = new DataSchema(columnNames,
+          new ColumnDataType[]{ColumnDataType.INT, keyType, ColumnDataType.LONG, ColumnDataType.DOUBLE});
+      assertIndexedTableClass(dataSchema, queryContext, TRIM_THRESHOLD, ConcurrentIndexedTable.class);
+      assertIndexedTableClass(dataSchema, queryContext, GroupByOrderByCombineOperator.MAX_TRIM_THRESHOLD,
+          UnboundedConcurrentIndexedTable.class);
+    }
+
+    // Aggregation functions without fixed-width intermediate results should fall back as well
+    queryContext = QueryContextConverterUtils.getQueryContextFromSQL(
+        "SELECT COUNT(*), DISTINCTCOUNT(m1) FROM testTable GROUP BY d1, d2 ORDER BY COUNT(*) DESC");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "d2", "count(*)", "distinctcount(m1)"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.LONG, ColumnDataType.OBJECT});
+    assertIndexedTableClass(dataSchema, queryContext, TRIM_THRESHOLD, ConcurrentIndexedTable.class);
+  }
+
+  private static void assertIndexedTableClass(DataSchema dataSchema, QueryContext queryContext, int trimThreshold,
+      Class<? extends IndexedTable> expectedClass) {
+    IndexedTable indexedTable =
+        GroupByOrderByCombineOperator.createIndexedTable(dataSchema, queryContext, TRIM_SIZE, trimThreshold);
+    assertEquals(indexedTable.getClass(), expectedClass);
+  }
+}
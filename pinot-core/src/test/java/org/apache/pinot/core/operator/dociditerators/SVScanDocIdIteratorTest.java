@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.dociditerators;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.core.common.Constants;
+import org.apache.pinot.core.operator.filter.predicate.BaseDictionaryBasedPredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.EqualsPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.query.request.context.ExpressionContext;
+import org.apache.pinot.core.query.request.context.predicate.EqPredicate;
+import org.apache.pinot.core.query.request.context.predicate.Predicate;
+import org.apache.pinot.core.segment.index.readers.ForwardIndexReader;
+import org.apache.pinot.core.segment.index.readers.ForwardIndexReaderContext;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class SVScanDocIdIteratorTest {
+  // Use a number of documents not aligned with the batch size to cover the last partial batch
+  private static final int NUM_DOCS = 3 * SVScanDocIdIterator.MAX_BATCH_SIZE + 17;
+  private static final int MODULO = 7;
+  private static final int MATCHING_VALUE = 3;
+
+  @Test
+  public void testRawValueBased() {
+    PredicateEvaluator predicateEvaluator = EqualsPredicateEvaluatorFactory
+        .newRawValueBasedEvaluator(new EqPredicate(ExpressionContext.forIdentifier("column"),
+            Integer.toString(MATCHING_VALUE)), DataType.INT);
+    testIterator(predicateEvaluator, new IntReader(false));
+  }
+
+  @Test
+  public void testDictionaryBased() {
+    PredicateEvaluator predicateEvaluator = new BaseDictionaryBasedPredicateEvaluator() {
+      @Override
+      public Predicate.Type getPredicateType() {
+        return Predicate.Type.EQ;
+      }
+
+      @Override
+      public boolean applySV(int dictId) {
+        return dictId == MATCHING_VALUE;
+      }
+
+      @Override
+      public int[] getMatchingDictIds() {
+        return new int[]{MATCHING_VALUE};
+      }
+    };
+    testIterator(predicateEvaluator, new IntReader(true));
+  }
+
+  @Test
+  public void testSparseAdvance() {
+    PredicateEvaluator predicateEvaluator = EqualsPredicateEvaluatorFactory
+        .newRawValueBasedEvaluator(new EqPredicate(ExpressionContext.forIdentifier("column"),
+            Integer.toString(MATCHING_VALUE)), DataType.INT);
+    IntReader reader = new IntReader(false);
+    SVScanDocIdIterator iterator = new SVScanDocIdIterator(predicateEvaluator, reader, NUM_DOCS);
+
+    // Sparse advance should only read the target documents
+    int numAdvances = 0;
+    int lastTargetDocId = 0;
+    for (int targetDocId = MATCHING_VALUE; targetDocId < NUM_DOCS; targetDocId += 5 * MODULO) {
+      assertEquals(iterator.advance(targetDocId), targetDocId);
+      numAdvances++;
+      lastTargetDocId = targetDocId;
+    }
+    assertEquals(reader._numValuesRead, numAdvances);
+
+    // Iterating after the sparse advance should read each of the remaining documents once
+    for (int expectedDocId = lastTargetDocId + MODULO; expectedDocId < NUM_DOCS; expectedDocId += MODULO) {
+      assertEquals(iterator.next(), expectedDocId);
+    }
+    assertEquals(iterator.next(), Constants.EOF);
+    assertEquals(reader._numValuesRead, numAdvances + NUM_DOCS - lastTargetDocId - 1);
+  }
+
+  private void testIterator(PredicateEvaluator predicateEvaluator, IntReader reader) {
+    List<Integer> expectedDocIds = new ArrayList<>();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      if (docId % MODULO == MATCHING_VALUE) {
+        expectedDocIds.add(docId);
+      }
+    }
+
+    // Iterate all the matching document ids
+    SVScanDocIdIterator iterator = new SVScanDocIdIterator(predicateEvaluator, reader, NUM_DOCS);
+    for (int expectedDocId : expectedDocIds) {
+      assertEquals(iterator.next(), expectedDocId);
+      // Entries scanned should only cover the document ids consumed so far
+      assertEquals(iterator.getNumEntriesScanned(), expectedDocId + 1);
+    }
+    assertEquals(iterator.next(), Constants.EOF);
+    assertEquals(iterator.getNumEntriesScanned(), NUM_DOCS);
+
+    // Advance within and across the batches
+    iterator = new SVScanDocIdIterator(predicateEvaluator, reader, NUM_DOCS);
+    assertEquals(iterator.next(), 3);
+    assertEquals(iterator.advance(4), 10);
+    assertEquals(iterator.getNumEntriesScanned(), 4 + 7);
+    int targetDocId = 2 * SVScanDocIdIterator.MAX_BATCH_SIZE + 1;
+    int expectedDocId = (targetDocId + MODULO - MATCHING_VALUE - 1) / MODULO * MODULO + MATCHING_VALUE;
+    assertEquals(iterator.advance(targetDocId), expectedDocId);
+    assertEquals(iterator.getNumEntriesScanned(), 4 + 7 + expectedDocId - targetDocId + 1);
+    assertEquals(iterator.advance(NUM_DOCS), Constants.EOF);
+
+    // Apply AND with a bitmap containing all the even document ids and some out of range document ids
+    iterator = new SVScanDocIdIterator(predicateEvaluator, reader, NUM_DOCS);
+    MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+    for (int docId = 0; docId < NUM_DOCS + 10; docId += 2) {
+      docIds.add(docId);
+    }
+    MutableRoaringBitmap result = iterator.applyAnd(docIds);
+    assertEquals(iterator.getNumEntriesScanned(), (NUM_DOCS + 1) / 2);
+    int numMatchingDocIds = 0;
+    for (int docId : expectedDocIds) {
+      if (docId % 2 == 0) {
+        assertTrue(result.contains(docId));
+        numMatchingDocIds++;
+      }
+    }
+    assertEquals(result.getCardinality(), numMatchingDocIds);
+  }
+
+  private static class IntReader implements ForwardIndexReader<ForwardIndexReaderContext> {
+    final boolean _dictionaryEncoded;
+    int _numValuesRead;
+
+    IntReader(boolean dictionaryEncoded) {
+      _dictionaryEncoded = dictionaryEncoded;
+    }
+
+    @Override
+    public boolean isDictionaryEncoded() {
+      return _dictionaryEncoded;
+    }
+
+    @Override
+    public boolean isSingleValue() {
+      return true;
+    }
+
+    @Override
+    public DataType getValueType() {
+      return DataType.INT;
+    }
+
+    @Override
+    public int getDictId(int docId, ForwardIndexReaderContext context) {
+      return docId % MODULO;
+    }
+
+    @Override
+    public void readDictIds(int[] docIds, int length, int[] dictIdBuffer, ForwardIndexReaderContext context) {
+      _numValuesRead += length;
+      for (int i = 0; i < length; i++) {
+        dictIdBuffer[i] = docIds[i] % MODULO;
+      }
+    }
+
+    @Override
+    public int getInt(int docId, ForwardIndexReaderContext context) {
+      _numValuesRead++;
+      return docId % MODULO;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
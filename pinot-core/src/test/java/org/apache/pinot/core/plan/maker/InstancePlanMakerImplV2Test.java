@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan.maker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.segment.index.metadata.SegmentMetadata;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+
+public class InstancePlanMakerImplV2Test {
+
+  @Test
+  public void testSortSegmentsByNumDocs() {
+    IndexSegment segment0 = mockSegment(100);
+    IndexSegment segment1 = mockSegment(300);
+    IndexSegment segment2 = mockSegment(200);
+    IndexSegment segment3 = mockSegment(300);
+    IndexSegment segment4 = mockSegment(0);
+
+    // Larger segments should come first, and segments with the same number of documents should keep their order
+    assertEquals(
+        InstancePlanMakerImplV2.sortSegmentsByNumDocs(Arrays.asList(segment0, segment1, segment2, segment3, segment4)),
+        Arrays.asList(segment1, segment3, segment2, segment0, segment4));
+
+    List<IndexSegment> singleSegment = Collections.singletonList(segment0);
+    assertEquals(InstancePlanMakerImplV2.sortSegmentsByNumDocs(singleSegment), singleSegment);
+    assertEquals(InstancePlanMakerImplV2.sortSegmentsByNumDocs(Collections.emptyList()), Collections.emptyList());
+  }
+
+  private static IndexSegment mockSegment(int numDocs) {
+    IndexSegment indexSegment = mock(IndexSegment.class);
+    SegmentMetadata segmentMetadata = mock(SegmentMetadata.class);
+    when(segmentMetadata.getTotalDocs()).thenReturn(numDocs);
+    when(indexSegment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return indexSegment;
+  }
+}
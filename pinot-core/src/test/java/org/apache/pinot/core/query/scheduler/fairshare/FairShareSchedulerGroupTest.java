@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.scheduler.fairshare;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.query.scheduler.SchedulerQueryContext;
+import org.apache.pinot.core.query.scheduler.TestHelper;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class FairShareSchedulerGroupTest {
+  static final long CPU_USAGE_HALF_LIFE_MS = 1000;
+  static final long YIELD_WORKERS_AFTER_MS = 500;
+
+  long timeMillis = 100;
+  List<FairShareSchedulerGroup> groups = new ArrayList<>();
+
+  class TestFairShareSchedulerGroup extends FairShareSchedulerGroup {
+    TestFairShareSchedulerGroup(String name, double weight) {
+      super(name, weight, CPU_USAGE_HALF_LIFE_MS, YIELD_WORKERS_AFTER_MS, groups);
+      groups.add(this);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return timeMillis;
+    }
+  }
+
+  @Test
+  public void testCpuUsageDecay() {
+    timeMillis = 100;
+    groups.clear();
+    TestFairShareSchedulerGroup group = new TestFairShareSchedulerGroup("testGroup", 2.0);
+    assertEquals(group.getWeight(), 2.0);
+    assertEquals(group.getNormalizedCpuUsage(), 0.0);
+
+    group.addCpuTimeNs(1000);
+    assertEquals(group.getNormalizedCpuUsage(), 500.0);
+
+    // Usage halves after each half life
+    timeMillis += CPU_USAGE_HALF_LIFE_MS;
+    assertEquals(group.getNormalizedCpuUsage(), 250.0, 1e-6);
+    group.addCpuTimeNs(500);
+    assertEquals(group.getNormalizedCpuUsage(), 500.0, 1e-6);
+    timeMillis += 2 * CPU_USAGE_HALF_LIFE_MS;
+    assertEquals(group.getNormalizedCpuUsage(), 125.0, 1e-6);
+  }
+
+  @Test
+  public void testCompare() {
+    timeMillis = 100;
+    groups.clear();
+    TestFairShareSchedulerGroup lightGroup = new TestFairShareSchedulerGroup("lightGroup", 1.0);
+    TestFairShareSchedulerGroup heavyGroup = new TestFairShareSchedulerGroup("heavyGroup", 1.0);
+    TestFairShareSchedulerGroup weightedGroup = new TestFairShareSchedulerGroup("weightedGroup", 10.0);
+    assertTrue(lightGroup.compareTo(null) > 0);
+    assertEquals(lightGroup.compareTo(lightGroup), 0);
+
+    // Same usage and no pending queries
+    assertEquals(lightGroup.compareTo(heavyGroup), 0);
+
+    // Group with lower usage has higher priority
+    lightGroup.addCpuTimeNs(100);
+    heavyGroup.addCpuTimeNs(1000);
+    assertTrue(lightGroup.compareTo(heavyGroup) > 0);
+    assertTrue(heavyGroup.compareTo(lightGroup) < 0);
+
+    // Usage is normalized by the weight
+    weightedGroup.addCpuTimeNs(5000);
+    assertTrue(weightedGroup.compareTo(heavyGroup) > 0);
+    assertTrue(weightedGroup.compareTo(lightGroup) < 0);
+
+    // Same usage, group with earlier pending query has higher priority
+    TestFairShareSchedulerGroup otherLightGroup = new TestFairShareSchedulerGroup("otherLightGroup", 1.0);
+    otherLightGroup.addCpuTimeNs(100);
+    lightGroup.addLast(createQueryContext(200));
+    otherLightGroup.addLast(createQueryContext(100));
+    assertTrue(otherLightGroup.compareTo(lightGroup) > 0);
+  }
+
+  @Test
+  public void testShouldYieldWorkers() {
+    timeMillis = 100;
+    groups.clear();
+    TestFairShareSchedulerGroup lightGroup = new TestFairShareSchedulerGroup("lightGroup", 1.0);
+    TestFairShareSchedulerGroup heavyGroup = new TestFairShareSchedulerGroup("heavyGroup", 1.0);
+    lightGroup.addCpuTimeNs(100);
+    heavyGroup.addCpuTimeNs(1000);
+
+    // No other group waiting
+    assertFalse(heavyGroup.shouldYieldWorkers(YIELD_WORKERS_AFTER_MS));
+
+    lightGroup.addLast(createQueryContext(100));
+    // Query not running long enough
+    assertFalse(heavyGroup.shouldYieldWorkers(YIELD_WORKERS_AFTER_MS - 1));
+    assertTrue(heavyGroup.shouldYieldWorkers(YIELD_WORKERS_AFTER_MS));
+    // Waiting group has higher usage
+    assertFalse(lightGroup.shouldYieldWorkers(YIELD_WORKERS_AFTER_MS));
+
+    lightGroup.removeFirst();
+    assertFalse(heavyGroup.shouldYieldWorkers(YIELD_WORKERS_AFTER_MS));
+  }
+
+  private static SchedulerQueryContext createQueryContext(long arrivalTimeMs) {
+    return TestHelper.createQueryRequest("testTable", mock(ServerMetrics.class), arrivalTimeMs);
+  }
+}
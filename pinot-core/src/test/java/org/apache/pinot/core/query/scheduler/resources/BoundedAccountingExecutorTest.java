@@ -114,5 +114,29 @@ public class BoundedAccountingExecutorTest {
     verify(accountant, times(pendingJobs)).incrementThreads();
     syncer.validationBarrier.await();
   }
-}
 
+  @Test
+  public void testCpuTimeAccounting() {
+    SchedulerGroupAccountant accountant = mock(SchedulerGroupAccountant.class);
+    // Run the jobs on the calling thread
+    BoundedAccountingExecutor bes = new BoundedAccountingExecutor(Runnable::run, 1, accountant);
+    bes.execute(() -> {
+      // Running job charges the CPU time consumed so far when checking whether to yield
+      assertFalse(bes.shouldYieldWorker());
+      verify(accountant, times(1)).addCpuTimeNs(anyLong());
+    });
+    verify(accountant, times(2)).addCpuTimeNs(anyLong());
+    verify(accountant).shouldYieldWorkers(anyLong());
+    assertTrue(bes.getCpuTimeNs() >= 0);
+
+    // CPU time of the threads outside of the executor
+    bes.addCpuTimeNs(123_456_789L);
+    verify(accountant).addCpuTimeNs(123_456_789L);
+    assertTrue(bes.getCpuTimeNs() >= 123_456_789L);
+
+    // Not charged when checking outside of the jobs
+    when(accountant.shouldYieldWorkers(anyLong())).thenReturn(true);
+    assertTrue(bes.shouldYieldWorker());
+    verify(accountant, times(3)).addCpuTimeNs(anyLong());
+  }
+}
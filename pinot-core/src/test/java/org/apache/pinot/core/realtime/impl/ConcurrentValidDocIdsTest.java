@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.realtime.impl;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class ConcurrentValidDocIdsTest {
+  private static final Random RANDOM = new Random();
+
+  @Test
+  public void testAddRemove() {
+    ConcurrentValidDocIds validDocIds = new ConcurrentValidDocIds();
+    MutableRoaringBitmap expected = new MutableRoaringBitmap();
+    assertTrue(validDocIds.getSnapshot().isEmpty());
+
+    for (int i = 0; i < 100_000; i++) {
+      // Cover both sparse and dense chunks
+      int docId = RANDOM.nextBoolean() ? RANDOM.nextInt(100_000) : 200_000 + RANDOM.nextInt(1_000);
+      if (RANDOM.nextInt(3) == 0) {
+        validDocIds.remove(docId);
+        expected.remove(docId);
+      } else {
+        validDocIds.add(docId);
+        expected.add(docId);
+      }
+      assertEquals(validDocIds.contains(docId), expected.contains(docId));
+    }
+    assertFalse(validDocIds.contains(500_000));
+    validDocIds.remove(500_000);
+
+    ImmutableRoaringBitmap snapshot = validDocIds.getSnapshot();
+    assertEquals(snapshot, expected);
+    assertEquals(validDocIds.getMutableRoaringBitmap(), expected);
+
+    // Snapshot should be reused until the next modification
+    assertSame(validDocIds.getSnapshot(), snapshot);
+    int docId = expected.first();
+    validDocIds.add(docId);
+    assertSame(validDocIds.getSnapshot(), snapshot);
+    validDocIds.remove(docId);
+    expected.remove(docId);
+    ImmutableRoaringBitmap newSnapshot = validDocIds.getSnapshot();
+    assertEquals(newSnapshot, expected);
+    assertFalse(newSnapshot.contains(docId));
+    assertTrue(snapshot.contains(docId));
+  }
+
+  @Test
+  public void testConcurrentReadWrite()
+      throws Exception {
+    ConcurrentValidDocIds validDocIds = new ConcurrentValidDocIds();
+    int numDocs = 200_000;
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executorService = Executors.newFixedThreadPool(3);
+    try {
+      // Writer keeps at most one of each pair (2i, 2i+1) valid, and adds the new doc before removing the old one
+      Future<?> writerFuture = executorService.submit(() -> {
+        for (int i = 0; i < numDocs; i += 2) {
+          validDocIds.add(i);
+          validDocIds.add(i + 1);
+          validDocIds.remove(i);
+        }
+        done.set(true);
+      });
+      Runnable reader = () -> {
+        while (!done.get()) {
+          ImmutableRoaringBitmap snapshot = validDocIds.getSnapshot();
+          int cardinality = snapshot.getCardinality();
+          // Each pair contributes at most 2 docs (transiently) and the last pair might be partially written
+          assertTrue(cardinality <= numDocs / 2 + 1);
+        }
+      };
+      Future<?> readerFuture1 = executorService.submit(reader);
+      Future<?> readerFuture2 = executorService.submit(reader);
+      writerFuture.get(1, TimeUnit.MINUTES);
+      readerFuture1.get(1, TimeUnit.MINUTES);
+      readerFuture2.get(1, TimeUnit.MINUTES);
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    ImmutableRoaringBitmap snapshot = validDocIds.getSnapshot();
+    assertEquals(snapshot.getCardinality(), numDocs / 2);
+    for (int i = 0; i < numDocs; i++) {
+      assertEquals(snapshot.contains(i), i % 2 == 1);
+    }
+  }
+}
@@ -18,9 +18,11 @@
  */
 package org.apache.pinot.core.realtime.impl.invertedindex;
 
+import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
@@ -103,4 +105,65 @@ public class RealtimeInvertedIndexReaderTest {
     assertFalse(docIds.contains(1));
     assertTrue(docIds.contains(2));
   }
+
+  @Test
+  public void testBoundedReader() {
+    RealtimeInvertedIndexReader realtimeInvertedIndexReader = new RealtimeInvertedIndexReader();
+    int numDocs = 1000;
+    for (int i = 0; i < numDocs; i++) {
+      realtimeInvertedIndexReader.add(i % 3, i);
+      // Duplicate values within a multi-valued entry should be ignored
+      realtimeInvertedIndexReader.add(i % 3, i);
+    }
+
+    // Dictionary id larger than the number of dictionary ids added
+    realtimeInvertedIndexReader.add(5, numDocs);
+    assertTrue(realtimeInvertedIndexReader.getDocIds(4).isEmpty());
+    assertEquals(realtimeInvertedIndexReader.getDocIds(5).toArray(), new int[]{numDocs});
+
+    // Documents not indexed yet should not be visible
+    InvertedIndexReader<MutableRoaringBitmap> boundedReader = realtimeInvertedIndexReader.getReader(numDocs);
+    assertTrue(boundedReader.getDocIds(5).isEmpty());
+    for (int dictId = 0; dictId < 3; dictId++) {
+      MutableRoaringBitmap docIds = boundedReader.getDocIds(dictId);
+      assertEquals(docIds.getCardinality(), (numDocs - dictId + 2) / 3);
+      for (int docId : docIds.toArray()) {
+        assertEquals(docId % 3, dictId);
+      }
+    }
+    boundedReader = realtimeInvertedIndexReader.getReader(10);
+    assertEquals(boundedReader.getDocIds(0).toArray(), new int[]{0, 3, 6, 9});
+    assertEquals(boundedReader.getDocIds(1).toArray(), new int[]{1, 4, 7});
+    assertEquals(realtimeInvertedIndexReader.getDocIds(0, 9).toArray(), new int[]{0, 3, 6});
+  }
+
+  @Test
+  public void testSealedBlocks() {
+    RealtimeInvertedIndexReader realtimeInvertedIndexReader = new RealtimeInvertedIndexReader();
+    // Low cardinality column across multiple blocks, where the int array posting lists would take more than 4MB
+    int numDocs = 1_000_000;
+    for (int i = 0; i < numDocs; i++) {
+      realtimeInvertedIndexReader.add(i % 2, i);
+    }
+    assertTrue(realtimeInvertedIndexReader.getSizeInBytes() < 1024 * 1024,
+        "Posting lists take: " + realtimeInvertedIndexReader.getSizeInBytes() + " bytes");
+    for (int dictId = 0; dictId < 2; dictId++) {
+      MutableRoaringBitmap docIds = realtimeInvertedIndexReader.getDocIds(dictId);
+      assertEquals(docIds.getCardinality(), numDocs / 2);
+      assertEquals(docIds.first(), dictId);
+      assertEquals(docIds.last(), numDocs - 2 + dictId);
+      // Modifying the returned bitmap should not affect the inverted index
+      docIds.remove(dictId);
+      assertTrue(realtimeInvertedIndexReader.getDocIds(dictId).contains(dictId));
+    }
+
+    // Bounded reader should skip the documents in the sealed blocks beyond the number of documents
+    InvertedIndexReader<MutableRoaringBitmap> boundedReader = realtimeInvertedIndexReader.getReader(100_001);
+    MutableRoaringBitmap docIds = boundedReader.getDocIds(0);
+    assertEquals(docIds.getCardinality(), 50_001);
+    assertEquals(docIds.last(), 100_000);
+    docIds = boundedReader.getDocIds(1);
+    assertEquals(docIds.getCardinality(), 50_000);
+    assertEquals(docIds.last(), 99_999);
+  }
 }
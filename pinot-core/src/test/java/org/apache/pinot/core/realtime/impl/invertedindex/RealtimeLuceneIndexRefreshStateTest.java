@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.realtime.impl.invertedindex;
+
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.realtime.impl.invertedindex.RealtimeLuceneIndexRefreshState.RealtimeLuceneReaders;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+
+public class RealtimeLuceneIndexRefreshStateTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "RealtimeLuceneIndexRefreshStateTest");
+  private static final String COLUMN = "textColumn";
+  private static final String TABLE_NAME_WITH_TYPE = "testTable_REALTIME";
+
+  @BeforeClass
+  public void setUp() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    RealtimeLuceneIndexRefreshState.getInstance().start(2);
+  }
+
+  @Test
+  public void testRefresh() {
+    int numSegments = 3;
+    RealtimeLuceneTextIndexReader[] textIndexes = new RealtimeLuceneTextIndexReader[numSegments];
+    RealtimeLuceneReaders[] readersArray = new RealtimeLuceneReaders[numSegments];
+    for (int i = 0; i < numSegments; i++) {
+      String segmentName = "testSegment" + i;
+      textIndexes[i] = new RealtimeLuceneTextIndexReader(COLUMN, TEMP_DIR, segmentName);
+      readersArray[i] = new RealtimeLuceneReaders(segmentName);
+      readersArray[i].addReader(textIndexes[i]);
+      RealtimeLuceneIndexRefreshState.getInstance().addRealtimeReadersToQueue(readersArray[i]);
+    }
+
+    try {
+      // Segments not queried should be refreshed with the idle interval
+      long currentTimeMs = System.currentTimeMillis();
+      for (RealtimeLuceneReaders readers : readersArray) {
+        assertEquals(readers.getRefreshIntervalMs(currentTimeMs),
+            RealtimeLuceneIndexRefreshState.IDLE_REFRESH_INTERVAL_MS);
+      }
+
+      // Documents should become searchable in all the segments
+      for (int i = 0; i < numSegments; i++) {
+        textIndexes[i].add("hello world " + i);
+      }
+      for (int i = 0; i < numSegments; i++) {
+        RealtimeLuceneTextIndexReader textIndex = textIndexes[i];
+        RealtimeLuceneReaders readers = readersArray[i];
+        TestUtils.waitForCondition(aVoid -> textIndex.getDocIds("hello").getCardinality() == 1
+                && readers.getRefreshLagMs(System.currentTimeMillis()) == 0, 10_000L,
+            "Failed to refresh the realtime text index");
+      }
+
+      // Queried segments should be refreshed with the active interval
+      currentTimeMs = System.currentTimeMillis();
+      for (RealtimeLuceneReaders readers : readersArray) {
+        assertEquals(readers.getRefreshIntervalMs(currentTimeMs),
+            RealtimeLuceneIndexRefreshState.ACTIVE_REFRESH_INTERVAL_MS);
+      }
+
+      // Newly added documents should become searchable quickly for the queried segments
+      textIndexes[0].add("hello again");
+      TestUtils.waitForCondition(aVoid -> textIndexes[0].getDocIds("hello").getCardinality() == 2, 10_000L,
+          "Failed to refresh the realtime text index");
+      assertEquals(textIndexes[0].getDocIds("again").getCardinality(), 1);
+    } finally {
+      for (int i = 0; i < numSegments; i++) {
+        RealtimeLuceneReaders readers = readersArray[i];
+        readers.getLock().lock();
+        try {
+          readers.setSegmentDestroyed();
+          readers.clearRealtimeReaderList();
+        } finally {
+          readers.getLock().unlock();
+        }
+        textIndexes[i].close();
+      }
+    }
+  }
+
+  @Test
+  public void testRefreshLagGauge() {
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    ServerMetrics serverMetrics = new ServerMetrics(metricsRegistry);
+    String segmentName = "testSegmentWithMetrics";
+    RealtimeLuceneTextIndexReader textIndex = new RealtimeLuceneTextIndexReader(COLUMN, TEMP_DIR, segmentName);
+    RealtimeLuceneReaders readers = new RealtimeLuceneReaders(segmentName, serverMetrics, TABLE_NAME_WITH_TYPE, 0);
+    readers.addReader(textIndex);
+    RealtimeLuceneIndexRefreshState.getInstance().addRealtimeReadersToQueue(readers);
+    String gaugeName =
+        ServerGauge.REALTIME_TEXT_INDEX_REFRESH_LAG_MS.getGaugeName() + "." + TABLE_NAME_WITH_TYPE + ".0";
+
+    try {
+      TestUtils.waitForCondition(aVoid -> hasGauge(metricsRegistry, gaugeName), 10_000L,
+          "Failed to report the refresh lag");
+    } finally {
+      readers.getLock().lock();
+      try {
+        readers.setSegmentDestroyed();
+        readers.clearRealtimeReaderList();
+      } finally {
+        readers.getLock().unlock();
+      }
+      textIndex.close();
+    }
+
+    // The gauge should be removed once the segment is destroyed
+    // NOTE: The pending refresh cannot re-add the gauge because it checks whether the segment is destroyed and reports
+    //       the lag with the lock held.
+    assertFalse(hasGauge(metricsRegistry, gaugeName));
+  }
+
+  private static boolean hasGauge(MetricsRegistry metricsRegistry, String gaugeName) {
+    return metricsRegistry.allMetrics().keySet().stream()
+        .anyMatch(metricName -> metricName.getName().endsWith(gaugeName));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    RealtimeLuceneIndexRefreshState.getInstance().stop();
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+}
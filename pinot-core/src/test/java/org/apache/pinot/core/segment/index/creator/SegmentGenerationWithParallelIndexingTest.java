@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.index.creator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.pinot.core.data.readers.GenericRowRecordReader;
+import org.apache.pinot.core.data.readers.PinotSegmentRecordReader;
+import org.apache.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import org.apache.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.core.segment.index.metadata.ColumnMetadata;
+import org.apache.pinot.core.segment.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.core.segment.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that indexing the columns (and collecting the stats) in parallel generates the same segment as indexing the
+ * rows one by one.
+ */
+public class SegmentGenerationWithParallelIndexingTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "SegmentGenerationWithParallelIndexing");
+  private static final String INT_COLUMN = "intColumn";
+  private static final String LONG_COLUMN = "longColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String RAW_STRING_COLUMN = "rawStringColumn";
+  private static final String MV_INT_COLUMN = "mvIntColumn";
+  // Not a multiple of the batch size to cover the last partial batch
+  private static final int NUM_ROWS = 25_123;
+  private static final Random RANDOM = new Random();
+
+  private TableConfig _tableConfig;
+  private Schema _schema;
+  private List<GenericRow> _rows;
+
+  @BeforeClass
+  public void setUp() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    _tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName("testTable")
+        .setInvertedIndexColumns(Collections.singletonList(STRING_COLUMN))
+        .setNoDictionaryColumns(Collections.singletonList(RAW_STRING_COLUMN)).setNullHandlingEnabled(true).build();
+    _schema = new Schema.SchemaBuilder().addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addSingleValueDimension(RAW_STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addMultiValueDimension(MV_INT_COLUMN, FieldSpec.DataType.INT).addMetric(LONG_COLUMN, FieldSpec.DataType.LONG)
+        .build();
+
+    _rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow row = new GenericRow();
+      row.putValue(INT_COLUMN, RANDOM.nextInt(1000));
+      // Leave some values null to cover the null value vector
+      if (RANDOM.nextInt(10) != 0) {
+        row.putValue(STRING_COLUMN, RandomStringUtils.randomAlphabetic(2));
+      }
+      row.putValue(RAW_STRING_COLUMN, RandomStringUtils.randomAlphanumeric(10));
+      int numValues = 1 + RANDOM.nextInt(3);
+      Object[] mvValues = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        mvValues[j] = RANDOM.nextInt(100);
+      }
+      row.putValue(MV_INT_COLUMN, mvValues);
+      row.putValue(LONG_COLUMN, RANDOM.nextLong());
+      _rows.add(row);
+    }
+  }
+
+  @Test
+  public void testParallelIndexing()
+      throws Exception {
+    File serialSegmentDir = buildSegment("serial", 1, false);
+    File parallelSegmentDir = buildSegment("parallel", 4, false);
+    File parallelWithStatsSegmentDir = buildSegment("parallelWithStats", 4, true);
+
+    for (File segmentDir : new File[]{parallelSegmentDir, parallelWithStatsSegmentDir}) {
+      SegmentMetadataImpl expectedMetadata = SegmentDirectory.loadSegmentMetadata(serialSegmentDir);
+      SegmentMetadataImpl actualMetadata = SegmentDirectory.loadSegmentMetadata(segmentDir);
+      assertEquals(actualMetadata.getTotalDocs(), NUM_ROWS);
+      for (String column : _schema.getColumnNames()) {
+        ColumnMetadata expectedColumnMetadata = expectedMetadata.getColumnMetadataFor(column);
+        ColumnMetadata actualColumnMetadata = actualMetadata.getColumnMetadataFor(column);
+        assertEquals(actualColumnMetadata.getCardinality(), expectedColumnMetadata.getCardinality());
+        assertEquals(actualColumnMetadata.getMinValue(), expectedColumnMetadata.getMinValue());
+        assertEquals(actualColumnMetadata.getMaxValue(), expectedColumnMetadata.getMaxValue());
+        assertEquals(actualColumnMetadata.isSorted(), expectedColumnMetadata.isSorted());
+        assertEquals(actualColumnMetadata.getTotalNumberOfEntries(), expectedColumnMetadata.getTotalNumberOfEntries());
+      }
+
+      try (PinotSegmentRecordReader expectedReader = new PinotSegmentRecordReader(serialSegmentDir);
+          PinotSegmentRecordReader actualReader = new PinotSegmentRecordReader(segmentDir)) {
+        GenericRow expectedRow = new GenericRow();
+        GenericRow actualRow = new GenericRow();
+        int numRows = 0;
+        while (expectedReader.hasNext()) {
+          assertTrue(actualReader.hasNext());
+          expectedRow.clear();
+          actualRow.clear();
+          expectedReader.next(expectedRow);
+          actualReader.next(actualRow);
+          for (String column : _schema.getColumnNames()) {
+            Object expectedValue = expectedRow.getValue(column);
+            if (expectedValue instanceof Object[]) {
+              assertEquals((Object[]) actualRow.getValue(column), (Object[]) expectedValue);
+            } else {
+              assertEquals(actualRow.getValue(column), expectedValue);
+            }
+            assertEquals(actualRow.isNullValue(column), expectedRow.isNullValue(column));
+          }
+          numRows++;
+        }
+        assertEquals(numRows, NUM_ROWS);
+      }
+    }
+  }
+
+  private File buildSegment(String segmentName, int numIndexingThreads, boolean parallelStatsCollection)
+      throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(_tableConfig, _schema);
+    config.setOutDir(new File(TEMP_DIR, segmentName).getAbsolutePath());
+    config.setSegmentName(segmentName);
+    config.setNumIndexingThreads(numIndexingThreads);
+    config.setParallelStatsCollection(parallelStatsCollection);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new GenericRowRecordReader(_rows));
+    driver.build();
+    return driver.getOutputDirectory();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+}
@@ -19,25 +19,34 @@
 package org.apache.pinot.core.transport;
 
 import com.google.common.util.concurrent.Futures;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.core.common.datatable.DataTableImplV2;
+import org.apache.pinot.core.query.request.ServerQueryRequest;
 import org.apache.pinot.core.query.scheduler.QueryScheduler;
 import org.apache.pinot.pql.parsers.Pql2Compiler;
 import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.util.TestUtils;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -229,6 +238,201 @@ public class QueryRoutingTest {
     assertTrue(System.currentTimeMillis() - startTimeMs < 1000);
   }
 
+  @Test
+  public void testStreamingResponse()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Start the server
+    QueryServer queryServer = getQueryServer(0, responseBytes);
+    queryServer.start();
+
+    // Hybrid, the data tables should be consumed and released
+    Map<ServerRoutingInstance, DataTable> consumedDataTables = new HashMap<>();
+    AsyncQueryResponse asyncQueryResponse = _queryRouter
+        .submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, BROKER_REQUEST, ROUTING_TABLE, 1_000L);
+    Map<ServerRoutingInstance, ServerResponse> response = asyncQueryResponse.getResponse(consumedDataTables::put);
+    assertEquals(response.size(), 2);
+    assertEquals(consumedDataTables.size(), 2);
+    for (ServerRoutingInstance serverRoutingInstance : Arrays
+        .asList(OFFLINE_SERVER_ROUTING_INSTANCE, REALTIME_SERVER_ROUTING_INSTANCE)) {
+      assertNotNull(consumedDataTables.get(serverRoutingInstance));
+      ServerResponse serverResponse = response.get(serverRoutingInstance);
+      assertTrue(serverResponse.isDataTableReceived());
+      assertNull(serverResponse.getDataTable());
+      assertEquals(serverResponse.getResponseSize(), responseBytes.length);
+    }
+
+    queryServer.shutDown();
+
+    // Shut down the server before getting the response, the query should early terminate
+    queryServer = getQueryServer(500, responseBytes);
+    queryServer.start();
+    long startTimeMs = System.currentTimeMillis();
+    consumedDataTables.clear();
+    asyncQueryResponse =
+        _queryRouter.submitQuery(requestId + 1, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L);
+    queryServer.shutDown();
+    response = asyncQueryResponse.getResponse(consumedDataTables::put);
+    assertEquals(response.size(), 1);
+    assertTrue(consumedDataTables.isEmpty());
+    assertFalse(response.get(OFFLINE_SERVER_ROUTING_INSTANCE).isDataTableReceived());
+    assertTrue(System.currentTimeMillis() - startTimeMs < 1000);
+  }
+
+  @Test
+  public void testMultipleConnectionsWithNativeTransport()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Native transport falls back to NIO transport if not available
+    int numConnectionsPerServer = 3;
+    QueryRouter queryRouter = new QueryRouter("testBroker", mock(BrokerMetrics.class), numConnectionsPerServer, true);
+    try {
+      QueryServer queryServer =
+          new QueryServer(TEST_PORT, mockQueryScheduler(0, responseBytes), mock(ServerMetrics.class), true);
+      queryServer.start();
+      // Send enough queries to go through all the channels
+      for (int i = 0; i < 2 * numConnectionsPerServer; i++) {
+        assertTrue(sendQuery(queryRouter, requestId, responseBytes.length));
+      }
+      queryServer.shutDown();
+
+      // Restart the server, all the channels should be reconnected
+      // NOTE: Queries might be marked failed when the channels connected to the old server become inactive
+      queryServer = new QueryServer(TEST_PORT, mockQueryScheduler(0, responseBytes), mock(ServerMetrics.class), true);
+      queryServer.start();
+      TestUtils.waitForCondition(aVoid -> {
+        for (int i = 0; i < 2 * numConnectionsPerServer; i++) {
+          if (!sendQuery(queryRouter, requestId, responseBytes.length)) {
+            return false;
+          }
+        }
+        return true;
+      }, 10_000L, "Failed to reconnect the channels");
+      queryServer.shutDown();
+    } finally {
+      queryRouter.shutDown();
+    }
+  }
+
+  @Test
+  public void testHedgedRequests()
+      throws Exception {
+    // Both servers echo the request id in the response
+    AtomicInteger slowServerResponseDelayMs = new AtomicInteger();
+    QueryServer slowServer =
+        new QueryServer(TEST_PORT, mockEchoQueryScheduler(slowServerResponseDelayMs), mock(ServerMetrics.class));
+    slowServer.start();
+    int hedgeServerPort = TEST_PORT + 1;
+    ServerInstance hedgeServerInstance = new ServerInstance("localhost", hedgeServerPort);
+    QueryServer hedgeServer =
+        new QueryServer(hedgeServerPort, mockEchoQueryScheduler(new AtomicInteger()), mock(ServerMetrics.class));
+    hedgeServer.start();
+
+    BrokerMetrics brokerMetrics = mock(BrokerMetrics.class);
+    QueryRouter queryRouter = new QueryRouter("testBroker", brokerMetrics, 1, false, 50, 10);
+    AtomicInteger numHedgedRequestsSubmitted = new AtomicInteger();
+    AtomicInteger numHedgedRequestsCompleted = new AtomicInteger();
+    HedgedRequestTargetSelector hedgedRequestTargetSelector = new HedgedRequestTargetSelector() {
+      @Override
+      public ServerInstance select(TableType tableType, ServerInstance serverInstance, List<String> segments) {
+        assertEquals(tableType, TableType.OFFLINE);
+        assertEquals(serverInstance, SERVER_INSTANCE);
+        return hedgeServerInstance;
+      }
+
+      @Override
+      public void onRequestSubmitted(ServerInstance serverInstance) {
+        assertEquals(serverInstance, hedgeServerInstance);
+        numHedgedRequestsSubmitted.getAndIncrement();
+      }
+
+      @Override
+      public void onRequestCompleted(ServerInstance serverInstance, long latencyMs) {
+        assertEquals(serverInstance, hedgeServerInstance);
+        assertTrue(latencyMs < 500);
+        numHedgedRequestsCompleted.getAndIncrement();
+      }
+    };
+    try {
+      // Hedged requests should not be sent without enough latency history
+      for (int i = 0; i < ServerLatencyHistogram.MIN_TOTAL_COUNT; i++) {
+        AsyncQueryResponse asyncQueryResponse = queryRouter
+            .submitQuery(i, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L,
+                hedgedRequestTargetSelector);
+        assertNotNull(asyncQueryResponse.getResponse().get(OFFLINE_SERVER_ROUTING_INSTANCE).getDataTable());
+      }
+      verify(brokerMetrics, never()).addMeteredTableValue("testTable", BrokerMeter.HEDGED_REQUESTS_SENT, 1);
+      assertEquals(numHedgedRequestsSubmitted.get(), 0);
+
+      // Slow down the server, hedged request should be sent to the other server, and the response should be keyed by
+      // the original server
+      slowServerResponseDelayMs.set(500);
+      long startTimeMs = System.currentTimeMillis();
+      AsyncQueryResponse asyncQueryResponse = queryRouter
+          .submitQuery(1000, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L,
+              hedgedRequestTargetSelector);
+      Map<ServerRoutingInstance, ServerResponse> response = asyncQueryResponse.getResponse();
+      assertTrue(System.currentTimeMillis() - startTimeMs < 500);
+      assertEquals(response.size(), 1);
+      DataTable dataTable = response.get(OFFLINE_SERVER_ROUTING_INSTANCE).getDataTable();
+      assertNotNull(dataTable);
+      assertTrue(Long.parseLong(dataTable.getMetadata().get(DataTable.REQUEST_ID_METADATA_KEY)) < 0);
+      verify(brokerMetrics).addMeteredTableValue("testTable", BrokerMeter.HEDGED_REQUESTS_SENT, 1);
+      verify(brokerMetrics).addMeteredTableValue("testTable", BrokerMeter.HEDGED_REQUESTS_WON, 1);
+      // The hedged request should be recorded as submitted and completed on the target server exactly once
+      assertEquals(numHedgedRequestsSubmitted.get(), 1);
+      assertEquals(numHedgedRequestsCompleted.get(), 1);
+
+      // Without the target selector, should wait for the slow server
+      startTimeMs = System.currentTimeMillis();
+      asyncQueryResponse =
+          queryRouter.submitQuery(1001, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L);
+      response = asyncQueryResponse.getResponse();
+      assertTrue(System.currentTimeMillis() - startTimeMs >= 500);
+      dataTable = response.get(OFFLINE_SERVER_ROUTING_INSTANCE).getDataTable();
+      assertNotNull(dataTable);
+      assertEquals(dataTable.getMetadata().get(DataTable.REQUEST_ID_METADATA_KEY), "1001");
+    } finally {
+      queryRouter.shutDown();
+      slowServer.shutDown();
+      hedgeServer.shutDown();
+    }
+  }
+
+  private static QueryScheduler mockEchoQueryScheduler(AtomicInteger responseDelayMs) {
+    QueryScheduler queryScheduler = mock(QueryScheduler.class);
+    when(queryScheduler.submit(any())).thenAnswer(invocation -> {
+      Thread.sleep(responseDelayMs.get());
+      ServerQueryRequest queryRequest = invocation.getArgument(0);
+      DataTable dataTable = new DataTableImplV2();
+      dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(queryRequest.getRequestId()));
+      return Futures.immediateFuture(dataTable.toBytes());
+    });
+    return queryScheduler;
+  }
+
+  private static boolean sendQuery(QueryRouter queryRouter, long requestId, int expectedResponseSize) {
+    AsyncQueryResponse asyncQueryResponse =
+        queryRouter.submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L);
+    Map<ServerRoutingInstance, ServerResponse> response;
+    try {
+      response = asyncQueryResponse.getResponse();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    assertEquals(response.size(), 1);
+    ServerResponse serverResponse = response.get(OFFLINE_SERVER_ROUTING_INSTANCE);
+    return serverResponse.getDataTable() != null && serverResponse.getResponseSize() == expectedResponseSize;
+  }
+
   @AfterClass
   public void tearDown() {
     _queryRouter.shutDown();
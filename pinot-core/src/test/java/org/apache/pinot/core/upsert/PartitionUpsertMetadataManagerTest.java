@@ -23,7 +23,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.utils.LLCSegmentName;
-import org.apache.pinot.core.realtime.impl.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
 import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager.RecordInfo;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
@@ -55,7 +55,7 @@ public class PartitionUpsertMetadataManagerTest {
     recordInfoList1.add(new RecordInfo(getPrimaryKey(0), 3, 80));
     recordInfoList1.add(new RecordInfo(getPrimaryKey(1), 4, 120));
     recordInfoList1.add(new RecordInfo(getPrimaryKey(0), 5, 100));
-    ThreadSafeMutableRoaringBitmap validDocIds1 =
+    ConcurrentValidDocIds validDocIds1 =
         upsertMetadataManager.addSegment(segment1, recordInfoList1.iterator());
     // segment1: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
     checkRecordLocation(recordLocationMap, 0, segment1, 5, 100);
@@ -71,7 +71,7 @@ public class PartitionUpsertMetadataManagerTest {
     recordInfoList2.add(new RecordInfo(getPrimaryKey(2), 2, 120));
     recordInfoList2.add(new RecordInfo(getPrimaryKey(3), 3, 80));
     recordInfoList2.add(new RecordInfo(getPrimaryKey(0), 4, 80));
-    ThreadSafeMutableRoaringBitmap validDocIds2 =
+    ConcurrentValidDocIds validDocIds2 =
         upsertMetadataManager.addSegment(segment2, recordInfoList2.iterator());
     // segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
@@ -83,7 +83,7 @@ public class PartitionUpsertMetadataManagerTest {
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
 
     // Replace (reload) the first segment
-    ThreadSafeMutableRoaringBitmap newValidDocIds1 =
+    ConcurrentValidDocIds newValidDocIds1 =
         upsertMetadataManager.addSegment(segment1, recordInfoList1.iterator());
     // original segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
@@ -140,12 +140,12 @@ public class PartitionUpsertMetadataManagerTest {
     recordInfoList1.add(new RecordInfo(getPrimaryKey(0), 0, 100));
     recordInfoList1.add(new RecordInfo(getPrimaryKey(1), 1, 120));
     recordInfoList1.add(new RecordInfo(getPrimaryKey(2), 2, 100));
-    ThreadSafeMutableRoaringBitmap validDocIds1 =
+    ConcurrentValidDocIds validDocIds1 =
         upsertMetadataManager.addSegment(segment1, recordInfoList1.iterator());
 
     // Update records from the second segment
     String segment2 = getSegmentName(2);
-    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    ConcurrentValidDocIds validDocIds2 = new ConcurrentValidDocIds();
 
     upsertMetadataManager.updateRecord(segment2, new RecordInfo(getPrimaryKey(3), 0, 100), validDocIds2);
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
@@ -201,13 +201,13 @@ public class PartitionUpsertMetadataManagerTest {
     List<RecordInfo> recordInfoList1 = new ArrayList<>();
     recordInfoList1.add(new RecordInfo(getPrimaryKey(0), 0, 100));
     recordInfoList1.add(new RecordInfo(getPrimaryKey(1), 1, 100));
-    ThreadSafeMutableRoaringBitmap validDocIds1 =
+    ConcurrentValidDocIds validDocIds1 =
         upsertMetadataManager.addSegment(segment1, recordInfoList1.iterator());
     String segment2 = getSegmentName(2);
     List<RecordInfo> recordInfoList2 = new ArrayList<>();
     recordInfoList2.add(new RecordInfo(getPrimaryKey(2), 0, 100));
     recordInfoList2.add(new RecordInfo(getPrimaryKey(3), 1, 100));
-    ThreadSafeMutableRoaringBitmap validDocIds2 =
+    ConcurrentValidDocIds validDocIds2 =
         upsertMetadataManager.addSegment(segment2, recordInfoList2.iterator());
 
     // Remove the first segment
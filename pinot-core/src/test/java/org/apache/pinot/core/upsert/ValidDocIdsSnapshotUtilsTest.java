@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.upsert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.core.realtime.impl.ConcurrentValidDocIds;
+import org.apache.pinot.core.upsert.PartitionUpsertMetadataManager.RecordInfo;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.mockito.Mockito;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+
+public class ValidDocIdsSnapshotUtilsTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "ValidDocIdsSnapshotUtilsTest");
+  private static final String CRC = "12345";
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.deleteDirectory(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @Test
+  public void testPersistAndLoadSnapshot()
+      throws IOException {
+    File snapshotFile = new File(INDEX_DIR, ValidDocIdsSnapshotUtils.SNAPSHOT_FILE_NAME);
+    assertNull(ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(INDEX_DIR, CRC));
+
+    MutableRoaringBitmap validDocIds = MutableRoaringBitmap.bitmapOf(1, 5, 100, 100000);
+    ValidDocIdsSnapshotUtils.persistSnapshot(INDEX_DIR, CRC, validDocIds);
+    assertEquals(ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(INDEX_DIR, CRC), validDocIds);
+    // Snapshot should be deleted after being loaded
+    assertFalse(snapshotFile.exists());
+    assertNull(ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(INDEX_DIR, CRC));
+
+    // Snapshot with mismatching CRC should be skipped and deleted
+    ValidDocIdsSnapshotUtils.persistSnapshot(INDEX_DIR, CRC, validDocIds);
+    assertNull(ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(INDEX_DIR, "54321"));
+    assertFalse(snapshotFile.exists());
+  }
+
+  @Test
+  public void testRestartWithConsumingSegment()
+      throws IOException {
+    testRestartWithConsumingSegment(false);
+    testRestartWithConsumingSegment(true);
+  }
+
+  private void testRestartWithConsumingSegment(boolean offHeap)
+      throws IOException {
+    String segment1 = getSegmentName(1);
+    List<RecordInfo> recordInfoList1 = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      recordInfoList1.add(new RecordInfo(getPrimaryKey(i), i, 100));
+    }
+    String segment2 = getSegmentName(2);
+    List<RecordInfo> recordInfoList2 = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      recordInfoList2.add(new RecordInfo(getPrimaryKey(i), i, 120));
+    }
+
+    // Invalidate docs 0 and 1 of segment1 with the records in the consuming segment2
+    PartitionUpsertMetadataManager upsertMetadataManager = createUpsertMetadataManager(offHeap);
+    ConcurrentValidDocIds validDocIds1 = upsertMetadataManager.addSegment(segment1, recordInfoList1.iterator());
+    ConcurrentValidDocIds validDocIds2 = new ConcurrentValidDocIds();
+    for (RecordInfo recordInfo : recordInfoList2) {
+      upsertMetadataManager.updateRecord(segment2, recordInfo, validDocIds2);
+    }
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2});
+
+    // The snapshot should keep the docs invalidated by the consuming segment because the consuming segment is discarded
+    // and re-consumed after the restart
+    MutableRoaringBitmap snapshot = upsertMetadataManager.getValidDocIdsSnapshot(validDocIds1);
+    assertEquals(snapshot.toArray(), new int[]{0, 1, 2});
+    ValidDocIdsSnapshotUtils.persistSnapshot(INDEX_DIR, CRC, snapshot);
+    upsertMetadataManager.close();
+
+    // Restart and replay the docs in the snapshot, all the primary keys should have a valid doc before the consuming
+    // segment is re-consumed
+    upsertMetadataManager = createUpsertMetadataManager(offHeap);
+    MutableRoaringBitmap loadedSnapshot = ValidDocIdsSnapshotUtils.loadAndDeleteSnapshot(INDEX_DIR, CRC);
+    assertEquals(loadedSnapshot, snapshot);
+    List<RecordInfo> replayedRecordInfoList = new ArrayList<>();
+    for (RecordInfo recordInfo : recordInfoList1) {
+      if (loadedSnapshot.contains(recordInfo._docId)) {
+        replayedRecordInfoList.add(recordInfo);
+      }
+    }
+    validDocIds1 = upsertMetadataManager.addSegment(segment1, replayedRecordInfoList.iterator());
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
+
+    // Re-consume segment2
+    validDocIds2 = new ConcurrentValidDocIds();
+    for (RecordInfo recordInfo : recordInfoList2) {
+      upsertMetadataManager.updateRecord(segment2, recordInfo, validDocIds2);
+    }
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2});
+    assertEquals(upsertMetadataManager.getNumConsumingSegmentsWithInvalidatedDocs(), 1);
+
+    // Once segment2 is committed, its records are no longer re-consumed, and the invalidated docs should be excluded
+    upsertMetadataManager.addSegment(segment2, recordInfoList2.iterator());
+    assertEquals(upsertMetadataManager.getNumConsumingSegmentsWithInvalidatedDocs(), 0);
+    assertEquals(upsertMetadataManager.getValidDocIdsSnapshot(validDocIds1).toArray(), new int[]{2});
+    upsertMetadataManager.close();
+  }
+
+  private static PartitionUpsertMetadataManager createUpsertMetadataManager(boolean offHeap) {
+    ServerMetrics serverMetrics = Mockito.mock(ServerMetrics.class);
+    return offHeap ? new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, serverMetrics, 4)
+        : new PartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, serverMetrics);
+  }
+
+  private static String getSegmentName(int sequenceNumber) {
+    return new LLCSegmentName(RAW_TABLE_NAME, 0, sequenceNumber, System.currentTimeMillis()).toString();
+  }
+
+  private static PrimaryKey getPrimaryKey(int value) {
+    return new PrimaryKey(new Object[]{value});
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+}
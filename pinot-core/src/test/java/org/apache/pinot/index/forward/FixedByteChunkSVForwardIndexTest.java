@@ -52,11 +52,14 @@ public class FixedByteChunkSVForwardIndexTest {
   @Test
   public void testWithCompression()
       throws Exception {
-    ChunkCompressorFactory.CompressionType compressionType = ChunkCompressorFactory.CompressionType.SNAPPY;
-    testInt(compressionType);
-    testLong(compressionType);
-    testFloat(compressionType);
-    testDouble(compressionType);
+    for (ChunkCompressorFactory.CompressionType compressionType : new ChunkCompressorFactory.CompressionType[]{
+        ChunkCompressorFactory.CompressionType.SNAPPY, ChunkCompressorFactory.CompressionType.ZSTANDARD,
+        ChunkCompressorFactory.CompressionType.LZ4}) {
+      testInt(compressionType);
+      testLong(compressionType);
+      testFloat(compressionType);
+      testDouble(compressionType);
+    }
   }
 
   @Test
@@ -104,6 +107,17 @@ public class FixedByteChunkSVForwardIndexTest {
         Assert.assertEquals(fourByteOffsetReader.getInt(i, fourByteOffsetReaderContext), expected[i]);
         Assert.assertEquals(eightByteOffsetReader.getInt(i, eightByteOffsetReaderContext), expected[i]);
       }
+
+      // Batch read every third value across the chunks
+      int[] docIds = getDocIdsToBatchRead();
+      int[] fourByteOffsetValues = new int[docIds.length];
+      int[] eightByteOffsetValues = new int[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, fourByteOffsetValues, fourByteOffsetReaderContext);
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, eightByteOffsetValues, eightByteOffsetReaderContext);
+      for (int i = 0; i < docIds.length; i++) {
+        Assert.assertEquals(fourByteOffsetValues[i], expected[docIds[i]]);
+        Assert.assertEquals(eightByteOffsetValues[i], expected[docIds[i]]);
+      }
     }
 
     FileUtils.deleteQuietly(outFileFourByte);
@@ -145,6 +159,17 @@ public class FixedByteChunkSVForwardIndexTest {
         Assert.assertEquals(fourByteOffsetReader.getLong(i, fourByteOffsetReaderContext), expected[i]);
         Assert.assertEquals(eightByteOffsetReader.getLong(i, eightByteOffsetReaderContext), expected[i]);
       }
+
+      // Batch read every third value across the chunks
+      int[] docIds = getDocIdsToBatchRead();
+      long[] fourByteOffsetValues = new long[docIds.length];
+      long[] eightByteOffsetValues = new long[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, fourByteOffsetValues, fourByteOffsetReaderContext);
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, eightByteOffsetValues, eightByteOffsetReaderContext);
+      for (int i = 0; i < docIds.length; i++) {
+        Assert.assertEquals(fourByteOffsetValues[i], expected[docIds[i]]);
+        Assert.assertEquals(eightByteOffsetValues[i], expected[docIds[i]]);
+      }
     }
 
     FileUtils.deleteQuietly(outFileFourByte);
@@ -186,6 +211,17 @@ public class FixedByteChunkSVForwardIndexTest {
         Assert.assertEquals(fourByteOffsetReader.getFloat(i, fourByteOffsetReaderContext), expected[i]);
         Assert.assertEquals(eightByteOffsetReader.getFloat(i, eightByteOffsetReaderContext), expected[i]);
       }
+
+      // Batch read every third value across the chunks
+      int[] docIds = getDocIdsToBatchRead();
+      float[] fourByteOffsetValues = new float[docIds.length];
+      float[] eightByteOffsetValues = new float[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, fourByteOffsetValues, fourByteOffsetReaderContext);
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, eightByteOffsetValues, eightByteOffsetReaderContext);
+      for (int i = 0; i < docIds.length; i++) {
+        Assert.assertEquals(fourByteOffsetValues[i], expected[docIds[i]]);
+        Assert.assertEquals(eightByteOffsetValues[i], expected[docIds[i]]);
+      }
     }
 
     FileUtils.deleteQuietly(outFileFourByte);
@@ -227,12 +263,31 @@ public class FixedByteChunkSVForwardIndexTest {
         Assert.assertEquals(fourByteOffsetReader.getDouble(i, fourByteOffsetReaderContext), expected[i]);
         Assert.assertEquals(eightByteOffsetReader.getDouble(i, eightByteOffsetReaderContext), expected[i]);
       }
+
+      // Batch read every third value across the chunks
+      int[] docIds = getDocIdsToBatchRead();
+      double[] fourByteOffsetValues = new double[docIds.length];
+      double[] eightByteOffsetValues = new double[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, fourByteOffsetValues, fourByteOffsetReaderContext);
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, eightByteOffsetValues, eightByteOffsetReaderContext);
+      for (int i = 0; i < docIds.length; i++) {
+        Assert.assertEquals(fourByteOffsetValues[i], expected[docIds[i]]);
+        Assert.assertEquals(eightByteOffsetValues[i], expected[docIds[i]]);
+      }
     }
 
     FileUtils.deleteQuietly(outFileFourByte);
     FileUtils.deleteQuietly(outFileEightByte);
   }
 
+  private static int[] getDocIdsToBatchRead() {
+    int[] docIds = new int[(NUM_VALUES + 2) / 3];
+    for (int i = 0; i < docIds.length; i++) {
+      docIds[i] = i * 3;
+    }
+    return docIds;
+  }
+
   /**
    * This test ensures that the reader can read in an data file from version 1.
    */
@@ -52,6 +52,8 @@ public class VarByteChunkSVForwardIndexTest {
   public void testWithCompression()
       throws Exception {
     test(ChunkCompressorFactory.CompressionType.SNAPPY);
+    test(ChunkCompressorFactory.CompressionType.ZSTANDARD);
+    test(ChunkCompressorFactory.CompressionType.LZ4);
   }
 
   @Test
@@ -111,6 +113,20 @@ public class VarByteChunkSVForwardIndexTest {
         Assert.assertEquals(fourByteOffsetReader.getString(i, fourByteOffsetReaderContext), expected[i]);
         Assert.assertEquals(eightByteOffsetReader.getString(i, eightByteOffsetReaderContext), expected[i]);
       }
+
+      // Batch read every third value across the chunks
+      int[] docIds = new int[(NUM_ENTRIES + 2) / 3];
+      for (int i = 0; i < docIds.length; i++) {
+        docIds[i] = i * 3;
+      }
+      String[] stringValues = new String[docIds.length];
+      byte[][] bytesValues = new byte[docIds.length][];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, stringValues, fourByteOffsetReaderContext);
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, bytesValues, eightByteOffsetReaderContext);
+      for (int i = 0; i < docIds.length; i++) {
+        Assert.assertEquals(stringValues[i], expected[docIds[i]]);
+        Assert.assertEquals(StringUtil.decodeUtf8(bytesValues[i]), expected[docIds[i]]);
+      }
     }
 
     FileUtils.deleteQuietly(outFileFourByte);
@@ -176,6 +192,8 @@ public class VarByteChunkSVForwardIndexTest {
 
     testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.SNAPPY, 1000000, 10);
     testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.PASS_THROUGH, 1000000, 10);
+    testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.ZSTANDARD, 1000000, 10);
+    testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.LZ4, 1000000, 10);
 
     testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.SNAPPY, 2000000, 10);
     testLargeVarcharHelper(ChunkCompressorFactory.CompressionType.PASS_THROUGH, 2000000, 10);
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.plan.maker.PlanMaker;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.apache.pinot.spi.utils.JsonUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that the queries served from the {@link SegmentResultCache} return the same results as the queries without
+ * cache.
+ */
+public class SegmentResultCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String[] AGGREGATIONS = new String[]{
+      "COUNT(*)", "SUM(column1)", "MAX(column3)", "AVG(column1)", "MINMAXRANGE(column3)", "DISTINCTCOUNT(column1)",
+      "DISTINCTCOUNTHLL(column3)", "PERCENTILETDIGEST90(column1)"
+  };
+
+  @Test
+  public void testPqlQueries()
+      throws Exception {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(Long.MAX_VALUE);
+    PlanMaker planMaker = new InstancePlanMakerImplV2(segmentResultCache);
+    for (String aggregation : AGGREGATIONS) {
+      String query = "SELECT " + aggregation + " FROM testTable";
+      String[] queries = new String[]{
+          query, query + getFilter(), query + " GROUP BY column9", query + getFilter() + " GROUP BY column9"
+      };
+      for (String pqlQuery : queries) {
+        BrokerResponseNative expected = getBrokerResponseForPqlQuery(pqlQuery);
+        // Run twice to compare both the cache miss and the cache hit
+        for (int i = 0; i < 2; i++) {
+          BrokerResponseNative actual = getBrokerResponseForPqlQuery(pqlQuery, planMaker);
+          assertEquals(JsonUtils.objectToString(actual.getAggregationResults()),
+              JsonUtils.objectToString(expected.getAggregationResults()), pqlQuery);
+          assertSameStats(actual, expected);
+        }
+      }
+    }
+    assertEquals(segmentResultCache.size(), 4 * AGGREGATIONS.length);
+    assertEquals(segmentResultCache.getNumSegments(), 1);
+
+    // Invalidating another segment should not affect the cached results
+    segmentResultCache.invalidate("testTable", "otherSegment");
+    assertEquals(segmentResultCache.size(), 4 * AGGREGATIONS.length);
+
+    // The cached results should be invalidated with the segment
+    segmentResultCache.invalidate("testTable", getIndexSegment().getSegmentName());
+    assertEquals(segmentResultCache.size(), 0);
+    assertEquals(segmentResultCache.getNumSegments(), 0);
+  }
+
+  @Test
+  public void testSqlQueries()
+      throws Exception {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(Long.MAX_VALUE);
+    PlanMaker planMaker = new InstancePlanMakerImplV2(segmentResultCache);
+    for (String aggregation : AGGREGATIONS) {
+      String query = "SELECT column9, " + aggregation + " FROM testTable";
+      String[] queries = new String[]{
+          query + " GROUP BY column9 ORDER BY column9 LIMIT 100",
+          query + getFilter() + " GROUP BY column9 ORDER BY column9 LIMIT 100"
+      };
+      for (String sqlQuery : queries) {
+        BrokerResponseNative expected = getBrokerResponseForSqlQuery(sqlQuery);
+        for (int i = 0; i < 2; i++) {
+          BrokerResponseNative actual = getBrokerResponseForSqlQuery(sqlQuery, planMaker);
+          assertEquals(JsonUtils.objectToString(actual.getResultTable()),
+              JsonUtils.objectToString(expected.getResultTable()), sqlQuery);
+          assertSameStats(actual, expected);
+        }
+      }
+    }
+    assertEquals(segmentResultCache.size(), 2 * AGGREGATIONS.length);
+
+    // Limit should not affect the cache key
+    getBrokerResponseForSqlQuery("SELECT column9, COUNT(*) FROM testTable GROUP BY column9 ORDER BY column9 LIMIT 5",
+        planMaker);
+    assertEquals(segmentResultCache.size(), 2 * AGGREGATIONS.length);
+  }
+
+  @Test
+  public void testQueriesWithDifferentOrderByAndHaving()
+      throws Exception {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(Long.MAX_VALUE);
+    PlanMaker planMaker = new InstancePlanMakerImplV2(segmentResultCache);
+    // The queries only differ in order-by or having, which add different aggregation functions to the segment results
+    String query = "SELECT column11, SUM(column1) FROM testTable GROUP BY column11";
+    String[] queries = new String[]{
+        query + " ORDER BY SUM(column1) LIMIT 10",
+        query + " ORDER BY MAX(column3) LIMIT 10",
+        query + " HAVING MIN(column3) > 0 ORDER BY column11 LIMIT 10",
+        query + " HAVING AVG(column1) > 0 ORDER BY column11 LIMIT 10"
+    };
+    for (int i = 0; i < 2; i++) {
+      for (String sqlQuery : queries) {
+        BrokerResponseNative expected = getBrokerResponseForSqlQuery(sqlQuery);
+        BrokerResponseNative actual = getBrokerResponseForSqlQuery(sqlQuery, planMaker);
+        assertTrue(actual.getProcessingExceptions().isEmpty(), sqlQuery);
+        assertEquals(JsonUtils.objectToString(actual.getResultTable()),
+            JsonUtils.objectToString(expected.getResultTable()), sqlQuery);
+      }
+    }
+    assertEquals(segmentResultCache.size(), queries.length);
+  }
+
+  @Test
+  public void testNonAggregationQueries() {
+    SegmentResultCache segmentResultCache = new SegmentResultCache(Long.MAX_VALUE);
+    PlanMaker planMaker = new InstancePlanMakerImplV2(segmentResultCache);
+    getBrokerResponseForSqlQuery("SELECT column1 FROM testTable LIMIT 10", planMaker);
+    getBrokerResponseForSqlQuery("SELECT DISTINCT column1 FROM testTable LIMIT 10", planMaker);
+    assertEquals(segmentResultCache.size(), 0);
+    assertNull(SegmentResultCache.getInstance());
+    assertTrue(SegmentResultCache.isCacheable(getIndexSegment()));
+  }
+
+  @Test
+  public void testEviction() {
+    // Every entry is heavier than the max size, so it is evicted right after being cached
+    SegmentResultCache segmentResultCache = new SegmentResultCache(1);
+    PlanMaker planMaker = new InstancePlanMakerImplV2(segmentResultCache);
+    getBrokerResponseForSqlQuery("SELECT COUNT(*) FROM testTable", planMaker);
+    assertEquals(segmentResultCache.size(), 0);
+    // The evicted keys should be removed from the segment index
+    assertEquals(segmentResultCache.getNumSegments(), 0);
+  }
+
+  private static void assertSameStats(BrokerResponseNative actual, BrokerResponseNative expected) {
+    assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+    assertEquals(actual.getNumEntriesScannedInFilter(), expected.getNumEntriesScannedInFilter());
+    assertEquals(actual.getNumEntriesScannedPostFilter(), expected.getNumEntriesScannedPostFilter());
+    assertEquals(actual.getNumSegmentsMatched(), expected.getNumSegmentsMatched());
+    assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+  }
+}
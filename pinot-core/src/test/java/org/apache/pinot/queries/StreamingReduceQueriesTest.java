@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.common.utils.CommonConstants.Broker.Request;
+import org.apache.pinot.common.utils.CommonConstants.Server;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
+import org.apache.pinot.core.plan.Plan;
+import org.apache.pinot.core.query.reduce.BrokerReduceService;
+import org.apache.pinot.core.query.reduce.StreamingBrokerReducer;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.BrokerRequestToQueryContextConverter;
+import org.apache.pinot.core.transport.ServerRoutingInstance;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+
+/**
+ * Tests that the streaming reduce ({@link StreamingBrokerReducer}) gives the same broker response as reducing all the
+ * data tables at once with {@link BrokerReduceService#reduceOnDataTable}.
+ */
+public class StreamingReduceQueriesTest extends BaseSingleValueQueriesTest {
+  private static final int NUM_SERVERS = 3;
+
+  private BrokerReduceService _brokerReduceService;
+
+  @BeforeClass
+  public void setUp() {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(CommonConstants.Broker.CONFIG_OF_MAX_REDUCE_THREADS_PER_QUERY, 2);
+    _brokerReduceService = new BrokerReduceService(new PinotConfiguration(properties));
+  }
+
+  @Test
+  public void testAggregation()
+      throws Exception {
+    testPqlQuery("SELECT COUNT(*), SUM(column1), MAX(column3), DISTINCTCOUNT(column6) FROM testTable");
+    testPqlQuery("SELECT COUNT(*), AVG(column1) FROM testTable WHERE column1 < 0");
+    testSqlQuery("SELECT COUNT(*), SUM(column1) + MAX(column3), DISTINCTCOUNT(column6) FROM testTable");
+    testSqlQuery("SELECT COUNT(*), AVG(column1) FROM testTable WHERE column1 < 0");
+  }
+
+  @Test
+  public void testGroupBy()
+      throws Exception {
+    testPqlQuery("SELECT SUM(column1), MAX(column3) FROM testTable GROUP BY column11, column12 TOP 20");
+    testPqlQuery("SELECT COUNT(*) FROM testTable GROUP BY column9 TOP 5");
+    testSqlQuery("SELECT column11, column12, SUM(column1), MAX(column3) FROM testTable GROUP BY column11, column12 "
+        + "ORDER BY SUM(column1) DESC, column11, column12 LIMIT 20");
+    testSqlQuery("SELECT column11, COUNT(*) FROM testTable GROUP BY column11 HAVING COUNT(*) > 100 "
+        + "ORDER BY COUNT(*), column11");
+    testSqlQuery("SELECT column11, COUNT(*) FROM testTable WHERE column1 < 0 GROUP BY column11");
+  }
+
+  @Test
+  public void testSelection()
+      throws Exception {
+    testPqlQuery("SELECT column1, column5, column11 FROM testTable ORDER BY column1 DESC, column5 LIMIT 30");
+    testPqlQuery("SELECT * FROM testTable LIMIT 20");
+    testSqlQuery("SELECT column1, column5, column11 FROM testTable ORDER BY column1, column5 DESC LIMIT 10, 30");
+    testSqlQuery("SELECT column1 AS c1, column6 FROM testTable LIMIT 20");
+    testSqlQuery("SELECT column1, column6 FROM testTable WHERE column1 < 0 ORDER BY column6 LIMIT 20");
+  }
+
+  @Test
+  public void testDistinct() {
+    BrokerRequest brokerRequest = PQL_COMPILER.compileToBrokerRequest("SELECT DISTINCT(column11) FROM testTable");
+    assertNull(_brokerReduceService
+        .getStreamingReducer(brokerRequest, CommonConstants.Broker.DEFAULT_BROKER_TIMEOUT_MS, null));
+  }
+
+  private void testPqlQuery(String pqlQuery)
+      throws Exception {
+    testQuery(PQL_COMPILER.compileToBrokerRequest(pqlQuery));
+  }
+
+  private void testSqlQuery(String sqlQuery)
+      throws Exception {
+    BrokerRequest brokerRequest = SQL_COMPILER.compileToBrokerRequest(sqlQuery);
+    Map<String, String> queryOptions = new HashMap<>();
+    queryOptions.put(Request.QueryOptionKey.GROUP_BY_MODE, Request.SQL);
+    queryOptions.put(Request.QueryOptionKey.RESPONSE_FORMAT, Request.SQL);
+    brokerRequest.setQueryOptions(queryOptions);
+    testQuery(brokerRequest);
+  }
+
+  private void testQuery(BrokerRequest brokerRequest)
+      throws Exception {
+    QueryContext queryContext = BrokerRequestToQueryContextConverter.convert(brokerRequest);
+    Plan plan = PLAN_MAKER.makeInstancePlan(getIndexSegments(), queryContext, EXECUTOR_SERVICE,
+        System.currentTimeMillis() + Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT_MS);
+    byte[] serializedResponse = plan.execute().toBytes();
+
+    // NOTE: Deserialize separate data tables for the batch and the streaming reduce because the reduce might modify
+    //       the data tables
+    Map<ServerRoutingInstance, DataTable> dataTableMap = new LinkedHashMap<>();
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      dataTableMap.put(new ServerRoutingInstance("localhost", 1234 + i, TableType.OFFLINE),
+          DataTableFactory.getDataTable(serializedResponse));
+    }
+    BrokerResponseNative expectedBrokerResponse = _brokerReduceService
+        .reduceOnDataTable(brokerRequest, dataTableMap, CommonConstants.Broker.DEFAULT_BROKER_TIMEOUT_MS, null);
+
+    StreamingBrokerReducer streamingReducer =
+        _brokerReduceService.getStreamingReducer(brokerRequest, CommonConstants.Broker.DEFAULT_BROKER_TIMEOUT_MS, null);
+    assertNotNull(streamingReducer);
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      streamingReducer.reduce(new ServerRoutingInstance("localhost", 1234 + i, TableType.OFFLINE),
+          DataTableFactory.getDataTable(serializedResponse));
+    }
+    assertEquals(streamingReducer.getNumDataTablesReduced(), NUM_SERVERS);
+    assertEquals(streamingReducer.getBrokerResponse().toJsonString(), expectedBrokerResponse.toJsonString());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _brokerReduceService.shutDown();
+  }
+}
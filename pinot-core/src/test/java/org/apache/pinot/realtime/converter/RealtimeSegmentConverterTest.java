@@ -18,8 +18,23 @@
  */
 package org.apache.pinot.realtime.converter;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.segment.ReadMode;
+import org.apache.pinot.core.data.readers.PinotSegmentRecordReader;
+import org.apache.pinot.core.indexsegment.generator.SegmentVersion;
+import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
+import org.apache.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.core.indexsegment.mutable.MutableSegmentImpl;
+import org.apache.pinot.core.indexsegment.mutable.MutableSegmentImplTestUtils;
 import org.apache.pinot.core.realtime.converter.RealtimeSegmentConverter;
+import org.apache.pinot.core.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.core.segment.virtualcolumn.VirtualColumnProviderFactory;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.config.table.TableType;
@@ -29,12 +44,24 @@ import org.apache.pinot.spi.data.MetricFieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.TimeFieldSpec;
 import org.apache.pinot.spi.data.TimeGranularitySpec;
+import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.mockito.Mockito;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 
 public class RealtimeSegmentConverterTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentConverterTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String STRING_COLUMN = "stringCol";
+  private static final String INT_COLUMN = "intCol";
+  private static final String MV_INT_COLUMN = "mvIntCol";
+  private static final String LONG_COLUMN = "longCol";
+  private static final String TIME_COLUMN = "timeCol";
+  private static final int NUM_DOCS = 1000;
 
   @Test
   public void testNoVirtualColumnsInSchema() {
@@ -47,4 +74,85 @@ public class RealtimeSegmentConverterTest {
     Schema newSchema = RealtimeSegmentConverter.getUpdatedSchema(schema);
     Assert.assertEquals(newSchema.getColumnNames().size(), 2);
   }
+
+  @Test
+  public void testColumnarConversion()
+      throws Exception {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT)
+        .addMultiValueDimension(MV_INT_COLUMN, FieldSpec.DataType.INT)
+        .addMetric(LONG_COLUMN, FieldSpec.DataType.LONG)
+        .addDateTime(TIME_COLUMN, FieldSpec.DataType.LONG, "1:MILLISECONDS:EPOCH", "1:MILLISECONDS").build();
+    TableConfig tableConfig =
+        new TableConfigBuilder(TableType.REALTIME).setTableName(RAW_TABLE_NAME).setTimeColumnName(TIME_COLUMN)
+            .build();
+    // NOTE: Sorted column needs inverted index in the mutable segment to generate the sorted doc id order
+    MutableSegmentImpl mutableSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, Collections.singleton(LONG_COLUMN), Collections.emptySet(),
+            new HashSet<>(Arrays.asList(STRING_COLUMN, INT_COLUMN)), false);
+    Random random = new Random();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      GenericRow row = new GenericRow();
+      row.putValue(STRING_COLUMN, "value" + random.nextInt(50));
+      row.putValue(INT_COLUMN, random.nextInt(100));
+      Object[] multiValues = new Object[1 + random.nextInt(3)];
+      for (int j = 0; j < multiValues.length; j++) {
+        multiValues[j] = random.nextInt(20);
+      }
+      row.putValue(MV_INT_COLUMN, multiValues);
+      row.putValue(LONG_COLUMN, random.nextLong());
+      row.putValue(TIME_COLUMN, (long) i);
+      mutableSegment.index(row, null);
+    }
+
+    try {
+      RealtimeSegmentConverter converter =
+          new RealtimeSegmentConverter(mutableSegment, TEMP_DIR.getAbsolutePath(), schema, RAW_TABLE_NAME,
+              tableConfig, SEGMENT_NAME, STRING_COLUMN, Arrays.asList(STRING_COLUMN, INT_COLUMN),
+              Collections.emptyList(), Collections.emptyList(), Collections.singletonList(LONG_COLUMN),
+              Collections.emptyList(), false);
+      converter.build(SegmentVersion.v3, Mockito.mock(ServerMetrics.class));
+
+      IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+      indexLoadingConfig.setReadMode(ReadMode.heap);
+      indexLoadingConfig.setInvertedIndexColumns(Collections.singleton(INT_COLUMN));
+      ImmutableSegment immutableSegment =
+          ImmutableSegmentLoader.load(new File(TEMP_DIR, SEGMENT_NAME), indexLoadingConfig);
+      try {
+        Assert.assertEquals(immutableSegment.getSegmentMetadata().getTotalDocs(), NUM_DOCS);
+        Assert.assertTrue(immutableSegment.getDataSource(STRING_COLUMN).getDataSourceMetadata().isSorted());
+        Assert.assertNotNull(immutableSegment.getDataSource(INT_COLUMN).getInvertedIndex());
+        Assert.assertNull(immutableSegment.getDataSource(LONG_COLUMN).getDictionary());
+      } finally {
+        immutableSegment.destroy();
+      }
+
+      // The records should be the same as the mutable segment records in the sorted order
+      int[] sortedDocIds = mutableSegment.getSortedDocIdIterationOrderWithSortedColumn(STRING_COLUMN);
+      try (PinotSegmentRecordReader recordReader = new PinotSegmentRecordReader(new File(TEMP_DIR, SEGMENT_NAME))) {
+        GenericRow expectedRow = new GenericRow();
+        GenericRow actualRow = new GenericRow();
+        for (int i = 0; i < NUM_DOCS; i++) {
+          expectedRow.clear();
+          actualRow.clear();
+          mutableSegment.getRecord(sortedDocIds[i], expectedRow);
+          recordReader.next(actualRow);
+          for (String column : Arrays.asList(STRING_COLUMN, INT_COLUMN, LONG_COLUMN, TIME_COLUMN)) {
+            Assert.assertEquals(actualRow.getValue(column), expectedRow.getValue(column));
+          }
+          Assert.assertEquals((Object[]) actualRow.getValue(MV_INT_COLUMN),
+              (Object[]) expectedRow.getValue(MV_INT_COLUMN));
+        }
+        Assert.assertFalse(recordReader.hasNext());
+      }
+    } finally {
+      mutableSegment.destroy();
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
 }
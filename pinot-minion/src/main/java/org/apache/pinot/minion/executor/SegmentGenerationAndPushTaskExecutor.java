@@ -300,6 +300,12 @@ public class SegmentGenerationAndPushTaskExecutor extends BaseTaskExecutor {
     segmentNameGeneratorSpec.setConfigs(
         IngestionConfigUtils.getConfigMapWithPrefix(taskConfigs, BatchConfigProperties.SEGMENT_NAME_GENERATOR_CONFIGS));
     taskSpec.setSegmentNameGeneratorSpec(segmentNameGeneratorSpec);
+    String numIndexingThreads = taskConfigs.get(BatchConfigProperties.NUM_INDEXING_THREADS);
+    if (numIndexingThreads != null) {
+      taskSpec.setNumIndexingThreads(Integer.parseInt(numIndexingThreads));
+    }
+    taskSpec.setParallelStatsCollection(
+        Boolean.parseBoolean(taskConfigs.get(BatchConfigProperties.PARALLEL_STATS_COLLECTION)));
     taskSpec.setCustomProperty(BatchConfigProperties.INPUT_DATA_FILE_URI_KEY, inputFileURI.toString());
     return taskSpec;
   }
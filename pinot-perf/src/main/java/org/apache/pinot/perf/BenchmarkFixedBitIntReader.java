@@ -124,6 +124,21 @@ public class BenchmarkFixedBitIntReader {
     return sum;
   }
 
+  @Benchmark
+  public int intReaderBulkScalar() {
+    int sum = 0;
+    int[] buffer = new int[32];
+    for (int i = 0; i < NUM_VALUES - 32; i += 32) {
+      for (int j = 0; j < 32; j++) {
+        buffer[j] = _intReader.readUnchecked(i + j);
+      }
+      for (int j = 0; j < 32; j++) {
+        sum += buffer[j];
+      }
+    }
+    return sum;
+  }
+
   public static void main(String[] args)
       throws Exception {
     new Runner(new OptionsBuilder().include(BenchmarkFixedBitIntReader.class.getSimpleName()).build()).run();
@@ -61,6 +61,7 @@ public class BenchmarkFixedBitSVForwardIndexReader {
 
   private final int[] _sequentialDocIds = new int[NUM_DOC_IDS];
   private final int[] _denseDocIds = new int[NUM_DOC_IDS];
+  private final int[] _mediumDocIds = new int[NUM_DOC_IDS];
   private final int[] _sparseDocIds = new int[NUM_DOC_IDS];
   private final int[] _dictIdBuffer = new int[NUM_DOC_IDS];
 
@@ -85,13 +86,16 @@ public class BenchmarkFixedBitSVForwardIndexReader {
 
     int sequentialDocId = RANDOM.nextInt(32);
     int denseDocId = RANDOM.nextInt(32);
+    int mediumDocId = RANDOM.nextInt(32);
     int sparseDocId = RANDOM.nextInt(32);
     for (int i = 0; i < NUM_DOC_IDS; i++) {
       _sequentialDocIds[i] = sequentialDocId;
       _denseDocIds[i] = denseDocId;
+      _mediumDocIds[i] = mediumDocId;
       _sparseDocIds[i] = sparseDocId;
       sequentialDocId++;
       denseDocId += 1 + RANDOM.nextInt(2);
+      mediumDocId += 2 + RANDOM.nextInt(2);
       sparseDocId += 5 + RANDOM.nextInt(6);
     }
   }
@@ -115,6 +119,12 @@ public class BenchmarkFixedBitSVForwardIndexReader {
     return _dictIdBuffer[0];
   }
 
+  @Benchmark
+  public int readerMedium() {
+    _reader.readDictIds(_mediumDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
+    return _dictIdBuffer[0];
+  }
+
   @Benchmark
   public int readerSparse() {
     _reader.readDictIds(_sparseDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
@@ -133,6 +143,12 @@ public class BenchmarkFixedBitSVForwardIndexReader {
     return _dictIdBuffer[0];
   }
 
+  @Benchmark
+  public int readerV2Medium() {
+    _readerV2.readDictIds(_mediumDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
+    return _dictIdBuffer[0];
+  }
+
   @Benchmark
   public int readerV2Sparse() {
     _readerV2.readDictIds(_sparseDocIds, NUM_DOC_IDS, _dictIdBuffer, null);
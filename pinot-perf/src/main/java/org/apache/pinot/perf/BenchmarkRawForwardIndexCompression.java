@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.core.segment.creator.impl.V1Constants;
+import org.apache.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawIndexCreator;
+import org.apache.pinot.core.segment.creator.impl.fwd.SingleValueVarByteRawIndexCreator;
+import org.apache.pinot.core.segment.index.readers.forward.BaseChunkSVForwardIndexReader.ChunkReaderContext;
+import org.apache.pinot.core.segment.index.readers.forward.FixedByteChunkSVForwardIndexReader;
+import org.apache.pinot.core.segment.index.readers.forward.VarByteChunkSVForwardIndexReader;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmark for the raw (no-dictionary) forward index with different chunk compression types. It compares the
+ * throughput of scanning the whole index (which decompresses every chunk), and prints the on-disk index size for each
+ * compression type during the setup.
+ * <p>See {@link RawIndexBenchmark} for comparing the raw index against the dictionary-encoded index on real data.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class BenchmarkRawForwardIndexCompression {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkRawForwardIndexCompression");
+  private static final String LONG_COLUMN = "longColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final int NUM_DOCS = 1_000_000;
+  private static final int MAX_STRING_LENGTH = 32;
+  private static final int STRING_CARDINALITY = 1000;
+  private static final Random RANDOM = new Random();
+
+  @Param({"PASS_THROUGH", "SNAPPY", "ZSTANDARD", "LZ4"})
+  public String _compressionType;
+
+  private PinotDataBuffer _longDataBuffer;
+  private PinotDataBuffer _stringDataBuffer;
+  private FixedByteChunkSVForwardIndexReader _longReader;
+  private VarByteChunkSVForwardIndexReader _stringReader;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteDirectory(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+    ChunkCompressorFactory.CompressionType compressionType =
+        ChunkCompressorFactory.CompressionType.valueOf(_compressionType);
+
+    // Mimic a time column: increasing values with small random gaps
+    try (SingleValueFixedByteRawIndexCreator indexCreator = new SingleValueFixedByteRawIndexCreator(INDEX_DIR,
+        compressionType, LONG_COLUMN, NUM_DOCS, DataType.LONG)) {
+      long value = System.currentTimeMillis();
+      for (int i = 0; i < NUM_DOCS; i++) {
+        value += RANDOM.nextInt(100);
+        indexCreator.putLong(value);
+      }
+    }
+
+    // Mimic a dimension column: strings with limited cardinality
+    String[] dictionary = new String[STRING_CARDINALITY];
+    for (int i = 0; i < STRING_CARDINALITY; i++) {
+      StringBuilder stringBuilder = new StringBuilder();
+      int length = 1 + RANDOM.nextInt(MAX_STRING_LENGTH);
+      for (int j = 0; j < length; j++) {
+        stringBuilder.append((char) ('a' + RANDOM.nextInt(26)));
+      }
+      dictionary[i] = stringBuilder.toString();
+    }
+    try (SingleValueVarByteRawIndexCreator indexCreator = new SingleValueVarByteRawIndexCreator(INDEX_DIR,
+        compressionType, STRING_COLUMN, NUM_DOCS, DataType.STRING, MAX_STRING_LENGTH)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        indexCreator.putString(dictionary[RANDOM.nextInt(STRING_CARDINALITY)]);
+      }
+    }
+
+    File longIndexFile = new File(INDEX_DIR, LONG_COLUMN + V1Constants.Indexes.RAW_SV_FORWARD_INDEX_FILE_EXTENSION);
+    File stringIndexFile =
+        new File(INDEX_DIR, STRING_COLUMN + V1Constants.Indexes.RAW_SV_FORWARD_INDEX_FILE_EXTENSION);
+    System.out.println(
+        "\nCompression type: " + compressionType + ", LONG index size: " + longIndexFile.length()
+            + " bytes, STRING index size: " + stringIndexFile.length() + " bytes");
+
+    _longDataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(longIndexFile);
+    _stringDataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(stringIndexFile);
+    _longReader = new FixedByteChunkSVForwardIndexReader(_longDataBuffer, DataType.LONG);
+    _stringReader = new VarByteChunkSVForwardIndexReader(_stringDataBuffer, DataType.STRING);
+  }
+
+  @TearDown
+  public void tearDown()
+      throws Exception {
+    _longReader.close();
+    _stringReader.close();
+    _longDataBuffer.close();
+    _stringDataBuffer.close();
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+
+  @Benchmark
+  public long scanLong()
+      throws Exception {
+    long sum = 0;
+    try (ChunkReaderContext context = _longReader.createContext()) {
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        sum += _longReader.getLong(docId, context);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long scanString()
+      throws Exception {
+    long sum = 0;
+    try (ChunkReaderContext context = _stringReader.createContext()) {
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        sum += _stringReader.getString(docId, context).length();
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkRawForwardIndexCompression.class.getSimpleName()).build()).run();
+  }
+}
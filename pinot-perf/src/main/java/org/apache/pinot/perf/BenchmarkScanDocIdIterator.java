@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.common.Constants;
+import org.apache.pinot.core.io.writer.impl.FixedBitSVForwardIndexWriter;
+import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
+import org.apache.pinot.core.operator.filter.predicate.EqualsPredicateEvaluatorFactory;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.core.query.request.context.ExpressionContext;
+import org.apache.pinot.core.query.request.context.predicate.EqPredicate;
+import org.apache.pinot.core.query.request.context.predicate.RangePredicate;
+import org.apache.pinot.core.realtime.impl.dictionary.IntOnHeapMutableDictionary;
+import org.apache.pinot.core.segment.index.readers.forward.FixedBitSVForwardIndexReaderV2;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmark for the scan-based filtering on a dictionary-encoded single-value column, comparing the batched
+ * {@link SVScanDocIdIterator} against evaluating the predicate one document at a time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class BenchmarkScanDocIdIterator {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BenchmarkScanDocIdIterator");
+  private static final int CARDINALITY = 1000;
+  private static final int NUM_BITS = 10;
+  private static final Random RANDOM = new Random();
+
+  @Param({"10000000", "100000000"})
+  public int _numDocs;
+
+  private PinotDataBuffer _dataBuffer;
+  private FixedBitSVForwardIndexReaderV2 _reader;
+  private PredicateEvaluator _eqPredicateEvaluator;
+  private PredicateEvaluator _rangePredicateEvaluator;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteDirectory(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+    File indexFile = new File(INDEX_DIR, "column");
+    try (FixedBitSVForwardIndexWriter indexWriter = new FixedBitSVForwardIndexWriter(indexFile, _numDocs, NUM_BITS)) {
+      for (int i = 0; i < _numDocs; i++) {
+        indexWriter.putDictId(RANDOM.nextInt(CARDINALITY));
+      }
+    }
+    _dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(indexFile);
+    _reader = new FixedBitSVForwardIndexReaderV2(_dataBuffer, _numDocs, NUM_BITS);
+
+    // Values are indexed in order so that the dictionary ids are the same as the values
+    IntOnHeapMutableDictionary dictionary = new IntOnHeapMutableDictionary();
+    for (int i = 0; i < CARDINALITY; i++) {
+      dictionary.index(i);
+    }
+    ExpressionContext column = ExpressionContext.forIdentifier("column");
+    _eqPredicateEvaluator = EqualsPredicateEvaluatorFactory
+        .newDictionaryBasedEvaluator(new EqPredicate(column, Integer.toString(CARDINALITY / 2)), dictionary);
+    _rangePredicateEvaluator = RangePredicateEvaluatorFactory.newDictionaryBasedEvaluator(
+        new RangePredicate(column, true, Integer.toString(CARDINALITY / 4), false,
+            Integer.toString(CARDINALITY / 2)), dictionary, DataType.INT);
+  }
+
+  @TearDown
+  public void tearDown()
+      throws Exception {
+    _dataBuffer.close();
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+
+  @Benchmark
+  public long eqPerDoc() {
+    return scanPerDoc(_eqPredicateEvaluator);
+  }
+
+  @Benchmark
+  public long eqBatched() {
+    return scanBatched(_eqPredicateEvaluator);
+  }
+
+  @Benchmark
+  public long rangePerDoc() {
+    return scanPerDoc(_rangePredicateEvaluator);
+  }
+
+  @Benchmark
+  public long rangeBatched() {
+    return scanBatched(_rangePredicateEvaluator);
+  }
+
+  /**
+   * Mimics the previous scan-based iterator, which evaluates the predicate one document at a time.
+   */
+  private long scanPerDoc(PredicateEvaluator predicateEvaluator) {
+    long ret = 0;
+    for (int docId = 0; docId < _numDocs; docId++) {
+      if (predicateEvaluator.applySV(_reader.getDictId(docId, null))) {
+        ret += docId;
+      }
+    }
+    return ret;
+  }
+
+  private long scanBatched(PredicateEvaluator predicateEvaluator) {
+    SVScanDocIdIterator iterator = new SVScanDocIdIterator(predicateEvaluator, _reader, _numDocs);
+    long ret = 0;
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      ret += docId;
+    }
+    return ret;
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkScanDocIdIterator.class.getSimpleName()).build()).run();
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.pinot.core.data.readers.GenericRowRecordReader;
 import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.core.io.compression.ChunkCompressorFactory;
 import org.apache.pinot.core.operator.DocIdSetOperator;
 import org.apache.pinot.core.operator.ProjectionOperator;
 import org.apache.pinot.core.operator.blocks.ProjectionBlock;
@@ -57,7 +58,8 @@ import org.kohsuke.args4j.Option;
 /**
  * Class to perform benchmark on lookups for dictionary encoded fwd index v.s. raw index without dictionary.
  * It can take an existing segment with two columns to compare. It can also create a segment on the fly with a
- * given input file containing strings (one string per line).
+ * given input file containing strings (one string per line). The compression type for the raw index can be specified
+ * when creating the segment. See {@link BenchmarkRawForwardIndexCompression} for comparing the compression types.
  */
 @SuppressWarnings({"FieldCanBeLocal", "unused"})
 public class RawIndexBenchmark {
@@ -82,6 +84,9 @@ public class RawIndexBenchmark {
   @Option(name = "-dataFile", required = false, forbids = {"-segmentDir"}, usage = "File containing input data (one string per line)")
   private String _dataFile = null;
 
+  @Option(name = "-compressionType", required = false, forbids = {"-segmentDir"}, usage = "Compression type for raw index (PASS_THROUGH|SNAPPY|ZSTANDARD|LZ4)")
+  private String _compressionType = ChunkCompressorFactory.CompressionType.SNAPPY.name();
+
   @Option(name = "-loadMode", required = false, usage = "Load mode for data (mmap|heap")
   private String _loadMode = "heap";
 
@@ -133,6 +138,8 @@ public class RawIndexBenchmark {
     TableConfig tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName("test").build();
     SegmentGeneratorConfig config = new SegmentGeneratorConfig(tableConfig, schema);
     config.setRawIndexCreationColumns(Collections.singletonList(_rawIndexColumn));
+    config.setRawIndexCompressionType(Collections
+        .singletonMap(_rawIndexColumn, ChunkCompressorFactory.CompressionType.valueOf(_compressionType.toUpperCase())));
 
     config.setOutDir(SEGMENT_DIR_NAME);
     config.setSegmentName(SEGMENT_NAME);
@@ -96,6 +96,8 @@ public class SegmentGenerationTaskRunner implements Serializable {
     segmentGeneratorConfig.setRecordReaderPath(_taskSpec.getRecordReaderSpec().getClassName());
     segmentGeneratorConfig.setInputFilePath(_taskSpec.getInputFilePath());
     segmentGeneratorConfig.setCustomProperties(_taskSpec.getCustomProperties());
+    segmentGeneratorConfig.setNumIndexingThreads(Math.max(_taskSpec.getNumIndexingThreads(), 1));
+    segmentGeneratorConfig.setParallelStatsCollection(_taskSpec.isParallelStatsCollection());
 
     //build segment
     SegmentIndexCreationDriverImpl segmentIndexCreationDriver = new SegmentIndexCreationDriverImpl();
@@ -304,6 +304,8 @@ public class SparkSegmentGenerationJobRunner implements IngestionJobRunner, Seri
               SegmentGenerationUtils.getTableConfig(_spec.getTableSpec().getTableConfigURI()).toJsonNode());
           taskSpec.setSequenceId(idx);
           taskSpec.setSegmentNameGeneratorSpec(_spec.getSegmentNameGeneratorSpec());
+          taskSpec.setNumIndexingThreads(_spec.getSegmentCreationNumIndexingThreads());
+          taskSpec.setParallelStatsCollection(_spec.isSegmentCreationParallelStatsCollection());
           taskSpec.setCustomProperty(BatchConfigProperties.INPUT_DATA_FILE_URI_KEY, inputFileURI.toString());
 
           SegmentGenerationTaskRunner taskRunner = new SegmentGenerationTaskRunner(taskSpec);
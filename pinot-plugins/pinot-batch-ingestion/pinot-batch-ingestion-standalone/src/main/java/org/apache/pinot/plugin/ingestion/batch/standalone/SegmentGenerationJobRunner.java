@@ -189,6 +189,8 @@ public class SegmentGenerationJobRunner implements IngestionJobRunner {
         taskSpec.setTableConfig(tableConfig.toJsonNode());
         taskSpec.setSequenceId(i);
         taskSpec.setSegmentNameGeneratorSpec(_spec.getSegmentNameGeneratorSpec());
+        taskSpec.setNumIndexingThreads(_spec.getSegmentCreationNumIndexingThreads());
+        taskSpec.setParallelStatsCollection(_spec.isSegmentCreationParallelStatsCollection());
         taskSpec.setCustomProperty(BatchConfigProperties.INPUT_DATA_FILE_URI_KEY, inputFileURI.toString());
 
         LOGGER.info("Submitting one Segment Generation Task for {}", inputFileURI);
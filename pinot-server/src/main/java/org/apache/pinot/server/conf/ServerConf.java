@@ -78,6 +78,11 @@ public class ServerConf {
     return _serverConf.getProperty(Helix.KEY_OF_SERVER_NETTY_PORT, Helix.DEFAULT_SERVER_NETTY_PORT);
   }
 
+  public boolean isNettyNativeTransportEnabled() {
+    return _serverConf
+        .getProperty(Server.CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED, Server.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED);
+  }
+
   public boolean isEnableGrpcServer() {
     return _serverConf.getProperty(Server.CONFIG_OF_ENABLE_GRPC_SERVER, Server.DEFAULT_ENABLE_GRPC_SERVER);
   }
@@ -86,6 +91,11 @@ public class ServerConf {
     return _serverConf.getProperty(Server.CONFIG_OF_GRPC_PORT, Server.DEFAULT_GRPC_PORT);
   }
 
+  public int getCurrentDataTableVersion() {
+    return _serverConf.getProperty(Server.CONFIG_OF_CURRENT_DATA_TABLE_VERSION,
+        Server.DEFAULT_CURRENT_DATA_TABLE_VERSION);
+  }
+
   public PinotConfiguration getConfig(String component) {
     return _serverConf.subset(PINOT_ + component);
   }
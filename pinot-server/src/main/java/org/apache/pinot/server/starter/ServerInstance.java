@@ -27,6 +27,7 @@ import org.apache.helix.HelixManager;
 import org.apache.pinot.common.function.FunctionRegistry;
 import org.apache.pinot.common.metrics.MetricsHelper;
 import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.common.datatable.DataTableBuilder;
 import org.apache.pinot.core.data.manager.InstanceDataManager;
 import org.apache.pinot.core.operator.transform.function.TransformFunction;
 import org.apache.pinot.core.operator.transform.function.TransformFunctionFactory;
@@ -76,6 +77,10 @@ public class ServerInstance {
     _instanceDataManager = (InstanceDataManager) Class.forName(instanceDataManagerClassName).newInstance();
     _instanceDataManager.init(serverConf.getInstanceDataManagerConfig(), helixManager, _serverMetrics);
 
+    int dataTableVersion = serverConf.getCurrentDataTableVersion();
+    LOGGER.info("Setting data table version to: {}", dataTableVersion);
+    DataTableBuilder.setCurrentDataTableVersion(dataTableVersion);
+
     // Initialize FunctionRegistry before starting the query executor
     FunctionRegistry.init();
     String queryExecutorClassName = serverConf.getQueryExecutorClassName();
@@ -91,7 +96,8 @@ public class ServerInstance {
 
     int nettyPort = serverConf.getNettyPort();
     LOGGER.info("Initializing Netty query server on port: {}", nettyPort);
-    _nettyQueryServer = new QueryServer(nettyPort, _queryScheduler, _serverMetrics);
+    _nettyQueryServer =
+        new QueryServer(nettyPort, _queryScheduler, _serverMetrics, serverConf.isNettyNativeTransportEnabled());
 
     if (serverConf.isEnableGrpcServer()) {
       int grpcPort = serverConf.getGrpcPort();
@@ -93,7 +93,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     }
 
     // Initialize the table data manager provider
-    TableDataManagerProvider.init(_instanceDataManagerConfig);
+    TableDataManagerProvider.init(_instanceDataManagerConfig, _serverMetrics);
 
     LOGGER.info("Initialized Helix instance data manager");
   }
@@ -25,6 +25,7 @@ import org.apache.pinot.common.segment.ReadMode;
 import org.apache.pinot.common.utils.CommonConstants.Server;
 import org.apache.pinot.core.data.manager.config.InstanceDataManagerConfig;
 import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.DataSizeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +79,10 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
   // Direct memory allocation may mean setting heap size appropriately when starting JVM.
   // The metric ServerGauge.REALTIME_OFFHEAP_MEMORY_USED should indicate how much memory is needed.
   private static final String DIRECT_REALTIME_OFFHEAP_ALLOCATION = "realtime.alloc.offheap.direct";
+  // Server-wide budget of the off-heap memory for the realtime consuming segments (e.g. 16G). When the budget is
+  // exhausted, the consuming segments using the most memory are flushed early, and the others pause consuming.
+  // No budget is enforced if not configured.
+  private static final String REALTIME_OFFHEAP_MEMORY_BUDGET = "realtime.alloc.offheap.memoryBudget";
 
   // Number of simultaneous segments that can be refreshed on one server.
   // Segment refresh works by loading the old as well as new versions of segments in memory, assigning
@@ -194,6 +199,12 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
     return _instanceDataManagerConfiguration.getProperty(MAX_PARALLEL_SEGMENT_BUILDS, 0);
   }
 
+  @Override
+  public long getRealtimeOffHeapMemoryBudgetBytes() {
+    String memoryBudget = _instanceDataManagerConfiguration.getProperty(REALTIME_OFFHEAP_MEMORY_BUDGET);
+    return memoryBudget != null ? DataSizeUtils.toBytes(memoryBudget) : -1;
+  }
+
   @Override
   public String toString() {
     String configString = "";
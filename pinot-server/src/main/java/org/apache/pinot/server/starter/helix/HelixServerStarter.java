@@ -387,7 +387,8 @@ public class HelixServerStarter implements ServiceStartable {
     serverMetrics.addCallbackGauge("memory.allocationFailureCount", PinotDataBuffer::getAllocationFailureCount);
 
     _realtimeLuceneIndexRefreshState = RealtimeLuceneIndexRefreshState.getInstance();
-    _realtimeLuceneIndexRefreshState.start();
+    _realtimeLuceneIndexRefreshState.start(_serverConf.getProperty(Server.CONFIG_OF_REALTIME_TEXT_INDEX_REFRESH_THREADS,
+        RealtimeLuceneIndexRefreshState.DEFAULT_NUM_REFRESH_THREADS));
   }
 
   @Override
@@ -21,6 +21,7 @@ package org.apache.pinot.spi.config.table;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
+import javax.annotation.Nullable;
 import org.apache.pinot.spi.config.BaseJsonConfig;
 
 
@@ -30,16 +31,45 @@ public class UpsertConfig extends BaseJsonConfig {
     FULL, PARTIAL, NONE
   }
 
+  public enum MetadataStoreType {
+    ON_HEAP, OFF_HEAP
+  }
+
   private final Mode _mode;
+  private final MetadataStoreType _metadataStoreType;
+  private final boolean _enableSnapshot;
+
+  public UpsertConfig(Mode mode) {
+    this(mode, null, null);
+  }
 
   @JsonCreator
-  public UpsertConfig(@JsonProperty(value = "mode", required = true) Mode mode) {
+  public UpsertConfig(@JsonProperty(value = "mode", required = true) Mode mode,
+      @JsonProperty("metadataStoreType") @Nullable MetadataStoreType metadataStoreType,
+      @JsonProperty("enableSnapshot") @Nullable Boolean enableSnapshot) {
     Preconditions.checkArgument(mode != null, "Upsert mode must be configured");
     Preconditions.checkArgument(mode != Mode.PARTIAL, "Partial upsert mode is not supported");
     _mode = mode;
+    _metadataStoreType = metadataStoreType != null ? metadataStoreType : MetadataStoreType.ON_HEAP;
+    _enableSnapshot = enableSnapshot != null && enableSnapshot;
   }
 
   public Mode getMode() {
     return _mode;
   }
+
+  /**
+   * Returns the type of the store that keeps the primary key to record location mapping on the servers.
+   */
+  public MetadataStoreType getMetadataStoreType() {
+    return _metadataStoreType;
+  }
+
+  /**
+   * Returns whether to persist the valid doc ids snapshot for the immutable segments when shutting down the server, so
+   * that only the valid docs need to be replayed when the segments are loaded again.
+   */
+  public boolean isEnableSnapshot() {
+    return _enableSnapshot;
+  }
 }
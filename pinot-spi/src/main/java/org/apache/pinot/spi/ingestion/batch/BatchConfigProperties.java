@@ -44,6 +44,8 @@ public class BatchConfigProperties {
   public static final String SEGMENT_NAME_GENERATOR_TYPE = "segmentNameGenerator.type";
   public static final String SEGMENT_NAME_GENERATOR_CONFIGS = "segmentNameGenerator.configs";
   public static final String OVERWRITE_OUTPUT = "overwriteOutput";
+  public static final String NUM_INDEXING_THREADS = "segmentCreation.numIndexingThreads";
+  public static final String PARALLEL_STATS_COLLECTION = "segmentCreation.parallelStatsCollection";
   public static final String INPUT_DATA_FILE_URI_KEY = "input.data.file.uri";
   public static final String PUSH_MODE = "push.mode";
   public static final String PUSH_CONTROLLER_URI = "push.controllerUri";
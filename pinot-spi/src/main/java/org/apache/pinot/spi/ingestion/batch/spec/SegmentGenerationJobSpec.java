@@ -76,6 +76,17 @@ public class SegmentGenerationJobSpec implements Serializable {
    */
   private int _segmentCreationJobParallelism;
 
+  /**
+   * Number of threads to index the columns of a segment in parallel (1 means indexing the rows one by one).
+   */
+  private int _segmentCreationNumIndexingThreads = 1;
+
+  /**
+   * Whether to also collect the column stats of a segment in parallel with the indexing threads. Only takes effect when
+   * the number of indexing threads is greater than 1.
+   */
+  private boolean _segmentCreationParallelStatsCollection;
+
   /**
    * Should overwrite output segments if existed.
    */
@@ -253,6 +264,22 @@ public class SegmentGenerationJobSpec implements Serializable {
     _segmentCreationJobParallelism = segmentCreationJobParallelism;
   }
 
+  public int getSegmentCreationNumIndexingThreads() {
+    return _segmentCreationNumIndexingThreads;
+  }
+
+  public void setSegmentCreationNumIndexingThreads(int segmentCreationNumIndexingThreads) {
+    _segmentCreationNumIndexingThreads = segmentCreationNumIndexingThreads;
+  }
+
+  public boolean isSegmentCreationParallelStatsCollection() {
+    return _segmentCreationParallelStatsCollection;
+  }
+
+  public void setSegmentCreationParallelStatsCollection(boolean segmentCreationParallelStatsCollection) {
+    _segmentCreationParallelStatsCollection = segmentCreationParallelStatsCollection;
+  }
+
   public void setCleanUpOutputDir(boolean cleanUpOutputDir) {
     _cleanUpOutputDir = cleanUpOutputDir;
   }
@@ -68,6 +68,16 @@ public class SegmentGenerationTaskSpec implements Serializable {
    */
   private int _sequenceId;
 
+  /**
+   * Number of threads to index the columns in parallel
+   */
+  private int _numIndexingThreads = 1;
+
+  /**
+   * Whether to collect the column stats in parallel with the indexing threads
+   */
+  private boolean _parallelStatsCollection;
+
   /**
    * Custom properties set into segment metadata
    */
@@ -129,6 +139,22 @@ public class SegmentGenerationTaskSpec implements Serializable {
     _sequenceId = sequenceId;
   }
 
+  public int getNumIndexingThreads() {
+    return _numIndexingThreads;
+  }
+
+  public void setNumIndexingThreads(int numIndexingThreads) {
+    _numIndexingThreads = numIndexingThreads;
+  }
+
+  public boolean isParallelStatsCollection() {
+    return _parallelStatsCollection;
+  }
+
+  public void setParallelStatsCollection(boolean parallelStatsCollection) {
+    _parallelStatsCollection = parallelStatsCollection;
+  }
+
   public void setCustomProperty(String key, String value) {
     if (!key.startsWith(CUSTOM_PREFIX)) {
       key = CUSTOM_PREFIX + key;
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.spi.stream;
+
+import java.util.List;
+import org.apache.pinot.spi.annotations.InterfaceAudience;
+import org.apache.pinot.spi.annotations.InterfaceStability;
+import org.apache.pinot.spi.data.readers.GenericRow;
+
+
+/**
+ * Optional extension of {@link StreamMessageDecoder} for decoders that can decode all the messages within a
+ * {@link MessageBatch} at once (e.g. decoders for payloads that pack multiple records in a columnar layout), which
+ * avoids the per-message decoding overhead.
+ * @param <T>
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public interface BatchStreamMessageDecoder<T> extends StreamMessageDecoder<T> {
+
+  /**
+   * Decodes all the messages within the message batch.
+   *
+   * @param messageBatch The message batch to decode
+   * @param destinations The {@link GenericRow}s to write the decoded rows into, one per message (same size as the
+   *                     message count of the batch)
+   * @return The decoded rows, one per message, where {@code null} means the message cannot be decoded
+   */
+  List<GenericRow> decodeBatch(MessageBatch<T> messageBatch, List<GenericRow> destinations);
+}
@@ -48,6 +48,7 @@ public class StreamConfig {
   public static final long DEFAULT_FLUSH_THRESHOLD_TIME_MILLIS = TimeUnit.MILLISECONDS.convert(6, TimeUnit.HOURS);
   public static final long DEFAULT_FLUSH_THRESHOLD_SEGMENT_SIZE_BYTES = 200 * 1024 * 1024; // 200M
   public static final int DEFAULT_FLUSH_AUTOTUNE_INITIAL_ROWS = 100_000;
+  public static final int DEFAULT_DECODING_THREADS = 0;
 
   public static final String DEFAULT_CONSUMER_FACTORY_CLASS_NAME_STRING =
       "org.apache.pinot.plugin.stream.kafka09.KafkaConsumerFactory";
@@ -74,6 +75,8 @@ public class StreamConfig {
   private final long _flushThresholdSegmentSizeBytes;
   private final int _flushAutotuneInitialRows; // initial num rows to use for SegmentSizeBasedFlushThresholdUpdater
 
+  private final int _decodingThreads;
+
   private final String _groupId;
 
   private final Map<String, String> _streamConfigMap = new HashMap<>();
@@ -178,6 +181,18 @@ public class StreamConfig {
     }
     _flushAutotuneInitialRows = autotuneInitialRows > 0 ? autotuneInitialRows : DEFAULT_FLUSH_AUTOTUNE_INITIAL_ROWS;
 
+    int decodingThreads = DEFAULT_DECODING_THREADS;
+    String decodingThreadsValue = streamConfigMap.get(StreamConfigProperties.REALTIME_DECODING_THREADS);
+    if (decodingThreadsValue != null) {
+      try {
+        decodingThreads = Integer.parseInt(decodingThreadsValue);
+      } catch (Exception e) {
+        LOGGER.warn("Invalid config {}: {}, defaulting to: {}", StreamConfigProperties.REALTIME_DECODING_THREADS,
+            decodingThreadsValue, DEFAULT_DECODING_THREADS);
+      }
+    }
+    _decodingThreads = Math.max(decodingThreads, 0);
+
     String groupIdKey = StreamConfigProperties.constructStreamProperty(_type, StreamConfigProperties.GROUP_ID);
     _groupId = streamConfigMap.get(groupIdKey);
 
@@ -313,6 +328,10 @@ public class StreamConfig {
     return _flushAutotuneInitialRows;
   }
 
+  public int getDecodingThreads() {
+    return _decodingThreads;
+  }
+
   public String getGroupId() {
     return _groupId;
   }
@@ -332,7 +351,8 @@ public class StreamConfig {
         + _offsetCriteria + '\'' + ", _connectionTimeoutMillis=" + _connectionTimeoutMillis + ", _fetchTimeoutMillis="
         + _fetchTimeoutMillis + ", _flushThresholdRows=" + _flushThresholdRows + ", _flushThresholdTimeMillis="
         + _flushThresholdTimeMillis + ", _flushSegmentDesiredSizeBytes=" + _flushThresholdSegmentSizeBytes
-        + ", _flushAutotuneInitialRows=" + _flushAutotuneInitialRows + ", _decoderClass='" + _decoderClass + '\''
+        + ", _flushAutotuneInitialRows=" + _flushAutotuneInitialRows + ", _decodingThreads=" + _decodingThreads
+        + ", _decoderClass='" + _decoderClass + '\''
         + ", _decoderProperties=" + _decoderProperties + ", _groupId='" + _groupId + ", _tableNameWithType='"
         + _tableNameWithType + '}';
   }
@@ -354,7 +374,8 @@ public class StreamConfig {
         .isEqual(_flushThresholdRows, that._flushThresholdRows) && EqualityUtils
         .isEqual(_flushThresholdTimeMillis, that._flushThresholdTimeMillis) && EqualityUtils
         .isEqual(_flushThresholdSegmentSizeBytes, that._flushThresholdSegmentSizeBytes) && EqualityUtils
-        .isEqual(_flushAutotuneInitialRows, that._flushAutotuneInitialRows) && EqualityUtils.isEqual(_type, that._type)
+        .isEqual(_flushAutotuneInitialRows, that._flushAutotuneInitialRows) && EqualityUtils
+        .isEqual(_decodingThreads, that._decodingThreads) && EqualityUtils.isEqual(_type, that._type)
         && EqualityUtils.isEqual(_topicName, that._topicName) && EqualityUtils
         .isEqual(_consumerTypes, that._consumerTypes) && EqualityUtils
         .isEqual(_consumerFactoryClassName, that._consumerFactoryClassName) && EqualityUtils
@@ -377,6 +398,7 @@ public class StreamConfig {
     result = EqualityUtils.hashCodeOf(result, _flushThresholdTimeMillis);
     result = EqualityUtils.hashCodeOf(result, _flushThresholdSegmentSizeBytes);
     result = EqualityUtils.hashCodeOf(result, _flushAutotuneInitialRows);
+    result = EqualityUtils.hashCodeOf(result, _decodingThreads);
     result = EqualityUtils.hashCodeOf(result, _decoderClass);
     result = EqualityUtils.hashCodeOf(result, _decoderProperties);
     result = EqualityUtils.hashCodeOf(result, _groupId);
@@ -100,6 +100,12 @@ public class StreamConfigProperties {
    * The initial num rows to use for segment size auto tuning. By default 100_000 is used.
    */
   public static final String SEGMENT_FLUSH_AUTOTUNE_INITIAL_ROWS = "realtime.segment.flush.autotune.initialRows";
+  /**
+   * The number of threads to decode and transform the consumed messages in parallel for each partition. Messages are
+   * still indexed in order by the consumer thread. By default 0 is used, where the messages are decoded and transformed
+   * by the consumer thread.
+   */
+  public static final String REALTIME_DECODING_THREADS = "realtime.segment.decoding.threads";
   // Time threshold that controller will wait for the segment to be built by the server
   public static final String SEGMENT_COMMIT_TIMEOUT_SECONDS = "realtime.segment.commit.timeoutSeconds";
 